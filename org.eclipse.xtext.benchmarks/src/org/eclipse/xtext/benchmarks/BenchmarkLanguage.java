@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.benchmarks;
+
+import org.eclipse.xtext.Constants;
+import org.eclipse.xtext.ISetup;
+import org.eclipse.xtext.linking.LangATestLanguageStandaloneSetup;
+import org.eclipse.xtext.parser.indentation.IndentationAwareTestLanguageStandaloneSetup;
+import org.eclipse.xtext.parser.unorderedGroups.UnorderedGroupsTestLanguageStandaloneSetup;
+import org.eclipse.xtext.testlanguages.SimpleExpressionsTestLanguageStandaloneSetup;
+import org.eclipse.xtext.util.ReplaceRegion;
+
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.name.Names;
+
+/**
+ * The test languages that are used by the benchmarks together with a generator for models of arbitrary size.
+ */
+public enum BenchmarkLanguage {
+
+	/**
+	 * Expressions with actions. The elements are combined into a balanced tree of parenthesized sums, since a flat
+	 * sequence would nest one composite node per element.
+	 */
+	EXPRESSIONS(new SimpleExpressionsTestLanguageStandaloneSetup()) {
+		@Override
+		protected void appendElements(StringBuilder model, int from, int to, int alternativeIndex) {
+			if (to - from <= 1) {
+				super.appendElements(model, from, to, alternativeIndex);
+				return;
+			}
+			int middle = (from + to) / 2;
+			model.append("(");
+			appendElements(model, from, middle, alternativeIndex);
+			model.append(") + (");
+			appendElements(model, middle, to, alternativeIndex);
+			model.append(")\n");
+		}
+
+		@Override
+		protected void appendElement(StringBuilder model, int index, boolean alternative) {
+			if (alternative) {
+				model.append("(x").append(index).append(" - y").append(index).append(") / z").append(index);
+			} else {
+				model.append("(a").append(index).append(" + b").append(index).append(") * c").append(index);
+			}
+		}
+	},
+
+	/**
+	 * Types that refer to each other.
+	 */
+	LINKING(new LangATestLanguageStandaloneSetup()) {
+		@Override
+		protected void appendElement(StringBuilder model, int index, boolean alternative) {
+			model.append("type T").append(index);
+			if (index > 0) {
+				model.append(" extends T").append(index - 1);
+				if (!alternative) {
+					model.append(" implements T0, T").append(index / 2);
+				}
+			}
+			model.append('\n');
+		}
+	},
+
+	/**
+	 * Nested blocks that are delimited by synthetic INDENT and DEDENT tokens.
+	 */
+	INDENTATION(new IndentationAwareTestLanguageStandaloneSetup()) {
+		@Override
+		protected void appendElement(StringBuilder model, int index, boolean alternative) {
+			model.append("node").append(index).append('\n');
+			if (alternative) {
+				model.append("\tchanged").append(index).append('\n');
+			} else {
+				model.append("\tchild").append(index).append('\n');
+				model.append("\t\tleaf").append(index).append('\n');
+				model.append("\tother").append(index).append('\n');
+			}
+		}
+	},
+
+	/**
+	 * A long sequence of nested unordered groups.
+	 */
+	UNORDERED_GROUPS(new UnorderedGroupsTestLanguageStandaloneSetup()) {
+		@Override
+		protected void appendPrologue(StringBuilder model) {
+			model.append("14\n");
+		}
+
+		@Override
+		protected void appendElement(StringBuilder model, int index, boolean alternative) {
+			model.append((index % 2 == 0) != alternative ? "a b c d\n" : "d c b a\n");
+		}
+	};
+
+	private final ISetup setup;
+
+	private BenchmarkLanguage(ISetup setup) {
+		this.setup = setup;
+	}
+
+	public Injector createInjector() {
+		return setup.createInjectorAndDoEMFRegistration();
+	}
+
+	public String getFileExtension(Injector injector) {
+		String fileExtensions = injector.getInstance(Key.get(String.class, Names.named(Constants.FILE_EXTENSIONS)));
+		return fileExtensions.split(",")[0];
+	}
+
+	/**
+	 * Creates a model with the given number of elements.
+	 */
+	public String createModel(int size) {
+		return createModel(size, -1);
+	}
+
+	/**
+	 * Creates a model with the given number of elements where the element at the given index is replaced by an
+	 * alternative that is syntactically valid, too.
+	 */
+	public String createModel(int size, int alternativeIndex) {
+		StringBuilder result = new StringBuilder(size * 32);
+		appendPrologue(result);
+		appendElements(result, 0, size, alternativeIndex);
+		return result.toString();
+	}
+
+	/**
+	 * Computes the minimal edit that turns the first model into the second one.
+	 */
+	public static ReplaceRegion computeEdit(String from, String to) {
+		int prefix = 0;
+		int maxPrefix = Math.min(from.length(), to.length());
+		while (prefix < maxPrefix && from.charAt(prefix) == to.charAt(prefix)) {
+			prefix++;
+		}
+		int suffix = 0;
+		int maxSuffix = maxPrefix - prefix;
+		while (suffix < maxSuffix && from.charAt(from.length() - suffix - 1) == to.charAt(to.length() - suffix - 1)) {
+			suffix++;
+		}
+		return new ReplaceRegion(prefix, from.length() - prefix - suffix, to.substring(prefix, to.length() - suffix));
+	}
+
+	protected void appendPrologue(StringBuilder model) {
+	}
+
+	protected void appendElements(StringBuilder model, int from, int to, int alternativeIndex) {
+		for (int i = from; i < to; i++) {
+			appendElement(model, i, i == alternativeIndex);
+		}
+	}
+
+	protected abstract void appendElement(StringBuilder model, int index, boolean alternative);
+
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.benchmarks;
+
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.ILeafNode;
+import org.eclipse.xtext.nodemodel.INode;
+import org.eclipse.xtext.nodemodel.impl.ColumnarNodeModel;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.eclipse.xtext.parser.IParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the traversal performance of the node model that is created by the parser with the
+ * {@link ColumnarNodeModel columnar node model}. The memory footprint is reported by {@link NodeModelFootprint}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NodeModelBenchmark {
+
+	public enum NodeModelKind {
+		DEFAULT, COLUMNAR
+	}
+
+	private static final int LOOKUPS = 100;
+
+	@Param({ "EXPRESSIONS", "LINKING", "INDENTATION", "UNORDERED_GROUPS" })
+	public BenchmarkLanguage language;
+
+	@Param({ "100", "10000" })
+	public int size;
+
+	@Param({ "DEFAULT", "COLUMNAR" })
+	public NodeModelKind nodeModel;
+
+	private ICompositeNode rootNode;
+
+	private int[] offsets;
+
+	@Setup
+	public void setUp() {
+		IParser parser = language.createInjector().getInstance(IParser.class);
+		rootNode = parser.parse(new StringReader(language.createModel(size))).getRootNode();
+		if (nodeModel == NodeModelKind.COLUMNAR) {
+			rootNode = ColumnarNodeModel.create(rootNode).getRootNode();
+		}
+		Random random = new Random(size);
+		offsets = new int[LOOKUPS];
+		for (int i = 0; i < LOOKUPS; i++) {
+			offsets[i] = random.nextInt(rootNode.getTotalLength());
+		}
+	}
+
+	/**
+	 * Visits all nodes in document order.
+	 */
+	@Benchmark
+	public int traverse() {
+		int result = 0;
+		for (INode node : rootNode.getAsTreeIterable()) {
+			result += node.getTotalOffset();
+			if (node.getGrammarElement() != null) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Visits all leaf nodes and computes their text.
+	 */
+	@Benchmark
+	public int leafNodes() {
+		int result = 0;
+		for (ILeafNode leaf : rootNode.getLeafNodes()) {
+			result += leaf.getText().length();
+		}
+		return result;
+	}
+
+	/**
+	 * Looks up the leaf nodes and their semantic elements at random offsets.
+	 */
+	@Benchmark
+	public int findLeafNodeAtOffset() {
+		int result = 0;
+		for (int offset : offsets) {
+			ILeafNode leaf = NodeModelUtils.findLeafNodeAtOffset(rootNode, offset);
+			result += leaf.getTotalOffset() + leaf.getStartLine();
+			if (leaf.getSemanticElement() != null) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.benchmarks;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.xtext.GrammarUtil;
+import org.eclipse.xtext.IGrammarAccess;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.impl.ColumnarNodeModel;
+import org.eclipse.xtext.parser.IParseResult;
+import org.eclipse.xtext.parser.IParser;
+import org.openjdk.jol.info.GraphLayout;
+
+import com.google.inject.Injector;
+
+/**
+ * Prints the retained size of the parse results for each benchmark language with both the default and the
+ * {@link ColumnarNodeModel columnar node model}. The size includes the semantic model but excludes the grammar and
+ * the EMF packages.
+ */
+public class NodeModelFootprint {
+
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		System.out.println(String.format("%-20s %10s %15s %15s", "language", "size", "default [B]", "columnar [B]"));
+		for (BenchmarkLanguage language : BenchmarkLanguage.values()) {
+			Injector injector = language.createInjector();
+			IParser parser = injector.getInstance(IParser.class);
+			String model = language.createModel(size);
+			IParseResult parseResult = parser.parse(new StringReader(model));
+			Object[] shared = {
+					GrammarUtil.getGrammar(injector.getInstance(IGrammarAccess.class).getGrammar()).eResource().getResourceSet(),
+					parseResult.getRootASTElement().eClass().getEPackage(),
+					EcorePackage.eINSTANCE };
+			long defaultSize = retainedSize(parser.parse(new StringReader(model)), shared);
+			ICompositeNode columnarRoot = ColumnarNodeModel.create(parseResult.getRootNode()).getRootNode();
+			long columnarSize = retainedSize(parseResult.getRootASTElement(), columnarRoot, shared);
+			System.out.println(String.format("%-20s %10d %15d %15d", language, size, defaultSize, columnarSize));
+		}
+	}
+
+	private static long retainedSize(IParseResult parseResult, Object[] shared) {
+		return retainedSize(parseResult.getRootASTElement(), parseResult.getRootNode(), shared);
+	}
+
+	private static long retainedSize(EObject semanticModel, ICompositeNode rootNode, Object[] shared) {
+		// subtracting the sizes instead of the layouts is robust against objects that are moved by the GC in between
+		Object[] roots = Arrays.copyOf(shared, shared.length + 2);
+		roots[shared.length] = semanticModel;
+		roots[shared.length + 1] = rootNode;
+		return GraphLayout.parseInstance(roots).totalSize() - GraphLayout.parseInstance(shared).totalSize();
+	}
+
+}
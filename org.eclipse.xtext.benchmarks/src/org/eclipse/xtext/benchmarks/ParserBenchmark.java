@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.benchmarks;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.xtext.parser.IParseResult;
+import org.eclipse.xtext.parser.IParser;
+import org.eclipse.xtext.util.ReplaceRegion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.inject.Injector;
+
+/**
+ * Measures the throughput of the parser including the construction of the node model and the semantic model.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParserBenchmark {
+
+	@Param({ "EXPRESSIONS", "LINKING", "INDENTATION", "UNORDERED_GROUPS" })
+	public BenchmarkLanguage language;
+
+	@Param({ "100", "10000" })
+	public int size;
+
+	private IParser parser;
+
+	private String model;
+
+	private IParseResult parseResult;
+
+	private ReplaceRegion edit;
+
+	private ReplaceRegion undo;
+
+	@Setup
+	public void setUp() {
+		Injector injector = language.createInjector();
+		parser = injector.getInstance(IParser.class);
+		model = language.createModel(size);
+		String changedModel = language.createModel(size, size / 2);
+		edit = BenchmarkLanguage.computeEdit(model, changedModel);
+		undo = BenchmarkLanguage.computeEdit(changedModel, model);
+		parseResult = parser.parse(new StringReader(model));
+		if (parseResult.hasSyntaxErrors()) {
+			throw new IllegalStateException("Unexpected syntax errors: " + parseResult.getSyntaxErrors());
+		}
+	}
+
+	@Benchmark
+	public IParseResult parse() {
+		return parser.parse(new StringReader(model));
+	}
+
+	/**
+	 * Alternately applies and reverts a change of the element in the middle of the model.
+	 */
+	@Benchmark
+	public IParseResult reparse() {
+		parseResult = parser.reparse(parseResult, edit);
+		ReplaceRegion next = undo;
+		undo = edit;
+		edit = next;
+		return parseResult;
+	}
+
+}
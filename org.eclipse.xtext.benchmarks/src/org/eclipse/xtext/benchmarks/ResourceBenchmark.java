@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.EcoreUtil2;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.resource.XtextResourceSet;
+import org.eclipse.xtext.serializer.ISerializer;
+import org.eclipse.xtext.util.CancelIndicator;
+import org.eclipse.xtext.util.StringInputStream;
+import org.eclipse.xtext.validation.CheckMode;
+import org.eclipse.xtext.validation.IResourceValidator;
+import org.eclipse.xtext.validation.Issue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.inject.Injector;
+
+/**
+ * Measures the throughput of linking, validating and serializing a parsed resource.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ResourceBenchmark {
+
+	/**
+	 * A freshly parsed resource whose cross references are not yet resolved.
+	 */
+	@State(Scope.Thread)
+	public static class UnlinkedResource {
+
+		private XtextResource resource;
+
+		/**
+		 * The resource is loaded before each invocation, so that only the linking is measured.
+		 */
+		@Setup(Level.Invocation)
+		public void setUp(ResourceBenchmark benchmark) throws IOException {
+			resource = benchmark.load();
+		}
+
+	}
+
+	@Param({ "EXPRESSIONS", "LINKING", "INDENTATION", "UNORDERED_GROUPS" })
+	public BenchmarkLanguage language;
+
+	@Param({ "100", "10000" })
+	public int size;
+
+	private Injector injector;
+
+	private String model;
+
+	private XtextResource resource;
+
+	private IResourceValidator validator;
+
+	private ISerializer serializer;
+
+	@Setup
+	public void setUp() throws IOException {
+		injector = language.createInjector();
+		validator = injector.getInstance(IResourceValidator.class);
+		serializer = injector.getInstance(ISerializer.class);
+		model = language.createModel(size);
+		resource = load();
+		EcoreUtil2.resolveLazyCrossReferences(resource, CancelIndicator.NullImpl);
+		if (!resource.getErrors().isEmpty()) {
+			throw new IllegalStateException("Unexpected errors: " + resource.getErrors());
+		}
+	}
+
+	protected XtextResource load() throws IOException {
+		XtextResourceSet resourceSet = injector.getInstance(XtextResourceSet.class);
+		URI uri = URI.createURI("benchmark." + language.getFileExtension(injector));
+		XtextResource result = (XtextResource) resourceSet.createResource(uri);
+		result.load(new StringInputStream(model), null);
+		return result;
+	}
+
+	@Benchmark
+	public XtextResource link(UnlinkedResource unlinked) {
+		EcoreUtil2.resolveLazyCrossReferences(unlinked.resource, CancelIndicator.NullImpl);
+		return unlinked.resource;
+	}
+
+	@Benchmark
+	public List<Issue> validate() {
+		return validator.validate(resource, CheckMode.ALL, CancelIndicator.NullImpl);
+	}
+
+	@Benchmark
+	public String serialize() {
+		return serializer.serialize(resource.getContents().get(0));
+	}
+
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.ide.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.xtext.ide.ExecutorServiceProvider;
+import org.eclipse.xtext.ide.PrioritizedExecutorService;
+import org.eclipse.xtext.ide.PrioritizedExecutorService.Priority;
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.name.Names;
+
+public class PrioritizedExecutorServiceTest {
+
+	private PrioritizedExecutorService executor = new PrioritizedExecutorService(1, 1, TimeUnit.SECONDS,
+			Executors.defaultThreadFactory());
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test(timeout = 5000)
+	public void testPriorityAndSubmissionOrder() throws Exception {
+		CountDownLatch blocker = new CountDownLatch(1);
+		Future<?> blocking = executor.submit(() -> {
+			blocker.await();
+			return null;
+		});
+		List<String> executed = new CopyOnWriteArrayList<>();
+		executor.submit(Priority.BACKGROUND, () -> executed.add("background 1"));
+		executor.submit(Priority.INTERACTIVE, () -> executed.add("interactive 1"));
+		executor.submit(Priority.BACKGROUND, () -> executed.add("background 2"));
+		Future<?> last = executor.submit(() -> executed.add("interactive 2"));
+		assertEquals(2, executor.getQueuedTaskCount(Priority.INTERACTIVE));
+		assertEquals(2, executor.getQueuedTaskCount(Priority.BACKGROUND));
+
+		blocker.countDown();
+		blocking.get();
+		last.get();
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.SECONDS);
+		assertEquals(Arrays.asList("interactive 1", "interactive 2", "background 1", "background 2"), executed);
+		assertEquals(3, executor.getStartedTaskCount(Priority.INTERACTIVE));
+		assertEquals(2, executor.getStartedTaskCount(Priority.BACKGROUND));
+		assertEquals(0, executor.getQueue().size());
+	}
+
+	@Test(timeout = 5000)
+	public void testBounded() throws Exception {
+		executor.shutdownNow();
+		executor = new PrioritizedExecutorService(2, 1, TimeUnit.SECONDS, Executors.defaultThreadFactory());
+		CountDownLatch blocker = new CountDownLatch(1);
+		for (int i = 0; i < 10; i++) {
+			executor.submit(() -> {
+				blocker.await();
+				return null;
+			});
+		}
+		assertEquals(2, executor.getPoolSize());
+		assertEquals(8, executor.getQueue().size());
+		blocker.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+		assertEquals(2, executor.getLargestPoolSize());
+		assertEquals(10, executor.getCompletedTaskCount());
+	}
+
+	@Test
+	public void testMaxThreadsConfiguration() {
+		ExecutorServiceProvider provider = Guice.createInjector(binder -> {
+			binder.bindConstant().annotatedWith(Names.named(ExecutorServiceProvider.MAX_THREADS)).to(3);
+		}).getInstance(ExecutorServiceProvider.class);
+		try {
+			ExecutorService executorService = provider.get();
+			assertTrue(executorService instanceof PrioritizedExecutorService);
+			assertEquals(3, ((PrioritizedExecutorService) executorService).getMaximumPoolSize());
+			assertNotSame(executorService, provider.get("other"));
+		} finally {
+			provider.dispose();
+		}
+	}
+
+}
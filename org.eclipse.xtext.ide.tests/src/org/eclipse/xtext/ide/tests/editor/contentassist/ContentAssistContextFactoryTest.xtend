@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,7 +8,15 @@
 package org.eclipse.xtext.ide.tests.editor.contentassist
 
 import com.google.inject.Inject
+import com.google.inject.Provider
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import org.eclipse.xtext.ide.PrioritizedExecutorService
 import org.eclipse.xtext.ide.editor.contentassist.antlr.ContentAssistContextFactory
+import org.eclipse.xtext.ide.editor.contentassist.antlr.FollowElementCache
 import org.eclipse.xtext.ide.tests.testlanguage.TestLanguageIdeInjectorProvider
 import org.eclipse.xtext.ide.tests.testlanguage.services.TestLanguageGrammarAccess
 import org.eclipse.xtext.testing.InjectWith
@@ -27,7 +35,9 @@ class ContentAssistContextFactoryTest {
 
 	@Inject extension ContentAssistContextTestHelper
 	@Inject ContentAssistContextFactory factory
+	@Inject Provider<ContentAssistContextFactory> factoryProvider
 	@Inject TestLanguageGrammarAccess grammar
+	@Inject FollowElementCache followElementCache
 
 	@Test def void testSimple1() {
 		document = '''
@@ -127,4 +137,65 @@ class ContentAssistContextFactoryTest {
 		'''.toString.assertEquals(factory.firstSetGrammarElementsToString)
 	}
 
+	@Test def void testFollowElementsAreCached() {
+		document = '''
+			type Foo {
+				<|>int bar
+			}
+		'''
+		val expected = factory.firstSetGrammarElementsToString
+		val hits = followElementCache.hitCount
+		val misses = followElementCache.missCount
+		expected.assertEquals(factory.firstSetGrammarElementsToString)
+		assertTrue(followElementCache.hitCount > hits)
+		assertEquals(misses, followElementCache.missCount)
+	}
+
+	@Test def void testFollowElementCacheLimitOfSubclass() {
+		val cache = new FollowElementCache {
+			val maxInputs = 2
+
+			override protected getMaxInputs() {
+				return maxInputs
+			}
+		}
+		cache.getFollowElements('a', true, null) [emptyList]
+		cache.getFollowElements('b', true, null) [emptyList]
+		cache.getFollowElements('a', true, null) [emptyList]
+		assertEquals(1, cache.hitCount)
+		cache.getFollowElements('c', true, null) [emptyList]
+		cache.getFollowElements('b', true, null) [emptyList]
+		assertEquals(1, cache.hitCount)
+	}
+
+	@Test(timeout = 60000) def void testMoreConcurrentRequestsThanThreads() {
+		document = '''
+			type Foo {
+				<|>int bar
+			}
+		'''
+		val expected = factory.firstSetGrammarElementsToString
+		val maxThreads = 2
+		val executor = new PrioritizedExecutorService(maxThreads, 60, TimeUnit.SECONDS, Executors.defaultThreadFactory)
+		pool = executor
+		try {
+			// the first requests occupy all threads before they submit their computations
+			val allThreadsBusy = new CountDownLatch(maxThreads)
+			val Callable<String> request = [
+				allThreadsBusy.countDown
+				allThreadsBusy.await(10, TimeUnit.SECONDS)
+				return factoryProvider.get.firstSetGrammarElementsToString
+			]
+			val results = <Future<String>>newArrayList
+			for (i : 0 ..< 2 * maxThreads) {
+				results.add(executor.submit(request))
+			}
+			for (result : results) {
+				expected.assertEquals(result.get(30, TimeUnit.SECONDS))
+			}
+		} finally {
+			executor.shutdownNow
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,6 +9,7 @@ package org.eclipse.xtext.ide.tests.editor.contentassist
 
 import com.google.common.base.Preconditions
 import com.google.inject.Inject
+import java.util.concurrent.ExecutorService
 import java.util.concurrent.Executors
 import org.eclipse.emf.common.util.URI
 import org.eclipse.xtend.lib.annotations.Accessors
@@ -34,6 +35,7 @@ class ContentAssistContextTestHelper {
 	@Accessors String document
 	@Accessors ParserRule entryPoint
 	@Accessors String cursor = "<|>"
+	@Accessors ExecutorService pool
 
 	def private XtextResource parse(String doc) {
 		val uri = URI.createURI("dummy." + fileExtension.primaryFileExtension)
@@ -52,7 +54,7 @@ class ContentAssistContextTestHelper {
 		Preconditions.checkArgument(offset >= 0, "you forgot to provide a cursor")
 		val doc = document.replace(cursor, "")
 		val res = parse(doc)
-		factory.pool = Executors.newCachedThreadPool
+		factory.pool = pool ?: Executors.newCachedThreadPool
 		val ctxs = factory.create(doc, new TextRegion(0, 0), offset, res)
 		val f = new GrammarElementTitleSwitch().showAssignments.showQualified.showRule
 		return '''
@@ -106,6 +106,20 @@ class FormattingTest extends AbstractTestLangLanguageServerTest {
 		]
 	}
 	
+	@Test def void testRangeFormattingService_03() {
+		testRangeFormatting [
+			model = '''type A{int a} type B{int b} type C{int c} type D{int d} type E{int e}'''
+			range = new Range => [
+				start = new Position(0,28)
+				end = new Position(0,41)
+			]
+			expectedText = '''
+			type A{int a} type B{int b} type C{
+				int c
+			} type D{int d} type E{int e}'''
+		]
+	}
+
 	@Inject
 	Provider<XtextResourceSet> rsp
 	
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2017, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -66,6 +66,32 @@ class MultiProjectTest {
         assertTrue(diagnostics.get(bar).empty)
     }
     
+    @Test
+    def void testUpstreamResourcesAreReloaded() {
+        val foo = createFile(project0, 'Foo.testlang', '''
+            type Foo {
+                Bar bar
+            }
+        ''')
+        val bar = createFile(project1, 'Bar.testlang', '''
+            type Bar {
+            }
+        ''')
+        workspaceManager.getProjectManager(project0.name).projectDescription.dependencies += project1.name
+        workspaceManager.doBuild(#[foo, bar], emptyList, CancelIndicator.NullImpl)
+        val resourceSet = workspaceManager.getProjectManager(project0.name).resourceSet
+        val loadedBar = resourceSet.getResource(bar, false)
+        assertNotNull(loadedBar)
+        
+        createFile(project1, 'Bar.testlang', '''
+            type Bar {
+                Foo foo
+            }
+        ''')
+        workspaceManager.doBuild(#[bar], emptyList, CancelIndicator.NullImpl)
+        assertNotSame(loadedBar, resourceSet.getResource(bar, false))
+    }
+    
     @Before
     def void setup() {
         val injector = Guice.createInjector(Modules2.mixin(new ServerModule, new AbstractModule() {
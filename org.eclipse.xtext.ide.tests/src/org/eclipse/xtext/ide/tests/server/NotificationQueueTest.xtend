@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.ide.tests.server
+
+import java.util.List
+import org.eclipse.lsp4j.PublishDiagnosticsParams
+import org.eclipse.lsp4j.services.LanguageClient
+import org.eclipse.xtend.lib.annotations.Delegate
+import org.eclipse.xtext.ide.server.NotificationQueue
+import org.junit.Test
+
+import static org.junit.Assert.*
+
+class NotificationQueueTest implements LanguageClient {
+
+	@Delegate LanguageClient noImpl
+
+	List<PublishDiagnosticsParams> published = newArrayList
+
+	override publishDiagnostics(PublishDiagnosticsParams diagnostics) {
+		published += diagnostics
+	}
+
+	@Test def void testSupersededNotificationsAreDropped() {
+		val queue = new ManualNotificationQueue(10)
+		queue.connect(this)
+		val computed = <String>newArrayList
+		queue.publishDiagnostics('a') [
+			computed += 'a1'
+			new PublishDiagnosticsParams('a', #[])
+		]
+		queue.publishDiagnostics('b') [
+			computed += 'b1'
+			new PublishDiagnosticsParams('b', #[])
+		]
+		queue.publishDiagnostics('a') [
+			computed += 'a2'
+			new PublishDiagnosticsParams('a', #[])
+		]
+		assertEquals(2, queue.pendingCount)
+		assertEquals(1, queue.supersededCount)
+
+		queue.flush
+		assertEquals(#['a2', 'b1'], computed)
+		assertEquals(#['a', 'b'], published.map[uri])
+		assertEquals(0, queue.pendingCount)
+		assertEquals(3, queue.enqueuedCount)
+		assertEquals(2, queue.sentCount)
+	}
+
+	@Test(timeout = 10000) def void testFullQueueDropsOldest() {
+		val queue = new ManualNotificationQueue(2)
+		queue.publishDiagnostics('a') [new PublishDiagnosticsParams('a', #[])]
+		queue.publishDiagnostics('b') [new PublishDiagnosticsParams('b', #[])]
+		queue.publishDiagnostics('a') [new PublishDiagnosticsParams('a', #[])]
+		assertEquals(0, queue.droppedCount)
+
+		queue.publishDiagnostics('c') [new PublishDiagnosticsParams('c', #[])]
+		assertEquals(1, queue.droppedCount)
+		assertEquals(2, queue.pendingCount)
+		queue.connect(this)
+		queue.flush
+		assertEquals(#['b', 'c'], published.map[uri])
+	}
+
+	static class ManualNotificationQueue extends NotificationQueue {
+
+		val int maxPendingNotifications
+
+		new(int maxPendingNotifications) {
+			this.maxPendingNotifications = maxPendingNotifications
+		}
+
+		override protected scheduleFlush() {
+		}
+
+		override protected getMaxPendingNotifications() {
+			return maxPendingNotifications
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.ide.tests.server
+
+import com.google.inject.AbstractModule
+import com.google.inject.Guice
+import com.google.inject.Inject
+import com.google.inject.Provider
+import java.io.File
+import java.io.FileWriter
+import java.util.Map
+import org.eclipse.emf.common.util.URI
+import org.eclipse.xtext.ide.server.ProjectManager
+import org.eclipse.xtext.ide.server.ServerModule
+import org.eclipse.xtext.ide.server.UriExtensions
+import org.eclipse.xtext.ide.server.WorkspaceManager
+import org.eclipse.xtext.resource.IExternalContentSupport.IExternalContentProvider
+import org.eclipse.xtext.resource.impl.ProjectDescription
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsData
+import org.eclipse.xtext.util.CancelIndicator
+import org.eclipse.xtext.util.Files
+import org.eclipse.xtext.util.Modules2
+import org.eclipse.xtext.validation.Issue
+import org.eclipse.xtext.workspace.IProjectConfig
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+import static org.junit.Assert.*
+
+class ProjectManagerTest {
+
+	@Inject WorkspaceManager workspaceManager
+	@Inject extension UriExtensions
+
+	File root
+
+	@Before
+	def void setup() {
+		val injector = Guice.createInjector(Modules2.mixin(new ServerModule, new AbstractModule() {
+			override protected configure() {
+				bind(ProjectManager).to(TwoResourcesProjectManager)
+			}
+		}))
+		injector.injectMembers(this)
+		root = new File("./test-data/test-project").canonicalFile
+		if (!root.mkdirs) {
+			Files.cleanFolder(root, null, true, false)
+		}
+	}
+
+	@After
+	def void cleanup() {
+		if (root.exists) {
+			Files.cleanFolder(root, null, true, true)
+		}
+	}
+
+	@Test def void testUnchangedResourcesAreRetained() {
+		'Foo.testlang' -> '''
+			type Foo {
+				Bar bar
+			}
+		'''
+		'Bar.testlang' -> '''
+			type Bar {
+			}
+		'''
+		val baz = 'Baz.testlang' -> '''
+			type Baz {
+			}
+		'''
+		workspaceManager.initialize(URI.createFileURI(root.absolutePath).withEmptyAuthority, [], null)
+		val projectManager = workspaceManager.projectManagers.head
+		assertEquals(3, projectManager.resourceSet.resources.size)
+		assertEquals(0, projectManager.evictedResourceCount)
+		val firstLoaded = projectManager.resourceSet.resources.map[URI].findFirst[it != baz]
+
+		workspaceManager.didChangeFiles(#[baz], emptyList).build(null)
+		assertEquals(1, projectManager.loadedResourceCount)
+		assertEquals(1, projectManager.evictedResourceCount)
+		assertNull(projectManager.resourceSet.getResource(firstLoaded, false))
+		assertEquals(2, projectManager.resourceSet.resources.size)
+	}
+
+	@Test def void testResourcesAreEvictedWithoutOpenedDocuments() {
+		val workspaceManager = Guice.createInjector(Modules2.mixin(new ServerModule, new AbstractModule() {
+			override protected configure() {
+				bind(ProjectManager).to(NoOpenedDocumentsProjectManager)
+			}
+		})).getInstance(WorkspaceManager)
+		'Foo.testlang' -> '''
+			type Foo {
+			}
+		'''
+		'Bar.testlang' -> '''
+			type Bar {
+			}
+		'''
+		val baz = 'Baz.testlang' -> '''
+			type Baz {
+			}
+		'''
+		workspaceManager.initialize(URI.createFileURI(root.absolutePath).withEmptyAuthority, [], null)
+		val projectManager = workspaceManager.projectManagers.head
+		workspaceManager.didChangeFiles(#[baz], emptyList).build(null)
+		assertEquals(1, projectManager.evictedResourceCount)
+		assertEquals(2, projectManager.resourceSet.resources.size)
+	}
+
+	def URI ->(String path, CharSequence contents) {
+		val file = new File(root, path)
+		file.parentFile.mkdirs
+		file.createNewFile
+		new FileWriter(file) => [
+			write(contents.toString)
+			close
+		]
+		return URI.createFileURI(file.absolutePath).withEmptyAuthority
+	}
+
+	static class TwoResourcesProjectManager extends ProjectManager {
+		override protected getMaxRetainedResources() {
+			return 2
+		}
+	}
+
+	static class NoOpenedDocumentsProjectManager extends TwoResourcesProjectManager {
+		override initialize(ProjectDescription description, IProjectConfig projectConfig,
+			(URI, Iterable<Issue>)=>void acceptor, IExternalContentProvider openedDocumentsContentProvider,
+			Provider<Map<String, ResourceDescriptionsData>> indexProvider, CancelIndicator cancelIndicator) {
+			super.initialize(description, projectConfig, acceptor, null, indexProvider, cancelIndicator)
+		}
+	}
+
+}
@@ -11,9 +11,11 @@ import com.google.inject.Inject
 import java.util.List
 import org.eclipse.lsp4j.ClientCapabilities
 import org.eclipse.lsp4j.DidChangeTextDocumentParams
+import org.eclipse.lsp4j.DidCloseTextDocumentParams
 import org.eclipse.lsp4j.SemanticHighlightingCapabilities
 import org.eclipse.lsp4j.TextDocumentClientCapabilities
 import org.eclipse.lsp4j.TextDocumentContentChangeEvent
+import org.eclipse.lsp4j.TextDocumentIdentifier
 import org.eclipse.lsp4j.VersionedTextDocumentIdentifier
 import org.eclipse.xtext.ide.server.UriExtensions
 import org.junit.Before
@@ -160,6 +162,80 @@ class SemanticHighlightingTest extends AbstractTestLangLanguageServerTest {
 
 	}
 
+	@Test
+	def void testChange_sendsChangedLinesOnly() {
+		val file = root.toPath.resolve('''MyModel.fileExtension''').toFile;
+		val fileUri = file.toURI.toUriString;
+		fileUri.open('''
+			type A {
+			  int a
+			  op foo() {}
+			  op foo(a: A): string {}
+			}''');
+		notifications.clear;
+		// Rename the parameter `a` to `bb`.
+		languageServer.didChange(new DidChangeTextDocumentParams => [
+			textDocument = new VersionedTextDocumentIdentifier => [
+				uri = fileUri;
+				version = 2;
+			];
+			contentChanges = #[
+				new TextDocumentContentChangeEvent => [
+					text = 'bb'
+					range = new Range(new Position(3, 9), new Position(3, 10))
+				]
+			];
+		]);
+		fileUri.assertInfos('''3 : [5:3:[identifier], 9:2:[parameterName], 13:1:[type], 17:6:[primitiveType]]''');
+	}
+
+	@Test
+	def void testChange_sendsEditedLines() {
+		val file = root.toPath.resolve('''MyModel.fileExtension''').toFile;
+		val fileUri = file.toURI.toUriString;
+		fileUri.open('''
+			type A {
+			  int a
+			  op foo() {}
+			}''');
+		notifications.clear;
+		// Replace the field name `a` with the same text.
+		languageServer.didChange(new DidChangeTextDocumentParams => [
+			textDocument = new VersionedTextDocumentIdentifier => [
+				uri = fileUri;
+				version = 2;
+			];
+			contentChanges = #[
+				new TextDocumentContentChangeEvent => [
+					text = 'a'
+					range = new Range(new Position(1, 6), new Position(1, 7))
+				]
+			];
+		]);
+		fileUri.assertInfos('''1 : [2:3:[primitiveType], 6:1:[identifier]]''');
+	}
+
+	@Test
+	def void testReopen() {
+		val file = root.toPath.resolve('''MyModel.fileExtension''').toFile;
+		val fileUri = file.toURI.toUriString;
+		fileUri.open('''
+			type A {
+			  int a
+			}''');
+		languageServer.didClose(new DidCloseTextDocumentParams => [
+			textDocument = new TextDocumentIdentifier(fileUri);
+		]);
+		notifications.clear;
+		fileUri.open('''
+			type A {
+			  int a
+			}''');
+		fileUri.assertInfos('''0 : [5:1:[typeDeclaration]]
+1 : [2:3:[primitiveType], 6:1:[identifier]]
+2 : []''');
+	}
+
 	protected def void assertInfos(String uri, String expected) {
 		val params = semanticHighlightingParams;
 		assertEquals(1, params.size);
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.ide.tests.server
+
+import com.google.inject.Guice
+import com.google.inject.Inject
+import com.google.inject.Provider
+import java.io.File
+import java.io.FileWriter
+import org.eclipse.emf.common.util.URI
+import org.eclipse.xtext.ide.server.ServerModule
+import org.eclipse.xtext.ide.server.SharedResourceDescriptions
+import org.eclipse.xtext.ide.server.UriExtensions
+import org.eclipse.xtext.ide.server.WorkspaceManager
+import org.eclipse.xtext.util.Files
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+
+import static org.junit.Assert.*
+
+class SharedResourceDescriptionsTest {
+
+	@Inject Provider<WorkspaceManager> workspaceManagerProvider
+	@Inject SharedResourceDescriptions sharedResourceDescriptions
+	@Inject extension UriExtensions
+
+	File root
+
+	@Before
+	def void setup() {
+		Guice.createInjector(new ServerModule).injectMembers(this)
+		root = new File("./test-data/test-project").canonicalFile
+		if (!root.mkdirs) {
+			Files.cleanFolder(root, null, true, false)
+		}
+	}
+
+	@After
+	def void cleanup() {
+		if (root.exists) {
+			Files.cleanFolder(root, null, true, true)
+		}
+	}
+
+	@Test def void testSessionsShareDescriptions() {
+		val foo = 'Foo.testlang' -> '''
+			type Foo {
+				Bar bar
+			}
+		'''
+		val bar = 'Bar.testlang' -> '''
+			type Bar {
+			}
+		'''
+		val first = createWorkspaceManager
+		val second = createWorkspaceManager
+		assertSame(first.index.getResourceDescription(foo), second.index.getResourceDescription(foo))
+		assertSame(first.index.getResourceDescription(bar), second.index.getResourceDescription(bar))
+
+		second.didOpen(foo, 1, 'type Foo { Foo foo }').build(null)
+		assertNotSame(first.index.getResourceDescription(foo), second.index.getResourceDescription(foo))
+		assertSame(first.index.getResourceDescription(bar), second.index.getResourceDescription(bar))
+
+		second.didClose(foo).build(null)
+		assertSame(first.index.getResourceDescription(foo), second.index.getResourceDescription(foo))
+
+		assertEquals(2, first.sharedDescriptionCount)
+		first.dispose
+		first.dispose
+		assertEquals(2, second.sharedDescriptionCount)
+		second.dispose
+		assertEquals(0, second.sharedDescriptionCount)
+	}
+
+	@Test def void testChangedDescriptionsAreShared() {
+		val bar = 'Bar.testlang' -> '''
+			type Bar {
+			}
+		'''
+		val first = createWorkspaceManager
+		val second = createWorkspaceManager
+		val original = first.index.getResourceDescription(bar)
+		assertSame(original, second.index.getResourceDescription(bar))
+
+		'Bar.testlang' -> '''
+			type Bar {
+				Bar bar
+			}
+		'''
+		first.doBuild(#[bar], #[], null)
+		val changed = first.index.getResourceDescription(bar)
+		assertNotSame(original, changed)
+		assertSame(original, second.index.getResourceDescription(bar))
+
+		second.doBuild(#[bar], #[], null)
+		assertSame(changed, second.index.getResourceDescription(bar))
+	}
+
+	@Test def void testDeletedDescriptionsAreDiscarded() {
+		'Foo.testlang' -> '''
+			type Foo {
+			}
+		'''
+		val bar = 'Bar.testlang' -> '''
+			type Bar {
+			}
+		'''
+		val first = createWorkspaceManager
+		val second = createWorkspaceManager
+		assertEquals(2, first.sharedDescriptionCount)
+
+		new File(root, 'Bar.testlang').delete
+		first.doBuild(#[], #[bar], null)
+		assertNull(first.index.getResourceDescription(bar))
+		assertNotNull(second.index.getResourceDescription(bar))
+		assertEquals(1, first.sharedDescriptionCount)
+
+		second.doBuild(#[], #[bar], null)
+		assertNull(second.index.getResourceDescription(bar))
+		assertEquals(1, first.sharedDescriptionCount)
+
+		first.dispose
+		second.dispose
+		assertEquals(0, first.sharedDescriptionCount)
+	}
+
+	def int getSharedDescriptionCount(WorkspaceManager workspaceManager) {
+		val projectManager = workspaceManager.projectManagers.head
+		return sharedResourceDescriptions.getSharedDescriptionCount(projectManager.projectDescription.name + ':' + projectManager.baseDir)
+	}
+
+	def WorkspaceManager createWorkspaceManager() {
+		val result = workspaceManagerProvider.get
+		result.initialize(URI.createFileURI(root.absolutePath).withEmptyAuthority, [], null)
+		return result
+	}
+
+	def URI ->(String path, CharSequence contents) {
+		val file = new File(root, path)
+		file.parentFile.mkdirs
+		file.createNewFile
+		new FileWriter(file) => [
+			write(contents.toString)
+			close
+		]
+		return URI.createFileURI(file.absolutePath).withEmptyAuthority
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2017, 2018 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2017, 2018, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,10 @@ import com.google.inject.Guice
 import com.google.inject.Inject
 import java.util.concurrent.atomic.AtomicBoolean
 import java.util.concurrent.atomic.AtomicInteger
+import org.eclipse.xtext.ide.PrioritizedExecutorService.Priority
 import org.eclipse.xtext.ide.server.ServerModule
 import org.eclipse.xtext.ide.server.concurrent.RequestManager
+import org.eclipse.xtext.util.CancelIndicator
 import org.junit.After
 import org.junit.Before
 import org.junit.Ignore
@@ -50,6 +52,25 @@ class RequestManagerTest {
 		assertEquals('Foo', future.get)
 	}
 
+	@Test(timeout = 1000)
+	def void testRunReadWithPriority() {
+		val dispatched = new AtomicInteger
+		val manager = new RequestManager {
+			override <V> runRead((CancelIndicator)=>V cancellable) {
+				dispatched.incrementAndGet
+				return super.runRead(cancellable)
+			}
+		}
+		Guice.createInjector(new ServerModule).injectMembers(manager)
+		try {
+			assertEquals('Foo', manager.runRead(Priority.BACKGROUND) ['Foo'].get)
+			assertEquals('Bar', manager.runRead(Priority.INTERACTIVE) ['Bar'].get)
+			assertEquals(2, dispatched.get)
+		} finally {
+			manager.shutdown
+		}
+	}
+
 	@Test(timeout = 1000)
 	def void testRunReadConcurrent() {
 		val future = requestManager.runRead [
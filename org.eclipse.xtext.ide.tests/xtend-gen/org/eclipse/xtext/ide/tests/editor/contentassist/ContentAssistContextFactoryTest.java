@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2016 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,13 +8,29 @@
 package org.eclipse.xtext.ide.tests.editor.contentassist;
 
 import com.google.inject.Inject;
+import com.google.inject.Provider;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import org.eclipse.xtend2.lib.StringConcatenation;
+import org.eclipse.xtext.ide.PrioritizedExecutorService;
 import org.eclipse.xtext.ide.editor.contentassist.antlr.ContentAssistContextFactory;
+import org.eclipse.xtext.ide.editor.contentassist.antlr.FollowElement;
+import org.eclipse.xtext.ide.editor.contentassist.antlr.FollowElementCache;
 import org.eclipse.xtext.ide.tests.editor.contentassist.ContentAssistContextTestHelper;
 import org.eclipse.xtext.ide.tests.testlanguage.TestLanguageIdeInjectorProvider;
 import org.eclipse.xtext.ide.tests.testlanguage.services.TestLanguageGrammarAccess;
 import org.eclipse.xtext.testing.InjectWith;
 import org.eclipse.xtext.testing.XtextRunner;
+import org.eclipse.xtext.xbase.lib.CollectionLiterals;
+import org.eclipse.xtext.xbase.lib.Exceptions;
+import org.eclipse.xtext.xbase.lib.ExclusiveRange;
 import org.eclipse.xtext.xbase.lib.Extension;
 import org.junit.Assert;
 import org.junit.Test;
@@ -34,9 +50,15 @@ public class ContentAssistContextFactoryTest {
   @Inject
   private ContentAssistContextFactory factory;
   
+  @Inject
+  private Provider<ContentAssistContextFactory> factoryProvider;
+  
   @Inject
   private TestLanguageGrammarAccess grammar;
   
+  @Inject
+  private FollowElementCache followElementCache;
+  
   @Test
   public void testSimple1() {
     StringConcatenation _builder = new StringConcatenation();
@@ -243,4 +265,105 @@ public class ContentAssistContextFactoryTest {
     _builder_1.newLine();
     Assert.assertEquals(_builder_1.toString(), this._contentAssistContextTestHelper.firstSetGrammarElementsToString(this.factory));
   }
+  
+  @Test
+  public void testFollowElementsAreCached() {
+    StringConcatenation _builder = new StringConcatenation();
+    _builder.append("type Foo {");
+    _builder.newLine();
+    _builder.append("\t");
+    _builder.append("<|>int bar");
+    _builder.newLine();
+    _builder.append("}");
+    _builder.newLine();
+    this._contentAssistContextTestHelper.setDocument(_builder.toString());
+    final String expected = this._contentAssistContextTestHelper.firstSetGrammarElementsToString(this.factory);
+    final long hits = this.followElementCache.getHitCount();
+    final long misses = this.followElementCache.getMissCount();
+    Assert.assertEquals(expected, this._contentAssistContextTestHelper.firstSetGrammarElementsToString(this.factory));
+    long _hitCount = this.followElementCache.getHitCount();
+    boolean _greaterThan = (_hitCount > hits);
+    Assert.assertTrue(_greaterThan);
+    Assert.assertEquals(misses, this.followElementCache.getMissCount());
+  }
+  
+  @Test
+  public void testFollowElementCacheLimitOfSubclass() {
+    abstract class __ContentAssistContextFactoryTest_1 extends FollowElementCache {
+      int maxInputs;
+    }
+    
+    final __ContentAssistContextFactoryTest_1 cache = new __ContentAssistContextFactoryTest_1() {
+      {
+        maxInputs = 2;
+      }
+      @Override
+      protected int getMaxInputs() {
+        return this.maxInputs;
+      }
+    };
+    final Supplier<Collection<FollowElement>> _function = () -> {
+      return CollectionLiterals.<FollowElement>emptyList();
+    };
+    cache.getFollowElements("a", true, null, _function);
+    final Supplier<Collection<FollowElement>> _function_1 = () -> {
+      return CollectionLiterals.<FollowElement>emptyList();
+    };
+    cache.getFollowElements("b", true, null, _function_1);
+    final Supplier<Collection<FollowElement>> _function_2 = () -> {
+      return CollectionLiterals.<FollowElement>emptyList();
+    };
+    cache.getFollowElements("a", true, null, _function_2);
+    Assert.assertEquals(1, cache.getHitCount());
+    final Supplier<Collection<FollowElement>> _function_3 = () -> {
+      return CollectionLiterals.<FollowElement>emptyList();
+    };
+    cache.getFollowElements("c", true, null, _function_3);
+    final Supplier<Collection<FollowElement>> _function_4 = () -> {
+      return CollectionLiterals.<FollowElement>emptyList();
+    };
+    cache.getFollowElements("b", true, null, _function_4);
+    Assert.assertEquals(1, cache.getHitCount());
+  }
+  
+  @Test(timeout = 60000)
+  public void testMoreConcurrentRequestsThanThreads() {
+    try {
+      StringConcatenation _builder = new StringConcatenation();
+      _builder.append("type Foo {");
+      _builder.newLine();
+      _builder.append("\t");
+      _builder.append("<|>int bar");
+      _builder.newLine();
+      _builder.append("}");
+      _builder.newLine();
+      this._contentAssistContextTestHelper.setDocument(_builder.toString());
+      final String expected = this._contentAssistContextTestHelper.firstSetGrammarElementsToString(this.factory);
+      final int maxThreads = 2;
+      ThreadFactory _defaultThreadFactory = Executors.defaultThreadFactory();
+      final PrioritizedExecutorService executor = new PrioritizedExecutorService(maxThreads, 60, TimeUnit.SECONDS, _defaultThreadFactory);
+      this._contentAssistContextTestHelper.setPool(executor);
+      try {
+        final CountDownLatch allThreadsBusy = new CountDownLatch(maxThreads);
+        final Callable<String> _function = () -> {
+          allThreadsBusy.countDown();
+          allThreadsBusy.await(10, TimeUnit.SECONDS);
+          return this._contentAssistContextTestHelper.firstSetGrammarElementsToString(this.factoryProvider.get());
+        };
+        final Callable<String> request = _function;
+        final ArrayList<Future<String>> results = CollectionLiterals.<Future<String>>newArrayList();
+        ExclusiveRange _doubleDotLessThan = new ExclusiveRange(0, (2 * maxThreads), true);
+        for (final Integer i : _doubleDotLessThan) {
+          results.add(executor.<String>submit(request));
+        }
+        for (final Future<String> result : results) {
+          Assert.assertEquals(expected, result.get(30, TimeUnit.SECONDS));
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
 }
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2016 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@ package org.eclipse.xtext.ide.tests.editor.contentassist;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
@@ -58,6 +59,9 @@ public class ContentAssistContextTestHelper {
   @Accessors
   private String cursor = "<|>";
   
+  @Accessors
+  private ExecutorService pool;
+  
   private XtextResource parse(final String doc) {
     try {
       String _primaryFileExtension = this.fileExtension.getPrimaryFileExtension();
@@ -84,7 +88,14 @@ public class ContentAssistContextTestHelper {
     Preconditions.checkArgument((offset >= 0), "you forgot to provide a cursor");
     final String doc = this.document.replace(this.cursor, "");
     final XtextResource res = this.parse(doc);
-    factory.setPool(Executors.newCachedThreadPool());
+    ExecutorService _elvis = null;
+    if (this.pool != null) {
+      _elvis = this.pool;
+    } else {
+      ExecutorService _newCachedThreadPool = Executors.newCachedThreadPool();
+      _elvis = _newCachedThreadPool;
+    }
+    factory.setPool(_elvis);
     TextRegion _textRegion = new TextRegion(0, 0);
     final ContentAssistContext[] ctxs = factory.create(doc, _textRegion, offset, res);
     final GrammarElementTitleSwitch f = new GrammarElementTitleSwitch().showAssignments().showQualified().showRule();
@@ -142,4 +153,13 @@ public class ContentAssistContextTestHelper {
   public void setCursor(final String cursor) {
     this.cursor = cursor;
   }
+  
+  @Pure
+  public ExecutorService getPool() {
+    return this.pool;
+  }
+  
+  public void setPool(final ExecutorService pool) {
+    this.pool = pool;
+  }
 }
@@ -203,6 +203,33 @@ public class FormattingTest extends AbstractTestLangLanguageServerTest {
     this.testRangeFormatting(_function, _function_1);
   }
   
+  @Test
+  public void testRangeFormattingService_03() {
+    final Procedure1<RangeFormattingConfiguration> _function = (RangeFormattingConfiguration it) -> {
+      StringConcatenation _builder = new StringConcatenation();
+      _builder.append("type A{int a} type B{int b} type C{int c} type D{int d} type E{int e}");
+      it.setModel(_builder.toString());
+      Range _range = new Range();
+      final Procedure1<Range> _function_1 = (Range it_1) -> {
+        Position _position = new Position(0, 28);
+        it_1.setStart(_position);
+        Position _position_1 = new Position(0, 41);
+        it_1.setEnd(_position_1);
+      };
+      Range _doubleArrow = ObjectExtensions.<Range>operator_doubleArrow(_range, _function_1);
+      it.setRange(_doubleArrow);
+      StringConcatenation _builder_1 = new StringConcatenation();
+      _builder_1.append("type A{int a} type B{int b} type C{");
+      _builder_1.newLine();
+      _builder_1.append("\t");
+      _builder_1.append("int c");
+      _builder_1.newLine();
+      _builder_1.append("} type D{int d} type E{int e}");
+      it.setExpectedText(_builder_1.toString());
+    };
+    this.testRangeFormatting(_function);
+  }
+  
   @Inject
   private Provider<XtextResourceSet> rsp;
   
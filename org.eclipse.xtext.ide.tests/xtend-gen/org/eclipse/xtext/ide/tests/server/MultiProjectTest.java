@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2016, 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2017, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,12 +17,14 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.xtend2.lib.StringConcatenation;
 import org.eclipse.xtext.diagnostics.Diagnostic;
 import org.eclipse.xtext.ide.server.IWorkspaceConfigFactory;
 import org.eclipse.xtext.ide.server.MultiProjectWorkspaceConfigFactory;
 import org.eclipse.xtext.ide.server.ServerModule;
 import org.eclipse.xtext.ide.server.WorkspaceManager;
+import org.eclipse.xtext.resource.XtextResourceSet;
 import org.eclipse.xtext.util.CancelIndicator;
 import org.eclipse.xtext.util.Files;
 import org.eclipse.xtext.util.Modules2;
@@ -83,6 +85,43 @@ public class MultiProjectTest {
     Assert.assertTrue(this.diagnostics.get(bar).isEmpty());
   }
   
+  @Test
+  public void testUpstreamResourcesAreReloaded() {
+    StringConcatenation _builder = new StringConcatenation();
+    _builder.append("type Foo {");
+    _builder.newLine();
+    _builder.append("    ");
+    _builder.append("Bar bar");
+    _builder.newLine();
+    _builder.append("}");
+    _builder.newLine();
+    final URI foo = this.createFile(this.project0, "Foo.testlang", _builder);
+    StringConcatenation _builder_1 = new StringConcatenation();
+    _builder_1.append("type Bar {");
+    _builder_1.newLine();
+    _builder_1.append("}");
+    _builder_1.newLine();
+    final URI bar = this.createFile(this.project1, "Bar.testlang", _builder_1);
+    List<String> _dependencies = this.workspaceManager.getProjectManager(this.project0.getName()).getProjectDescription().getDependencies();
+    String _name = this.project1.getName();
+    _dependencies.add(_name);
+    this.workspaceManager.doBuild(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(foo, bar)), CollectionLiterals.<URI>emptyList(), CancelIndicator.NullImpl);
+    final XtextResourceSet resourceSet = this.workspaceManager.getProjectManager(this.project0.getName()).getResourceSet();
+    final Resource loadedBar = resourceSet.getResource(bar, false);
+    Assert.assertNotNull(loadedBar);
+    StringConcatenation _builder_2 = new StringConcatenation();
+    _builder_2.append("type Bar {");
+    _builder_2.newLine();
+    _builder_2.append("    ");
+    _builder_2.append("Foo foo");
+    _builder_2.newLine();
+    _builder_2.append("}");
+    _builder_2.newLine();
+    this.createFile(this.project1, "Bar.testlang", _builder_2);
+    this.workspaceManager.doBuild(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(bar)), CollectionLiterals.<URI>emptyList(), CancelIndicator.NullImpl);
+    Assert.assertNotSame(loadedBar, resourceSet.getResource(bar, false));
+  }
+  
   @Before
   public void setup() {
     ServerModule _serverModule = new ServerModule();
@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.xtext.ide.tests.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.eclipse.lsp4j.ApplyWorkspaceEditParams;
+import org.eclipse.lsp4j.ApplyWorkspaceEditResponse;
+import org.eclipse.lsp4j.ConfigurationParams;
+import org.eclipse.lsp4j.Diagnostic;
+import org.eclipse.lsp4j.MessageActionItem;
+import org.eclipse.lsp4j.MessageParams;
+import org.eclipse.lsp4j.PublishDiagnosticsParams;
+import org.eclipse.lsp4j.RegistrationParams;
+import org.eclipse.lsp4j.SemanticHighlightingParams;
+import org.eclipse.lsp4j.ShowMessageRequestParams;
+import org.eclipse.lsp4j.UnregistrationParams;
+import org.eclipse.lsp4j.WorkspaceFolder;
+import org.eclipse.lsp4j.services.LanguageClient;
+import org.eclipse.xtend.lib.annotations.Delegate;
+import org.eclipse.xtext.ide.server.NotificationQueue;
+import org.eclipse.xtext.xbase.lib.CollectionLiterals;
+import org.eclipse.xtext.xbase.lib.Functions.Function0;
+import org.eclipse.xtext.xbase.lib.Functions.Function1;
+import org.eclipse.xtext.xbase.lib.ListExtensions;
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("all")
+public class NotificationQueueTest implements LanguageClient {
+  public static class ManualNotificationQueue extends NotificationQueue {
+    private final int maxPendingNotifications;
+    
+    public ManualNotificationQueue(final int maxPendingNotifications) {
+      this.maxPendingNotifications = maxPendingNotifications;
+    }
+    
+    @Override
+    protected void scheduleFlush() {
+    }
+    
+    @Override
+    protected int getMaxPendingNotifications() {
+      return this.maxPendingNotifications;
+    }
+  }
+  
+  @Delegate
+  private LanguageClient noImpl;
+  
+  private List<PublishDiagnosticsParams> published = CollectionLiterals.<PublishDiagnosticsParams>newArrayList();
+  
+  @Override
+  public void publishDiagnostics(final PublishDiagnosticsParams diagnostics) {
+    this.published.add(diagnostics);
+  }
+  
+  @Test
+  public void testSupersededNotificationsAreDropped() {
+    final NotificationQueueTest.ManualNotificationQueue queue = new NotificationQueueTest.ManualNotificationQueue(10);
+    queue.connect(this);
+    final ArrayList<String> computed = CollectionLiterals.<String>newArrayList();
+    final Function0<PublishDiagnosticsParams> _function = () -> {
+      PublishDiagnosticsParams _xblockexpression = null;
+      {
+        computed.add("a1");
+        _xblockexpression = new PublishDiagnosticsParams("a", Collections.<Diagnostic>unmodifiableList(CollectionLiterals.<Diagnostic>newArrayList()));
+      }
+      return _xblockexpression;
+    };
+    queue.publishDiagnostics("a", _function);
+    final Function0<PublishDiagnosticsParams> _function_1 = () -> {
+      PublishDiagnosticsParams _xblockexpression = null;
+      {
+        computed.add("b1");
+        _xblockexpression = new PublishDiagnosticsParams("b", Collections.<Diagnostic>unmodifiableList(CollectionLiterals.<Diagnostic>newArrayList()));
+      }
+      return _xblockexpression;
+    };
+    queue.publishDiagnostics("b", _function_1);
+    final Function0<PublishDiagnosticsParams> _function_2 = () -> {
+      PublishDiagnosticsParams _xblockexpression = null;
+      {
+        computed.add("a2");
+        _xblockexpression = new PublishDiagnosticsParams("a", Collections.<Diagnostic>unmodifiableList(CollectionLiterals.<Diagnostic>newArrayList()));
+      }
+      return _xblockexpression;
+    };
+    queue.publishDiagnostics("a", _function_2);
+    Assert.assertEquals(2, queue.getPendingCount());
+    Assert.assertEquals(1, queue.getSupersededCount());
+    queue.flush();
+    Assert.assertEquals(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("a2", "b1")), computed);
+    final Function1<PublishDiagnosticsParams, String> _function_3 = (PublishDiagnosticsParams it) -> {
+      return it.getUri();
+    };
+    Assert.assertEquals(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("a", "b")), ListExtensions.<PublishDiagnosticsParams, String>map(this.published, _function_3));
+    Assert.assertEquals(0, queue.getPendingCount());
+    Assert.assertEquals(3, queue.getEnqueuedCount());
+    Assert.assertEquals(2, queue.getSentCount());
+  }
+  
+  @Test(timeout = 10000)
+  public void testFullQueueDropsOldest() {
+    final NotificationQueueTest.ManualNotificationQueue queue = new NotificationQueueTest.ManualNotificationQueue(2);
+    final Function0<PublishDiagnosticsParams> _function = () -> {
+      return new PublishDiagnosticsParams("a", Collections.<Diagnostic>unmodifiableList(CollectionLiterals.<Diagnostic>newArrayList()));
+    };
+    queue.publishDiagnostics("a", _function);
+    final Function0<PublishDiagnosticsParams> _function_1 = () -> {
+      return new PublishDiagnosticsParams("b", Collections.<Diagnostic>unmodifiableList(CollectionLiterals.<Diagnostic>newArrayList()));
+    };
+    queue.publishDiagnostics("b", _function_1);
+    final Function0<PublishDiagnosticsParams> _function_2 = () -> {
+      return new PublishDiagnosticsParams("a", Collections.<Diagnostic>unmodifiableList(CollectionLiterals.<Diagnostic>newArrayList()));
+    };
+    queue.publishDiagnostics("a", _function_2);
+    Assert.assertEquals(0, queue.getDroppedCount());
+    final Function0<PublishDiagnosticsParams> _function_3 = () -> {
+      return new PublishDiagnosticsParams("c", Collections.<Diagnostic>unmodifiableList(CollectionLiterals.<Diagnostic>newArrayList()));
+    };
+    queue.publishDiagnostics("c", _function_3);
+    Assert.assertEquals(1, queue.getDroppedCount());
+    Assert.assertEquals(2, queue.getPendingCount());
+    queue.connect(this);
+    queue.flush();
+    final Function1<PublishDiagnosticsParams, String> _function_4 = (PublishDiagnosticsParams it) -> {
+      return it.getUri();
+    };
+    Assert.assertEquals(Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList("b", "c")), ListExtensions.<PublishDiagnosticsParams, String>map(this.published, _function_4));
+  }
+  
+  public CompletableFuture<ApplyWorkspaceEditResponse> applyEdit(final ApplyWorkspaceEditParams arg0) {
+    return this.noImpl.applyEdit(arg0);
+  }
+  
+  public CompletableFuture<List<Object>> configuration(final ConfigurationParams arg0) {
+    return this.noImpl.configuration(arg0);
+  }
+  
+  public void logMessage(final MessageParams arg0) {
+    this.noImpl.logMessage(arg0);
+  }
+  
+  public CompletableFuture<Void> registerCapability(final RegistrationParams arg0) {
+    return this.noImpl.registerCapability(arg0);
+  }
+  
+  public void semanticHighlighting(final SemanticHighlightingParams arg0) {
+    this.noImpl.semanticHighlighting(arg0);
+  }
+  
+  public void showMessage(final MessageParams arg0) {
+    this.noImpl.showMessage(arg0);
+  }
+  
+  public CompletableFuture<MessageActionItem> showMessageRequest(final ShowMessageRequestParams arg0) {
+    return this.noImpl.showMessageRequest(arg0);
+  }
+  
+  public void telemetryEvent(final Object arg0) {
+    this.noImpl.telemetryEvent(arg0);
+  }
+  
+  public CompletableFuture<Void> unregisterCapability(final UnregistrationParams arg0) {
+    return this.noImpl.unregisterCapability(arg0);
+  }
+  
+  public CompletableFuture<List<WorkspaceFolder>> workspaceFolders() {
+    return this.noImpl.workspaceFolders();
+  }
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.xtext.ide.tests.server;
+
+import com.google.common.base.Objects;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Provider;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Collections;
+import java.util.Map;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.xtend2.lib.StringConcatenation;
+import org.eclipse.xtext.ide.server.ProjectManager;
+import org.eclipse.xtext.ide.server.ServerModule;
+import org.eclipse.xtext.ide.server.UriExtensions;
+import org.eclipse.xtext.ide.server.WorkspaceManager;
+import org.eclipse.xtext.resource.IExternalContentSupport;
+import org.eclipse.xtext.resource.impl.ProjectDescription;
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsData;
+import org.eclipse.xtext.util.CancelIndicator;
+import org.eclipse.xtext.util.Files;
+import org.eclipse.xtext.util.Modules2;
+import org.eclipse.xtext.validation.Issue;
+import org.eclipse.xtext.workspace.IProjectConfig;
+import org.eclipse.xtext.xbase.lib.CollectionLiterals;
+import org.eclipse.xtext.xbase.lib.Exceptions;
+import org.eclipse.xtext.xbase.lib.Extension;
+import org.eclipse.xtext.xbase.lib.Functions.Function1;
+import org.eclipse.xtext.xbase.lib.IterableExtensions;
+import org.eclipse.xtext.xbase.lib.ListExtensions;
+import org.eclipse.xtext.xbase.lib.ObjectExtensions;
+import org.eclipse.xtext.xbase.lib.Procedures.Procedure1;
+import org.eclipse.xtext.xbase.lib.Procedures.Procedure2;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("all")
+public class ProjectManagerTest {
+  public static class TwoResourcesProjectManager extends ProjectManager {
+    @Override
+    protected int getMaxRetainedResources() {
+      return 2;
+    }
+  }
+  
+  public static class NoOpenedDocumentsProjectManager extends ProjectManagerTest.TwoResourcesProjectManager {
+    @Override
+    public void initialize(final ProjectDescription description, final IProjectConfig projectConfig, final Procedure2<? super URI, ? super Iterable<Issue>> acceptor, final IExternalContentSupport.IExternalContentProvider openedDocumentsContentProvider, final Provider<Map<String, ResourceDescriptionsData>> indexProvider, final CancelIndicator cancelIndicator) {
+      super.initialize(description, projectConfig, acceptor, null, indexProvider, cancelIndicator);
+    }
+  }
+  
+  @Inject
+  private WorkspaceManager workspaceManager;
+  
+  @Inject
+  @Extension
+  private UriExtensions _uriExtensions;
+  
+  private File root;
+  
+  @Before
+  public void setup() {
+    try {
+      ServerModule _serverModule = new ServerModule();
+      final Injector injector = Guice.createInjector(Modules2.mixin(_serverModule, new AbstractModule() {
+        @Override
+        protected void configure() {
+          this.<ProjectManager>bind(ProjectManager.class).to(ProjectManagerTest.TwoResourcesProjectManager.class);
+        }
+      }));
+      injector.injectMembers(this);
+      this.root = new File("./test-data/test-project").getCanonicalFile();
+      boolean _mkdirs = this.root.mkdirs();
+      boolean _not = (!_mkdirs);
+      if (_not) {
+        Files.cleanFolder(this.root, null, true, false);
+      }
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  @After
+  public void cleanup() {
+    try {
+      boolean _exists = this.root.exists();
+      if (_exists) {
+        Files.cleanFolder(this.root, null, true, true);
+      }
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  @Test
+  public void testUnchangedResourcesAreRetained() {
+    StringConcatenation _builder = new StringConcatenation();
+    _builder.append("type Foo {");
+    _builder.newLine();
+    _builder.append("\t");
+    _builder.append("Bar bar");
+    _builder.newLine();
+    _builder.append("}");
+    _builder.newLine();
+    this.operator_mappedTo(
+      "Foo.testlang", _builder);
+    StringConcatenation _builder_1 = new StringConcatenation();
+    _builder_1.append("type Bar {");
+    _builder_1.newLine();
+    _builder_1.append("}");
+    _builder_1.newLine();
+    this.operator_mappedTo(
+      "Bar.testlang", _builder_1);
+    StringConcatenation _builder_2 = new StringConcatenation();
+    _builder_2.append("type Baz {");
+    _builder_2.newLine();
+    _builder_2.append("}");
+    _builder_2.newLine();
+    final URI baz = this.operator_mappedTo("Baz.testlang", _builder_2);
+    final Procedure2<URI, Iterable<Issue>> _function = (URI $0, Iterable<Issue> $1) -> {
+    };
+    this.workspaceManager.initialize(this._uriExtensions.withEmptyAuthority(URI.createFileURI(this.root.getAbsolutePath())), _function, null);
+    final ProjectManager projectManager = IterableExtensions.<ProjectManager>head(this.workspaceManager.getProjectManagers());
+    Assert.assertEquals(3, projectManager.getResourceSet().getResources().size());
+    Assert.assertEquals(0, projectManager.getEvictedResourceCount());
+    final Function1<Resource, URI> _function_1 = (Resource it) -> {
+      return it.getURI();
+    };
+    final Function1<URI, Boolean> _function_2 = (URI it) -> {
+      return Boolean.valueOf((!Objects.equal(it, baz)));
+    };
+    final URI firstLoaded = IterableExtensions.<URI>findFirst(ListExtensions.<Resource, URI>map(projectManager.getResourceSet().getResources(), _function_1), _function_2);
+    this.workspaceManager.didChangeFiles(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(baz)), CollectionLiterals.<URI>emptyList()).build(null);
+    Assert.assertEquals(1, projectManager.getLoadedResourceCount());
+    Assert.assertEquals(1, projectManager.getEvictedResourceCount());
+    Assert.assertNull(projectManager.getResourceSet().getResource(firstLoaded, false));
+    Assert.assertEquals(2, projectManager.getResourceSet().getResources().size());
+  }
+  
+  @Test
+  public void testResourcesAreEvictedWithoutOpenedDocuments() {
+    ServerModule _serverModule = new ServerModule();
+    final WorkspaceManager workspaceManager = Guice.createInjector(Modules2.mixin(_serverModule, new AbstractModule() {
+      @Override
+      protected void configure() {
+        this.<ProjectManager>bind(ProjectManager.class).to(ProjectManagerTest.NoOpenedDocumentsProjectManager.class);
+      }
+    })).<WorkspaceManager>getInstance(WorkspaceManager.class);
+    StringConcatenation _builder = new StringConcatenation();
+    _builder.append("type Foo {");
+    _builder.newLine();
+    _builder.append("}");
+    _builder.newLine();
+    this.operator_mappedTo(
+      "Foo.testlang", _builder);
+    StringConcatenation _builder_1 = new StringConcatenation();
+    _builder_1.append("type Bar {");
+    _builder_1.newLine();
+    _builder_1.append("}");
+    _builder_1.newLine();
+    this.operator_mappedTo(
+      "Bar.testlang", _builder_1);
+    StringConcatenation _builder_2 = new StringConcatenation();
+    _builder_2.append("type Baz {");
+    _builder_2.newLine();
+    _builder_2.append("}");
+    _builder_2.newLine();
+    final URI baz = this.operator_mappedTo("Baz.testlang", _builder_2);
+    final Procedure2<URI, Iterable<Issue>> _function = (URI $0, Iterable<Issue> $1) -> {
+    };
+    workspaceManager.initialize(this._uriExtensions.withEmptyAuthority(URI.createFileURI(this.root.getAbsolutePath())), _function, null);
+    final ProjectManager projectManager = IterableExtensions.<ProjectManager>head(workspaceManager.getProjectManagers());
+    workspaceManager.didChangeFiles(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(baz)), CollectionLiterals.<URI>emptyList()).build(null);
+    Assert.assertEquals(1, projectManager.getEvictedResourceCount());
+    Assert.assertEquals(2, projectManager.getResourceSet().getResources().size());
+  }
+  
+  public URI operator_mappedTo(final String path, final CharSequence contents) {
+    try {
+      final File file = new File(this.root, path);
+      file.getParentFile().mkdirs();
+      file.createNewFile();
+      FileWriter _fileWriter = new FileWriter(file);
+      final Procedure1<FileWriter> _function = (FileWriter it) -> {
+        try {
+          it.write(contents.toString());
+          it.close();
+        } catch (Throwable _e) {
+          throw Exceptions.sneakyThrow(_e);
+        }
+      };
+      ObjectExtensions.<FileWriter>operator_doubleArrow(_fileWriter, _function);
+      return this._uriExtensions.withEmptyAuthority(URI.createFileURI(file.getAbsolutePath()));
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+}
@@ -17,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 import org.eclipse.lsp4j.ClientCapabilities;
 import org.eclipse.lsp4j.DidChangeTextDocumentParams;
+import org.eclipse.lsp4j.DidCloseTextDocumentParams;
 import org.eclipse.lsp4j.InitializeParams;
 import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.Range;
@@ -24,6 +25,7 @@ import org.eclipse.lsp4j.SemanticHighlightingCapabilities;
 import org.eclipse.lsp4j.SemanticHighlightingInformation;
 import org.eclipse.lsp4j.TextDocumentClientCapabilities;
 import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.eclipse.lsp4j.TextDocumentIdentifier;
 import org.eclipse.lsp4j.VersionedTextDocumentIdentifier;
 import org.eclipse.xtend2.lib.StringConcatenation;
 import org.eclipse.xtext.ide.server.UriExtensions;
@@ -294,6 +296,144 @@ public class SemanticHighlightingTest extends AbstractTestLangLanguageServerTest
     this.assertInfos(fileUri, _builder_4.toString());
   }
   
+  @Test
+  public void testChange_sendsChangedLinesOnly() {
+    Path _path = this.root.toPath();
+    StringConcatenation _builder = new StringConcatenation();
+    _builder.append("MyModel.");
+    _builder.append(this.fileExtension);
+    final File file = _path.resolve(_builder.toString()).toFile();
+    final String fileUri = this._uriExtensions.toUriString(file.toURI());
+    StringConcatenation _builder_1 = new StringConcatenation();
+    _builder_1.append("type A {");
+    _builder_1.newLine();
+    _builder_1.append("  ");
+    _builder_1.append("int a");
+    _builder_1.newLine();
+    _builder_1.append("  ");
+    _builder_1.append("op foo() {}");
+    _builder_1.newLine();
+    _builder_1.append("  ");
+    _builder_1.append("op foo(a: A): string {}");
+    _builder_1.newLine();
+    _builder_1.append("}");
+    this.open(fileUri, _builder_1.toString());
+    this.notifications.clear();
+    DidChangeTextDocumentParams _didChangeTextDocumentParams = new DidChangeTextDocumentParams();
+    final Procedure1<DidChangeTextDocumentParams> _function = (DidChangeTextDocumentParams it) -> {
+      VersionedTextDocumentIdentifier _versionedTextDocumentIdentifier = new VersionedTextDocumentIdentifier();
+      final Procedure1<VersionedTextDocumentIdentifier> _function_1 = (VersionedTextDocumentIdentifier it_1) -> {
+        it_1.setUri(fileUri);
+        it_1.setVersion(Integer.valueOf(2));
+      };
+      VersionedTextDocumentIdentifier _doubleArrow = ObjectExtensions.<VersionedTextDocumentIdentifier>operator_doubleArrow(_versionedTextDocumentIdentifier, _function_1);
+      it.setTextDocument(_doubleArrow);
+      TextDocumentContentChangeEvent _textDocumentContentChangeEvent = new TextDocumentContentChangeEvent();
+      final Procedure1<TextDocumentContentChangeEvent> _function_2 = (TextDocumentContentChangeEvent it_1) -> {
+        it_1.setText("bb");
+        Position _position = new Position(3, 9);
+        Position _position_1 = new Position(3, 10);
+        Range _range = new Range(_position, _position_1);
+        it_1.setRange(_range);
+      };
+      TextDocumentContentChangeEvent _doubleArrow_1 = ObjectExtensions.<TextDocumentContentChangeEvent>operator_doubleArrow(_textDocumentContentChangeEvent, _function_2);
+      it.setContentChanges(Collections.<TextDocumentContentChangeEvent>unmodifiableList(CollectionLiterals.<TextDocumentContentChangeEvent>newArrayList(_doubleArrow_1)));
+    };
+    DidChangeTextDocumentParams _doubleArrow = ObjectExtensions.<DidChangeTextDocumentParams>operator_doubleArrow(_didChangeTextDocumentParams, _function);
+    this.languageServer.didChange(_doubleArrow);
+    StringConcatenation _builder_2 = new StringConcatenation();
+    _builder_2.append("3 : [5:3:[identifier], 9:2:[parameterName], 13:1:[type], 17:6:[primitiveType]]");
+    this.assertInfos(fileUri, _builder_2.toString());
+  }
+  
+  @Test
+  public void testChange_sendsEditedLines() {
+    Path _path = this.root.toPath();
+    StringConcatenation _builder = new StringConcatenation();
+    _builder.append("MyModel.");
+    _builder.append(this.fileExtension);
+    final File file = _path.resolve(_builder.toString()).toFile();
+    final String fileUri = this._uriExtensions.toUriString(file.toURI());
+    StringConcatenation _builder_1 = new StringConcatenation();
+    _builder_1.append("type A {");
+    _builder_1.newLine();
+    _builder_1.append("  ");
+    _builder_1.append("int a");
+    _builder_1.newLine();
+    _builder_1.append("  ");
+    _builder_1.append("op foo() {}");
+    _builder_1.newLine();
+    _builder_1.append("}");
+    this.open(fileUri, _builder_1.toString());
+    this.notifications.clear();
+    DidChangeTextDocumentParams _didChangeTextDocumentParams = new DidChangeTextDocumentParams();
+    final Procedure1<DidChangeTextDocumentParams> _function = (DidChangeTextDocumentParams it) -> {
+      VersionedTextDocumentIdentifier _versionedTextDocumentIdentifier = new VersionedTextDocumentIdentifier();
+      final Procedure1<VersionedTextDocumentIdentifier> _function_1 = (VersionedTextDocumentIdentifier it_1) -> {
+        it_1.setUri(fileUri);
+        it_1.setVersion(Integer.valueOf(2));
+      };
+      VersionedTextDocumentIdentifier _doubleArrow = ObjectExtensions.<VersionedTextDocumentIdentifier>operator_doubleArrow(_versionedTextDocumentIdentifier, _function_1);
+      it.setTextDocument(_doubleArrow);
+      TextDocumentContentChangeEvent _textDocumentContentChangeEvent = new TextDocumentContentChangeEvent();
+      final Procedure1<TextDocumentContentChangeEvent> _function_2 = (TextDocumentContentChangeEvent it_1) -> {
+        it_1.setText("a");
+        Position _position = new Position(1, 6);
+        Position _position_1 = new Position(1, 7);
+        Range _range = new Range(_position, _position_1);
+        it_1.setRange(_range);
+      };
+      TextDocumentContentChangeEvent _doubleArrow_1 = ObjectExtensions.<TextDocumentContentChangeEvent>operator_doubleArrow(_textDocumentContentChangeEvent, _function_2);
+      it.setContentChanges(Collections.<TextDocumentContentChangeEvent>unmodifiableList(CollectionLiterals.<TextDocumentContentChangeEvent>newArrayList(_doubleArrow_1)));
+    };
+    DidChangeTextDocumentParams _doubleArrow = ObjectExtensions.<DidChangeTextDocumentParams>operator_doubleArrow(_didChangeTextDocumentParams, _function);
+    this.languageServer.didChange(_doubleArrow);
+    StringConcatenation _builder_2 = new StringConcatenation();
+    _builder_2.append("1 : [2:3:[primitiveType], 6:1:[identifier]]");
+    this.assertInfos(fileUri, _builder_2.toString());
+  }
+  
+  @Test
+  public void testReopen() {
+    Path _path = this.root.toPath();
+    StringConcatenation _builder = new StringConcatenation();
+    _builder.append("MyModel.");
+    _builder.append(this.fileExtension);
+    final File file = _path.resolve(_builder.toString()).toFile();
+    final String fileUri = this._uriExtensions.toUriString(file.toURI());
+    StringConcatenation _builder_1 = new StringConcatenation();
+    _builder_1.append("type A {");
+    _builder_1.newLine();
+    _builder_1.append("  ");
+    _builder_1.append("int a");
+    _builder_1.newLine();
+    _builder_1.append("}");
+    this.open(fileUri, _builder_1.toString());
+    DidCloseTextDocumentParams _didCloseTextDocumentParams = new DidCloseTextDocumentParams();
+    final Procedure1<DidCloseTextDocumentParams> _function = (DidCloseTextDocumentParams it) -> {
+      TextDocumentIdentifier _textDocumentIdentifier = new TextDocumentIdentifier(fileUri);
+      it.setTextDocument(_textDocumentIdentifier);
+    };
+    DidCloseTextDocumentParams _doubleArrow = ObjectExtensions.<DidCloseTextDocumentParams>operator_doubleArrow(_didCloseTextDocumentParams, _function);
+    this.languageServer.didClose(_doubleArrow);
+    this.notifications.clear();
+    StringConcatenation _builder_2 = new StringConcatenation();
+    _builder_2.append("type A {");
+    _builder_2.newLine();
+    _builder_2.append("  ");
+    _builder_2.append("int a");
+    _builder_2.newLine();
+    _builder_2.append("}");
+    this.open(fileUri, _builder_2.toString());
+    StringConcatenation _builder_3 = new StringConcatenation();
+    _builder_3.append("0 : [5:1:[typeDeclaration]]");
+    _builder_3.newLine();
+    _builder_3.append("1 : [2:3:[primitiveType], 6:1:[identifier]]");
+    _builder_3.newLine();
+    _builder_3.append("2 : []");
+    this.assertInfos(fileUri, _builder_3.toString());
+  }
+  
   protected void assertInfos(final String uri, final String expected) {
     final Map<VersionedTextDocumentIdentifier, List<SemanticHighlightingInformation>> params = this.getSemanticHighlightingParams();
     Assert.assertEquals(1, params.size());
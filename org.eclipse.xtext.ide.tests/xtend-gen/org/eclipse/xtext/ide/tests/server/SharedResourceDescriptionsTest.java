@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.xtext.ide.tests.server;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Collections;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtend2.lib.StringConcatenation;
+import org.eclipse.xtext.ide.server.ProjectManager;
+import org.eclipse.xtext.ide.server.ServerModule;
+import org.eclipse.xtext.ide.server.SharedResourceDescriptions;
+import org.eclipse.xtext.ide.server.UriExtensions;
+import org.eclipse.xtext.ide.server.WorkspaceManager;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.util.Files;
+import org.eclipse.xtext.validation.Issue;
+import org.eclipse.xtext.xbase.lib.CollectionLiterals;
+import org.eclipse.xtext.xbase.lib.Exceptions;
+import org.eclipse.xtext.xbase.lib.Extension;
+import org.eclipse.xtext.xbase.lib.IterableExtensions;
+import org.eclipse.xtext.xbase.lib.ObjectExtensions;
+import org.eclipse.xtext.xbase.lib.Procedures.Procedure1;
+import org.eclipse.xtext.xbase.lib.Procedures.Procedure2;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("all")
+public class SharedResourceDescriptionsTest {
+  @Inject
+  private Provider<WorkspaceManager> workspaceManagerProvider;
+  
+  @Inject
+  private SharedResourceDescriptions sharedResourceDescriptions;
+  
+  @Inject
+  @Extension
+  private UriExtensions _uriExtensions;
+  
+  private File root;
+  
+  @Before
+  public void setup() {
+    try {
+      ServerModule _serverModule = new ServerModule();
+      Guice.createInjector(_serverModule).injectMembers(this);
+      this.root = new File("./test-data/test-project").getCanonicalFile();
+      boolean _mkdirs = this.root.mkdirs();
+      boolean _not = (!_mkdirs);
+      if (_not) {
+        Files.cleanFolder(this.root, null, true, false);
+      }
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  @After
+  public void cleanup() {
+    try {
+      boolean _exists = this.root.exists();
+      if (_exists) {
+        Files.cleanFolder(this.root, null, true, true);
+      }
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  @Test
+  public void testSessionsShareDescriptions() {
+    StringConcatenation _builder = new StringConcatenation();
+    _builder.append("type Foo {");
+    _builder.newLine();
+    _builder.append("\t");
+    _builder.append("Bar bar");
+    _builder.newLine();
+    _builder.append("}");
+    _builder.newLine();
+    final URI foo = this.operator_mappedTo("Foo.testlang", _builder);
+    StringConcatenation _builder_1 = new StringConcatenation();
+    _builder_1.append("type Bar {");
+    _builder_1.newLine();
+    _builder_1.append("}");
+    _builder_1.newLine();
+    final URI bar = this.operator_mappedTo("Bar.testlang", _builder_1);
+    final WorkspaceManager first = this.createWorkspaceManager();
+    final WorkspaceManager second = this.createWorkspaceManager();
+    Assert.assertSame(first.getIndex().getResourceDescription(foo), second.getIndex().getResourceDescription(foo));
+    Assert.assertSame(first.getIndex().getResourceDescription(bar), second.getIndex().getResourceDescription(bar));
+    second.didOpen(foo, Integer.valueOf(1), "type Foo { Foo foo }").build(null);
+    Assert.assertNotSame(first.getIndex().getResourceDescription(foo), second.getIndex().getResourceDescription(foo));
+    Assert.assertSame(first.getIndex().getResourceDescription(bar), second.getIndex().getResourceDescription(bar));
+    second.didClose(foo).build(null);
+    Assert.assertSame(first.getIndex().getResourceDescription(foo), second.getIndex().getResourceDescription(foo));
+    Assert.assertEquals(2, this.getSharedDescriptionCount(first));
+    first.dispose();
+    first.dispose();
+    Assert.assertEquals(2, this.getSharedDescriptionCount(second));
+    second.dispose();
+    Assert.assertEquals(0, this.getSharedDescriptionCount(second));
+  }
+  
+  @Test
+  public void testChangedDescriptionsAreShared() {
+    StringConcatenation _builder = new StringConcatenation();
+    _builder.append("type Bar {");
+    _builder.newLine();
+    _builder.append("}");
+    _builder.newLine();
+    final URI bar = this.operator_mappedTo("Bar.testlang", _builder);
+    final WorkspaceManager first = this.createWorkspaceManager();
+    final WorkspaceManager second = this.createWorkspaceManager();
+    final IResourceDescription original = first.getIndex().getResourceDescription(bar);
+    Assert.assertSame(original, second.getIndex().getResourceDescription(bar));
+    StringConcatenation _builder_1 = new StringConcatenation();
+    _builder_1.append("type Bar {");
+    _builder_1.newLine();
+    _builder_1.append("\t");
+    _builder_1.append("Bar bar");
+    _builder_1.newLine();
+    _builder_1.append("}");
+    _builder_1.newLine();
+    this.operator_mappedTo(
+      "Bar.testlang", _builder_1);
+    first.doBuild(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(bar)), Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList()), null);
+    final IResourceDescription changed = first.getIndex().getResourceDescription(bar);
+    Assert.assertNotSame(original, changed);
+    Assert.assertSame(original, second.getIndex().getResourceDescription(bar));
+    second.doBuild(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(bar)), Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList()), null);
+    Assert.assertSame(changed, second.getIndex().getResourceDescription(bar));
+  }
+  
+  @Test
+  public void testDeletedDescriptionsAreDiscarded() {
+    StringConcatenation _builder = new StringConcatenation();
+    _builder.append("type Foo {");
+    _builder.newLine();
+    _builder.append("}");
+    _builder.newLine();
+    this.operator_mappedTo(
+      "Foo.testlang", _builder);
+    StringConcatenation _builder_1 = new StringConcatenation();
+    _builder_1.append("type Bar {");
+    _builder_1.newLine();
+    _builder_1.append("}");
+    _builder_1.newLine();
+    final URI bar = this.operator_mappedTo("Bar.testlang", _builder_1);
+    final WorkspaceManager first = this.createWorkspaceManager();
+    final WorkspaceManager second = this.createWorkspaceManager();
+    Assert.assertEquals(2, this.getSharedDescriptionCount(first));
+    new File(this.root, "Bar.testlang").delete();
+    first.doBuild(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList()), Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(bar)), null);
+    Assert.assertNull(first.getIndex().getResourceDescription(bar));
+    Assert.assertNotNull(second.getIndex().getResourceDescription(bar));
+    Assert.assertEquals(1, this.getSharedDescriptionCount(first));
+    second.doBuild(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList()), Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(bar)), null);
+    Assert.assertNull(second.getIndex().getResourceDescription(bar));
+    Assert.assertEquals(1, this.getSharedDescriptionCount(first));
+    first.dispose();
+    second.dispose();
+    Assert.assertEquals(0, this.getSharedDescriptionCount(first));
+  }
+  
+  public int getSharedDescriptionCount(final WorkspaceManager workspaceManager) {
+    final ProjectManager projectManager = IterableExtensions.<ProjectManager>head(workspaceManager.getProjectManagers());
+    String _name = projectManager.getProjectDescription().getName();
+    String _plus = (_name + ":");
+    URI _baseDir = projectManager.getBaseDir();
+    String _plus_1 = (_plus + _baseDir);
+    return this.sharedResourceDescriptions.getSharedDescriptionCount(_plus_1);
+  }
+  
+  public WorkspaceManager createWorkspaceManager() {
+    final WorkspaceManager result = this.workspaceManagerProvider.get();
+    final Procedure2<URI, Iterable<Issue>> _function = (URI $0, Iterable<Issue> $1) -> {
+    };
+    result.initialize(this._uriExtensions.withEmptyAuthority(URI.createFileURI(this.root.getAbsolutePath())), _function, null);
+    return result;
+  }
+  
+  public URI operator_mappedTo(final String path, final CharSequence contents) {
+    try {
+      final File file = new File(this.root, path);
+      file.getParentFile().mkdirs();
+      file.createNewFile();
+      FileWriter _fileWriter = new FileWriter(file);
+      final Procedure1<FileWriter> _function = (FileWriter it) -> {
+        try {
+          it.write(contents.toString());
+          it.close();
+        } catch (Throwable _e) {
+          throw Exceptions.sneakyThrow(_e);
+        }
+      };
+      ObjectExtensions.<FileWriter>operator_doubleArrow(_fileWriter, _function);
+      return this._uriExtensions.withEmptyAuthority(URI.createFileURI(file.getAbsolutePath()));
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+}
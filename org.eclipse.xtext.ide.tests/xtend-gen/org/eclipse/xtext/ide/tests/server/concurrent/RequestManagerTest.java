@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2016, 2017, 2018 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2017, 2018, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ import com.google.inject.Inject;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.xtext.ide.PrioritizedExecutorService;
 import org.eclipse.xtext.ide.server.ServerModule;
 import org.eclipse.xtext.ide.server.concurrent.RequestManager;
 import org.eclipse.xtext.util.CancelIndicator;
@@ -62,6 +63,37 @@ public class RequestManagerTest {
     }
   }
   
+  @Test(timeout = 1000)
+  public void testRunReadWithPriority() {
+    try {
+      final AtomicInteger dispatched = new AtomicInteger();
+      final RequestManager manager = new RequestManager() {
+        @Override
+        public <V extends Object> CompletableFuture<V> runRead(final Function1<? super CancelIndicator, ? extends V> cancellable) {
+          dispatched.incrementAndGet();
+          return super.<V>runRead(cancellable);
+        }
+      };
+      ServerModule _serverModule = new ServerModule();
+      Guice.createInjector(_serverModule).injectMembers(manager);
+      try {
+        final Function1<CancelIndicator, String> _function = (CancelIndicator it) -> {
+          return "Foo";
+        };
+        Assert.assertEquals("Foo", manager.<String>runRead(PrioritizedExecutorService.Priority.BACKGROUND, _function).get());
+        final Function1<CancelIndicator, String> _function_1 = (CancelIndicator it) -> {
+          return "Bar";
+        };
+        Assert.assertEquals("Bar", manager.<String>runRead(PrioritizedExecutorService.Priority.INTERACTIVE, _function_1).get());
+        Assert.assertEquals(2, dispatched.get());
+      } finally {
+        manager.shutdown();
+      }
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
   @Test(timeout = 1000)
   public void testRunReadConcurrent() {
     final Function1<CancelIndicator, Integer> _function = (CancelIndicator it) -> {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2017, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,23 +8,58 @@
 package org.eclipse.xtext.ide
 
 import com.google.common.collect.Maps
+import com.google.common.util.concurrent.ThreadFactoryBuilder
 import com.google.inject.Inject
 import com.google.inject.Provider
 import com.google.inject.Singleton
+import com.google.inject.name.Named
 import java.util.Map
 import java.util.concurrent.ExecutorService
-import java.util.concurrent.Executors
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.TimeUnit
 import org.eclipse.xtext.util.DisposableRegistry
 import org.eclipse.xtext.util.IDisposable
+import org.eclipse.xtext.util.internal.Log
 
 /**
  * Provider for executor services. By calling {@link #dispose()} all created executor services are shut down.
  * <p>
  * In some situations it is necessary to use multiple instances of executor services in order to avoid deadlocks.
  * That can be achieved with the {@link #get(String)}method, which will return a different instance for each key.
+ * <p>
+ * The created executor services are {@link PrioritizedExecutorService bounded} by {@link #MAX_THREADS} threads each.
+ * A task must therefore not block on other tasks of the same executor service that may not have been started yet,
+ * but either run them itself or submit them to an executor service with a different key.
  */
 @Singleton
+@Log
 class ExecutorServiceProvider implements Provider<ExecutorService>, IDisposable {
+
+	/**
+	 * The maximum number of threads of each executor service. It can be configured with e.g.
+	 * <code>binder.bindConstant().annotatedWith(Names.named(ExecutorServiceProvider.MAX_THREADS)).to(8)</code>.
+	 * Defaults to twice the number of available processors but at least four.
+	 * 
+	 * @since 2.20
+	 */
+	public static val String MAX_THREADS = 'org.eclipse.xtext.ide.ExecutorServiceProvider.MAX_THREADS'
+
+	/**
+	 * Whether the executor services should run their tasks on virtual threads. Only has an effect on Java runtimes
+	 * that support virtual threads. It can be configured with e.g.
+	 * <code>binder.bindConstant().annotatedWith(Names.named(ExecutorServiceProvider.VIRTUAL_THREADS)).to(true)</code>.
+	 * 
+	 * @since 2.20
+	 */
+	public static val String VIRTUAL_THREADS = 'org.eclipse.xtext.ide.ExecutorServiceProvider.VIRTUAL_THREADS'
+
+	@Inject(optional = true)
+	@Named(MAX_THREADS)
+	int maxThreads = Math.max(4, 2 * Runtime.runtime.availableProcessors)
+
+	@Inject(optional = true)
+	@Named(VIRTUAL_THREADS)
+	boolean virtualThreads = false
 	
 	@Inject
 	def registerTo(DisposableRegistry disposableRegistry) {
@@ -52,7 +87,25 @@ class ExecutorServiceProvider implements Provider<ExecutorService>, IDisposable
 	}
 	
 	protected def ExecutorService createInstance(String key) {
-		Executors.newCachedThreadPool
+		new PrioritizedExecutorService(maxThreads, 60, TimeUnit.SECONDS, createThreadFactory(key))
+	}
+
+	/**
+	 * @since 2.20
+	 */
+	protected def ThreadFactory createThreadFactory(String key) {
+		val name = 'ExecutorServiceProvider-' + (key ?: 'default') + '-'
+		if (virtualThreads) {
+			try {
+				val builderClass = Class.forName('java.lang.Thread$Builder')
+				val builder = Thread.getMethod('ofVirtual').invoke(null)
+				builderClass.getMethod('name', String, Long.TYPE).invoke(builder, name, 0L)
+				return builderClass.getMethod('factory').invoke(builder) as ThreadFactory
+			} catch (ReflectiveOperationException e) {
+				LOG.warn('Virtual threads are not supported by this Java runtime, using platform threads.')
+			}
+		}
+		return new ThreadFactoryBuilder().setNameFormat(name.replace('%', '%%') + '%d').build
 	}
 	
 	override dispose() {
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.ide;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread pool with a fixed maximum number of threads that runs queued tasks by {@link Priority priority} and in
+ * submission order within the same priority. Idle threads are terminated after the keep alive time.
+ * <p>
+ * Tasks that are submitted with the methods of {@link java.util.concurrent.ExecutorService ExecutorService} get the
+ * {@link Priority#INTERACTIVE interactive} priority.
+ *
+ * @since 2.20
+ */
+public class PrioritizedExecutorService extends ThreadPoolExecutor {
+
+	/**
+	 * The priority of a task. Queued tasks with a higher priority are run first.
+	 */
+	public enum Priority {
+		/**
+		 * Tasks that a user is waiting for, e.g. content assist or hover requests.
+		 */
+		INTERACTIVE,
+		/**
+		 * Tasks that nobody is waiting for, e.g. publishing diagnostics after a build.
+		 */
+		BACKGROUND
+	}
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final AtomicLong[] startedTasks = new AtomicLong[Priority.values().length];
+
+	private final AtomicLong[] queueTime = new AtomicLong[Priority.values().length];
+
+	public PrioritizedExecutorService(int maxThreads, long keepAliveTime, TimeUnit unit, ThreadFactory threadFactory) {
+		super(maxThreads, maxThreads, keepAliveTime, unit, new PriorityBlockingQueue<Runnable>(), threadFactory);
+		allowCoreThreadTimeOut(true);
+		for (int i = 0; i < startedTasks.length; i++) {
+			startedTasks[i] = new AtomicLong();
+			queueTime[i] = new AtomicLong();
+		}
+	}
+
+	public <T> Future<T> submit(Priority priority, Callable<T> task) {
+		RunnableFuture<T> result = newTaskFor(task);
+		execute(priority, result);
+		return result;
+	}
+
+	public Future<?> submit(Priority priority, Runnable task) {
+		RunnableFuture<Object> result = newTaskFor(task, null);
+		execute(priority, result);
+		return result;
+	}
+
+	public void execute(Priority priority, Runnable command) {
+		super.execute(new PrioritizedTask(command, priority, sequence.getAndIncrement()));
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		execute(Priority.INTERACTIVE, command);
+	}
+
+	@Override
+	protected void beforeExecute(Thread t, Runnable r) {
+		super.beforeExecute(t, r);
+		if (r instanceof PrioritizedTask) {
+			PrioritizedTask task = (PrioritizedTask) r;
+			startedTasks[task.priority.ordinal()].incrementAndGet();
+			queueTime[task.priority.ordinal()].addAndGet(System.nanoTime() - task.queuedAt);
+		}
+	}
+
+	/**
+	 * Returns the number of tasks with the given priority that are waiting for a thread.
+	 */
+	public int getQueuedTaskCount(Priority priority) {
+		int result = 0;
+		for (Runnable queued : getQueue()) {
+			if (queued instanceof PrioritizedTask && ((PrioritizedTask) queued).priority == priority) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of tasks with the given priority that have been started so far.
+	 */
+	public long getStartedTaskCount(Priority priority) {
+		return startedTasks[priority.ordinal()].get();
+	}
+
+	/**
+	 * Returns the accumulated time that the started tasks with the given priority have waited for a thread.
+	 */
+	public long getQueueTime(Priority priority, TimeUnit unit) {
+		return unit.convert(queueTime[priority.ordinal()].get(), TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder(super.toString());
+		result.setLength(result.length() - 1);
+		for (Priority priority : Priority.values()) {
+			long started = getStartedTaskCount(priority);
+			result.append(", ").append(priority.name().toLowerCase()).append(" tasks = ").append(started);
+			if (started > 0) {
+				result.append(" (avg. queue time = ").append(getQueueTime(priority, TimeUnit.MICROSECONDS) / started)
+						.append("us)");
+			}
+		}
+		return result.append(']').toString();
+	}
+
+	private static class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+
+		private final Runnable delegate;
+
+		private final Priority priority;
+
+		private final long sequenceNumber;
+
+		private final long queuedAt = System.nanoTime();
+
+		PrioritizedTask(Runnable delegate, Priority priority, long sequenceNumber) {
+			this.delegate = delegate;
+			this.priority = priority;
+			this.sequenceNumber = sequenceNumber;
+		}
+
+		@Override
+		public void run() {
+			delegate.run();
+		}
+
+		@Override
+		public int compareTo(PrioritizedTask other) {
+			int result = priority.compareTo(other.priority);
+			if (result == 0) {
+				result = Long.compare(sequenceNumber, other.sequenceNumber);
+			}
+			return result;
+		}
+
+	}
+
+}
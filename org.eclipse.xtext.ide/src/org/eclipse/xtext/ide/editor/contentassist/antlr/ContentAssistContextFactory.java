@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2014, 2017, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,7 +15,10 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.antlr.runtime.ANTLRStringStream;
 import org.antlr.runtime.Token;
@@ -65,6 +68,8 @@ public class ContentAssistContextFactory implements Function<ContentAssistContex
 	
 	private ExecutorService pool;
 	
+	private long latencyBudget;
+	
 	@Inject
 	protected IContentAssistParser parser;
 	
@@ -87,6 +92,12 @@ public class ContentAssistContextFactory implements Function<ContentAssistContex
 	@Inject
 	protected CompletionPrefixProvider completionPrefixProvider;
 	
+	/**
+	 * @since 2.20
+	 */
+	@Inject
+	protected FollowElementCache followElementCache;
+	
 	protected XtextResource resource;
 
 	protected ICompositeNode rootNode;
@@ -138,11 +149,22 @@ public class ContentAssistContextFactory implements Function<ContentAssistContex
 		this.pool = pool;
 	}
 
+	/**
+	 * Sets the time in milliseconds that {@link #create(String, ITextRegion, int, XtextResource)} waits for the
+	 * contexts. The contexts that are not computed within that time are skipped. A value that is not positive means
+	 * that there is no time limit, which is the default.
+	 * 
+	 * @since 2.20
+	 */
+	public void setLatencyBudget(long latencyBudget) {
+		this.latencyBudget = latencyBudget;
+	}
+
 	protected ContentAssistContext[] doCreateContexts(int offset) {
 		initializeFromViewerAndResource(offset);
-		List<Future<?>> futures = Lists.newArrayList();
+		List<FutureTask<?>> futures = Lists.newArrayList();
 		if (!datatypeNode.equals(lastCompleteNode)) {
-			futures.add(pool.submit(new Callable<Void>() {
+			futures.add(submit(new Callable<Void>() {
 				@Override
 				public Void call() throws Exception {
 					handleLastCompleteNodeAsPartOfDatatypeNode();
@@ -154,7 +176,7 @@ public class ContentAssistContextFactory implements Function<ContentAssistContex
 		// 2nd context: we assume, that the current token is incomplete and try to calculate
 		// any valid grammar element by removing the current token and using it as prefix
 		if (datatypeNode.equals(lastCompleteNode) && completionOffset != lastCompleteNode.getOffset()) {
-			futures.add(pool.submit(new Callable<Void>() {
+			futures.add(submit(new Callable<Void>() {
 				@Override
 				public Void call() throws Exception {
 					handleLastCompleteNodeIsAtEndOfDatatypeNode();
@@ -165,7 +187,7 @@ public class ContentAssistContextFactory implements Function<ContentAssistContex
 
 		// 4th context: we assume, that the current position is perfectly ok to insert a new token, if the previous one was valid
 		if (!(lastCompleteNode instanceof ILeafNode) || lastCompleteNode.getGrammarElement() != null) {
-			futures.add(pool.submit(new Callable<Void>() {
+			futures.add(submit(new Callable<Void>() {
 				@Override
 				public Void call() throws Exception {
 					handleLastCompleteNodeIsPartOfLookahead();
@@ -174,15 +196,44 @@ public class ContentAssistContextFactory implements Function<ContentAssistContex
 			}));
 		}
 
-		// wait for all requests to complete
-		for(Future<?> f: futures) {
+		// wait for all requests to complete or until the latency budget is exhausted,
+		// requests that have not been started by the pool yet are computed by the calling thread
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(latencyBudget);
+		for(FutureTask<?> f: futures) {
 			try {
-				f.get();
+				if (latencyBudget <= 0 || deadline - System.nanoTime() > 0) {
+					f.run();
+				}
+				if (latencyBudget > 0) {
+					f.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+				} else {
+					f.get();
+				}
+			} catch (TimeoutException e) {
+				f.cancel(true);
+				log.debug("Content assist context skipped after " + latencyBudget + "ms");
 			} catch (Exception e) {
 				log.error(e.getMessage(), e);
 			}
 		}
-		return Lists.transform(contextBuilders, this).toArray(new ContentAssistContext[contextBuilders.size()]);
+		synchronized (contextBuilders) {
+			return Lists.transform(contextBuilders, this).toArray(new ContentAssistContext[contextBuilders.size()]);
+		}
+	}
+
+	/**
+	 * Submits the given computation to the pool. The calling thread may be a thread of the pool itself, so it runs the
+	 * computation on its own if the pool has not started it by the time the result is needed. Otherwise concurrent
+	 * requests could occupy all threads of a bounded pool while waiting for their queued computations.
+	 */
+	private FutureTask<Void> submit(Callable<Void> computation) {
+		FutureTask<Void> result = new FutureTask<Void>(computation);
+		try {
+			pool.execute(result);
+		} catch (RejectedExecutionException e) {
+			// computed by the calling thread
+		}
+		return result;
 	}
 
 	protected void initializeFromViewerAndResource(int offset) {
@@ -226,7 +277,7 @@ public class ContentAssistContextFactory implements Function<ContentAssistContex
 		INode previousNode = getLastCompleteNodeByOffset(rootNode, lastCompleteNode.getOffset());
 		EObject previousModel = previousNode.getSemanticElement();
 		INode currentDatatypeNode = getContainingDatatypeRuleNode(currentNode);
-		Collection<FollowElement> followElements = parser.getFollowElements(completeInput, false);
+		Collection<FollowElement> followElements = getFollowElements(completeInput, false);
 		int prevSize = contextBuilders.size();
 		doCreateContexts(previousNode, currentDatatypeNode, prefix, previousModel, followElements);
 		
@@ -260,7 +311,7 @@ public class ContentAssistContextFactory implements Function<ContentAssistContex
 	protected void handleLastCompleteNodeAsPartOfDatatypeNode() {
 		String prefix = getPrefix(datatypeNode);
 		String completeInput = getInputToParse(datatypeNode);
-		Collection<FollowElement> followElements = parser.getFollowElements(completeInput, false);
+		Collection<FollowElement> followElements = getFollowElements(completeInput, false);
 		INode lastCompleteNodeBeforeDatatype = getLastCompleteNodeByOffset(rootNode, datatypeNode.getTotalOffset());
 		doCreateContexts(lastCompleteNodeBeforeDatatype, datatypeNode, prefix, currentModel, followElements);
 	}
@@ -295,10 +346,25 @@ public class ContentAssistContextFactory implements Function<ContentAssistContex
 		}
 		String prefix = "";
 		String completeInput = getInputToParse(document, completionOffset);
-		Collection<FollowElement> followElements = parser.getFollowElements(completeInput, strict);
+		Collection<FollowElement> followElements = getFollowElements(completeInput, strict);
 		doCreateContexts(lastCompleteNode, currentNode, prefix, previousModel, followElements);
 	}
 	
+	/**
+	 * Returns the follow elements for the given input. The result is {@link FollowElementCache cached} if the entry
+	 * rule of the parser is known.
+	 * 
+	 * @since 2.20
+	 */
+	protected Collection<FollowElement> getFollowElements(String input, boolean strict) {
+		if (followElementCache != null && parser instanceof BaseContentAssistParser<?, ?, ?>) {
+			AbstractRule entryRule = ((BaseContentAssistParser<?, ?, ?>) parser).getEntryRule();
+			return followElementCache.getFollowElements(input, strict, entryRule,
+					() -> parser.getFollowElements(input, strict));
+		}
+		return parser.getFollowElements(input, strict);
+	}
+	
 	/**
 	 * Return <code>true</code> if the token should be considered to be an error token.
 	 * If the token that is created from the prefix before the cursor position is an error
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.ide.editor.contentassist.antlr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import org.antlr.runtime.Token;
+import org.eclipse.xtext.AbstractRule;
+
+import com.google.inject.Singleton;
+
+/**
+ * Caches the follow elements that the {@link IContentAssistParser content assist parser} computes, so subsequent
+ * content assist requests don't parse the same input again. While the user types an identifier, the input up to the
+ * beginning of the identifier stays the same, and so do the follow elements of the grammar states that are reached
+ * with the same lookahead.
+ * <p>
+ * The follow elements only depend on the grammar, so the cache is shared by all content assist requests of a
+ * language. The least recently used entries are discarded when the cache is full.
+ *
+ * @since 2.20
+ */
+@Singleton
+public class FollowElementCache {
+
+	private final Map<Object, Collection<FollowElement>> inputs = createLRUMap(this::getMaxInputs);
+
+	private final Map<Object, Collection<FollowElement>> elements = createLRUMap(this::getMaxElements);
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Returns the follow elements for the given input that is parsed starting with the given entry rule.
+	 */
+	public Collection<FollowElement> getFollowElements(String input, boolean strict, AbstractRule entryRule,
+			Supplier<Collection<FollowElement>> computation) {
+		return get(inputs, Arrays.asList(input, strict, entryRule), computation);
+	}
+
+	/**
+	 * Returns the follow elements that are reached from the given follow element and its lookahead.
+	 */
+	public Collection<FollowElement> getFollowElements(FollowElement element,
+			Supplier<Collection<FollowElement>> computation) {
+		return get(elements, createKey(element), computation);
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public void clear() {
+		synchronized (inputs) {
+			inputs.clear();
+		}
+		synchronized (elements) {
+			elements.clear();
+		}
+	}
+
+	/**
+	 * The maximum number of cached inputs. Each entry holds the text of a document up to the completion offset.
+	 */
+	protected int getMaxInputs() {
+		return 16;
+	}
+
+	/**
+	 * The maximum number of cached follow elements with a lookahead.
+	 */
+	protected int getMaxElements() {
+		return 1000;
+	}
+
+	/**
+	 * Creates the key of a follow element. The lookahead terminals are compared by their token type and text, since the
+	 * terminals are recreated by each parse.
+	 */
+	protected Object createKey(FollowElement element) {
+		List<Object> lookAheadTerminals = new ArrayList<>();
+		if (element.getLookAheadTerminals() != null) {
+			for (LookAheadTerminal terminal : element.getLookAheadTerminals()) {
+				Token token = terminal.getToken();
+				lookAheadTerminals.add(Arrays.asList(terminal.getClass(), token.getType(), token.getText()));
+			}
+		}
+		return Arrays.asList(element.getGrammarElement(), element.getLookAhead(), copy(element.getTrace()),
+				copy(element.getLocalTrace()), copy(element.getParamStack()),
+				copy(element.getHandledUnorderedGroupElements()), lookAheadTerminals);
+	}
+
+	private static List<?> copy(List<?> list) {
+		return list == null ? null : new ArrayList<>(list);
+	}
+
+	private Collection<FollowElement> get(Map<Object, Collection<FollowElement>> cache, Object key,
+			Supplier<Collection<FollowElement>> computation) {
+		Collection<FollowElement> result;
+		synchronized (cache) {
+			result = cache.get(key);
+		}
+		if (result != null) {
+			hits.incrementAndGet();
+		} else {
+			misses.incrementAndGet();
+			result = Collections.unmodifiableList(new ArrayList<>(computation.get()));
+			synchronized (cache) {
+				cache.put(key, result);
+			}
+		}
+		return new ArrayList<>(result);
+	}
+
+	/**
+	 * The maximum size is asked for when an entry is added, since subclasses are not initialized yet when the maps are
+	 * created.
+	 */
+	private static <K, V> Map<K, V> createLRUMap(IntSupplier maxSize) {
+		return new LinkedHashMap<K, V>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				return size() > maxSize.getAsInt();
+			}
+		};
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2017, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -46,6 +46,11 @@ public class FollowElementComputer {
 	 */
 	@Inject Provider<FollowElementCalculator> feCalculatorProvider;
 	
+	/**
+	 * @since 2.20
+	 */
+	@Inject FollowElementCache followElementCache;
+	
 	public void collectAbstractElements(Grammar grammar, EStructuralFeature feature, IFollowElementAcceptor followElementAcceptor) {
 		for (Grammar superGrammar : grammar.getUsedGrammars()) {
 			collectAbstractElements(superGrammar, feature, followElementAcceptor);
@@ -149,7 +154,7 @@ public class FollowElementComputer {
 			}
 			return;
 		}
-		Collection<FollowElement> followElements = parser.getFollowElements(element);
+		Collection<FollowElement> followElements = getFollowElements(element);
 		for(FollowElement newElement: followElements) {
 			if (newElement.getLookAhead() != element.getLookAhead() || newElement.getGrammarElement() != element.getGrammarElement()) {
 				if (newElement.getLookAhead() == element.getLookAhead()) {
@@ -166,6 +171,19 @@ public class FollowElementComputer {
 		}
 	}
 
+	/**
+	 * Returns the follow elements that are reached from the given element with a lookahead. The result is
+	 * {@link FollowElementCache cached}.
+	 * 
+	 * @since 2.20
+	 */
+	protected Collection<FollowElement> getFollowElements(FollowElement element) {
+		if (followElementCache == null) {
+			return parser.getFollowElements(element);
+		}
+		return followElementCache.getFollowElements(element, () -> parser.getFollowElements(element));
+	}
+
 	/**
 	 * @since 2.14
 	 */
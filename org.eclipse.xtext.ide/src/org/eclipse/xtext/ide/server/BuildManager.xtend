@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2017, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -86,6 +86,12 @@ class BuildManager {
             val projectDirty = project2dirty.get(it).toList
             val projectDeleted = project2deleted.get(it).toList
             val partialResult = projectManager.doBuild(projectDirty, projectDeleted, unreportedDeltas, cancelIndicator)
+            // the other projects may have loaded the changed resources
+            for (otherProjectManager : workspaceManager.projectManagers) {
+                if (otherProjectManager !== projectManager) {
+                    otherProjectManager.invalidateResources(partialResult.affectedResources)
+                }
+            }
             allDirty.addAll(partialResult.affectedResources.map[uri])
             this.dirtyFiles -= projectDirty
             this.deletedFiles -= projectDeleted
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2017, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,7 +14,10 @@ import com.google.common.collect.Multimap
 import com.google.inject.Inject
 import java.util.List
 import java.util.Map
+import java.util.Set
 import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
 import java.util.function.Function
 import org.eclipse.emf.common.util.URI
 import org.eclipse.lsp4j.CodeActionParams
@@ -73,6 +76,7 @@ import org.eclipse.lsp4j.services.WorkspaceService
 import org.eclipse.xtend.lib.annotations.Accessors
 import org.eclipse.xtend.lib.annotations.FinalFieldsConstructor
 import org.eclipse.xtext.findReferences.IReferenceFinder.IResourceAccess
+import org.eclipse.xtext.ide.PrioritizedExecutorService.Priority
 import org.eclipse.xtext.ide.server.ILanguageServerAccess.IBuildListener
 import org.eclipse.xtext.ide.server.codeActions.ICodeActionService
 import org.eclipse.xtext.ide.server.codeActions.ICodeActionService2
@@ -97,8 +101,8 @@ import org.eclipse.xtext.ide.server.symbol.IDocumentSymbolService
 import org.eclipse.xtext.ide.server.symbol.WorkspaceSymbolService
 import org.eclipse.xtext.resource.IResourceDescription.Delta
 import org.eclipse.xtext.resource.IResourceServiceProvider
-import org.eclipse.xtext.resource.XtextResource
 import org.eclipse.xtext.resource.impl.ResourceDescriptionsProvider
+import org.eclipse.xtext.service.OperationCanceledManager
 import org.eclipse.xtext.util.CancelIndicator
 import org.eclipse.xtext.util.internal.Log
 import org.eclipse.xtext.validation.Issue
@@ -116,8 +120,13 @@ import static org.eclipse.xtext.diagnostics.Severity.*
 	@Inject extension UriExtensions
 	@Inject extension IResourceServiceProvider.Registry languagesRegistry
 	@Inject ExecutableCommandRegistry commandRegistry
+	@Inject OperationCanceledManager operationCanceledManager
 	@Inject SemanticHighlightingRegistry semanticHighlightingRegistry
 	@Inject ILanguageServerShutdownAndExitHandler shutdownAndExitHandler
+	/**
+	 * @since 2.20
+	 */
+	@Inject @Accessors(PUBLIC_GETTER) NotificationQueue notificationQueue
 	
 	// injected below
 	WorkspaceManager workspaceManager
@@ -233,6 +242,7 @@ import static org.eclipse.xtext.diagnostics.Severity.*
 	
 	override connect(LanguageClient client) {
 		this.client = client
+		notificationQueue.connect(client)
 	}
 
 	override exit() {
@@ -240,6 +250,7 @@ import static org.eclipse.xtext.diagnostics.Severity.*
 	}
 
 	override CompletableFuture<Object> shutdown() {
+		workspaceManager.dispose()
 		shutdownAndExitHandler.shutdown()
 		return CompletableFuture.completedFuture(new Object());
 	}
@@ -256,7 +267,10 @@ import static org.eclipse.xtext.diagnostics.Severity.*
 	// file/content change events
 	override didOpen(DidOpenTextDocumentParams params) {
 		requestManager.runWrite([
-			workspaceManager.didOpen(params.textDocument.uri.toUri, params.textDocument.version, params.textDocument.text)
+			val uri = params.textDocument.uri.toUri
+			documentTouched(uri)
+			semanticHighlightingRegistry.reset(uri)
+			workspaceManager.didOpen(uri, params.textDocument.version, params.textDocument.text)
 		], [cancelIndicator , buildable | 
 			buildable.build(cancelIndicator)
 		])
@@ -264,7 +278,10 @@ import static org.eclipse.xtext.diagnostics.Severity.*
 
 	override didChange(DidChangeTextDocumentParams params) {
 		requestManager.runWrite([ 
-			workspaceManager.didChangeTextDocumentContent(params.textDocument.uri.toUri, params.textDocument.version, params.contentChanges)
+			val uri = params.textDocument.uri.toUri
+			documentTouched(uri)
+			semanticHighlightingRegistry.didChange(uri, params.contentChanges)
+			workspaceManager.didChangeTextDocumentContent(uri, params.textDocument.version, params.contentChanges)
 		], [cancelIndicator , buildable | 
 			buildable.build(cancelIndicator)
 		])
@@ -272,7 +289,10 @@ import static org.eclipse.xtext.diagnostics.Severity.*
 
 	override didClose(DidCloseTextDocumentParams params) {
 		requestManager.runWrite([
-			workspaceManager.didClose(params.textDocument.uri.toUri)
+			val uri = params.textDocument.uri.toUri
+			recentlyTouchedDocuments.remove(uri)
+			semanticHighlightingRegistry.reset(uri)
+			workspaceManager.didClose(uri)
 		], [cancelIndicator , buildable | 
 			buildable.build(cancelIndicator)
 		])
@@ -315,22 +335,46 @@ import static org.eclipse.xtext.diagnostics.Severity.*
 	
 	LanguageClient client
 
+	/**
+	 * The issues that have been reported by the build. They are converted and published after the build.
+	 */
+	val Map<URI, Iterable<? extends Issue>> pendingIssues = new ConcurrentHashMap
+
+	/**
+	 * The open documents whose coloring and semantic highlighting have to be updated after the build.
+	 */
+	val Set<URI> pendingHighlighting = ConcurrentHashMap.newKeySet
+
+	/**
+	 * The open documents in the order in which they have been opened or changed.
+	 */
+	val Set<URI> recentlyTouchedDocuments = newLinkedHashSet
+
 	private def void publishDiagnostics(URI uri, Iterable<? extends Issue> issues) {
+		pendingIssues.put(uri, issues)
+	}
+
+	private def void publishDiagnostics(URI uri, Iterable<? extends Issue> issues, Document document) {
+		val uriString = toUriString(uri)
 		initialized.thenAccept([
-			val diagnostics = new PublishDiagnosticsParams => [
-				it.uri = toUriString(uri)
-				if (issues.isEmpty) {
-					diagnostics = #[]
-				} else {
-					diagnostics = workspaceManager.doRead(uri) [document, resource|
-						issues.filter[severity !== IGNORE].map[toDiagnostic(document, it)].toList
-					]
-				}
+			notificationQueue.publishDiagnostics(uriString) [
+				new PublishDiagnosticsParams => [
+					it.uri = uriString
+					if (issues.isEmpty) {
+						diagnostics = #[]
+					} else {
+						diagnostics = issues.filter[severity !== IGNORE].map[toDiagnostic(document, it)].toList
+					}
+				]
 			]
-			client.publishDiagnostics(diagnostics)
 		])
 	}
 
+	private def void documentTouched(URI uri) {
+		recentlyTouchedDocuments.remove(uri)
+		recentlyTouchedDocuments.add(uri)
+	}
+
 	private def Diagnostic toDiagnostic(Document document, Issue issue) {
 		new Diagnostic => [
 			code = issue.code
@@ -781,31 +825,117 @@ import static org.eclipse.xtext.diagnostics.Severity.*
 
 	}
 	
+	/**
+	 * Publishes the diagnostics and updates the coloring and semantic highlighting of the open documents that have
+	 * been affected by the build. The work is done by at most {@link #getAfterBuildParallelism() parallel}
+	 * background read requests, which are cancelled by the next write request. The documents that have been changed
+	 * most recently are processed first. Work that has been cancelled is done after the next build.
+	 */
 	override afterBuild(List<Delta> deltas) {
-		deltas.filter[^new !== null].map[uri.toString].forEach [
-				access.<Void>doRead(it) [ ctx |
-					if (ctx.documentOpen) {
-						if (ctx.resource instanceof XtextResource) {
-							// XXX Do the coloring update if the resource has no syntax errors?
-							val resource = ctx.resource as XtextResource;
-							val serviceProvider = resource.URI.resourceServiceProvider;
-							val coloringService = serviceProvider?.get(IColoringService);
-							if (coloringService !== null) {
-								if (client instanceof LanguageClientExtensions) {
-									val doc = ctx.document;
-									val coloringInfos = coloringService.getColoring(resource, doc);
-									if (!coloringInfos.nullOrEmpty) {
-										val uri = resource.URI.toString;
-										client.updateColoring(new ColoringParams(uri, coloringInfos));
-									}
-								}
-							}
+		for (delta : deltas) {
+			if (delta.^new !== null && workspaceManager.isDocumentOpen(delta.uri)) {
+				pendingHighlighting.add(delta.uri)
+			}
+		}
+		val uris = newLinkedHashSet
+		uris += pendingIssues.keySet
+		uris += pendingHighlighting
+		if (uris.empty) {
+			return
+		}
+		val queue = new ConcurrentLinkedQueue(uris.prioritize)
+		for (i : 0 ..< Math.min(queue.size, afterBuildParallelism)) {
+			requestManager.runRead(Priority.BACKGROUND) [ cancelIndicator |
+				for (var uri = queue.poll; uri !== null && !cancelIndicator.canceled; uri = queue.poll) {
+					try {
+						afterBuild(uri, cancelIndicator)
+					} catch (Throwable t) {
+						operationCanceledManager.propagateIfCancelException(t)
+						LOG.error("Error while processing " + uri + " after the build.", t)
+					}
+				}
+				return null
+			]
+		}
+	}
+
+	/**
+	 * Returns the given documents in the order in which they should be processed after a build.
+	 * By default, the most recently changed documents come first.
+	 * 
+	 * @since 2.20
+	 */
+	protected def List<URI> prioritize(Set<URI> uris) {
+		val result = newArrayList
+		for (uri : recentlyTouchedDocuments.toList.reverseView) {
+			if (uris.contains(uri)) {
+				result += uri
+			}
+		}
+		for (uri : uris) {
+			if (!recentlyTouchedDocuments.contains(uri)) {
+				result += uri
+			}
+		}
+		return result
+	}
+
+	/**
+	 * The maximum number of read requests that process the documents after a build.
+	 * 
+	 * @since 2.20
+	 */
+	protected def int getAfterBuildParallelism() {
+		return Runtime.runtime.availableProcessors
+	}
+
+	/**
+	 * Publishes the pending diagnostics and updates the coloring and semantic highlighting of a single document.
+	 * 
+	 * @since 2.20
+	 */
+	protected def void afterBuild(URI uri, CancelIndicator cancelIndicator) {
+		val issues = pendingIssues.get(uri)
+		val highlighting = pendingHighlighting.contains(uri)
+		if (issues !== null && issues.empty) {
+			publishDiagnostics(uri, issues, null)
+		}
+		if (highlighting || issues !== null && !issues.empty) {
+			doAfterBuild(uri, issues, highlighting, cancelIndicator)
+		}
+		// removed only once the work is done, so that work that has been cancelled is done after the next build
+		if (cancelIndicator.canceled) {
+			return
+		}
+		if (issues !== null) {
+			pendingIssues.remove(uri, issues)
+		}
+		if (highlighting) {
+			pendingHighlighting.remove(uri)
+		}
+	}
+
+	private def void doAfterBuild(URI uri, Iterable<? extends Issue> issues, boolean highlighting, CancelIndicator cancelIndicator) {
+		workspaceManager.doRead(uri) [ document, resource |
+			if (issues !== null && !issues.empty) {
+				publishDiagnostics(uri, issues, document)
+			}
+			if (highlighting && resource !== null && workspaceManager.isDocumentOpen(resource.URI)) {
+				// XXX Do the coloring update if the resource has no syntax errors?
+				val serviceProvider = resource.URI.resourceServiceProvider;
+				val coloringService = serviceProvider?.get(IColoringService);
+				if (coloringService !== null) {
+					if (client instanceof LanguageClientExtensions) {
+						val coloringInfos = coloringService.getColoring(resource, document);
+						if (!coloringInfos.nullOrEmpty) {
+							notificationQueue.updateColoring(new ColoringParams(resource.URI.toString, coloringInfos));
 						}
 					}
-					semanticHighlightingRegistry.update(ctx);
-					return /*void*/ null;
-				];
-			];
+				}
+				semanticHighlightingRegistry.update(new ILanguageServerAccess.Context(resource, document, true, cancelIndicator));
+			}
+			return null
+		]
 	}
 
 	/**
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.ide.server
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import java.util.LinkedHashMap
+import java.util.List
+import java.util.Map
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import org.eclipse.lsp4j.ColoringParams
+import org.eclipse.lsp4j.PublishDiagnosticsParams
+import org.eclipse.lsp4j.services.LanguageClient
+import org.eclipse.lsp4j.services.LanguageClientExtensions
+import org.eclipse.xtext.util.internal.Log
+
+/**
+ * Sends the notifications of a language server to its client. The notifications are queued and sent by a single
+ * background thread, so the requests that produce them don't wait for the client.
+ * <p>
+ * A notification that replaces the state of a document, e.g. its diagnostics or coloring, supersedes the pending
+ * notification of the same kind for the same document. Superseded notifications are dropped, and the diagnostics are
+ * only converted when they are sent, so after a large build each document is converted and published at most once
+ * per flush.
+ * <p>
+ * If the client doesn't keep up, the queue fills up to its {@link #getMaxPendingNotifications() limit}. Further
+ * notifications then drop the oldest pending notification instead of blocking their sender, since the senders are
+ * requests that are waited for by the next write request.
+ *
+ * @since 2.20
+ */
+@Log
+class NotificationQueue {
+
+	/**
+	 * The sender thread is discarded when it has been idle for a minute.
+	 */
+	val executor = new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue,
+		new ThreadFactoryBuilder().setDaemon(true).setNameFormat("NotificationQueue-%d").build)
+
+	val Map<Object, (LanguageClient)=>void> pending = new LinkedHashMap
+
+	val lock = new Object
+
+	val enqueued = new AtomicLong
+
+	val superseded = new AtomicLong
+
+	val sent = new AtomicLong
+
+	val dropped = new AtomicLong
+
+	boolean flushScheduled
+
+	LanguageClient client
+
+	def void connect(LanguageClient client) {
+		synchronized (lock) {
+			this.client = client
+			if (flushScheduled || pending.empty) {
+				return
+			}
+			flushScheduled = true
+		}
+		scheduleFlush
+	}
+
+	/**
+	 * Publishes the diagnostics of the document with the given URI. The diagnostics are computed when they are sent.
+	 */
+	def void publishDiagnostics(String uri, ()=>PublishDiagnosticsParams diagnostics) {
+		enqueue('publishDiagnostics' -> uri) [
+			publishDiagnostics(diagnostics.apply)
+		]
+	}
+
+	/**
+	 * Updates the coloring of a document if the client supports it.
+	 */
+	def void updateColoring(ColoringParams params) {
+		enqueue('updateColoring' -> params.uri) [
+			if (it instanceof LanguageClientExtensions) {
+				updateColoring(params)
+			}
+		]
+	}
+
+	/**
+	 * Queues a notification. A pending notification with an equal key is replaced. If the queue is full, the oldest
+	 * pending notification is dropped.
+	 */
+	protected def void enqueue(Object key, (LanguageClient)=>void notification) {
+		synchronized (lock) {
+			if (!pending.containsKey(key) && pending.size >= maxPendingNotifications && !pending.empty) {
+				val oldest = pending.keySet.iterator
+				oldest.next
+				oldest.remove
+				dropped.incrementAndGet
+			}
+			if (pending.put(key, notification) !== null) {
+				superseded.incrementAndGet
+			}
+			enqueued.incrementAndGet
+			if (flushScheduled || client === null) {
+				return
+			}
+			flushScheduled = true
+		}
+		scheduleFlush
+	}
+
+	/**
+	 * Schedules the pending notifications to be sent by the background thread.
+	 */
+	protected def void scheduleFlush() {
+		executor.execute[flush]
+	}
+
+	/**
+	 * Sends the pending notifications in the order in which they have been queued.
+	 */
+	def void flush() {
+		while (true) {
+			var List<(LanguageClient)=>void> batch
+			var LanguageClient client
+			synchronized (lock) {
+				client = this.client
+				if (pending.empty || client === null) {
+					flushScheduled = false
+					return
+				}
+				batch = newArrayList(pending.values)
+				pending.clear
+			}
+			for (notification : batch) {
+				try {
+					notification.apply(client)
+					sent.incrementAndGet
+				} catch (Exception e) {
+					LOG.error("Error while sending a notification to the client.", e)
+				}
+			}
+		}
+	}
+
+	/**
+	 * The maximum number of pending notifications.
+	 */
+	protected def int getMaxPendingNotifications() {
+		return 1000
+	}
+
+	def int getPendingCount() {
+		synchronized (lock) {
+			return pending.size
+		}
+	}
+
+	def long getEnqueuedCount() {
+		return enqueued.get
+	}
+
+	def long getSupersededCount() {
+		return superseded.get
+	}
+
+	def long getSentCount() {
+		return sent.get
+	}
+
+	/**
+	 * Returns the number of notifications that have been dropped because the queue was full.
+	 */
+	def long getDroppedCount() {
+		return dropped.get
+	}
+
+}
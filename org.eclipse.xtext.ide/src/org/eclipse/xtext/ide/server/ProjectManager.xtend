@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2017, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,11 @@ import com.google.inject.Inject
 import com.google.inject.Provider
 import java.util.List
 import java.util.Map
+import org.eclipse.emf.common.notify.Notification
+import org.eclipse.emf.common.notify.impl.AdapterImpl
 import org.eclipse.emf.common.util.URI
 import org.eclipse.emf.ecore.resource.Resource
+import org.eclipse.emf.ecore.resource.ResourceSet
 import org.eclipse.xtend.lib.annotations.Accessors
 import org.eclipse.xtext.build.BuildRequest
 import org.eclipse.xtext.build.IncrementalBuilder
@@ -44,6 +47,7 @@ class ProjectManager {
     @Inject protected IResourceServiceProvider.Registry languagesRegistry
     @Inject protected IFileSystemScanner fileSystemScanner
     @Inject protected IExternalContentSupport externalContentSupport
+    @Inject protected SharedResourceDescriptions sharedResourceDescriptions
     
     @Accessors(PUBLIC_GETTER, PROTECTED_SETTER)
     IndexState indexState = new IndexState
@@ -63,6 +67,26 @@ class ProjectManager {
 
     @Accessors(PUBLIC_GETTER)
     IProjectConfig projectConfig
+
+    boolean sharing
+
+    /**
+     * The number of resources that have been loaded during the last build.
+     * 
+     * @since 2.20
+     */
+    @Accessors(PUBLIC_GETTER)
+    int loadedResourceCount
+
+    /**
+     * The number of resources that have been evicted from the resource set after the last build.
+     * 
+     * @since 2.20
+     */
+    @Accessors(PUBLIC_GETTER)
+    int evictedResourceCount
+
+    val loadCounter = new ResourceLoadCounter
     
     def void initialize(ProjectDescription description, IProjectConfig projectConfig, (URI, Iterable<Issue>)=>void acceptor, IExternalContentProvider openedDocumentsContentProvider, Provider<Map<String, ResourceDescriptionsData>> indexProvider, CancelIndicator cancelIndicator) {
         this.projectDescription = description
@@ -71,6 +95,29 @@ class ProjectManager {
         this.issueAcceptor = acceptor
         this.openedDocumentsContentProvider = openedDocumentsContentProvider
         this.indexProvider = indexProvider
+        sharedResourceDescriptions.acquire(sharedResourceDescriptionsKey)
+        sharing = true
+    }
+
+    /**
+     * Releases the resources that this project manager shares with other language servers.
+     * 
+     * @since 2.20
+     */
+    def void dispose() {
+        if (sharing) {
+            sharing = false
+            sharedResourceDescriptions.release(sharedResourceDescriptionsKey)
+        }
+    }
+
+    /**
+     * The key of this project's {@link SharedResourceDescriptions shared resource descriptions}.
+     * 
+     * @since 2.20
+     */
+    protected def String getSharedResourceDescriptionsKey() {
+        return projectDescription.name + ':' + baseDir
     }
     
     def Result doInitialBuild(CancelIndicator cancelIndicator) {
@@ -83,15 +130,81 @@ class ProjectManager {
 
     def Result doBuild(List<URI> dirtyFiles, List<URI> deletedFiles, List<IResourceDescription.Delta> externalDeltas, CancelIndicator cancelIndicator) {
         val request = newBuildRequest(dirtyFiles, deletedFiles, externalDeltas, cancelIndicator)
+        val loadedBefore = loadCounter.count
         val result = incrementalBuilder.build(request, [
             languagesRegistry.getResourceServiceProvider(it)
         ])
+        loadedResourceCount = loadCounter.count - loadedBefore
         indexState = result.indexState
+        if (sharing) {
+            sharedResourceDescriptions.share(sharedResourceDescriptionsKey, indexState.resourceDescriptions,
+                result.affectedResources.filter[^new === null || openedDocumentsContentProvider === null
+                    || !openedDocumentsContentProvider.hasContent(uri)])
+        }
         resourceSet = request.resourceSet
+        evictedResourceCount = evictResources(dirtyFiles, result.affectedResources)
         indexProvider.get.put(projectDescription.name, indexState.resourceDescriptions)
         return result;
     }
 
+    /**
+     * Unloads the retained resources of other projects that have been changed by a build of their project.
+     * 
+     * @since 2.20
+     */
+    def void invalidateResources(List<IResourceDescription.Delta> deltas) {
+        if (resourceSet !== null) {
+            for (delta : deltas) {
+                unloadResource(resourceSet, delta.uri)
+            }
+        }
+    }
+
+    /**
+     * The maximum number of resources that are retained in the resource set between builds. Unchanged resources are
+     * not reloaded by the next build as long as they are retained.
+     * 
+     * @since 2.20
+     */
+    protected def int getMaxRetainedResources() {
+        return 1000
+    }
+
+    /**
+     * Unloads the resources that exceed the {@link #getMaxRetainedResources() maximum number of retained resources},
+     * starting with the ones that have been loaded first. Open documents and resources that have been changed or
+     * affected by the last build are kept.
+     * 
+     * @return the number of evicted resources.
+     * @since 2.20
+     */
+    protected def int evictResources(List<URI> dirtyFiles, List<IResourceDescription.Delta> affectedResources) {
+        val excess = resourceSet.resources.size - maxRetainedResources
+        if (excess <= 0) {
+            return 0
+        }
+        val retained = newHashSet
+        retained += dirtyFiles
+        retained += affectedResources.map[uri]
+        val evicted = resourceSet.resources.filter[!retained.contains(URI) && (openedDocumentsContentProvider === null
+            || !openedDocumentsContentProvider.hasContent(URI))].take(excess).map[URI].toList
+        for (uri : evicted) {
+            unloadResource(resourceSet, uri)
+        }
+        return evicted.size
+    }
+
+    /**
+     * @since 2.20
+     */
+    protected def void unloadResource(ResourceSet resourceSet, URI uri) {
+        val resource = resourceSet.getResource(uri, false)
+        if (resource !== null) {
+            resourceSet.resources.remove(resource)
+            resource.unload
+        }
+    }
+
     protected def BuildRequest newBuildRequest(List<URI> changedFiles, List<URI> deletedFiles, List<IResourceDescription.Delta> externalDeltas, CancelIndicator cancelIndicator) {
         new BuildRequest => [
             it.baseDir = baseDir
@@ -114,13 +227,16 @@ class ProjectManager {
             ProjectConfigAdapter.install(it, projectConfig)
             val index = new ChunkedResourceDescriptions(indexProvider.get, it)
             index.setContainer(projectDescription.name, newIndex)
-            externalContentSupport.configureResourceSet(it, openedDocumentsContentProvider)
+            if (openedDocumentsContentProvider !== null) {
+                externalContentSupport.configureResourceSet(it, openedDocumentsContentProvider)
+            }
         ]		
 	}
 
     protected def XtextResourceSet createFreshResourceSet(ResourceDescriptionsData newIndex) {
         if (this.resourceSet === null) {
             this.resourceSet = createNewResourceSet(newIndex)
+            this.resourceSet.eAdapters += loadCounter
         } else {
             val resDescs = ChunkedResourceDescriptions.findInEmfObject(this.resourceSet);
             // update index with possible upstream changes
@@ -149,4 +265,22 @@ class ProjectManager {
             ]
         ])
     }
+
+    /**
+     * Counts the resources that are added to a resource set.
+     */
+    protected static class ResourceLoadCounter extends AdapterImpl {
+
+        @Accessors(PUBLIC_GETTER)
+        int count
+
+        override notifyChanged(Notification msg) {
+            if (msg.getFeatureID(ResourceSet) == ResourceSet.RESOURCE_SET__RESOURCES) {
+                switch msg.eventType {
+                    case Notification.ADD: count++
+                    case Notification.ADD_MANY: count += (msg.newValue as List<?>).size
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.ide.server
+
+import com.google.inject.Singleton
+import java.util.Arrays
+import java.util.Map
+import org.eclipse.emf.common.util.URI
+import org.eclipse.xtext.resource.IEObjectDescription
+import org.eclipse.xtext.resource.IReferenceDescription
+import org.eclipse.xtext.resource.IResourceDescription
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsData
+
+/**
+ * Resource descriptions that are shared between the language servers of a process, e.g. the sessions that are started
+ * by the {@link SocketServerLauncher}. Language servers that work on the same projects hold equal resource
+ * descriptions. Instead of keeping a copy per session, each description is replaced by an equal shared one.
+ * <p>
+ * The shared descriptions are immutable, so the index of a session is a copy-on-write overlay: a session that changes
+ * a resource gets its own description, while the unchanged ones stay shared. Descriptions are only shared if they are
+ * {@link #isEqual(IResourceDescription, IResourceDescription) equal}, including the resolved references.
+ * <p>
+ * The shared description of a resource is the most recently built one. Descriptions of documents that are open in a
+ * session are not shared, since their contents may differ from the ones of the other sessions. The shared descriptions
+ * of a project are kept as long as a session {@link #acquire(String) references} it.
+ *
+ * @since 2.20
+ */
+@Singleton
+class SharedResourceDescriptions {
+
+	val Map<String, SharedProject> projects = newHashMap
+
+	/**
+	 * Adds a reference to the shared descriptions of the project with the given key.
+	 */
+	def void acquire(String key) {
+		synchronized (projects) {
+			var project = projects.get(key)
+			if (project === null) {
+				project = new SharedProject
+				projects.put(key, project)
+			}
+			project.references++
+		}
+	}
+
+	/**
+	 * Removes a reference to the shared descriptions of the project with the given key. The descriptions are discarded
+	 * when there are no references left.
+	 */
+	def void release(String key) {
+		synchronized (projects) {
+			val project = projects.get(key)
+			if (project !== null) {
+				project.references--
+				if (project.references <= 0) {
+					projects.remove(key)
+				}
+			}
+		}
+	}
+
+	/**
+	 * Applies the given deltas of a build to the shared descriptions of the project with the given key. The
+	 * descriptions of the changed resources in the given index are replaced by equal shared descriptions. A description
+	 * that is not equal to the shared one becomes the shared description of its resource, and the shared descriptions
+	 * of deleted resources are discarded.
+	 *
+	 * @return the number of replaced descriptions.
+	 */
+	def int share(String key, ResourceDescriptionsData index, Iterable<IResourceDescription.Delta> deltas) {
+		synchronized (projects) {
+			val project = projects.get(key)
+			if (project === null) {
+				return 0
+			}
+			var replaced = 0
+			for (delta : deltas) {
+				val uri = delta.uri
+				val description = if (delta.^new !== null) index.getResourceDescription(uri)
+				if (description === null) {
+					project.descriptions.remove(uri)
+				} else {
+					val shared = project.descriptions.get(uri)
+					if (shared !== null && shared !== description && isEqual(shared, description)) {
+						index.addDescription(uri, shared)
+						replaced++
+					} else if (shared !== description) {
+						project.descriptions.put(uri, description)
+					}
+				}
+			}
+			return replaced
+		}
+	}
+
+	/**
+	 * Returns the number of shared descriptions of the project with the given key.
+	 */
+	def int getSharedDescriptionCount(String key) {
+		synchronized (projects) {
+			val project = projects.get(key)
+			return if (project === null) 0 else project.descriptions.size
+		}
+	}
+
+	protected def boolean isEqual(IResourceDescription left, IResourceDescription right) {
+		if (left.URI != right.URI || left.importedNames.toList != right.importedNames.toList) {
+			return false
+		}
+		val leftObjects = left.exportedObjects.iterator
+		val rightObjects = right.exportedObjects.iterator
+		while (leftObjects.hasNext && rightObjects.hasNext) {
+			if (!isEqual(leftObjects.next, rightObjects.next)) {
+				return false
+			}
+		}
+		if (leftObjects.hasNext || rightObjects.hasNext) {
+			return false
+		}
+		val leftReferences = left.referenceDescriptions.iterator
+		val rightReferences = right.referenceDescriptions.iterator
+		while (leftReferences.hasNext && rightReferences.hasNext) {
+			if (!isEqual(leftReferences.next, rightReferences.next)) {
+				return false
+			}
+		}
+		return !leftReferences.hasNext && !rightReferences.hasNext
+	}
+
+	protected def boolean isEqual(IEObjectDescription left, IEObjectDescription right) {
+		if (left.EObjectURI != right.EObjectURI || left.name != right.name || left.EClass != right.EClass) {
+			return false
+		}
+		val leftKeys = left.userDataKeys
+		if (!Arrays.equals(leftKeys, right.userDataKeys)) {
+			return false
+		}
+		for (key : leftKeys) {
+			if (left.getUserData(key) != right.getUserData(key)) {
+				return false
+			}
+		}
+		return true
+	}
+
+	protected def boolean isEqual(IReferenceDescription left, IReferenceDescription right) {
+		return left.sourceEObjectUri == right.sourceEObjectUri
+			&& left.targetEObjectUri == right.targetEObjectUri
+			&& left.containerEObjectURI == right.containerEObjectURI
+			&& left.EReference == right.EReference
+			&& left.indexInList == right.indexInList
+	}
+
+	static class SharedProject {
+		package int references
+		package val Map<URI, IResourceDescription> descriptions = newHashMap
+	}
+
+}
@@ -9,6 +9,7 @@
 package org.eclipse.xtext.ide.server
 
 import com.google.inject.Guice
+import java.io.BufferedOutputStream
 import java.io.PrintWriter
 import java.net.InetSocketAddress
 import java.nio.channels.AsynchronousServerSocketChannel
@@ -51,7 +52,8 @@ class SocketServerLauncher {
 			while (true) {
 				val socketChannel = serverSocket.accept.get
 				val in = Channels.newInputStream(socketChannel)
-				val out = Channels.newOutputStream(socketChannel)
+				// each message is written with a single write operation on the socket
+				val out = new BufferedOutputStream(Channels.newOutputStream(socketChannel))
 				val trace = args.trace
 				val validate = args.shouldValidate
 				val languageServer = injector.getInstance(LanguageServerImpl)
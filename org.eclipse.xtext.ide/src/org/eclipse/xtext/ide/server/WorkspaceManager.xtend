@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2017, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -116,7 +116,7 @@ import org.eclipse.xtext.workspace.IWorkspaceConfig
 			}
 		]
 		for (deletedProject : remainingProjectNames) {
-			projectName2ProjectManager.remove(deletedProject)
+			projectName2ProjectManager.remove(deletedProject)?.dispose
 			fullIndex.remove(deletedProject)
 		}
 		val result = buildManager.doInitialBuild(newProjects, cancelIndicator)
@@ -174,6 +174,17 @@ import org.eclipse.xtext.workspace.IWorkspaceConfig
 		projectName2ProjectManager.get(projectName)
 	}
 
+	/**
+	 * Releases the resources that the project managers share with other language servers.
+	 * 
+	 * @since 2.20
+	 */
+	def void dispose() {
+		for (projectManager : projectName2ProjectManager.values) {
+			projectManager.dispose
+		}
+	}
+
 	def List<ProjectManager> getProjectManagers() {
 		new ArrayList(projectName2ProjectManager.values)
 	}
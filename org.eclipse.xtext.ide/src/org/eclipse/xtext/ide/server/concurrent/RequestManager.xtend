@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2017, 2018 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2017, 2018, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,8 +14,11 @@ import java.util.concurrent.CompletionException
 import java.util.concurrent.ExecutorService
 import java.util.concurrent.Executors
 import org.eclipse.xtend.lib.annotations.FinalFieldsConstructor
+import org.eclipse.xtext.ide.PrioritizedExecutorService
+import org.eclipse.xtext.ide.PrioritizedExecutorService.Priority
 import org.eclipse.xtext.service.OperationCanceledManager
 import org.eclipse.xtext.util.CancelIndicator
+import org.eclipse.xtext.xbase.lib.Functions.Function1
 
 /**
  * 
@@ -41,11 +44,27 @@ class RequestManager {
 	}
 
 	def <V> CompletableFuture<V> runRead((CancelIndicator)=>V cancellable) {
+		val priority = if (cancellable instanceof PrioritizedRead<?>) cancellable.priority else Priority.INTERACTIVE
 		return submit(
-			new ReadRequest(cancellable, parallel)
+			new ReadRequest(cancellable, parallel, priority)
 		)
 	}
 
+	/**
+	 * Runs a read request with the given priority. Requests with a lower priority are only started when no request
+	 * with a higher priority is waiting for a thread. The priority has only an effect if the executor service is a
+	 * {@link PrioritizedExecutorService}. The request is dispatched by {@link #runRead(Function1)}.
+	 * 
+	 * @since 2.20
+	 */
+	def <V> CompletableFuture<V> runRead(Priority priority, (CancelIndicator)=>V cancellable) {
+		if (priority === Priority.INTERACTIVE) {
+			return runRead(cancellable)
+		}
+		val (CancelIndicator)=>V read = new PrioritizedRead(priority, cancellable)
+		return runRead(read)
+	}
+
 	def <U, V> CompletableFuture<V> runWrite(()=>U nonCancellable, (CancelIndicator, U)=>V cancellable) {
 		val cancelFuture = cancel()
 		return submit(
@@ -71,6 +90,19 @@ class RequestManager {
 		return CompletableFuture.allOf(cfs)
 	}
 
+	/**
+	 * A read that carries its priority to {@link RequestManager#runRead(Function1)}.
+	 */
+	@FinalFieldsConstructor
+	private static class PrioritizedRead<V> implements Function1<CancelIndicator, V> {
+		val Priority priority
+		val (CancelIndicator)=>V delegate
+
+		override apply(CancelIndicator cancelIndicator) {
+			return delegate.apply(cancelIndicator)
+		}
+	}
+
 	protected def boolean isCancelException(Throwable t) {
 		if(t === null) return false;
 		val cause = if(t instanceof CompletionException) t.cause else t
@@ -79,15 +111,28 @@ class RequestManager {
 
 }
 
-@FinalFieldsConstructor
 class ReadRequest<V> extends AbstractRequest<V> {
 
 	val (CancelIndicator)=>V cancellable
 	val ExecutorService executor
+	val Priority priority
+
+	new((CancelIndicator)=>V cancellable, ExecutorService executor) {
+		this(cancellable, executor, Priority.INTERACTIVE)
+	}
+
+	/**
+	 * @since 2.20
+	 */
+	new((CancelIndicator)=>V cancellable, ExecutorService executor, Priority priority) {
+		this.cancellable = cancellable
+		this.executor = executor
+		this.priority = priority
+	}
 
 	override void run() {
 		if(result.cancelled) return;
-		executor.submit [
+		val Runnable task = [
 			try {
 				cancelIndicator.checkCanceled
 				result.complete(cancellable.apply(cancelIndicator))
@@ -95,6 +140,11 @@ class ReadRequest<V> extends AbstractRequest<V> {
 				result.completeExceptionally(e)
 			}
 		]
+		if (executor instanceof PrioritizedExecutorService) {
+			executor.execute(priority, task)
+		} else {
+			executor.submit(task)
+		}
 	}
 
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,7 @@ import com.google.common.base.Strings
 import com.google.inject.Inject
 import com.google.inject.Provider
 import com.google.inject.Singleton
+import com.google.inject.name.Named
 import java.util.ArrayList
 import java.util.concurrent.ExecutorService
 import org.eclipse.lsp4j.CompletionItem
@@ -44,6 +45,20 @@ class ContentAssistService {
 
     public static val DEFAULT_PROPOSALS_LIMIT = 1000
 
+    /**
+     * The time in milliseconds that content assist waits for the parser to compute the completion contexts. Contexts
+     * that take longer are skipped. It can be configured with e.g.
+     * <code>binder.bindConstant().annotatedWith(Names.named(ContentAssistService.LATENCY_BUDGET)).to(100L)</code>.
+     * There is no time limit by default.
+     * 
+     * @since 2.20
+     */
+    public static val String LATENCY_BUDGET = 'org.eclipse.xtext.ide.server.contentassist.ContentAssistService.LATENCY_BUDGET'
+
+    @Inject(optional = true)
+    @Named(LATENCY_BUDGET)
+    long latencyBudget = 0
+
     @Inject Provider<ContentAssistContextFactory> contextFactoryProvider
 
     @Inject ExecutorService executorService
@@ -84,6 +99,7 @@ class ContentAssistService {
 
         val contextFactory = contextFactoryProvider.get
         contextFactory.pool = executorService
+        contextFactory.latencyBudget = latencyBudget
         val contexts = contextFactory.create(document, selection, caretOffset, resource)
         proposalProvider.createProposals(contexts, acceptor)
     }
@@ -127,7 +127,10 @@ class FormattingService {
 		if (preferences !== null) {
 			request.preferences = preferences
 		}
-		val regionAccess = regionBuilder.forNodeModel(resource).create()
+		val regionAccess = if (selection !== null)
+				regionBuilder.forNodeModel(resource, #[selection]).create()
+			else
+				regionBuilder.forNodeModel(resource).create()
 		request.textRegionAccess = regionAccess
 		val formatter2 = formatter2Provider.get();
 		val replacements = formatter2.format(request)
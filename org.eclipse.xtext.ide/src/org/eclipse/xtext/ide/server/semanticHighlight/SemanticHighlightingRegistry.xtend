@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 TypeFox and others.
+ * Copyright (c) 2018, 2019 TypeFox and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,12 +13,19 @@ import com.google.common.collect.ImmutableBiMap
 import com.google.common.collect.ImmutableList
 import com.google.common.collect.ImmutableMultimap
 import com.google.inject.Inject
+import java.util.Arrays
 import java.util.List
+import java.util.Map
+import java.util.Objects
+import java.util.concurrent.ConcurrentHashMap
+import java.util.stream.IntStream
+import org.eclipse.emf.common.util.URI
 import org.eclipse.lsp4j.ClientCapabilities
 import org.eclipse.lsp4j.Position
 import org.eclipse.lsp4j.Range
 import org.eclipse.lsp4j.SemanticHighlightingInformation
 import org.eclipse.lsp4j.SemanticHighlightingParams
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent
 import org.eclipse.lsp4j.VersionedTextDocumentIdentifier
 import org.eclipse.lsp4j.services.LanguageClient
 import org.eclipse.lsp4j.util.SemanticHighlightingTokens
@@ -41,6 +48,12 @@ import com.google.common.collect.Maps
  * Responsible for converting the semantic highlighted ranges into the LSP standard by producing a compact,
  * {@code base64} encoded token string.
  * 
+ * <p>
+ * The lines that were sent for an open document are remembered, so that subsequent updates only send the lines
+ * whose tokens have changed. The lines that are covered by the {@link #didChange(URI, List) edits} of the document
+ * are always sent. The other lines are compared with the tokens that the client has moved along with the text,
+ * i.e. removed or inserted lines do not cause an update of the following lines.
+ * </p>
  */
 @Log
 class SemanticHighlightingRegistry {
@@ -55,6 +68,8 @@ class SemanticHighlightingRegistry {
 	 */
 	public static val UNKNOWN_SCOPES = #[UNKNOWN_SCOPE];
 
+	static val char NL = '\n';
+
 	/**
 	 * A highlighted range with additional <a href="https://manual.macromates.com/en/language_grammars">TextMate scopes</a> information.
 	 */
@@ -82,6 +97,11 @@ class SemanticHighlightingRegistry {
 
 	protected LanguageClient client;
 
+	/**
+	 * The highlighting that was sent for each open document.
+	 */
+	val Map<URI, HighlightedDocument> highlightedDocuments = new ConcurrentHashMap;
+
 	def void initialize(Iterable<? extends IResourceServiceProvider> allLanguages, ClientCapabilities capabilities, LanguageClient client) {
 		Preconditions.checkState(this.client === null, 'Already initialized.');
 		val enabled = capabilities?.textDocument?.semanticHighlightingCapabilities?.semanticHighlighting ?: false;
@@ -143,6 +163,7 @@ class SemanticHighlightingRegistry {
 			return;
 		}
 		if (!context.documentOpen) {
+			highlightedDocuments.remove(context.resource.URI);
 			return;
 		}
 
@@ -154,20 +175,46 @@ class SemanticHighlightingRegistry {
 		}
 
 		val document = context.document;
+		val lineOffsets = document.lineOffsets;
 		val acceptor = new MergingHighlightedPositionAcceptor(calculator);
 		calculator.provideHighlightingFor(resource, acceptor, CancelIndicator.NullImpl);
 		val ranges = acceptor.positions.map [ position |
 			position.ids.map [ id |
-				val start = document.getPosition(position.offset);
-				val end = document.getPosition(position.offset + position.length);
+				val start = lineOffsets.getPosition(position.offset);
+				val end = lineOffsets.getPosition(position.offset + position.length);
 				val scope = getIndex(mapper.toScopes(id));
 				return new HighlightedRange(start, end, scope);
 			]
 		].flatten;
 
 		val lines = ranges.toSemanticHighlightingInformation(document);
-		val textDocument = context.toVersionedTextDocumentIdentifier;
-		notifyClient(new SemanticHighlightingParams(textDocument, lines));
+		val highlightedDocument = new HighlightedDocument(lineOffsets.length, lines);
+		val previous = highlightedDocuments.put(resource.URI, highlightedDocument);
+		val changedLines = previous?.getChangedLines(highlightedDocument) ?: lines;
+		if (previous === null || !changedLines.empty) {
+			val textDocument = context.toVersionedTextDocumentIdentifier;
+			notifyClient(new SemanticHighlightingParams(textDocument, changedLines));
+		}
+	}
+
+	/**
+	 * Forgets the highlighting that was sent for the given document, e.g. because it was closed.
+	 * The next update of the document sends all lines.
+	 * 
+	 * @since 2.20
+	 */
+	def void reset(URI uri) {
+		highlightedDocuments.remove(uri);
+	}
+
+	/**
+	 * Remembers the lines of the given document that are covered by the given changes. The next update sends these
+	 * lines even if their tokens have not changed. Has to be invoked whenever the changes are applied to the document.
+	 * 
+	 * @since 2.20
+	 */
+	def void didChange(URI uri, List<TextDocumentContentChangeEvent> changes) {
+		highlightedDocuments.get(uri)?.didChange(changes);
 	}
 
 	/**
@@ -183,6 +230,7 @@ class SemanticHighlightingRegistry {
 	protected def List<SemanticHighlightingInformation> toSemanticHighlightingInformation(
 		Iterable<? extends HighlightedRange> ranges, Document document) {
 
+		val lineOffsets = document.lineOffsets;
 		val builder = ImmutableMultimap.builder;
 		ranges.filter[start != end].forEach [
 			val startLine = start.line;
@@ -191,12 +239,10 @@ class SemanticHighlightingRegistry {
 				val length = end.character - start.character;
 				builder.put(startLine, new SemanticHighlightingTokens.Token(start.character, length, scope));
 			} else {
-				val startLineContent = document.getLineContent(startLine);
-				val startLength = startLineContent.length - start.character;
+				val startLength = lineOffsets.getLineLength(startLine, document) - start.character;
 				builder.put(startLine, new SemanticHighlightingTokens.Token(start.character, startLength, scope));
 				for (var line = startLine + 1; line < endLine; line++) {
-					val lineContent = document.getLineContent(line);
-					builder.put(line, new SemanticHighlightingTokens.Token(0, lineContent.length, scope));
+					builder.put(line, new SemanticHighlightingTokens.Token(0, lineOffsets.getLineLength(line, document), scope));
 				}
 				builder.put(endLine, new SemanticHighlightingTokens.Token(0, end.character, scope));
 			}
@@ -221,6 +267,35 @@ class SemanticHighlightingRegistry {
 		return tokens.values.toList;
 	}
 
+	/**
+	 * Returns the offsets at which the lines of the document start.
+	 */
+	private def int[] getLineOffsets(Document document) {
+		val contents = document.contents;
+		val result = IntStream.builder.add(0);
+		for (var i = 0; i < contents.length; i++) {
+			if (contents.charAt(i) === NL) {
+				result.add(i + 1);
+			}
+		}
+		return result.build.toArray;
+	}
+
+	private def Position getPosition(int[] lineOffsets, int offset) {
+		var line = Arrays.binarySearch(lineOffsets, offset);
+		if (line < 0) {
+			line = -line - 2;
+		}
+		return new Position(line, offset - lineOffsets.get(line));
+	}
+
+	private def int getLineLength(int[] lineOffsets, int line, Document document) {
+		if (line + 1 < lineOffsets.length) {
+			return lineOffsets.get(line + 1) - 1 - lineOffsets.get(line);
+		}
+		return document.contents.length - lineOffsets.get(line);
+	}
+
 	protected def VersionedTextDocumentIdentifier toVersionedTextDocumentIdentifier(ILanguageServerAccess.Context context) {
 		return new VersionedTextDocumentIdentifier => [
 			uri = context.resource.URI.toUriString;
@@ -240,4 +315,73 @@ class SemanticHighlightingRegistry {
 		return nullable === null || nullable == UNKNOWN_SCOPES;
 	}
 
+	/**
+	 * The encoded tokens that were sent for each line of a document and the lines that have been edited since.
+	 */
+	private static class HighlightedDocument {
+
+		val String[] tokens;
+
+		/**
+		 * The line of the sent {@link #tokens} for each line of the current document, or {@code -1} if the line has
+		 * been edited. {@code null} if the complete document has been replaced.
+		 */
+		int[] previousLines;
+
+		new(int lineCount, List<SemanticHighlightingInformation> lines) {
+			this.tokens = newArrayOfSize(lineCount);
+			for (info : lines) {
+				if (info.line >= 0 && info.line < tokens.length) {
+					tokens.set(info.line, info.tokens);
+				}
+			}
+			this.previousLines = IntStream.range(0, lineCount).toArray;
+		}
+
+		synchronized def void didChange(List<TextDocumentContentChangeEvent> changes) {
+			for (change : changes) {
+				previousLines = previousLines?.apply(change);
+			}
+		}
+
+		private def int[] apply(int[] lines, TextDocumentContentChangeEvent change) {
+			if (change.range === null || change.range.end.line >= lines.length) {
+				return null;
+			}
+			val startLine = change.range.start.line;
+			val endLine = change.range.end.line;
+			var insertedLines = 0;
+			for (var i = 0; i < change.text.length; i++) {
+				if (change.text.charAt(i) === NL) {
+					insertedLines++;
+				}
+			}
+			val int[] result = newIntArrayOfSize(lines.length - (endLine - startLine) + insertedLines);
+			System.arraycopy(lines, 0, result, 0, startLine);
+			Arrays.fill(result, startLine, startLine + insertedLines + 1, -1);
+			System.arraycopy(lines, endLine + 1, result, startLine + insertedLines + 1, lines.length - endLine - 1);
+			return result;
+		}
+
+		/**
+		 * Returns the lines of the given current document that have been edited or whose tokens differ from the sent
+		 * ones.
+		 */
+		synchronized def List<SemanticHighlightingInformation> getChangedLines(HighlightedDocument current) {
+			val lineCount = current.tokens.length;
+			val result = newArrayList;
+			for (line : 0 ..< lineCount) {
+				val previousLine = if (previousLines !== null && previousLines.length == lineCount)
+						previousLines.get(line)
+					else
+						-1;
+				if (previousLine < 0 || !Objects.equals(current.tokens.get(line), tokens.get(previousLine))) {
+					result.add(new SemanticHighlightingInformation(line, current.tokens.get(line)));
+				}
+			}
+			return result;
+		}
+
+	}
+
 }
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2016, 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2017, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,25 +8,63 @@
 package org.eclipse.xtext.ide;
 
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.apache.log4j.Logger;
+import org.eclipse.xtext.ide.PrioritizedExecutorService;
 import org.eclipse.xtext.util.DisposableRegistry;
 import org.eclipse.xtext.util.IDisposable;
+import org.eclipse.xtext.util.internal.Log;
+import org.eclipse.xtext.xbase.lib.Exceptions;
 
 /**
  * Provider for executor services. By calling {@link #dispose()} all created executor services are shut down.
  * <p>
  * In some situations it is necessary to use multiple instances of executor services in order to avoid deadlocks.
  * That can be achieved with the {@link #get(String)}method, which will return a different instance for each key.
+ * <p>
+ * The created executor services are {@link PrioritizedExecutorService bounded} by {@link #MAX_THREADS} threads each.
+ * A task must therefore not block on other tasks of the same executor service that may not have been started yet,
+ * but either run them itself or submit them to an executor service with a different key.
  */
 @Singleton
+@Log
 @SuppressWarnings("all")
 public class ExecutorServiceProvider implements Provider<ExecutorService>, IDisposable {
+  /**
+   * The maximum number of threads of each executor service. It can be configured with e.g.
+   * <code>binder.bindConstant().annotatedWith(Names.named(ExecutorServiceProvider.MAX_THREADS)).to(8)</code>.
+   * Defaults to twice the number of available processors but at least four.
+   * 
+   * @since 2.20
+   */
+  public static final String MAX_THREADS = "org.eclipse.xtext.ide.ExecutorServiceProvider.MAX_THREADS";
+  
+  /**
+   * Whether the executor services should run their tasks on virtual threads. Only has an effect on Java runtimes
+   * that support virtual threads. It can be configured with e.g.
+   * <code>binder.bindConstant().annotatedWith(Names.named(ExecutorServiceProvider.VIRTUAL_THREADS)).to(true)</code>.
+   * 
+   * @since 2.20
+   */
+  public static final String VIRTUAL_THREADS = "org.eclipse.xtext.ide.ExecutorServiceProvider.VIRTUAL_THREADS";
+  
+  @Inject(optional = true)
+  @Named(ExecutorServiceProvider.MAX_THREADS)
+  private int maxThreads = Math.max(4, (2 * Runtime.getRuntime().availableProcessors()));
+  
+  @Inject(optional = true)
+  @Named(ExecutorServiceProvider.VIRTUAL_THREADS)
+  private boolean virtualThreads = false;
+  
   @Inject
   public void registerTo(final DisposableRegistry disposableRegistry) {
     disposableRegistry.register(this);
@@ -54,7 +92,41 @@ public class ExecutorServiceProvider implements Provider<ExecutorService>, IDisp
   }
   
   protected ExecutorService createInstance(final String key) {
-    return Executors.newCachedThreadPool();
+    ThreadFactory _createThreadFactory = this.createThreadFactory(key);
+    return new PrioritizedExecutorService(this.maxThreads, 60, TimeUnit.SECONDS, _createThreadFactory);
+  }
+  
+  /**
+   * @since 2.20
+   */
+  protected ThreadFactory createThreadFactory(final String key) {
+    String _elvis = null;
+    if (key != null) {
+      _elvis = key;
+    } else {
+      _elvis = "default";
+    }
+    String _plus = ("ExecutorServiceProvider-" + _elvis);
+    final String name = (_plus + "-");
+    if (this.virtualThreads) {
+      try {
+        final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+        final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+        builderClass.getMethod("name", String.class, Long.TYPE).invoke(builder, name, Long.valueOf(0L));
+        Object _invoke = builderClass.getMethod("factory").invoke(builder);
+        return ((ThreadFactory) _invoke);
+      } catch (final Throwable _t) {
+        if (_t instanceof ReflectiveOperationException) {
+          ExecutorServiceProvider.LOG.warn("Virtual threads are not supported by this Java runtime, using platform threads.");
+        } else {
+          throw Exceptions.sneakyThrow(_t);
+        }
+      }
+    }
+    ThreadFactoryBuilder _threadFactoryBuilder = new ThreadFactoryBuilder();
+    String _replace = name.replace("%", "%%");
+    String _plus_1 = (_replace + "%d");
+    return _threadFactoryBuilder.setNameFormat(_plus_1).build();
   }
   
   @Override
@@ -65,4 +137,6 @@ public class ExecutorServiceProvider implements Provider<ExecutorService>, IDisp
     }
     this.instanceCache.clear();
   }
+  
+  private static final Logger LOG = Logger.getLogger(ExecutorServiceProvider.class);
 }
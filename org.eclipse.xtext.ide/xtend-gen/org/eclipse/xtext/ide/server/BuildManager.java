@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2016, 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2017, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -187,6 +187,12 @@ public class BuildManager {
         final List<URI> projectDirty = IterableExtensions.<URI>toList(project2dirty.get(it));
         final List<URI> projectDeleted = IterableExtensions.<URI>toList(project2deleted.get(it));
         final IncrementalBuilder.Result partialResult = projectManager.doBuild(projectDirty, projectDeleted, this.unreportedDeltas, cancelIndicator);
+        List<ProjectManager> _projectManagers = this.workspaceManager.getProjectManagers();
+        for (final ProjectManager otherProjectManager : _projectManagers) {
+          if ((otherProjectManager != projectManager)) {
+            otherProjectManager.invalidateResources(partialResult.getAffectedResources());
+          }
+        }
         final Function1<IResourceDescription.Delta, URI> _function = (IResourceDescription.Delta it_1) -> {
           return it_1.getUri();
         };
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2016, 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2017, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,15 +18,17 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.util.URI;
-import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.lsp4j.ClientCapabilities;
 import org.eclipse.lsp4j.CodeAction;
@@ -103,12 +105,14 @@ import org.eclipse.xtend.lib.annotations.Accessors;
 import org.eclipse.xtend.lib.annotations.FinalFieldsConstructor;
 import org.eclipse.xtext.diagnostics.Severity;
 import org.eclipse.xtext.findReferences.IReferenceFinder;
+import org.eclipse.xtext.ide.PrioritizedExecutorService;
 import org.eclipse.xtext.ide.server.BuildManager;
 import org.eclipse.xtext.ide.server.Document;
 import org.eclipse.xtext.ide.server.ICapabilitiesContributor;
 import org.eclipse.xtext.ide.server.ILanguageServerAccess;
 import org.eclipse.xtext.ide.server.ILanguageServerExtension;
 import org.eclipse.xtext.ide.server.ILanguageServerShutdownAndExitHandler;
+import org.eclipse.xtext.ide.server.NotificationQueue;
 import org.eclipse.xtext.ide.server.ProjectManager;
 import org.eclipse.xtext.ide.server.UriExtensions;
 import org.eclipse.xtext.ide.server.WorkspaceManager;
@@ -138,11 +142,13 @@ import org.eclipse.xtext.resource.IResourceServiceProvider;
 import org.eclipse.xtext.resource.XtextResource;
 import org.eclipse.xtext.resource.XtextResourceSet;
 import org.eclipse.xtext.resource.impl.ResourceDescriptionsProvider;
+import org.eclipse.xtext.service.OperationCanceledManager;
 import org.eclipse.xtext.util.CancelIndicator;
 import org.eclipse.xtext.util.internal.Log;
 import org.eclipse.xtext.validation.Issue;
 import org.eclipse.xtext.xbase.lib.CollectionLiterals;
 import org.eclipse.xtext.xbase.lib.Exceptions;
+import org.eclipse.xtext.xbase.lib.ExclusiveRange;
 import org.eclipse.xtext.xbase.lib.Extension;
 import org.eclipse.xtext.xbase.lib.Functions.Function0;
 import org.eclipse.xtext.xbase.lib.Functions.Function1;
@@ -201,12 +207,22 @@ public class LanguageServerImpl implements LanguageServer, WorkspaceService, Tex
   @Inject
   private ExecutableCommandRegistry commandRegistry;
   
+  @Inject
+  private OperationCanceledManager operationCanceledManager;
+  
   @Inject
   private SemanticHighlightingRegistry semanticHighlightingRegistry;
   
   @Inject
   private ILanguageServerShutdownAndExitHandler shutdownAndExitHandler;
   
+  /**
+   * @since 2.20
+   */
+  @Inject
+  @Accessors(AccessorType.PUBLIC_GETTER)
+  private NotificationQueue notificationQueue;
+  
   private WorkspaceManager workspaceManager;
   
   private InitializeParams params;
@@ -396,6 +412,7 @@ public class LanguageServerImpl implements LanguageServer, WorkspaceService, Tex
   @Override
   public void connect(final LanguageClient client) {
     this.client = client;
+    this.notificationQueue.connect(client);
   }
   
   @Override
@@ -405,6 +422,7 @@ public class LanguageServerImpl implements LanguageServer, WorkspaceService, Tex
   
   @Override
   public CompletableFuture<Object> shutdown() {
+    this.workspaceManager.dispose();
     this.shutdownAndExitHandler.shutdown();
     Object _object = new Object();
     return CompletableFuture.<Object>completedFuture(_object);
@@ -423,7 +441,14 @@ public class LanguageServerImpl implements LanguageServer, WorkspaceService, Tex
   @Override
   public void didOpen(final DidOpenTextDocumentParams params) {
     final Function0<BuildManager.Buildable> _function = () -> {
-      return this.workspaceManager.didOpen(this._uriExtensions.toUri(params.getTextDocument().getUri()), Integer.valueOf(params.getTextDocument().getVersion()), params.getTextDocument().getText());
+      BuildManager.Buildable _xblockexpression = null;
+      {
+        final URI uri = this._uriExtensions.toUri(params.getTextDocument().getUri());
+        this.documentTouched(uri);
+        this.semanticHighlightingRegistry.reset(uri);
+        _xblockexpression = this.workspaceManager.didOpen(uri, Integer.valueOf(params.getTextDocument().getVersion()), params.getTextDocument().getText());
+      }
+      return _xblockexpression;
     };
     final Function2<CancelIndicator, BuildManager.Buildable, List<IResourceDescription.Delta>> _function_1 = (CancelIndicator cancelIndicator, BuildManager.Buildable buildable) -> {
       return buildable.build(cancelIndicator);
@@ -434,7 +459,14 @@ public class LanguageServerImpl implements LanguageServer, WorkspaceService, Tex
   @Override
   public void didChange(final DidChangeTextDocumentParams params) {
     final Function0<BuildManager.Buildable> _function = () -> {
-      return this.workspaceManager.didChangeTextDocumentContent(this._uriExtensions.toUri(params.getTextDocument().getUri()), params.getTextDocument().getVersion(), params.getContentChanges());
+      BuildManager.Buildable _xblockexpression = null;
+      {
+        final URI uri = this._uriExtensions.toUri(params.getTextDocument().getUri());
+        this.documentTouched(uri);
+        this.semanticHighlightingRegistry.didChange(uri, params.getContentChanges());
+        _xblockexpression = this.workspaceManager.didChangeTextDocumentContent(uri, params.getTextDocument().getVersion(), params.getContentChanges());
+      }
+      return _xblockexpression;
     };
     final Function2<CancelIndicator, BuildManager.Buildable, List<IResourceDescription.Delta>> _function_1 = (CancelIndicator cancelIndicator, BuildManager.Buildable buildable) -> {
       return buildable.build(cancelIndicator);
@@ -445,7 +477,14 @@ public class LanguageServerImpl implements LanguageServer, WorkspaceService, Tex
   @Override
   public void didClose(final DidCloseTextDocumentParams params) {
     final Function0<BuildManager.Buildable> _function = () -> {
-      return this.workspaceManager.didClose(this._uriExtensions.toUri(params.getTextDocument().getUri()));
+      BuildManager.Buildable _xblockexpression = null;
+      {
+        final URI uri = this._uriExtensions.toUri(params.getTextDocument().getUri());
+        this.recentlyTouchedDocuments.remove(uri);
+        this.semanticHighlightingRegistry.reset(uri);
+        _xblockexpression = this.workspaceManager.didClose(uri);
+      }
+      return _xblockexpression;
     };
     final Function2<CancelIndicator, BuildManager.Buildable, List<IResourceDescription.Delta>> _function_1 = (CancelIndicator cancelIndicator, BuildManager.Buildable buildable) -> {
       return buildable.build(cancelIndicator);
@@ -507,16 +546,36 @@ public class LanguageServerImpl implements LanguageServer, WorkspaceService, Tex
   
   private LanguageClient client;
   
+  /**
+   * The issues that have been reported by the build. They are converted and published after the build.
+   */
+  private final Map<URI, Iterable<? extends Issue>> pendingIssues = new ConcurrentHashMap<URI, Iterable<? extends Issue>>();
+  
+  /**
+   * The open documents whose coloring and semantic highlighting have to be updated after the build.
+   */
+  private final Set<URI> pendingHighlighting = ConcurrentHashMap.<URI>newKeySet();
+  
+  /**
+   * The open documents in the order in which they have been opened or changed.
+   */
+  private final Set<URI> recentlyTouchedDocuments = CollectionLiterals.<URI>newLinkedHashSet();
+  
   private void publishDiagnostics(final URI uri, final Iterable<? extends Issue> issues) {
+    this.pendingIssues.put(uri, issues);
+  }
+  
+  private void publishDiagnostics(final URI uri, final Iterable<? extends Issue> issues, final Document document) {
+    final String uriString = this._uriExtensions.toUriString(uri);
     final Consumer<InitializedParams> _function = (InitializedParams it) -> {
-      PublishDiagnosticsParams _publishDiagnosticsParams = new PublishDiagnosticsParams();
-      final Procedure1<PublishDiagnosticsParams> _function_1 = (PublishDiagnosticsParams it_1) -> {
-        it_1.setUri(this._uriExtensions.toUriString(uri));
-        boolean _isEmpty = IterableExtensions.isEmpty(issues);
-        if (_isEmpty) {
-          it_1.setDiagnostics(Collections.<Diagnostic>unmodifiableList(CollectionLiterals.<Diagnostic>newArrayList()));
-        } else {
-          final Function2<Document, XtextResource, List<Diagnostic>> _function_2 = (Document document, XtextResource resource) -> {
+      final Function0<PublishDiagnosticsParams> _function_1 = () -> {
+        PublishDiagnosticsParams _publishDiagnosticsParams = new PublishDiagnosticsParams();
+        final Procedure1<PublishDiagnosticsParams> _function_2 = (PublishDiagnosticsParams it_1) -> {
+          it_1.setUri(uriString);
+          boolean _isEmpty = IterableExtensions.isEmpty(issues);
+          if (_isEmpty) {
+            it_1.setDiagnostics(Collections.<Diagnostic>unmodifiableList(CollectionLiterals.<Diagnostic>newArrayList()));
+          } else {
             final Function1<Issue, Boolean> _function_3 = (Issue it_2) -> {
               Severity _severity = it_2.getSeverity();
               return Boolean.valueOf((_severity != Severity.IGNORE));
@@ -524,17 +583,21 @@ public class LanguageServerImpl implements LanguageServer, WorkspaceService, Tex
             final Function1<Issue, Diagnostic> _function_4 = (Issue it_2) -> {
               return this.toDiagnostic(document, it_2);
             };
-            return IterableExtensions.<Diagnostic>toList(IterableExtensions.map(IterableExtensions.filter(issues, _function_3), _function_4));
-          };
-          it_1.setDiagnostics(this.workspaceManager.<List<Diagnostic>>doRead(uri, _function_2));
-        }
+            it_1.setDiagnostics(IterableExtensions.<Diagnostic>toList(IterableExtensions.map(IterableExtensions.filter(issues, _function_3), _function_4)));
+          }
+        };
+        return ObjectExtensions.<PublishDiagnosticsParams>operator_doubleArrow(_publishDiagnosticsParams, _function_2);
       };
-      final PublishDiagnosticsParams diagnostics = ObjectExtensions.<PublishDiagnosticsParams>operator_doubleArrow(_publishDiagnosticsParams, _function_1);
-      this.client.publishDiagnostics(diagnostics);
+      this.notificationQueue.publishDiagnostics(uriString, _function_1);
     };
     this.initialized.thenAccept(_function);
   }
   
+  private void documentTouched(final URI uri) {
+    this.recentlyTouchedDocuments.remove(uri);
+    this.recentlyTouchedDocuments.add(uri);
+  }
+  
   private Diagnostic toDiagnostic(final Document document, final Issue issue) {
     Diagnostic _diagnostic = new Diagnostic();
     final Procedure1<Diagnostic> _function = (Diagnostic it) -> {
@@ -1205,50 +1268,142 @@ public class LanguageServerImpl implements LanguageServer, WorkspaceService, Tex
     }
   };
   
+  /**
+   * Publishes the diagnostics and updates the coloring and semantic highlighting of the open documents that have
+   * been affected by the build. The work is done by at most {@link #getAfterBuildParallelism() parallel}
+   * background read requests, which are cancelled by the next write request. The documents that have been changed
+   * most recently are processed first. Work that has been cancelled is done after the next build.
+   */
   @Override
   public void afterBuild(final List<IResourceDescription.Delta> deltas) {
-    final Function1<IResourceDescription.Delta, Boolean> _function = (IResourceDescription.Delta it) -> {
-      IResourceDescription _new = it.getNew();
-      return Boolean.valueOf((_new != null));
-    };
-    final Function1<IResourceDescription.Delta, String> _function_1 = (IResourceDescription.Delta it) -> {
-      return it.getUri().toString();
-    };
-    final Consumer<String> _function_2 = (String it) -> {
-      final Function<ILanguageServerAccess.Context, Void> _function_3 = (ILanguageServerAccess.Context ctx) -> {
-        boolean _isDocumentOpen = ctx.isDocumentOpen();
-        if (_isDocumentOpen) {
-          Resource _resource = ctx.getResource();
-          if ((_resource instanceof XtextResource)) {
-            Resource _resource_1 = ctx.getResource();
-            final XtextResource resource = ((XtextResource) _resource_1);
-            final IResourceServiceProvider serviceProvider = this.languagesRegistry.getResourceServiceProvider(resource.getURI());
-            IColoringService _get = null;
-            if (serviceProvider!=null) {
-              _get=serviceProvider.<IColoringService>get(IColoringService.class);
-            }
-            final IColoringService coloringService = _get;
-            if ((coloringService != null)) {
-              if ((this.client instanceof LanguageClientExtensions)) {
-                final Document doc = ctx.getDocument();
-                final List<? extends ColoringInformation> coloringInfos = coloringService.getColoring(resource, doc);
-                boolean _isNullOrEmpty = IterableExtensions.isNullOrEmpty(coloringInfos);
-                boolean _not = (!_isNullOrEmpty);
-                if (_not) {
-                  final String uri = resource.getURI().toString();
-                  ColoringParams _coloringParams = new ColoringParams(uri, coloringInfos);
-                  ((LanguageClientExtensions)this.client).updateColoring(_coloringParams);
-                }
-              }
+    for (final IResourceDescription.Delta delta : deltas) {
+      if (((delta.getNew() != null) && this.workspaceManager.isDocumentOpen(delta.getUri()))) {
+        this.pendingHighlighting.add(delta.getUri());
+      }
+    }
+    final LinkedHashSet<URI> uris = CollectionLiterals.<URI>newLinkedHashSet();
+    Set<URI> _keySet = this.pendingIssues.keySet();
+    Iterables.<URI>addAll(uris, _keySet);
+    Iterables.<URI>addAll(uris, this.pendingHighlighting);
+    boolean _isEmpty = uris.isEmpty();
+    if (_isEmpty) {
+      return;
+    }
+    List<URI> _prioritize = this.prioritize(uris);
+    final ConcurrentLinkedQueue<URI> queue = new ConcurrentLinkedQueue<URI>(_prioritize);
+    int _min = Math.min(queue.size(), this.getAfterBuildParallelism());
+    ExclusiveRange _doubleDotLessThan = new ExclusiveRange(0, _min, true);
+    for (final Integer i : _doubleDotLessThan) {
+      final Function1<CancelIndicator, Object> _function = (CancelIndicator cancelIndicator) -> {
+        for (URI uri = queue.poll(); ((uri != null) && (!cancelIndicator.isCanceled())); uri = queue.poll()) {
+          try {
+            this.afterBuild(uri, cancelIndicator);
+          } catch (final Throwable _t) {
+            if (_t instanceof Throwable) {
+              final Throwable t = (Throwable)_t;
+              this.operationCanceledManager.propagateIfCancelException(t);
+              LanguageServerImpl.LOG.error((("Error while processing " + uri) + " after the build."), t);
+            } else {
+              throw Exceptions.sneakyThrow(_t);
             }
           }
         }
-        this.semanticHighlightingRegistry.update(ctx);
         return null;
       };
-      this.access.<Void>doRead(it, _function_3);
+      this.requestManager.<Object>runRead(PrioritizedExecutorService.Priority.BACKGROUND, _function);
+    }
+  }
+  
+  /**
+   * Returns the given documents in the order in which they should be processed after a build.
+   * By default, the most recently changed documents come first.
+   * 
+   * @since 2.20
+   */
+  protected List<URI> prioritize(final Set<URI> uris) {
+    final ArrayList<URI> result = CollectionLiterals.<URI>newArrayList();
+    List<URI> _reverseView = ListExtensions.<URI>reverseView(IterableExtensions.<URI>toList(this.recentlyTouchedDocuments));
+    for (final URI uri : _reverseView) {
+      boolean _contains = uris.contains(uri);
+      if (_contains) {
+        result.add(uri);
+      }
+    }
+    for (final URI uri_1 : uris) {
+      boolean _contains_1 = this.recentlyTouchedDocuments.contains(uri_1);
+      boolean _not = (!_contains_1);
+      if (_not) {
+        result.add(uri_1);
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * The maximum number of read requests that process the documents after a build.
+   * 
+   * @since 2.20
+   */
+  protected int getAfterBuildParallelism() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+  
+  /**
+   * Publishes the pending diagnostics and updates the coloring and semantic highlighting of a single document.
+   * 
+   * @since 2.20
+   */
+  protected void afterBuild(final URI uri, final CancelIndicator cancelIndicator) {
+    final Iterable<? extends Issue> issues = this.pendingIssues.get(uri);
+    final boolean highlighting = this.pendingHighlighting.contains(uri);
+    if (((issues != null) && IterableExtensions.isEmpty(issues))) {
+      this.publishDiagnostics(uri, issues, null);
+    }
+    if ((highlighting || ((issues != null) && (!IterableExtensions.isEmpty(issues))))) {
+      this.doAfterBuild(uri, issues, highlighting, cancelIndicator);
+    }
+    boolean _isCanceled = cancelIndicator.isCanceled();
+    if (_isCanceled) {
+      return;
+    }
+    if ((issues != null)) {
+      this.pendingIssues.remove(uri, issues);
+    }
+    if (highlighting) {
+      this.pendingHighlighting.remove(uri);
+    }
+  }
+  
+  private void doAfterBuild(final URI uri, final Iterable<? extends Issue> issues, final boolean highlighting, final CancelIndicator cancelIndicator) {
+    final Function2<Document, XtextResource, Object> _function = (Document document, XtextResource resource) -> {
+      if (((issues != null) && (!IterableExtensions.isEmpty(issues)))) {
+        this.publishDiagnostics(uri, issues, document);
+      }
+      if (((highlighting && (resource != null)) && this.workspaceManager.isDocumentOpen(resource.getURI()))) {
+        final IResourceServiceProvider serviceProvider = this.languagesRegistry.getResourceServiceProvider(resource.getURI());
+        IColoringService _get = null;
+        if (serviceProvider!=null) {
+          _get=serviceProvider.<IColoringService>get(IColoringService.class);
+        }
+        final IColoringService coloringService = _get;
+        if ((coloringService != null)) {
+          if ((this.client instanceof LanguageClientExtensions)) {
+            final List<? extends ColoringInformation> coloringInfos = coloringService.getColoring(resource, document);
+            boolean _isNullOrEmpty = IterableExtensions.isNullOrEmpty(coloringInfos);
+            boolean _not = (!_isNullOrEmpty);
+            if (_not) {
+              String _string = resource.getURI().toString();
+              ColoringParams _coloringParams = new ColoringParams(_string, coloringInfos);
+              this.notificationQueue.updateColoring(_coloringParams);
+            }
+          }
+        }
+        ILanguageServerAccess.Context _context = new ILanguageServerAccess.Context(resource, document, true, cancelIndicator);
+        this.semanticHighlightingRegistry.update(_context);
+      }
+      return null;
     };
-    IterableExtensions.<IResourceDescription.Delta, String>map(IterableExtensions.<IResourceDescription.Delta>filter(deltas, _function), _function_1).forEach(_function_2);
+    this.workspaceManager.<Object>doRead(uri, _function);
   }
   
   /**
@@ -1320,4 +1475,9 @@ public class LanguageServerImpl implements LanguageServer, WorkspaceService, Tex
   public RequestManager getRequestManager() {
     return this.requestManager;
   }
+  
+  @Pure
+  public NotificationQueue getNotificationQueue() {
+    return this.notificationQueue;
+  }
 }
@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.xtext.ide.server;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.log4j.Logger;
+import org.eclipse.lsp4j.ColoringParams;
+import org.eclipse.lsp4j.PublishDiagnosticsParams;
+import org.eclipse.lsp4j.services.LanguageClient;
+import org.eclipse.lsp4j.services.LanguageClientExtensions;
+import org.eclipse.xtext.util.internal.Log;
+import org.eclipse.xtext.xbase.lib.CollectionLiterals;
+import org.eclipse.xtext.xbase.lib.Conversions;
+import org.eclipse.xtext.xbase.lib.Exceptions;
+import org.eclipse.xtext.xbase.lib.Functions.Function0;
+import org.eclipse.xtext.xbase.lib.Pair;
+import org.eclipse.xtext.xbase.lib.Procedures.Procedure1;
+
+/**
+ * Sends the notifications of a language server to its client. The notifications are queued and sent by a single
+ * background thread, so the requests that produce them don't wait for the client.
+ * <p>
+ * A notification that replaces the state of a document, e.g. its diagnostics or coloring, supersedes the pending
+ * notification of the same kind for the same document. Superseded notifications are dropped, and the diagnostics are
+ * only converted when they are sent, so after a large build each document is converted and published at most once
+ * per flush.
+ * <p>
+ * If the client doesn't keep up, the queue fills up to its {@link #getMaxPendingNotifications() limit}. Further
+ * notifications then drop the oldest pending notification instead of blocking their sender, since the senders are
+ * requests that are waited for by the next write request.
+ * 
+ * @since 2.20
+ */
+@Log
+@SuppressWarnings("all")
+public class NotificationQueue {
+  /**
+   * The sender thread is discarded when it has been idle for a minute.
+   */
+  private final ThreadPoolExecutor executor = new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), 
+    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("NotificationQueue-%d").build());
+  
+  private final Map<Object, Procedure1<? super LanguageClient>> pending = new LinkedHashMap<Object, Procedure1<? super LanguageClient>>();
+  
+  private final Object lock = new Object();
+  
+  private final AtomicLong enqueued = new AtomicLong();
+  
+  private final AtomicLong superseded = new AtomicLong();
+  
+  private final AtomicLong sent = new AtomicLong();
+  
+  private final AtomicLong dropped = new AtomicLong();
+  
+  private boolean flushScheduled;
+  
+  private LanguageClient client;
+  
+  public void connect(final LanguageClient client) {
+    synchronized (this.lock) {
+      this.client = client;
+      if ((this.flushScheduled || this.pending.isEmpty())) {
+        return;
+      }
+      this.flushScheduled = true;
+    }
+    this.scheduleFlush();
+  }
+  
+  /**
+   * Publishes the diagnostics of the document with the given URI. The diagnostics are computed when they are sent.
+   */
+  public void publishDiagnostics(final String uri, final Function0<? extends PublishDiagnosticsParams> diagnostics) {
+    Pair<String, String> _mappedTo = Pair.<String, String>of("publishDiagnostics", uri);
+    final Procedure1<LanguageClient> _function = (LanguageClient it) -> {
+      it.publishDiagnostics(diagnostics.apply());
+    };
+    this.enqueue(_mappedTo, _function);
+  }
+  
+  /**
+   * Updates the coloring of a document if the client supports it.
+   */
+  public void updateColoring(final ColoringParams params) {
+    String _uri = params.getUri();
+    Pair<String, String> _mappedTo = Pair.<String, String>of("updateColoring", _uri);
+    final Procedure1<LanguageClient> _function = (LanguageClient it) -> {
+      if ((it instanceof LanguageClientExtensions)) {
+        ((LanguageClientExtensions)it).updateColoring(params);
+      }
+    };
+    this.enqueue(_mappedTo, _function);
+  }
+  
+  /**
+   * Queues a notification. A pending notification with an equal key is replaced. If the queue is full, the oldest
+   * pending notification is dropped.
+   */
+  protected void enqueue(final Object key, final Procedure1<? super LanguageClient> notification) {
+    synchronized (this.lock) {
+      if ((((!this.pending.containsKey(key)) && (this.pending.size() >= this.getMaxPendingNotifications())) && (!this.pending.isEmpty()))) {
+        final Iterator<Object> oldest = this.pending.keySet().iterator();
+        oldest.next();
+        oldest.remove();
+        this.dropped.incrementAndGet();
+      }
+      Procedure1<? super LanguageClient> _put = this.pending.put(key, notification);
+      boolean _tripleNotEquals = (_put != null);
+      if (_tripleNotEquals) {
+        this.superseded.incrementAndGet();
+      }
+      this.enqueued.incrementAndGet();
+      if ((this.flushScheduled || (this.client == null))) {
+        return;
+      }
+      this.flushScheduled = true;
+    }
+    this.scheduleFlush();
+  }
+  
+  /**
+   * Schedules the pending notifications to be sent by the background thread.
+   */
+  protected void scheduleFlush() {
+    final Runnable _function = () -> {
+      this.flush();
+    };
+    this.executor.execute(_function);
+  }
+  
+  /**
+   * Sends the pending notifications in the order in which they have been queued.
+   */
+  public void flush() {
+    while (true) {
+      {
+        List<Procedure1<? super LanguageClient>> batch = null;
+        LanguageClient client = null;
+        synchronized (this.lock) {
+          client = this.client;
+          if ((this.pending.isEmpty() || (client == null))) {
+            this.flushScheduled = false;
+            return;
+          }
+          batch = CollectionLiterals.<Procedure1<? super LanguageClient>>newArrayList(((Procedure1<? super LanguageClient>[])Conversions.unwrapArray(this.pending.values(), Procedure1.class)));
+          this.pending.clear();
+        }
+        for (final Procedure1<? super LanguageClient> notification : batch) {
+          try {
+            notification.apply(client);
+            this.sent.incrementAndGet();
+          } catch (final Throwable _t) {
+            if (_t instanceof Exception) {
+              final Exception e = (Exception)_t;
+              NotificationQueue.LOG.error("Error while sending a notification to the client.", e);
+            } else {
+              throw Exceptions.sneakyThrow(_t);
+            }
+          }
+        }
+      }
+    }
+  }
+  
+  /**
+   * The maximum number of pending notifications.
+   */
+  protected int getMaxPendingNotifications() {
+    return 1000;
+  }
+  
+  public int getPendingCount() {
+    synchronized (this.lock) {
+      return this.pending.size();
+    }
+  }
+  
+  public long getEnqueuedCount() {
+    return this.enqueued.get();
+  }
+  
+  public long getSupersededCount() {
+    return this.superseded.get();
+  }
+  
+  public long getSentCount() {
+    return this.sent.get();
+  }
+  
+  /**
+   * Returns the number of notifications that have been dropped because the queue was full.
+   */
+  public long getDroppedCount() {
+    return this.dropped.get();
+  }
+  
+  private static final Logger LOG = Logger.getLogger(NotificationQueue.class);
+}
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2016, 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2017, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,12 +12,18 @@ import com.google.inject.Inject;
 import com.google.inject.Provider;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.xtend.lib.annotations.AccessorType;
 import org.eclipse.xtend.lib.annotations.Accessors;
 import org.eclipse.xtext.build.BuildRequest;
@@ -25,6 +31,7 @@ import org.eclipse.xtext.build.IncrementalBuilder;
 import org.eclipse.xtext.build.IndexState;
 import org.eclipse.xtext.build.Source2GeneratedMapping;
 import org.eclipse.xtext.diagnostics.Severity;
+import org.eclipse.xtext.ide.server.SharedResourceDescriptions;
 import org.eclipse.xtext.resource.IExternalContentSupport;
 import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.IResourceServiceProvider;
@@ -40,6 +47,8 @@ import org.eclipse.xtext.workspace.ISourceFolder;
 import org.eclipse.xtext.workspace.ProjectConfigAdapter;
 import org.eclipse.xtext.xbase.lib.CollectionLiterals;
 import org.eclipse.xtext.xbase.lib.Functions.Function1;
+import org.eclipse.xtext.xbase.lib.IterableExtensions;
+import org.eclipse.xtext.xbase.lib.ListExtensions;
 import org.eclipse.xtext.xbase.lib.ObjectExtensions;
 import org.eclipse.xtext.xbase.lib.Procedures.Procedure1;
 import org.eclipse.xtext.xbase.lib.Procedures.Procedure2;
@@ -51,6 +60,39 @@ import org.eclipse.xtext.xbase.lib.Pure;
  */
 @SuppressWarnings("all")
 public class ProjectManager {
+  /**
+   * Counts the resources that are added to a resource set.
+   */
+  protected static class ResourceLoadCounter extends AdapterImpl {
+    @Accessors(AccessorType.PUBLIC_GETTER)
+    private int count;
+    
+    @Override
+    public void notifyChanged(final Notification msg) {
+      int _featureID = msg.getFeatureID(ResourceSet.class);
+      boolean _equals = (_featureID == ResourceSet.RESOURCE_SET__RESOURCES);
+      if (_equals) {
+        int _eventType = msg.getEventType();
+        switch (_eventType) {
+          case Notification.ADD:
+            this.count++;
+            break;
+          case Notification.ADD_MANY:
+            int _count = this.count;
+            Object _newValue = msg.getNewValue();
+            int _size = ((List<?>) _newValue).size();
+            this.count = (_count + _size);
+            break;
+        }
+      }
+    }
+    
+    @Pure
+    public int getCount() {
+      return this.count;
+    }
+  }
+  
   @Inject
   protected IncrementalBuilder incrementalBuilder;
   
@@ -66,6 +108,9 @@ public class ProjectManager {
   @Inject
   protected IExternalContentSupport externalContentSupport;
   
+  @Inject
+  protected SharedResourceDescriptions sharedResourceDescriptions;
+  
   @Accessors({ AccessorType.PUBLIC_GETTER, AccessorType.PROTECTED_SETTER })
   private IndexState indexState = new IndexState();
   
@@ -90,6 +135,26 @@ public class ProjectManager {
   @Accessors(AccessorType.PUBLIC_GETTER)
   private IProjectConfig projectConfig;
   
+  private boolean sharing;
+  
+  /**
+   * The number of resources that have been loaded during the last build.
+   * 
+   * @since 2.20
+   */
+  @Accessors(AccessorType.PUBLIC_GETTER)
+  private int loadedResourceCount;
+  
+  /**
+   * The number of resources that have been evicted from the resource set after the last build.
+   * 
+   * @since 2.20
+   */
+  @Accessors(AccessorType.PUBLIC_GETTER)
+  private int evictedResourceCount;
+  
+  private final ProjectManager.ResourceLoadCounter loadCounter = new ProjectManager.ResourceLoadCounter();
+  
   public void initialize(final ProjectDescription description, final IProjectConfig projectConfig, final Procedure2<? super URI, ? super Iterable<Issue>> acceptor, final IExternalContentSupport.IExternalContentProvider openedDocumentsContentProvider, final Provider<Map<String, ResourceDescriptionsData>> indexProvider, final CancelIndicator cancelIndicator) {
     this.projectDescription = description;
     this.projectConfig = projectConfig;
@@ -97,6 +162,31 @@ public class ProjectManager {
     this.issueAcceptor = acceptor;
     this.openedDocumentsContentProvider = openedDocumentsContentProvider;
     this.indexProvider = indexProvider;
+    this.sharedResourceDescriptions.acquire(this.getSharedResourceDescriptionsKey());
+    this.sharing = true;
+  }
+  
+  /**
+   * Releases the resources that this project manager shares with other language servers.
+   * 
+   * @since 2.20
+   */
+  public void dispose() {
+    if (this.sharing) {
+      this.sharing = false;
+      this.sharedResourceDescriptions.release(this.getSharedResourceDescriptionsKey());
+    }
+  }
+  
+  /**
+   * The key of this project's {@link SharedResourceDescriptions shared resource descriptions}.
+   * 
+   * @since 2.20
+   */
+  protected String getSharedResourceDescriptionsKey() {
+    String _name = this.projectDescription.getName();
+    String _plus = (_name + ":");
+    return (_plus + this.baseDir);
   }
   
   public IncrementalBuilder.Result doInitialBuild(final CancelIndicator cancelIndicator) {
@@ -111,16 +201,95 @@ public class ProjectManager {
   
   public IncrementalBuilder.Result doBuild(final List<URI> dirtyFiles, final List<URI> deletedFiles, final List<IResourceDescription.Delta> externalDeltas, final CancelIndicator cancelIndicator) {
     final BuildRequest request = this.newBuildRequest(dirtyFiles, deletedFiles, externalDeltas, cancelIndicator);
+    final int loadedBefore = this.loadCounter.count;
     final Function1<URI, IResourceServiceProvider> _function = (URI it) -> {
       return this.languagesRegistry.getResourceServiceProvider(it);
     };
     final IncrementalBuilder.Result result = this.incrementalBuilder.build(request, _function);
+    this.loadedResourceCount = (this.loadCounter.count - loadedBefore);
     this.indexState = result.getIndexState();
+    if (this.sharing) {
+      final Function1<IResourceDescription.Delta, Boolean> _function_1 = (IResourceDescription.Delta it) -> {
+        return Boolean.valueOf((((it.getNew() == null) || (this.openedDocumentsContentProvider == null)) || (!this.openedDocumentsContentProvider.hasContent(it.getUri()))));
+      };
+      this.sharedResourceDescriptions.share(this.getSharedResourceDescriptionsKey(), this.indexState.getResourceDescriptions(), 
+        IterableExtensions.<IResourceDescription.Delta>filter(result.getAffectedResources(), _function_1));
+    }
     this.resourceSet = request.getResourceSet();
+    this.evictedResourceCount = this.evictResources(dirtyFiles, result.getAffectedResources());
     this.indexProvider.get().put(this.projectDescription.getName(), this.indexState.getResourceDescriptions());
     return result;
   }
   
+  /**
+   * Unloads the retained resources of other projects that have been changed by a build of their project.
+   * 
+   * @since 2.20
+   */
+  public void invalidateResources(final List<IResourceDescription.Delta> deltas) {
+    if ((this.resourceSet != null)) {
+      for (final IResourceDescription.Delta delta : deltas) {
+        this.unloadResource(this.resourceSet, delta.getUri());
+      }
+    }
+  }
+  
+  /**
+   * The maximum number of resources that are retained in the resource set between builds. Unchanged resources are
+   * not reloaded by the next build as long as they are retained.
+   * 
+   * @since 2.20
+   */
+  protected int getMaxRetainedResources() {
+    return 1000;
+  }
+  
+  /**
+   * Unloads the resources that exceed the {@link #getMaxRetainedResources() maximum number of retained resources},
+   * starting with the ones that have been loaded first. Open documents and resources that have been changed or
+   * affected by the last build are kept.
+   * 
+   * @return the number of evicted resources.
+   * @since 2.20
+   */
+  protected int evictResources(final List<URI> dirtyFiles, final List<IResourceDescription.Delta> affectedResources) {
+    int _size = this.resourceSet.getResources().size();
+    int _maxRetainedResources = this.getMaxRetainedResources();
+    final int excess = (_size - _maxRetainedResources);
+    if ((excess <= 0)) {
+      return 0;
+    }
+    final HashSet<URI> retained = CollectionLiterals.<URI>newHashSet();
+    Iterables.<URI>addAll(retained, dirtyFiles);
+    final Function1<IResourceDescription.Delta, URI> _function = (IResourceDescription.Delta it) -> {
+      return it.getUri();
+    };
+    List<URI> _map = ListExtensions.<IResourceDescription.Delta, URI>map(affectedResources, _function);
+    Iterables.<URI>addAll(retained, _map);
+    final Function1<Resource, Boolean> _function_1 = (Resource it) -> {
+      return Boolean.valueOf(((!retained.contains(it.getURI())) && ((this.openedDocumentsContentProvider == null) || (!this.openedDocumentsContentProvider.hasContent(it.getURI())))));
+    };
+    final Function1<Resource, URI> _function_2 = (Resource it) -> {
+      return it.getURI();
+    };
+    final List<URI> evicted = IterableExtensions.<URI>toList(IterableExtensions.<Resource, URI>map(IterableExtensions.<Resource>take(IterableExtensions.<Resource>filter(this.resourceSet.getResources(), _function_1), excess), _function_2));
+    for (final URI uri : evicted) {
+      this.unloadResource(this.resourceSet, uri);
+    }
+    return evicted.size();
+  }
+  
+  /**
+   * @since 2.20
+   */
+  protected void unloadResource(final ResourceSet resourceSet, final URI uri) {
+    final Resource resource = resourceSet.getResource(uri, false);
+    if ((resource != null)) {
+      resourceSet.getResources().remove(resource);
+      resource.unload();
+    }
+  }
+  
   protected BuildRequest newBuildRequest(final List<URI> changedFiles, final List<URI> deletedFiles, final List<IResourceDescription.Delta> externalDeltas, final CancelIndicator cancelIndicator) {
     BuildRequest _buildRequest = new BuildRequest();
     final Procedure1<BuildRequest> _function = (BuildRequest it) -> {
@@ -151,7 +320,9 @@ public class ProjectManager {
       Map<String, ResourceDescriptionsData> _get_1 = this.indexProvider.get();
       final ChunkedResourceDescriptions index = new ChunkedResourceDescriptions(_get_1, it);
       index.setContainer(this.projectDescription.getName(), newIndex);
-      this.externalContentSupport.configureResourceSet(it, this.openedDocumentsContentProvider);
+      if ((this.openedDocumentsContentProvider != null)) {
+        this.externalContentSupport.configureResourceSet(it, this.openedDocumentsContentProvider);
+      }
     };
     return ObjectExtensions.<XtextResourceSet>operator_doubleArrow(_get, _function);
   }
@@ -159,6 +330,8 @@ public class ProjectManager {
   protected XtextResourceSet createFreshResourceSet(final ResourceDescriptionsData newIndex) {
     if ((this.resourceSet == null)) {
       this.resourceSet = this.createNewResourceSet(newIndex);
+      EList<Adapter> _eAdapters = this.resourceSet.eAdapters();
+      _eAdapters.add(this.loadCounter);
     } else {
       final ChunkedResourceDescriptions resDescs = ChunkedResourceDescriptions.findInEmfObject(this.resourceSet);
       Set<Map.Entry<String, ResourceDescriptionsData>> _entrySet = this.indexProvider.get().entrySet();
@@ -231,4 +404,14 @@ public class ProjectManager {
   public IProjectConfig getProjectConfig() {
     return this.projectConfig;
   }
+  
+  @Pure
+  public int getLoadedResourceCount() {
+    return this.loadedResourceCount;
+  }
+  
+  @Pure
+  public int getEvictedResourceCount() {
+    return this.evictedResourceCount;
+  }
 }
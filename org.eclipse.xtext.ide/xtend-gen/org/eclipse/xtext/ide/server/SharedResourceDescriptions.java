@@ -0,0 +1,193 @@
+/**
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.xtext.ide.server;
+
+import com.google.common.base.Objects;
+import com.google.inject.Singleton;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IReferenceDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsData;
+import org.eclipse.xtext.xbase.lib.CollectionLiterals;
+import org.eclipse.xtext.xbase.lib.IterableExtensions;
+
+/**
+ * Resource descriptions that are shared between the language servers of a process, e.g. the sessions that are started
+ * by the {@link SocketServerLauncher}. Language servers that work on the same projects hold equal resource
+ * descriptions. Instead of keeping a copy per session, each description is replaced by an equal shared one.
+ * <p>
+ * The shared descriptions are immutable, so the index of a session is a copy-on-write overlay: a session that changes
+ * a resource gets its own description, while the unchanged ones stay shared. Descriptions are only shared if they are
+ * {@link #isEqual(IResourceDescription, IResourceDescription) equal}, including the resolved references.
+ * <p>
+ * The shared description of a resource is the most recently built one. Descriptions of documents that are open in a
+ * session are not shared, since their contents may differ from the ones of the other sessions. The shared descriptions
+ * of a project are kept as long as a session {@link #acquire(String) references} it.
+ * 
+ * @since 2.20
+ */
+@Singleton
+@SuppressWarnings("all")
+public class SharedResourceDescriptions {
+  public static class SharedProject {
+    int references;
+    
+    final Map<URI, IResourceDescription> descriptions = CollectionLiterals.<URI, IResourceDescription>newHashMap();
+  }
+  
+  private final Map<String, SharedResourceDescriptions.SharedProject> projects = CollectionLiterals.<String, SharedResourceDescriptions.SharedProject>newHashMap();
+  
+  /**
+   * Adds a reference to the shared descriptions of the project with the given key.
+   */
+  public void acquire(final String key) {
+    synchronized (this.projects) {
+      SharedResourceDescriptions.SharedProject project = this.projects.get(key);
+      if ((project == null)) {
+        SharedResourceDescriptions.SharedProject _sharedProject = new SharedResourceDescriptions.SharedProject();
+        project = _sharedProject;
+        this.projects.put(key, project);
+      }
+      project.references++;
+    }
+  }
+  
+  /**
+   * Removes a reference to the shared descriptions of the project with the given key. The descriptions are discarded
+   * when there are no references left.
+   */
+  public void release(final String key) {
+    synchronized (this.projects) {
+      final SharedResourceDescriptions.SharedProject project = this.projects.get(key);
+      if ((project != null)) {
+        project.references--;
+        if ((project.references <= 0)) {
+          this.projects.remove(key);
+        }
+      }
+    }
+  }
+  
+  /**
+   * Applies the given deltas of a build to the shared descriptions of the project with the given key. The
+   * descriptions of the changed resources in the given index are replaced by equal shared descriptions. A description
+   * that is not equal to the shared one becomes the shared description of its resource, and the shared descriptions
+   * of deleted resources are discarded.
+   * 
+   * @return the number of replaced descriptions.
+   */
+  public int share(final String key, final ResourceDescriptionsData index, final Iterable<IResourceDescription.Delta> deltas) {
+    synchronized (this.projects) {
+      final SharedResourceDescriptions.SharedProject project = this.projects.get(key);
+      if ((project == null)) {
+        return 0;
+      }
+      int replaced = 0;
+      for (final IResourceDescription.Delta delta : deltas) {
+        {
+          final URI uri = delta.getUri();
+          IResourceDescription _xifexpression = null;
+          IResourceDescription _new = delta.getNew();
+          boolean _tripleNotEquals = (_new != null);
+          if (_tripleNotEquals) {
+            _xifexpression = index.getResourceDescription(uri);
+          }
+          final IResourceDescription description = _xifexpression;
+          if ((description == null)) {
+            project.descriptions.remove(uri);
+          } else {
+            final IResourceDescription shared = project.descriptions.get(uri);
+            if ((((shared != null) && (shared != description)) && this.isEqual(shared, description))) {
+              index.addDescription(uri, shared);
+              replaced++;
+            } else {
+              if ((shared != description)) {
+                project.descriptions.put(uri, description);
+              }
+            }
+          }
+        }
+      }
+      return replaced;
+    }
+  }
+  
+  /**
+   * Returns the number of shared descriptions of the project with the given key.
+   */
+  public int getSharedDescriptionCount(final String key) {
+    synchronized (this.projects) {
+      final SharedResourceDescriptions.SharedProject project = this.projects.get(key);
+      int _xifexpression = (int) 0;
+      if ((project == null)) {
+        _xifexpression = 0;
+      } else {
+        _xifexpression = project.descriptions.size();
+      }
+      return _xifexpression;
+    }
+  }
+  
+  protected boolean isEqual(final IResourceDescription left, final IResourceDescription right) {
+    if (((!Objects.equal(left.getURI(), right.getURI())) || (!Objects.equal(IterableExtensions.<QualifiedName>toList(left.getImportedNames()), IterableExtensions.<QualifiedName>toList(right.getImportedNames()))))) {
+      return false;
+    }
+    final Iterator<IEObjectDescription> leftObjects = left.getExportedObjects().iterator();
+    final Iterator<IEObjectDescription> rightObjects = right.getExportedObjects().iterator();
+    while ((leftObjects.hasNext() && rightObjects.hasNext())) {
+      boolean _isEqual = this.isEqual(leftObjects.next(), rightObjects.next());
+      boolean _not = (!_isEqual);
+      if (_not) {
+        return false;
+      }
+    }
+    if ((leftObjects.hasNext() || rightObjects.hasNext())) {
+      return false;
+    }
+    final Iterator<IReferenceDescription> leftReferences = left.getReferenceDescriptions().iterator();
+    final Iterator<IReferenceDescription> rightReferences = right.getReferenceDescriptions().iterator();
+    while ((leftReferences.hasNext() && rightReferences.hasNext())) {
+      boolean _isEqual = this.isEqual(leftReferences.next(), rightReferences.next());
+      boolean _not = (!_isEqual);
+      if (_not) {
+        return false;
+      }
+    }
+    return ((!leftReferences.hasNext()) && (!rightReferences.hasNext()));
+  }
+  
+  protected boolean isEqual(final IEObjectDescription left, final IEObjectDescription right) {
+    if ((((!Objects.equal(left.getEObjectURI(), right.getEObjectURI())) || (!Objects.equal(left.getName(), right.getName()))) || (!Objects.equal(left.getEClass(), right.getEClass())))) {
+      return false;
+    }
+    final String[] leftKeys = left.getUserDataKeys();
+    boolean _equals = Arrays.equals(leftKeys, right.getUserDataKeys());
+    boolean _not = (!_equals);
+    if (_not) {
+      return false;
+    }
+    for (final String key : leftKeys) {
+      String _userData = left.getUserData(key);
+      String _userData_1 = right.getUserData(key);
+      boolean _notEquals = (!Objects.equal(_userData, _userData_1));
+      if (_notEquals) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  protected boolean isEqual(final IReferenceDescription left, final IReferenceDescription right) {
+    return ((((Objects.equal(left.getSourceEObjectUri(), right.getSourceEObjectUri()) && Objects.equal(left.getTargetEObjectUri(), right.getTargetEObjectUri())) && Objects.equal(left.getContainerEObjectURI(), right.getContainerEObjectURI())) && Objects.equal(left.getEReference(), right.getEReference())) && (left.getIndexInList() == right.getIndexInList()));
+  }
+}
@@ -10,6 +10,7 @@ package org.eclipse.xtext.ide.server;
 import com.google.common.base.Objects;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import java.io.BufferedOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
@@ -18,14 +19,13 @@ import java.net.SocketAddress;
 import java.nio.channels.AsynchronousServerSocketChannel;
 import java.nio.channels.AsynchronousSocketChannel;
 import java.nio.channels.Channels;
-import java.util.List;
 import org.apache.log4j.Logger;
 import org.eclipse.lsp4j.jsonrpc.Launcher;
 import org.eclipse.lsp4j.services.LanguageClient;
 import org.eclipse.xtext.ide.server.LanguageServerImpl;
 import org.eclipse.xtext.ide.server.ServerModule;
 import org.eclipse.xtext.util.internal.Log;
-import org.eclipse.xtext.xbase.lib.Conversions;
+import org.eclipse.xtext.xbase.lib.ArrayExtensions;
 import org.eclipse.xtext.xbase.lib.Exceptions;
 
 /**
@@ -66,7 +66,8 @@ public class SocketServerLauncher {
         {
           final AsynchronousSocketChannel socketChannel = serverSocket.accept().get();
           final InputStream in = Channels.newInputStream(socketChannel);
-          final OutputStream out = Channels.newOutputStream(socketChannel);
+          OutputStream _newOutputStream = Channels.newOutputStream(socketChannel);
+          final BufferedOutputStream out = new BufferedOutputStream(_newOutputStream);
           final PrintWriter trace = this.getTrace(args);
           final boolean validate = this.shouldValidate(args);
           final LanguageServerImpl languageServer = injector.<LanguageServerImpl>getInstance(LanguageServerImpl.class);
@@ -95,7 +96,7 @@ public class SocketServerLauncher {
   
   protected PrintWriter getTrace(final String... args) {
     PrintWriter _xifexpression = null;
-    boolean _contains = ((List<String>)Conversions.doWrapArray(args)).contains(SocketServerLauncher.TRACE);
+    boolean _contains = ArrayExtensions.contains(args, SocketServerLauncher.TRACE);
     if (_contains) {
       _xifexpression = new PrintWriter(System.out);
     }
@@ -103,7 +104,7 @@ public class SocketServerLauncher {
   }
   
   protected boolean shouldValidate(final String... args) {
-    boolean _contains = ((List<String>)Conversions.doWrapArray(args)).contains(SocketServerLauncher.NO_VALIDATE);
+    boolean _contains = ArrayExtensions.contains(args, SocketServerLauncher.NO_VALIDATE);
     return (!_contains);
   }
   
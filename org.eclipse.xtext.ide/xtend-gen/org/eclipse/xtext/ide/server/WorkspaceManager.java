@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2016, 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2017, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -152,7 +152,10 @@ public class WorkspaceManager {
     this.getWorkspaceConfig().getProjects().forEach(_function);
     for (final String deletedProject : remainingProjectNames) {
       {
-        this.projectName2ProjectManager.remove(deletedProject);
+        ProjectManager _remove = this.projectName2ProjectManager.remove(deletedProject);
+        if (_remove!=null) {
+          _remove.dispose();
+        }
         this.fullIndex.remove(deletedProject);
       }
     }
@@ -219,6 +222,18 @@ public class WorkspaceManager {
     return this.projectName2ProjectManager.get(projectName);
   }
   
+  /**
+   * Releases the resources that the project managers share with other language servers.
+   * 
+   * @since 2.20
+   */
+  public void dispose() {
+    Collection<ProjectManager> _values = this.projectName2ProjectManager.values();
+    for (final ProjectManager projectManager : _values) {
+      projectManager.dispose();
+    }
+  }
+  
   public List<ProjectManager> getProjectManagers() {
     Collection<ProjectManager> _values = this.projectName2ProjectManager.values();
     return new ArrayList<ProjectManager>(_values);
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2016, 2017, 2018 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2017, 2018, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,8 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import org.eclipse.xtend.lib.annotations.FinalFieldsConstructor;
+import org.eclipse.xtext.ide.PrioritizedExecutorService;
 import org.eclipse.xtext.ide.server.concurrent.AbstractRequest;
 import org.eclipse.xtext.ide.server.concurrent.ReadRequest;
 import org.eclipse.xtext.ide.server.concurrent.WriteRequest;
@@ -31,6 +33,27 @@ import org.eclipse.xtext.xbase.lib.Functions.Function2;
  */
 @SuppressWarnings("all")
 public class RequestManager {
+  /**
+   * A read that carries its priority to {@link RequestManager#runRead(Function1)}.
+   */
+  @FinalFieldsConstructor
+  private static class PrioritizedRead<V extends Object> implements Function1<CancelIndicator, V> {
+    private final PrioritizedExecutorService.Priority priority;
+    
+    private final Function1<? super CancelIndicator, ? extends V> delegate;
+    
+    @Override
+    public V apply(final CancelIndicator cancelIndicator) {
+      return this.delegate.apply(cancelIndicator);
+    }
+    
+    public PrioritizedRead(final PrioritizedExecutorService.Priority priority, final Function1<? super CancelIndicator, ? extends V> delegate) {
+      super();
+      this.priority = priority;
+      this.delegate = delegate;
+    }
+  }
+  
   @Inject
   private ExecutorService parallel;
   
@@ -49,10 +72,32 @@ public class RequestManager {
   }
   
   public <V extends Object> CompletableFuture<V> runRead(final Function1<? super CancelIndicator, ? extends V> cancellable) {
-    ReadRequest<V> _readRequest = new ReadRequest<V>(cancellable, this.parallel);
+    PrioritizedExecutorService.Priority _xifexpression = null;
+    if ((cancellable instanceof RequestManager.PrioritizedRead<?>)) {
+      _xifexpression = ((RequestManager.PrioritizedRead<?>)cancellable).priority;
+    } else {
+      _xifexpression = PrioritizedExecutorService.Priority.INTERACTIVE;
+    }
+    final PrioritizedExecutorService.Priority priority = _xifexpression;
+    ReadRequest<V> _readRequest = new ReadRequest<V>(cancellable, this.parallel, priority);
     return this.<V>submit(_readRequest);
   }
   
+  /**
+   * Runs a read request with the given priority. Requests with a lower priority are only started when no request
+   * with a higher priority is waiting for a thread. The priority has only an effect if the executor service is a
+   * {@link PrioritizedExecutorService}. The request is dispatched by {@link #runRead(Function1)}.
+   * 
+   * @since 2.20
+   */
+  public <V extends Object> CompletableFuture<V> runRead(final PrioritizedExecutorService.Priority priority, final Function1<? super CancelIndicator, ? extends V> cancellable) {
+    if ((priority == PrioritizedExecutorService.Priority.INTERACTIVE)) {
+      return this.<V>runRead(cancellable);
+    }
+    final Function1<? super CancelIndicator, ? extends V> read = new RequestManager.PrioritizedRead<V>(priority, cancellable);
+    return this.<V>runRead(read);
+  }
+  
   public <U extends Object, V extends Object> CompletableFuture<V> runWrite(final Function0<? extends U> nonCancellable, final Function2<? super CancelIndicator, ? super U, ? extends V> cancellable) {
     final CompletableFuture<Void> cancelFuture = this.cancel();
     WriteRequest<U, V> _writeRequest = new WriteRequest<U, V>(nonCancellable, cancellable, cancelFuture);
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2016 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ import com.google.common.base.Strings;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -53,6 +54,20 @@ import org.eclipse.xtext.xbase.lib.Procedures.Procedure2;
 public class ContentAssistService {
   public static final int DEFAULT_PROPOSALS_LIMIT = 1000;
   
+  /**
+   * The time in milliseconds that content assist waits for the parser to compute the completion contexts. Contexts
+   * that take longer are skipped. It can be configured with e.g.
+   * <code>binder.bindConstant().annotatedWith(Names.named(ContentAssistService.LATENCY_BUDGET)).to(100L)</code>.
+   * There is no time limit by default.
+   * 
+   * @since 2.20
+   */
+  public static final String LATENCY_BUDGET = "org.eclipse.xtext.ide.server.contentassist.ContentAssistService.LATENCY_BUDGET";
+  
+  @Inject(optional = true)
+  @Named(ContentAssistService.LATENCY_BUDGET)
+  private long latencyBudget = 0;
+  
   @Inject
   private Provider<ContentAssistContextFactory> contextFactoryProvider;
   
@@ -111,6 +126,7 @@ public class ContentAssistService {
     }
     final ContentAssistContextFactory contextFactory = this.contextFactoryProvider.get();
     contextFactory.setPool(this.executorService);
+    contextFactory.setLatencyBudget(this.latencyBudget);
     final ContentAssistContext[] contexts = contextFactory.create(document, selection, caretOffset, resource);
     this.proposalProvider.createProposals(((Collection<ContentAssistContext>)Conversions.doWrapArray(contexts)), acceptor);
   }
@@ -178,7 +178,13 @@ public class FormattingService {
     if ((preferences != null)) {
       request.setPreferences(preferences);
     }
-    final ITextRegionAccess regionAccess = this.regionBuilder.forNodeModel(resource).create();
+    ITextRegionAccess _xifexpression = null;
+    if ((selection != null)) {
+      _xifexpression = this.regionBuilder.forNodeModel(resource, Collections.<ITextRegion>unmodifiableList(CollectionLiterals.<ITextRegion>newArrayList(selection))).create();
+    } else {
+      _xifexpression = this.regionBuilder.forNodeModel(resource).create();
+    }
+    final ITextRegionAccess regionAccess = _xifexpression;
     request.setTextRegionAccess(regionAccess);
     final IFormatter2 formatter2 = this.formatter2Provider.get();
     final List<ITextReplacement> replacements = formatter2.format(request);
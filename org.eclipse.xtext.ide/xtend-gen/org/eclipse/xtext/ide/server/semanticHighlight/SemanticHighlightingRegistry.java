@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2018 TypeFox and others.
+ * Copyright (c) 2018, 2019 TypeFox and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,7 +8,6 @@
 package org.eclipse.xtext.ide.server.semanticHighlight;
 
 import com.google.common.base.Function;
-import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.ImmutableBiMap;
@@ -17,13 +16,19 @@ import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
+import java.util.stream.IntStream;
 import org.apache.log4j.Logger;
+import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.lsp4j.ClientCapabilities;
 import org.eclipse.lsp4j.Position;
@@ -32,6 +37,7 @@ import org.eclipse.lsp4j.SemanticHighlightingCapabilities;
 import org.eclipse.lsp4j.SemanticHighlightingInformation;
 import org.eclipse.lsp4j.SemanticHighlightingParams;
 import org.eclipse.lsp4j.TextDocumentClientCapabilities;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
 import org.eclipse.lsp4j.VersionedTextDocumentIdentifier;
 import org.eclipse.lsp4j.services.LanguageClient;
 import org.eclipse.lsp4j.util.SemanticHighlightingTokens;
@@ -65,6 +71,13 @@ import org.eclipse.xtext.xbase.lib.util.ToStringBuilder;
  * Shared semantic highlighting manager per language server.
  * Responsible for converting the semantic highlighted ranges into the LSP standard by producing a compact,
  * {@code base64} encoded token string.
+ * 
+ * <p>
+ * The lines that were sent for an open document are remembered, so that subsequent updates only send the lines
+ * whose tokens have changed. The lines that are covered by the {@link #didChange(URI, List) edits} of the document
+ * are always sent. The other lines are compared with the tokens that the client has moved along with the text,
+ * i.e. removed or inserted lines do not cause an update of the following lines.
+ * </p>
  */
 @Log
 @SuppressWarnings("all")
@@ -121,6 +134,93 @@ public class SemanticHighlightingRegistry {
     }
   }
   
+  /**
+   * The encoded tokens that were sent for each line of a document and the lines that have been edited since.
+   */
+  private static class HighlightedDocument {
+    private final String[] tokens;
+    
+    /**
+     * The line of the sent {@link #tokens} for each line of the current document, or {@code -1} if the line has
+     * been edited. {@code null} if the complete document has been replaced.
+     */
+    private int[] previousLines;
+    
+    public HighlightedDocument(final int lineCount, final List<SemanticHighlightingInformation> lines) {
+      this.tokens = new String[lineCount];
+      for (final SemanticHighlightingInformation info : lines) {
+        if (((info.getLine() >= 0) && (info.getLine() < this.tokens.length))) {
+          this.tokens[info.getLine()] = info.getTokens();
+        }
+      }
+      this.previousLines = IntStream.range(0, lineCount).toArray();
+    }
+    
+    public synchronized void didChange(final List<TextDocumentContentChangeEvent> changes) {
+      for (final TextDocumentContentChangeEvent change : changes) {
+        int[] _apply = null;
+        if (this.previousLines!=null) {
+          _apply=this.apply(this.previousLines, change);
+        }
+        this.previousLines = _apply;
+      }
+    }
+    
+    private int[] apply(final int[] lines, final TextDocumentContentChangeEvent change) {
+      if (((change.getRange() == null) || (change.getRange().getEnd().getLine() >= lines.length))) {
+        return null;
+      }
+      final int startLine = change.getRange().getStart().getLine();
+      final int endLine = change.getRange().getEnd().getLine();
+      int insertedLines = 0;
+      for (int i = 0; (i < change.getText().length()); i++) {
+        char _charAt = change.getText().charAt(i);
+        boolean _tripleEquals = (_charAt == SemanticHighlightingRegistry.NL);
+        if (_tripleEquals) {
+          insertedLines++;
+        }
+      }
+      int _length = lines.length;
+      int _minus = (_length - (endLine - startLine));
+      int _plus = (_minus + insertedLines);
+      final int[] result = new int[_plus];
+      System.arraycopy(lines, 0, result, 0, startLine);
+      Arrays.fill(result, startLine, ((startLine + insertedLines) + 1), (-1));
+      int _length_1 = lines.length;
+      int _minus_1 = (_length_1 - endLine);
+      int _minus_2 = (_minus_1 - 1);
+      System.arraycopy(lines, (endLine + 1), result, ((startLine + insertedLines) + 1), _minus_2);
+      return result;
+    }
+    
+    /**
+     * Returns the lines of the given current document that have been edited or whose tokens differ from the sent
+     * ones.
+     */
+    public synchronized List<SemanticHighlightingInformation> getChangedLines(final SemanticHighlightingRegistry.HighlightedDocument current) {
+      final int lineCount = current.tokens.length;
+      final ArrayList<SemanticHighlightingInformation> result = CollectionLiterals.<SemanticHighlightingInformation>newArrayList();
+      ExclusiveRange _doubleDotLessThan = new ExclusiveRange(0, lineCount, true);
+      for (final Integer line : _doubleDotLessThan) {
+        {
+          int _xifexpression = (int) 0;
+          if (((this.previousLines != null) && (this.previousLines.length == lineCount))) {
+            _xifexpression = this.previousLines[(line).intValue()];
+          } else {
+            _xifexpression = (-1);
+          }
+          final int previousLine = _xifexpression;
+          if (((previousLine < 0) || (!Objects.equals(current.tokens[(line).intValue()], this.tokens[previousLine])))) {
+            String _get = current.tokens[(line).intValue()];
+            SemanticHighlightingInformation _semanticHighlightingInformation = new SemanticHighlightingInformation((line).intValue(), _get);
+            result.add(_semanticHighlightingInformation);
+          }
+        }
+      }
+      return result;
+    }
+  }
+  
   /**
    * Reserved TextMate scope identifier for styles that cannot be handled.
    */
@@ -131,6 +231,8 @@ public class SemanticHighlightingRegistry {
    */
   public static final List<String> UNKNOWN_SCOPES = Collections.<String>unmodifiableList(CollectionLiterals.<String>newArrayList(SemanticHighlightingRegistry.UNKNOWN_SCOPE));
   
+  private static final char NL = '\n';
+  
   @Inject
   @Extension
   private UriExtensions _uriExtensions;
@@ -142,6 +244,11 @@ public class SemanticHighlightingRegistry {
   
   protected LanguageClient client;
   
+  /**
+   * The highlighting that was sent for each open document.
+   */
+  private final Map<URI, SemanticHighlightingRegistry.HighlightedDocument> highlightedDocuments = new ConcurrentHashMap<URI, SemanticHighlightingRegistry.HighlightedDocument>();
+  
   public void initialize(final Iterable<? extends IResourceServiceProvider> allLanguages, final ClientCapabilities capabilities, final LanguageClient client) {
     Preconditions.checkState((this.client == null), "Already initialized.");
     Boolean _elvis = null;
@@ -244,6 +351,7 @@ public class SemanticHighlightingRegistry {
     boolean _isDocumentOpen = context.isDocumentOpen();
     boolean _not_1 = (!_isDocumentOpen);
     if (_not_1) {
+      this.highlightedDocuments.remove(context.getResource().getURI());
       return;
     }
     Resource _resource_1 = context.getResource();
@@ -264,15 +372,16 @@ public class SemanticHighlightingRegistry {
       return;
     }
     final Document document = context.getDocument();
+    final int[] lineOffsets = this.getLineOffsets(document);
     final MergingHighlightedPositionAcceptor acceptor = new MergingHighlightedPositionAcceptor(calculator);
     calculator.provideHighlightingFor(resource, acceptor, CancelIndicator.NullImpl);
     final Function1<LightweightPosition, List<SemanticHighlightingRegistry.HighlightedRange>> _function = (LightweightPosition position) -> {
       final Function1<String, SemanticHighlightingRegistry.HighlightedRange> _function_1 = (String id) -> {
-        final Position start = document.getPosition(position.getOffset());
+        final Position start = this.getPosition(lineOffsets, position.getOffset());
         int _offset = position.getOffset();
         int _length = position.getLength();
         int _plus = (_offset + _length);
-        final Position end = document.getPosition(_plus);
+        final Position end = this.getPosition(lineOffsets, _plus);
         final int scope = this.getIndex(mapper.toScopes(id));
         return new SemanticHighlightingRegistry.HighlightedRange(start, end, scope);
       };
@@ -280,9 +389,48 @@ public class SemanticHighlightingRegistry {
     };
     final Iterable<SemanticHighlightingRegistry.HighlightedRange> ranges = Iterables.<SemanticHighlightingRegistry.HighlightedRange>concat(ListExtensions.<LightweightPosition, List<SemanticHighlightingRegistry.HighlightedRange>>map(acceptor.getPositions(), _function));
     final List<SemanticHighlightingInformation> lines = this.toSemanticHighlightingInformation(ranges, document);
-    final VersionedTextDocumentIdentifier textDocument = this.toVersionedTextDocumentIdentifier(context);
-    SemanticHighlightingParams _semanticHighlightingParams = new SemanticHighlightingParams(textDocument, lines);
-    this.notifyClient(_semanticHighlightingParams);
+    int _length = lineOffsets.length;
+    final SemanticHighlightingRegistry.HighlightedDocument highlightedDocument = new SemanticHighlightingRegistry.HighlightedDocument(_length, lines);
+    final SemanticHighlightingRegistry.HighlightedDocument previous = this.highlightedDocuments.put(resource.getURI(), highlightedDocument);
+    List<SemanticHighlightingInformation> _elvis = null;
+    List<SemanticHighlightingInformation> _changedLines = null;
+    if (previous!=null) {
+      _changedLines=previous.getChangedLines(highlightedDocument);
+    }
+    if (_changedLines != null) {
+      _elvis = _changedLines;
+    } else {
+      _elvis = lines;
+    }
+    final List<SemanticHighlightingInformation> changedLines = _elvis;
+    if (((previous == null) || (!changedLines.isEmpty()))) {
+      final VersionedTextDocumentIdentifier textDocument = this.toVersionedTextDocumentIdentifier(context);
+      SemanticHighlightingParams _semanticHighlightingParams = new SemanticHighlightingParams(textDocument, changedLines);
+      this.notifyClient(_semanticHighlightingParams);
+    }
+  }
+  
+  /**
+   * Forgets the highlighting that was sent for the given document, e.g. because it was closed.
+   * The next update of the document sends all lines.
+   * 
+   * @since 2.20
+   */
+  public void reset(final URI uri) {
+    this.highlightedDocuments.remove(uri);
+  }
+  
+  /**
+   * Remembers the lines of the given document that are covered by the given changes. The next update sends these
+   * lines even if their tokens have not changed. Has to be invoked whenever the changes are applied to the document.
+   * 
+   * @since 2.20
+   */
+  public void didChange(final URI uri, final List<TextDocumentContentChangeEvent> changes) {
+    SemanticHighlightingRegistry.HighlightedDocument _get = this.highlightedDocuments.get(uri);
+    if (_get!=null) {
+      _get.didChange(changes);
+    }
   }
   
   /**
@@ -296,11 +444,12 @@ public class SemanticHighlightingRegistry {
   }
   
   protected List<SemanticHighlightingInformation> toSemanticHighlightingInformation(final Iterable<? extends SemanticHighlightingRegistry.HighlightedRange> ranges, final Document document) {
+    final int[] lineOffsets = this.getLineOffsets(document);
     final ImmutableMultimap.Builder<Integer, SemanticHighlightingTokens.Token> builder = ImmutableMultimap.<Integer, SemanticHighlightingTokens.Token>builder();
     final Function1<SemanticHighlightingRegistry.HighlightedRange, Boolean> _function = (SemanticHighlightingRegistry.HighlightedRange it) -> {
       Position _start = it.getStart();
       Position _end = it.getEnd();
-      return Boolean.valueOf((!Objects.equal(_start, _end)));
+      return Boolean.valueOf((!com.google.common.base.Objects.equal(_start, _end)));
     };
     final Consumer<SemanticHighlightingRegistry.HighlightedRange> _function_1 = (SemanticHighlightingRegistry.HighlightedRange it) -> {
       final int startLine = it.getStart().getLine();
@@ -313,20 +462,16 @@ public class SemanticHighlightingRegistry {
         SemanticHighlightingTokens.Token _token = new SemanticHighlightingTokens.Token(_character_2, length, it.scope);
         builder.put(Integer.valueOf(startLine), _token);
       } else {
-        final String startLineContent = document.getLineContent(startLine);
-        int _length = startLineContent.length();
+        int _lineLength = this.getLineLength(lineOffsets, startLine, document);
         int _character_3 = it.getStart().getCharacter();
-        final int startLength = (_length - _character_3);
+        final int startLength = (_lineLength - _character_3);
         int _character_4 = it.getStart().getCharacter();
         SemanticHighlightingTokens.Token _token_1 = new SemanticHighlightingTokens.Token(_character_4, startLength, it.scope);
         builder.put(Integer.valueOf(startLine), _token_1);
         for (int line = (startLine + 1); (line < endLine); line++) {
-          {
-            final String lineContent = document.getLineContent(line);
-            int _length_1 = lineContent.length();
-            SemanticHighlightingTokens.Token _token_2 = new SemanticHighlightingTokens.Token(0, _length_1, it.scope);
-            builder.put(Integer.valueOf(line), _token_2);
-          }
+          int _lineLength_1 = this.getLineLength(lineOffsets, line, document);
+          SemanticHighlightingTokens.Token _token_2 = new SemanticHighlightingTokens.Token(0, _lineLength_1, it.scope);
+          builder.put(Integer.valueOf(line), _token_2);
         }
         int _character_5 = it.getEnd().getCharacter();
         SemanticHighlightingTokens.Token _token_2 = new SemanticHighlightingTokens.Token(0, _character_5, it.scope);
@@ -365,6 +510,46 @@ public class SemanticHighlightingRegistry {
     return IterableExtensions.<SemanticHighlightingInformation>toList(tokens.values());
   }
   
+  /**
+   * Returns the offsets at which the lines of the document start.
+   */
+  private int[] getLineOffsets(final Document document) {
+    final String contents = document.getContents();
+    final IntStream.Builder result = IntStream.builder().add(0);
+    for (int i = 0; (i < contents.length()); i++) {
+      char _charAt = contents.charAt(i);
+      boolean _tripleEquals = (_charAt == SemanticHighlightingRegistry.NL);
+      if (_tripleEquals) {
+        result.add((i + 1));
+      }
+    }
+    return result.build().toArray();
+  }
+  
+  private Position getPosition(final int[] lineOffsets, final int offset) {
+    int line = Arrays.binarySearch(lineOffsets, offset);
+    if ((line < 0)) {
+      line = ((-line) - 2);
+    }
+    int _get = lineOffsets[line];
+    int _minus = (offset - _get);
+    return new Position(line, _minus);
+  }
+  
+  private int getLineLength(final int[] lineOffsets, final int line, final Document document) {
+    int _length = lineOffsets.length;
+    boolean _lessThan = ((line + 1) < _length);
+    if (_lessThan) {
+      int _get = lineOffsets[(line + 1)];
+      int _minus = (_get - 1);
+      int _get_1 = lineOffsets[line];
+      return (_minus - _get_1);
+    }
+    int _length_1 = document.getContents().length();
+    int _get_2 = lineOffsets[line];
+    return (_length_1 - _get_2);
+  }
+  
   protected VersionedTextDocumentIdentifier toVersionedTextDocumentIdentifier(final ILanguageServerAccess.Context context) {
     VersionedTextDocumentIdentifier _versionedTextDocumentIdentifier = new VersionedTextDocumentIdentifier();
     final Procedure1<VersionedTextDocumentIdentifier> _function = (VersionedTextDocumentIdentifier it) -> {
@@ -383,7 +568,7 @@ public class SemanticHighlightingRegistry {
   }
   
   protected boolean isNullOrUnknown(final List<String> nullable) {
-    return ((nullable == null) || Objects.equal(nullable, SemanticHighlightingRegistry.UNKNOWN_SCOPES));
+    return ((nullable == null) || com.google.common.base.Objects.equal(nullable, SemanticHighlightingRegistry.UNKNOWN_SCOPES));
   }
   
   private static final Logger LOG = Logger.getLogger(SemanticHighlightingRegistry.class);
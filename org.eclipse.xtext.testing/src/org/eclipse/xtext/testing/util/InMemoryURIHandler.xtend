@@ -13,6 +13,7 @@ import java.io.IOException
 import java.io.InputStream
 import java.io.OutputStream
 import java.util.Map
+import java.util.concurrent.ConcurrentHashMap
 import org.eclipse.emf.common.util.URI
 import org.eclipse.emf.ecore.resource.URIHandler
 import org.eclipse.xtend.lib.annotations.Accessors
@@ -48,7 +49,7 @@ class InMemoryURIHandler implements URIHandler {
 
 	public final static String SCHEME = 'inmemory'
 	
-	@Accessors(PUBLIC_GETTER) Map<URI, InMemFile> files = newHashMap()
+	@Accessors(PUBLIC_GETTER) Map<URI, InMemFile> files = new ConcurrentHashMap()
 
 	override canHandle(URI uri) {
 		uri.scheme == SCHEME
@@ -82,11 +83,6 @@ class InMemoryURIHandler implements URIHandler {
 	}
 
 	def InMemFile getInMemoryFile(URI uri) {
-		var result = files.get(uri)
-		if (result === null) {
-			result = new InMemFile(uri)
-			files.put(uri, result)
-		}
-		return result
+		return files.computeIfAbsent(uri) [new InMemFile(it)]
 	}
 }
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2016, 2017 TypeFox GmbH (http://www.typefox.io) and others.
+ * Copyright (c) 2016, 2017, 2019 TypeFox GmbH (http://www.typefox.io) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -87,6 +87,7 @@ import org.eclipse.xtend2.lib.StringConcatenation;
 import org.eclipse.xtext.LanguageInfo;
 import org.eclipse.xtext.ide.server.Document;
 import org.eclipse.xtext.ide.server.LanguageServerImpl;
+import org.eclipse.xtext.ide.server.NotificationQueue;
 import org.eclipse.xtext.ide.server.ServerModule;
 import org.eclipse.xtext.ide.server.UriExtensions;
 import org.eclipse.xtext.ide.server.concurrent.RequestManager;
@@ -267,6 +268,13 @@ public abstract class AbstractLanguageServerTest implements Endpoint {
           return result;
         }
       });
+      AnnotatedBindingBuilder<NotificationQueue> _bind_1 = it.<NotificationQueue>bind(NotificationQueue.class);
+      _bind_1.toInstance(new NotificationQueue() {
+        @Override
+        protected void scheduleFlush() {
+          this.flush();
+        }
+      });
     };
     return Modules2.mixin(_serverModule, _function);
   }
@@ -14,6 +14,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.URIHandler;
 import org.eclipse.xtend.lib.annotations.AccessorType;
@@ -91,7 +93,7 @@ public class InMemoryURIHandler implements URIHandler {
   public static final String SCHEME = "inmemory";
   
   @Accessors(AccessorType.PUBLIC_GETTER)
-  private Map<URI, InMemoryURIHandler.InMemFile> files = CollectionLiterals.<URI, InMemoryURIHandler.InMemFile>newHashMap();
+  private Map<URI, InMemoryURIHandler.InMemFile> files = new ConcurrentHashMap<URI, InMemoryURIHandler.InMemFile>();
   
   @Override
   public boolean canHandle(final URI uri) {
@@ -135,13 +137,10 @@ public class InMemoryURIHandler implements URIHandler {
   }
   
   public InMemoryURIHandler.InMemFile getInMemoryFile(final URI uri) {
-    InMemoryURIHandler.InMemFile result = this.files.get(uri);
-    if ((result == null)) {
-      InMemoryURIHandler.InMemFile _inMemFile = new InMemoryURIHandler.InMemFile(uri);
-      result = _inMemFile;
-      this.files.put(uri, result);
-    }
-    return result;
+    final Function<URI, InMemoryURIHandler.InMemFile> _function = (URI it) -> {
+      return new InMemoryURIHandler.InMemFile(it);
+    };
+    return this.files.computeIfAbsent(uri, _function);
   }
   
   @Pure
@@ -8,12 +8,15 @@
 package org.eclipse.xtext.build
 
 import com.google.inject.Inject
+import java.util.concurrent.Executors
 import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
 import org.eclipse.core.runtime.OperationCanceledException
 import org.eclipse.emf.common.util.URI
 import org.eclipse.xtext.build.BuildRequest.IPostValidationCallback
 import org.eclipse.xtext.index.IndexTestLanguageInjectorProvider
 import org.eclipse.xtext.resource.IResourceServiceProvider
+import org.eclipse.xtext.resource.clustering.IResourceClusteringPolicy
 import org.eclipse.xtext.util.CancelIndicator
 import org.eclipse.xtext.testing.XtextRunner
 import org.eclipse.xtext.testing.InjectWith
@@ -132,6 +135,89 @@ class IncrementalBuilderTest extends AbstractIncrementalBuilderTest {
 		assertTrue(generated.values.containsSuffix('src-gen/A.txt'))
 	}
 	
+	@Test def void testParallelGeneration() {
+		val executor = Executors.newFixedThreadPool(2)
+		try {
+			val executed = new AtomicInteger
+			val buildRequest = newBuildRequest [
+				dirtyFiles = #[
+					'src/A.indextestlanguage' - '''
+						foo {
+							entity A { foo.B myReference }
+						}
+					''',
+					'src/B.indextestlanguage' - '''
+						foo {
+							entity B {}
+							entity C {}
+						}
+					''',
+					'src/D.indextestlanguage' - '''
+						foo {
+							entity D { foo.C myReference }
+						}
+					'''
+				]
+				generatorExecutor = [
+					executed.incrementAndGet
+					executor.execute(it)
+				]
+			]
+			val IResourceClusteringPolicy clusterPerResource = [ resourceSet, uri, loadedResources |
+				loadedResources < 1
+			]
+			clean()
+			indexState = incrementalBuilder.build(buildRequest, [languages.getResourceServiceProvider(it)], clusterPerResource).indexState
+			assertTrue(issues.toString, issues.isEmpty)
+			assertEquals(3, executed.get)
+			assertEquals(generated.toString, 4, generated.size)
+			assertTrue(generated.values.containsSuffix('src-gen/A.txt', 'src-gen/B.txt', 'src-gen/C.txt', 'src-gen/D.txt'))
+			assertEquals(2, indexState.fileMappings.getGenerated(uri('src/B.indextestlanguage')).size)
+			assertEquals('Hello D!', new String(inMemoryURIHandler.files.get(uri('src-gen/D.txt')).contents).trim)
+		} finally {
+			executor.shutdown()
+		}
+	}
+	
+	@Test def void testParallelGenerationStartsAfterValidation() {
+		val executor = Executors.newFixedThreadPool(2)
+		try {
+			val validated = new AtomicInteger
+			val validatedOnExecution = <Integer>newArrayList
+			val buildRequest = newBuildRequest [
+				dirtyFiles = #[
+					'src/A.indextestlanguage' - '''
+						foo {
+							entity A { foo.B myReference }
+						}
+					''',
+					'src/B.indextestlanguage' - '''
+						foo {
+							entity B {}
+						}
+					'''
+				]
+				val collectIssues = afterValidate
+				afterValidate = [ uri, issues |
+					validated.incrementAndGet
+					collectIssues.afterValidate(uri, issues)
+				]
+				generatorExecutor = [
+					synchronized (validatedOnExecution) {
+						validatedOnExecution += validated.get
+					}
+					executor.execute(it)
+				]
+			]
+			build(buildRequest)
+			assertTrue(issues.toString, issues.isEmpty)
+			assertEquals(#[2, 2], validatedOnExecution)
+			assertTrue(generated.values.containsSuffix('src-gen/A.txt', 'src-gen/B.txt'))
+		} finally {
+			executor.shutdown()
+		}
+	}
+	
 	@Test(expected = OperationCanceledException)
 	def void testCancellation() {
 		val cancelOnFirstModel = new CancelOnFirstModel
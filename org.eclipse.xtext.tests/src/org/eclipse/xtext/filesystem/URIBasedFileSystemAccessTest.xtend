@@ -9,13 +9,19 @@ package org.eclipse.xtext.filesystem
 
 import com.google.common.base.StandardSystemProperty
 import com.google.inject.Inject
+import java.io.File
+import java.io.IOException
 import java.nio.file.Files
 import java.nio.file.Paths
 import java.util.UUID
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
 import org.eclipse.emf.ecore.resource.impl.ExtensibleURIConverterImpl
+import org.eclipse.xtext.build.Source2GeneratedMapping
 import org.eclipse.xtext.generator.IFileSystemAccess
 import org.eclipse.xtext.generator.IOutputConfigurationProvider
 import org.eclipse.xtext.generator.URIBasedFileSystemAccess
+import org.eclipse.xtext.generator.WriteBehindQueue
 import org.eclipse.xtext.testing.InjectWith
 import org.eclipse.xtext.testing.XtextRunner
 import org.eclipse.xtext.tests.XtextInjectorProvider
@@ -70,4 +76,75 @@ class URIBasedFileSystemAccessTest {
 		assertTrue(fsa.isFile(EXISTING_RESOURCE_NAME));
 	}
 
+	@Test
+	def void testSkipUnchangedFiles() {
+		fsa.skipUnchangedFiles = true
+		fsa.generateFile('foo.txt', 'foo')
+		val file = new File(fsa.getURI('foo.txt').toFileString)
+		file.lastModified = 1000
+		fsa.generateFile('foo.txt', 'foo')
+		assertEquals(1000, file.lastModified)
+		fsa.generateFile('foo.txt', 'bar')
+		assertNotEquals(1000, file.lastModified)
+		assertEquals('bar', fsa.readTextFile('foo.txt').toString)
+	}
+
+	@Test
+	def void testContentHashIsStoredAfterWrite() {
+		val hashes = new Source2GeneratedMapping
+		fsa.skipUnchangedFiles = true
+		fsa.contentHashStore = hashes
+		fsa.generateFile('foo.txt', 'foo')
+		val file = new File(fsa.getURI('foo.txt').toFileString)
+		assertNotNull(hashes.getContentHash(fsa.getURI('foo.txt')))
+		file.delete
+		file.mkdir
+		try {
+			fsa.generateFile('foo.txt', 'bar')
+			fail
+		} catch (IOException e) {
+			// expected
+		}
+		assertNull(hashes.getContentHash(fsa.getURI('foo.txt')))
+		file.delete
+		fsa.generateFile('foo.txt', 'bar')
+		assertEquals('bar', fsa.readTextFile('foo.txt').toString)
+	}
+	
+	@Test
+	def void testRejectedWriteReleasesPermit() {
+		val executor = Executors.newSingleThreadExecutor
+		executor.shutdown()
+		val queue = new WriteBehindQueue(executor, 1)
+		fsa.writeBehindQueue = queue
+		for (i : 0 ..< 2) {
+			try {
+				fsa.generateFile('foo.txt', 'foo')
+				fail
+			} catch (RejectedExecutionException e) {
+				// expected
+			}
+		}
+		assertTrue(queue.empty)
+	}
+
+	@Test
+	def void testWriteBehindQueue() {
+		val executor = Executors.newSingleThreadExecutor
+		try {
+			val queue = new WriteBehindQueue(executor, 2)
+			fsa.writeBehindQueue = queue
+			for (i : 0 ..< 10) {
+				fsa.generateFile('''fooi.txt''', '''fooi''')
+			}
+			fsa.generateFile('foo0.txt', 'bar')
+			queue.flush
+			assertTrue(queue.empty)
+			assertEquals('bar', fsa.readTextFile('foo0.txt').toString)
+			assertEquals('foo9', fsa.readTextFile('foo9.txt').toString)
+		} finally {
+			executor.shutdown()
+		}
+	}
+
 }
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.findReferences;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.xtext.findReferences.IReferenceFinder.IResourceAccess;
+import org.eclipse.xtext.resource.IReferenceDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsData;
+import org.eclipse.xtext.resource.impl.ResourceServiceProviderRegistryImpl;
+import org.eclipse.xtext.resource.persistence.SerializableReferenceDescription;
+import org.eclipse.xtext.resource.persistence.SerializableResourceDescription;
+import org.eclipse.xtext.util.concurrent.IUnitOfWork;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReferenceFinderTest extends Assert {
+
+	private final ExecutorService executorService = Executors.newFixedThreadPool(3);
+
+	@After
+	public void tearDown() {
+		executorService.shutdownNow();
+	}
+
+	@Test
+	public void testParallelFindAllReferences() {
+		ResourceDescriptionsData index = createIndex(1000);
+		TargetURISet targetURIs = new TargetURISet();
+		targetURIs.addURI(URI.createURI("file:/target#/0"));
+		targetURIs.addURI(URI.createURI("file:/source42#/1"));
+
+		List<URI> expected = findAllReferences(createReferenceFinder(null), targetURIs, index, null);
+		assertEquals(1000 / 7 + 1 + 2, expected.size());
+		List<Thread> resourceAccessThreads = new ArrayList<>();
+		List<URI> actual = findAllReferences(createReferenceFinder(executorService), targetURIs, index, new IResourceAccess() {
+			@Override
+			public <R> R readOnly(URI targetURI, IUnitOfWork<R, ResourceSet> work) {
+				resourceAccessThreads.add(Thread.currentThread());
+				return null;
+			}
+		});
+		assertEquals(expected.size() - 2, actual.size());
+		expected.removeIf(uri -> uri.trimFragment().equals(URI.createURI("file:/source42")));
+		assertEquals(expected, actual);
+		assertEquals(1, resourceAccessThreads.size());
+		assertSame(Thread.currentThread(), resourceAccessThreads.get(0));
+	}
+
+	@Test(expected = OperationCanceledException.class)
+	public void testCancellation() {
+		ResourceDescriptionsData index = createIndex(1000);
+		TargetURISet targetURIs = new TargetURISet();
+		targetURIs.addURI(URI.createURI("file:/target#/0"));
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		createReferenceFinder(executorService).findAllReferences(targetURIs, null, index, new IReferenceFinder.Acceptor() {
+			@Override
+			public void accept(IReferenceDescription description) {
+				monitor.setCanceled(true);
+			}
+
+			@Override
+			public void accept(EObject source, URI sourceURI, EReference eReference, int index, EObject targetOrProxy,
+					URI targetURI) {
+			}
+		}, monitor);
+	}
+
+	private List<URI> findAllReferences(ReferenceFinder finder, TargetURIs targetURIs, ResourceDescriptionsData index,
+			IResourceAccess resourceAccess) {
+		List<URI> result = new ArrayList<>();
+		finder.findAllReferences(targetURIs, resourceAccess, index, new IReferenceFinder.Acceptor() {
+			@Override
+			public void accept(IReferenceDescription description) {
+				result.add(description.getSourceEObjectUri());
+			}
+
+			@Override
+			public void accept(EObject source, URI sourceURI, EReference eReference, int index, EObject targetOrProxy,
+					URI targetURI) {
+				result.add(sourceURI);
+			}
+		}, new NullProgressMonitor());
+		return result;
+	}
+
+	private ReferenceFinder createReferenceFinder(ExecutorService executorService) {
+		ReferenceFinder result = new ReferenceFinder(new ResourceServiceProviderRegistryImpl()) {
+			@Override
+			protected int getParallelism() {
+				return 3;
+			}
+		};
+		result.setExecutorService(executorService);
+		return result;
+	}
+
+	private ResourceDescriptionsData createIndex(int size) {
+		List<IResourceDescription> descriptions = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			URI uri = URI.createURI("file:/source" + i);
+			SerializableResourceDescription description = new SerializableResourceDescription();
+			description.setURI(uri);
+			List<SerializableReferenceDescription> references = new ArrayList<>();
+			String target = i % 7 == 0 ? "file:/target#/0" : "file:/other#/0";
+			references.add(createReference(uri.appendFragment("/0"), URI.createURI(target)));
+			if (i == 43) {
+				references.add(createReference(uri.appendFragment("/1"), URI.createURI("file:/source42#/1")));
+			}
+			if (i == 42) {
+				references.add(createReference(uri.appendFragment("/0"), URI.createURI("file:/source42#/1")));
+			}
+			description.setReferences(references);
+			descriptions.add(description);
+		}
+		return new ResourceDescriptionsData(descriptions);
+	}
+
+	private SerializableReferenceDescription createReference(URI source, URI target) {
+		SerializableReferenceDescription result = new SerializableReferenceDescription();
+		result.setSourceEObjectUri(source);
+		result.setTargetEObjectUri(target);
+		result.setEReference(EcorePackage.Literals.ECLASS__ESUPER_TYPES);
+		return result;
+	}
+
+}
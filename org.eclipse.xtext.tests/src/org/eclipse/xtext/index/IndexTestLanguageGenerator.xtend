@@ -4,9 +4,10 @@ import org.eclipse.emf.ecore.resource.Resource
 import org.eclipse.xtext.generator.AbstractGenerator
 import org.eclipse.xtext.generator.IFileSystemAccess2
 import org.eclipse.xtext.generator.IGeneratorContext
+import org.eclipse.xtext.generator.IThreadSafeGenerator
 import org.eclipse.xtext.index.indexTestLanguage.Entity
 
-class IndexTestLanguageGenerator extends  AbstractGenerator {
+class IndexTestLanguageGenerator extends  AbstractGenerator implements IThreadSafeGenerator {
 	
 	override doGenerate(Resource input, IFileSystemAccess2 fsa, IGeneratorContext context) {
 		val iter = input.allContents
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.naming;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QualifiedNameTableTest extends Assert {
+
+	@Test
+	public void testCanonicalize() {
+		QualifiedNameTable table = new QualifiedNameTable();
+		QualifiedName name = table.canonicalize(QualifiedName.create("Foo", "bar"));
+		assertSame(name, table.canonicalize(QualifiedName.create(new String("Foo"), new String("bar"))));
+		assertEquals(QualifiedName.create("Foo", "bar"), name);
+		QualifiedName other = table.canonicalize(QualifiedName.create("Foo", "baz"));
+		assertSame(name.getFirstSegment(), other.getFirstSegment());
+		assertSame(QualifiedName.EMPTY, table.canonicalize(QualifiedName.create()));
+	}
+
+	@Test
+	public void testLowerCase() {
+		QualifiedNameTable table = new QualifiedNameTable();
+		QualifiedName name = table.canonicalize(QualifiedName.create("Foo", "Bar"));
+		QualifiedName lowerCase = name.toLowerCase();
+		assertEquals(QualifiedName.create("foo", "bar"), lowerCase);
+		assertSame(lowerCase, lowerCase.toLowerCase());
+		assertSame(lowerCase, table.canonicalize(QualifiedName.create("foo", "bar")));
+		assertSame(lowerCase, table.canonicalize(QualifiedName.create("FOO", "bar")).toLowerCase());
+		assertTrue(name.equalsIgnoreCase(QualifiedName.create("foo", "BAR")));
+		QualifiedName alreadyLowerCase = table.canonicalize(QualifiedName.create("baz"));
+		assertSame(alreadyLowerCase, alreadyLowerCase.toLowerCase());
+	}
+
+	@Test
+	public void testIds() {
+		QualifiedNameTable table = new QualifiedNameTable();
+		assertEquals(-1, table.getId(QualifiedName.create("a")));
+		QualifiedName a = table.canonicalize(QualifiedName.create("a"));
+		QualifiedName b = table.canonicalize(QualifiedName.create("B"));
+		assertEquals(3, table.size());
+		assertNotEquals(table.getId(a), table.getId(b));
+		assertSame(a, table.getName(table.getId(QualifiedName.create("a"))));
+		assertSame(b, table.getName(table.getId(b)));
+		assertSame(b.toLowerCase(), table.getName(table.getId(QualifiedName.create("b"))));
+	}
+
+}
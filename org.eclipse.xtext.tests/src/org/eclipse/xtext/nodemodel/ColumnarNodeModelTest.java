@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.nodemodel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.formatting2.regionaccess.TextRegionAccessBuilder;
+import org.eclipse.xtext.linking.LangATestLanguageRuntimeModule;
+import org.eclipse.xtext.linking.LangATestLanguageStandaloneSetup;
+import org.eclipse.xtext.linking.langATestLanguage.Main;
+import org.eclipse.xtext.linking.langATestLanguage.Type;
+import org.eclipse.xtext.nodemodel.impl.ColumnarNode;
+import org.eclipse.xtext.nodemodel.impl.ColumnarNodeModel;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.resource.XtextResourceSet;
+import org.eclipse.xtext.testlanguages.SimpleExpressionsTestLanguageStandaloneSetup;
+import org.eclipse.xtext.tests.AbstractXtextTests;
+import org.eclipse.xtext.util.StringInputStream;
+import org.junit.Test;
+
+import com.google.inject.Binder;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.name.Names;
+
+public class ColumnarNodeModelTest extends AbstractXtextTests {
+
+	@Test public void testSameNodesAsNodeModelBuilder() throws Exception {
+		with(LangATestLanguageStandaloneSetup.class);
+		assertSameNodes("import 'foo' /* comment */\ntype A extends B\r\n  type B implements A, C\n// trailing");
+	}
+
+	@Test public void testSameNodesWithFoldedCompositeNodes() throws Exception {
+		with(SimpleExpressionsTestLanguageStandaloneSetup.class);
+		assertSameNodes("(a + b) * c - d\n(x)\ny / (z + w)");
+	}
+
+	@Test public void testSameNodesWithSyntaxErrors() throws Exception {
+		with(LangATestLanguageStandaloneSetup.class);
+		assertSameNodes("type A extends\ntype B implements A, , C");
+	}
+
+	@Test public void testSameNodesEmptyModel() throws Exception {
+		with(LangATestLanguageStandaloneSetup.class);
+		assertSameNodes("");
+	}
+
+	@Test public void testNavigation() throws Exception {
+		with(SimpleExpressionsTestLanguageStandaloneSetup.class);
+		ICompositeNode original = getRootNode("(a + b) * c - d\n(x)\ny / (z + w)");
+		List<String> expected = describeNavigation(original);
+		ICompositeNode columnar = ColumnarNodeModel.create(original).getRootNode();
+		assertEquals(expected, describeNavigation(columnar));
+	}
+
+	@Test public void testFindLeafNodeAtOffset() throws Exception {
+		with(LangATestLanguageStandaloneSetup.class);
+		String model = "import 'foo' /* comment */\ntype A extends B\n  type B implements A, B\n";
+		ICompositeNode original = getRootNode(model);
+		List<String> expected = new ArrayList<String>();
+		for (int offset = 0; offset <= model.length(); offset++) {
+			expected.add(describeLeaf(NodeModelUtils.findLeafNodeAtOffset(original, offset)));
+		}
+		ICompositeNode columnar = ColumnarNodeModel.create(original).getRootNode();
+		for (int offset = 0; offset <= model.length(); offset++) {
+			assertEquals(expected.get(offset), describeLeaf(NodeModelUtils.findLeafNodeAtOffset(columnar, offset)));
+		}
+		INode type = NodeModelUtils.findLeafNodeAtOffset(columnar, model.lastIndexOf("type")).getParent();
+		assertEquals("B", NodeModelUtils.findLeafNodeAtOffset(type, model.lastIndexOf("B\n")).getText());
+		assertNull(NodeModelUtils.findLeafNodeAtOffset(type, 0));
+	}
+
+	@Test public void testSemanticElementsAreAdapted() throws Exception {
+		with(LangATestLanguageStandaloneSetup.class);
+		Main main = (Main) getModel("type A type B extends A");
+		ColumnarNodeModel nodeModel = ColumnarNodeModel.create(NodeModelUtils.getNode(main).getRootNode());
+		assertSame(nodeModel.getRootNode(), NodeModelUtils.getNode(main));
+		Type b = main.getTypes().get(1);
+		ICompositeNode node = NodeModelUtils.getNode(b);
+		assertTrue(node instanceof ColumnarNode);
+		assertSame(b, node.getSemanticElement());
+		assertEquals(" type B extends A", node.getText());
+		assertEquals("type B extends A", NodeModelUtils.getTokenText(node));
+		assertSame(node, node.getFirstChild().getParent());
+		assertEquals(1, NodeModelUtils.findNodesForFeature(b, b.eClass().getEStructuralFeature("extends")).size());
+	}
+
+	@Test public void testResourceWithColumnarNodeModel() throws Exception {
+		withColumnarNodeModel();
+		String model = "type A extends B\ntype B implements A, B\n";
+		XtextResource resource = loadResource(model);
+		assertTrue(resource.getParseResult().getRootNode() instanceof ColumnarNode);
+		EcoreUtil.resolveAll(resource);
+		assertTrue(resource.getErrors().toString(), resource.getErrors().isEmpty());
+		Main main = (Main) resource.getContents().get(0);
+		Type a = main.getTypes().get(0);
+		Type b = main.getTypes().get(1);
+		assertSame(b, a.getExtends());
+		assertSame(a, b.getImplements().get(0));
+
+		resource.update(model.indexOf("B\n"), 1, "C");
+		assertTrue(resource.getParseResult().getRootNode() instanceof ColumnarNode);
+		assertEquals("type A extends C\ntype B implements A, B\n", resource.getParseResult().getRootNode().getText());
+		main = (Main) resource.getContents().get(0);
+		assertTrue(main.getTypes().get(0).getExtends().eIsProxy());
+		EcoreUtil.resolveAll(resource);
+		assertEquals(1, resource.getErrors().size());
+		assertEquals(1, resource.getErrors().get(0).getLine());
+
+		resource.update(model.indexOf("B\n"), 1, "B type");
+		assertTrue(resource.getParseResult().hasSyntaxErrors());
+		assertEquals(1, size(resource.getParseResult().getSyntaxErrors()));
+	}
+
+	@Test public void testTextRegionAccess() throws Exception {
+		with(LangATestLanguageStandaloneSetup.class);
+		String model = "import 'foo'\ntype A extends B /* comment */\ntype B implements A, B // trailing\n";
+		String expected = new TextRegionAccessBuilder().forNodeModel(getResourceFromString(model)).create().toString();
+		withColumnarNodeModel();
+		XtextResource resource = loadResource(model);
+		assertTrue(resource.getParseResult().getRootNode() instanceof ColumnarNode);
+		assertEquals(expected, new TextRegionAccessBuilder().forNodeModel(resource).create().toString());
+	}
+
+	private void withColumnarNodeModel() throws Exception {
+		with(new LangATestLanguageStandaloneSetup() {
+			@Override
+			public Injector createInjector() {
+				return Guice.createInjector(new LangATestLanguageRuntimeModule() {
+					@SuppressWarnings("unused")
+					public void configureColumnarNodeModel(Binder binder) {
+						binder.bindConstant().annotatedWith(Names.named(XtextResource.COLUMNAR_NODE_MODEL)).to(true);
+					}
+				});
+			}
+		});
+	}
+
+	private XtextResource loadResource(String model) throws Exception {
+		XtextResource resource = (XtextResource) get(XtextResourceSet.class).createResource(URI.createURI("mytestmodel." + getCurrentFileExtension()));
+		resource.load(new StringInputStream(model), null);
+		return resource;
+	}
+
+	private int size(Iterable<?> iterable) {
+		int result = 0;
+		for (@SuppressWarnings("unused") Object o : iterable) {
+			result++;
+		}
+		return result;
+	}
+
+	private void assertSameNodes(String model) throws Exception {
+		ICompositeNode original = getRootNodeAndExpect(model, UNKNOWN_EXPECTATION);
+		List<String> expected = describeNodes(original);
+		String expectedDump = NodeModelUtils.compactDump(original, true);
+		String expectedText = original.getText();
+		ColumnarNodeModel nodeModel = ColumnarNodeModel.create(original);
+		ICompositeNode columnar = nodeModel.getRootNode();
+		assertEquals(expected, describeNodes(columnar));
+		assertEquals(expectedDump, NodeModelUtils.compactDump(columnar, true));
+		assertEquals(expected.size(), nodeModel.getSize());
+		assertSame(expectedText, columnar.getText());
+	}
+
+	private List<String> describeNodes(ICompositeNode root) {
+		List<String> result = new ArrayList<String>();
+		for (INode node : root.getAsTreeIterable()) {
+			StringBuilder description = new StringBuilder();
+			description.append(node instanceof ILeafNode ? "leaf" : "composite");
+			if (node instanceof ILeafNode) {
+				description.append(((ILeafNode) node).isHidden() ? " hidden" : "");
+			} else {
+				description.append(" lookAhead=").append(((ICompositeNode) node).getLookAhead());
+			}
+			description.append(" grammar=").append(node.getGrammarElement() == null ? null : EcoreUtil.getURI(node.getGrammarElement()).fragment());
+			description.append(" total=").append(node.getTotalTextRegionWithLineInformation());
+			description.append(" region=").append(node.getTextRegionWithLineInformation());
+			description.append(" lines=").append(node.getStartLine()).append("-").append(node.getEndLine());
+			description.append(" totalLines=").append(node.getTotalStartLine()).append("-").append(node.getTotalEndLine());
+			description.append(" text='").append(node.getText()).append("'");
+			description.append(" semantic=").append(describe(node.getSemanticElement()));
+			description.append(" direct=").append(node.hasDirectSemanticElement());
+			description.append(" error=").append(node.getSyntaxErrorMessage() == null ? null : node.getSyntaxErrorMessage().getMessage());
+			description.append(" siblings=").append(node.hasPreviousSibling()).append("/").append(node.hasNextSibling());
+			description.append(" parent=").append(node.getParent() == null ? null : node.getParent().getTotalTextRegion());
+			result.add(description.toString());
+		}
+		return result;
+	}
+
+	private List<String> describeNavigation(ICompositeNode root) {
+		List<String> result = new ArrayList<String>();
+		for (INode node : root.getAsTreeIterable().reverse()) {
+			StringBuilder description = new StringBuilder(node.getTotalTextRegion().toString());
+			INode previous = node.getPreviousSibling();
+			description.append(" previous=").append(previous == null ? null : previous.getTotalTextRegion());
+			INode next = node.getNextSibling();
+			description.append(" next=").append(next == null ? null : next.getTotalTextRegion());
+			if (node instanceof ICompositeNode) {
+				ICompositeNode composite = (ICompositeNode) node;
+				INode last = composite.getLastChild();
+				description.append(" last=").append(last == null ? null : last.getTotalTextRegion());
+				int children = 0;
+				for (INode child : composite.getChildren().reverse()) {
+					assertEquals(composite, child.getParent());
+					children++;
+				}
+				description.append(" children=").append(children);
+			}
+			for (ILeafNode leaf : node.getLeafNodes()) {
+				description.append(" ").append(leaf.getText());
+			}
+			result.add(description.toString());
+		}
+		return result;
+	}
+
+	private String describeLeaf(ILeafNode leaf) {
+		if (leaf == null) {
+			return null;
+		}
+		return leaf.getTotalTextRegion() + " '" + leaf.getText() + "'";
+	}
+
+	private String describe(EObject semanticElement) {
+		if (semanticElement == null) {
+			return null;
+		}
+		return semanticElement.eClass().getName() + "@" + System.identityHashCode(semanticElement);
+	}
+
+}
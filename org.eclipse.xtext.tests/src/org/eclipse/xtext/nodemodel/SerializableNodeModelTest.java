@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.nodemodel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.linking.LangATestLanguageStandaloneSetup;
+import org.eclipse.xtext.linking.langATestLanguage.Main;
+import org.eclipse.xtext.linking.langATestLanguage.Type;
+import org.eclipse.xtext.nodemodel.impl.ColumnarNodeModel;
+import org.eclipse.xtext.nodemodel.impl.RootNode;
+import org.eclipse.xtext.nodemodel.impl.SerializableNodeModel;
+import org.eclipse.xtext.nodemodel.serialization.DeserializationConversionContext;
+import org.eclipse.xtext.nodemodel.serialization.SerializationConversionContext;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
+import org.eclipse.xtext.parser.ParseResult;
+import org.eclipse.xtext.resource.XtextResourceSet;
+import org.eclipse.xtext.resource.persistence.ResourceStorageLoadable;
+import org.eclipse.xtext.resource.persistence.ResourceStorageWritable;
+import org.eclipse.xtext.resource.persistence.StorageAwareResource;
+import org.eclipse.xtext.tests.AbstractXtextTests;
+import org.junit.Test;
+
+public class SerializableNodeModelTest extends AbstractXtextTests {
+
+	private static final String MODEL = "import 'foo' /* comment */\ntype A extends B\r\n  type B implements A, A // äöü\n";
+
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		with(LangATestLanguageStandaloneSetup.class);
+	}
+
+	@Test public void testRoundTrip() throws Exception {
+		StorageAwareResource original = createResource("original", MODEL);
+		StorageAwareResource loaded = loadFromStorage(original, true);
+		ICompositeNode rootNode = loaded.getParseResult().getRootNode();
+		assertTrue(rootNode instanceof RootNode);
+		assertEquals(NodeModelUtils.compactDump(original.getParseResult().getRootNode(), true),
+				NodeModelUtils.compactDump(rootNode, true));
+		assertEquals(MODEL, rootNode.getText());
+		assertFalse(loaded.getParseResult().hasSyntaxErrors());
+		Type b = ((Main) loaded.getContents().get(0)).getTypes().get(1);
+		assertEquals("type B implements A, A", NodeModelUtils.getTokenText(NodeModelUtils.getNode(b)));
+		assertEquals(3, NodeModelUtils.getNode(b).getStartLine());
+	}
+
+	@Test public void testRoundTripWithSyntaxErrors() throws Exception {
+		StorageAwareResource original = createResource("original", "type A extends\ntype B implements A, , C");
+		StorageAwareResource loaded = loadFromStorage(original, true);
+		assertTrue(loaded.getParseResult().hasSyntaxErrors());
+		assertEquals(NodeModelUtils.compactDump(original.getParseResult().getRootNode(), true),
+				NodeModelUtils.compactDump(loaded.getParseResult().getRootNode(), true));
+		assertEquals(describeSyntaxErrors(original), describeSyntaxErrors(loaded));
+	}
+
+	@Test public void testRoundTripWithUnpairedSurrogates() throws Exception {
+		String model = "type A // \uD800 lone high surrogate\ntype B extends A \uDC00\n";
+		StorageAwareResource original = createResource("original", model);
+		assertTrue(original.getParseResult().hasSyntaxErrors());
+		StorageAwareResource loaded = loadFromStorage(original, true);
+		assertEquals(model, loaded.getParseResult().getRootNode().getText());
+		assertEquals(NodeModelUtils.compactDump(original.getParseResult().getRootNode(), true),
+				NodeModelUtils.compactDump(loaded.getParseResult().getRootNode(), true));
+		assertEquals(describeSyntaxErrors(original), describeSyntaxErrors(loaded));
+	}
+
+	@Test public void testRoundTripWithColumnarNodeModel() throws Exception {
+		StorageAwareResource original = createResource("original", MODEL);
+		String expected = NodeModelUtils.compactDump(original.getParseResult().getRootNode(), true);
+		ICompositeNode columnarRoot = ColumnarNodeModel.create(original.getParseResult().getRootNode()).getRootNode();
+		original.setParseResult(new ParseResult(original.getContents().get(0), columnarRoot, false));
+		StorageAwareResource loaded = loadFromStorage(original, true);
+		assertEquals(expected, NodeModelUtils.compactDump(loaded.getParseResult().getRootNode(), true));
+	}
+
+	@Test public void testReadFormatVersion1() throws Exception {
+		StorageAwareResource original = createResource("original", MODEL);
+		SerializableNodeModel nodeModel = new SerializableNodeModel(original);
+		nodeModel.formatVersion = 1;
+		byte[] bytes = write(nodeModel, original);
+
+		StorageAwareResource loaded = loadFromStorage(original, false);
+		SerializableNodeModel loadedNodeModel = new SerializableNodeModel(loaded);
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		assertEquals(1, loadedNodeModel.readFormatVersion(in));
+		loadedNodeModel.readObjectData(in, new DeserializationConversionContext(loaded, MODEL));
+		assertEquals(NodeModelUtils.compactDump(original.getParseResult().getRootNode(), true),
+				NodeModelUtils.compactDump(loadedNodeModel.root, true));
+	}
+
+	@Test public void testReadFormatVersion2() throws Exception {
+		StorageAwareResource original = createResource("original", MODEL);
+		byte[] bytes = write(new SerializableNodeModel(original), original);
+
+		StorageAwareResource loaded = loadFromStorage(original, false);
+		SerializableNodeModel loadedNodeModel = new SerializableNodeModel(loaded);
+		loadedNodeModel.readObjectData(new DataInputStream(new ByteArrayInputStream(bytes)),
+				new DeserializationConversionContext(loaded, null));
+		assertEquals(SerializableNodeModel.CURRENT_FORMAT_VERSION, loadedNodeModel.formatVersion);
+		assertEquals(NodeModelUtils.compactDump(original.getParseResult().getRootNode(), true),
+				NodeModelUtils.compactDump(loadedNodeModel.root, true));
+		assertSame(loadedNodeModel.root, NodeModelUtils.getNode(loaded.getContents().get(0)));
+	}
+
+	private StorageAwareResource createResource(String name, String model) throws Exception {
+		StorageAwareResource resource = (StorageAwareResource) get(XtextResourceSet.class)
+				.createResource(URI.createURI(name + "." + getCurrentFileExtension()));
+		resource.load(getAsStream(model), null);
+		return resource;
+	}
+
+	private StorageAwareResource loadFromStorage(StorageAwareResource resource, boolean storeNodeModel)
+			throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ResourceStorageWritable(out, storeNodeModel).writeResource(resource);
+		StorageAwareResource result = (StorageAwareResource) resource.getResourceSet()
+				.createResource(URI.createURI("loaded." + getCurrentFileExtension()));
+		result.loadFromStorage(new ResourceStorageLoadable(new ByteArrayInputStream(out.toByteArray()), storeNodeModel));
+		return result;
+	}
+
+	private byte[] write(SerializableNodeModel nodeModel, StorageAwareResource resource) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		nodeModel.writeObjectData(out, new SerializationConversionContext(resource));
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	private String describeSyntaxErrors(StorageAwareResource resource) {
+		StringBuilder result = new StringBuilder();
+		for (INode node : resource.getParseResult().getSyntaxErrors()) {
+			SyntaxErrorMessage error = node.getSyntaxErrorMessage();
+			result.append(node.getTotalTextRegion()).append(' ').append(error.getMessage()).append(' ')
+					.append(error.getIssueCode()).append('\n');
+		}
+		return result.toString();
+	}
+
+}
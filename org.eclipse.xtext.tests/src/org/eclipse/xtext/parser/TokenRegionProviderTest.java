@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2012, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,11 +15,13 @@ import java.util.List;
 import org.antlr.runtime.ANTLRStringStream;
 import org.antlr.runtime.CommonToken;
 import org.antlr.runtime.Token;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
 import org.eclipse.xtext.parser.antlr.Lexer;
 import org.eclipse.xtext.parser.impl.TokenRegionProvider;
 import org.eclipse.xtext.testlanguages.SimpleExpressionsTestLanguageStandaloneSetup;
 import org.eclipse.xtext.tests.AbstractXtextTests;
 import org.eclipse.xtext.util.ITextRegion;
+import org.eclipse.xtext.util.ReplaceRegion;
 import org.eclipse.xtext.util.TextRegion;
 import org.junit.Before;
 import org.junit.Test;
@@ -99,6 +101,24 @@ public class TokenRegionProviderTest extends AbstractXtextTests {
 		assertEquals(1, tokenRegion.getLength());
 	}
 	
+	@Test 
+	public void testIncrementalTokenReplaceRegion() throws Exception {
+		String model = "a1 / /* comment */ b2 + c3";
+		ICompositeNode rootNode = getRootNode(model);
+		for (String text : new String[] { "", "x", " ", "*", "/", "/*", "*/", "4 d" }) {
+			for (int length = 0; length < 4; ++length) {
+				for (int offset = 0; offset + length <= model.length(); ++offset) {
+					ReplaceRegion change = new ReplaceRegion(offset, length, text);
+					StringBuilder changed = new StringBuilder(model);
+					change.applyTo(changed);
+					ReplaceRegion expected = tokenRegionProvider.getTokenReplaceRegion(changed.toString(), change);
+					ReplaceRegion actual = tokenRegionProvider.getTokenReplaceRegion(changed.toString(), change, rootNode);
+					assertEquals(change.toString(), expected.toString(), actual.toString());
+				}
+			}
+		}
+	}
+	
 	protected CommonToken findTokenStartingAt(final int offset, List<CommonToken> tokens) {
 		return find(tokens, new Predicate<CommonToken>() {
 			@Override
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.parser.antlr;
+
+import java.io.StringReader;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CharStream;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.tests.AbstractXtextTests;
+import org.eclipse.xtext.testlanguages.SimpleExpressionsTestLanguageStandaloneSetup;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+
+public class StringCharStreamTest extends AbstractXtextTests {
+
+	@Test
+	public void testSameAsStringStream() throws Exception {
+		String content = "a\nbc\r\n\n d";
+		CharStream expected = new ANTLRStringStream(content);
+		CharStream actual = StringCharStream.read(new StringReader(content));
+		assertEquals(expected.size(), actual.size());
+		int marker = -1;
+		while (expected.LA(1) != CharStream.EOF) {
+			assertEquals(expected.LA(-1), actual.LA(-1));
+			assertEquals(expected.LA(1), actual.LA(1));
+			assertEquals(expected.LA(2), actual.LA(2));
+			assertEquals(expected.getLine(), actual.getLine());
+			assertEquals(expected.getCharPositionInLine(), actual.getCharPositionInLine());
+			if (expected.index() == 3) {
+				marker = expected.mark();
+				assertEquals(marker, actual.mark());
+			}
+			expected.consume();
+			actual.consume();
+		}
+		assertEquals(CharStream.EOF, actual.LA(1));
+		assertEquals(expected.substring(2, 5), actual.substring(2, 5));
+		expected.rewind(marker);
+		actual.rewind(marker);
+		assertEquals(expected.index(), actual.index());
+		assertEquals(expected.getLine(), actual.getLine());
+		assertEquals(expected.LA(1), actual.LA(1));
+	}
+
+	@Test
+	public void testReadLargeContent() throws Exception {
+		String content = Strings.repeat("abc\n", 10000);
+		CharStream stream = StringCharStream.read(new StringReader(content));
+		assertEquals(content.length(), stream.size());
+		assertEquals(content, stream.substring(0, content.length() - 1));
+	}
+
+	@Test
+	public void testCompleteContentIsShared() throws Exception {
+		with(SimpleExpressionsTestLanguageStandaloneSetup.class);
+		String model = "a + b * c";
+		AbstractAntlrParser parser = (AbstractAntlrParser) getParser();
+		StringCharStream stream = new StringCharStream(model);
+		ICompositeNode root = parser.parse("Sequence", stream).getRootNode();
+		assertSame(model, root.getText());
+		assertSame(model, stream.substring(0, model.length() - 1));
+		assertEquals("b", stream.substring(4, 4));
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2009, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,9 +17,11 @@ import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EcorePackage;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.DescriptionUtils;
 import org.eclipse.xtext.resource.EObjectDescription;
 import org.eclipse.xtext.resource.IEObjectDescription;
 import org.eclipse.xtext.resource.IReferenceDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -276,4 +278,100 @@ public class DefaultResourceDescriptionDeltaTest extends Assert {
 		assertTrue(new DefaultResourceDescriptionDelta(resourceDesc, resourceDesc2).haveEObjectDescriptionsChanged());
 	}
 	
+	@Test public void testChangedNames_userData() throws Exception {
+		TestResDesc resourceDesc = new TestResDesc();
+		resourceDesc.exported.add(EObjectDescription.create(BAR, EcorePackage.Literals.EANNOTATION, Collections.singletonMap("foo", "bar")));
+		resourceDesc.exported.add(EObjectDescription.create(FOO, EcorePackage.Literals.EANNOTATION, Collections.singletonMap("foo", "bar")));
+		
+		TestResDesc resourceDesc2 = new TestResDesc();
+		resourceDesc2.exported.add(EObjectDescription.create(BAR, EcorePackage.Literals.EANNOTATION, Collections.singletonMap("foo", "bar")));
+		resourceDesc2.exported.add(EObjectDescription.create(FOO, EcorePackage.Literals.EANNOTATION, Collections.singletonMap("foo", "baz")));
+		
+		DefaultResourceDescriptionDelta delta = new DefaultResourceDescriptionDelta(resourceDesc, resourceDesc2);
+		assertTrue(delta.haveEObjectDescriptionsChanged());
+		assertEquals(Collections.singleton(FOO), delta.getChangedNames());
+	}
+	
+	@Test public void testChangedNames_differentOrder() throws Exception {
+		TestResDesc resourceDesc = new TestResDesc();
+		resourceDesc.exported.add(EObjectDescription.create(BAR, EcorePackage.Literals.EANNOTATION, Collections.singletonMap("foo", "bar")));
+		resourceDesc.exported.add(EObjectDescription.create(FOO, EcorePackage.Literals.EANNOTATION, Collections.singletonMap("foo", "bar")));
+		
+		TestResDesc resourceDesc2 = new TestResDesc();
+		resourceDesc2.exported.add(EObjectDescription.create(FOO, EcorePackage.Literals.EANNOTATION, Collections.singletonMap("foo", "bar")));
+		resourceDesc2.exported.add(EObjectDescription.create(BAR, EcorePackage.Literals.EANNOTATION, Collections.singletonMap("foo", "bar")));
+		
+		assertTrue(new DefaultResourceDescriptionDelta(resourceDesc, resourceDesc2).getChangedNames().isEmpty());
+	}
+	
+	@Test public void testChangedNames_addedAndRemoved() throws Exception {
+		TestResDesc resourceDesc = new TestResDesc();
+		resourceDesc.exported.add(EObjectDescription.create(QualifiedName.create("Foo"), EcorePackage.Literals.EANNOTATION));
+		resourceDesc.exported.add(EObjectDescription.create(BAR, EcorePackage.Literals.EANNOTATION));
+		
+		TestResDesc resourceDesc2 = new TestResDesc();
+		resourceDesc2.exported.add(EObjectDescription.create(BAR, EcorePackage.Literals.EANNOTATION));
+		resourceDesc2.exported.add(EObjectDescription.create(FOP, EcorePackage.Literals.EANNOTATION));
+		
+		assertEquals(Sets.newHashSet(FOO, FOP), new DefaultResourceDescriptionDelta(resourceDesc, resourceDesc2).getChangedNames());
+		assertEquals(Sets.newHashSet(FOO, BAR), new DefaultResourceDescriptionDelta(resourceDesc, null).getChangedNames());
+		assertEquals(Sets.newHashSet(BAR, FOP), new ChangedResourceDescriptionDelta(resourceDesc2, new TestResDesc()).getChangedNames());
+	}
+	
+	@Test public void testGetImportedNames_readOnly() throws Exception {
+		TestResDesc candidate = new TestResDesc();
+		candidate.imported.add(FOO);
+		DefaultResourceDescriptionManager manager = new DefaultResourceDescriptionManager();
+		try {
+			manager.getImportedNames(candidate).add(BAR);
+			fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		assertEquals(Collections.singleton(FOO), candidate.imported);
+	}
+	
+	@Test public void testIsAffected_onlyByChangedNames() throws Exception {
+		List<IResourceDescription.Delta> deltas = createUserDataChangeOfBar();
+		TestResDesc importsFoo = new TestResDesc();
+		importsFoo.imported.add(FOO);
+		TestResDesc importsBar = new TestResDesc();
+		importsBar.imported.add(BAR);
+		DefaultResourceDescriptionManager manager = new DefaultResourceDescriptionManager();
+		manager.setDescriptionUtils(new DescriptionUtils());
+		assertFalse(manager.isAffected(deltas, importsFoo, null));
+		assertTrue(manager.isAffected(deltas, importsBar, null));
+		assertFalse(manager.isAffected(deltas.get(0), importsFoo));
+		assertTrue(manager.isAffected(deltas.get(0), importsBar));
+	}
+	
+	@Test public void testIsAffected_notReducedToChangedNames() throws Exception {
+		List<IResourceDescription.Delta> deltas = createUserDataChangeOfBar();
+		TestResDesc importsFoo = new TestResDesc();
+		importsFoo.imported.add(FOO);
+		TestResDesc importsBar = new TestResDesc();
+		importsBar.imported.add(BAR);
+		DefaultResourceDescriptionManager manager = new DefaultResourceDescriptionManager() {
+			@Override
+			protected boolean isReducedToChangedNames(IResourceDescription.Delta delta) {
+				return false;
+			}
+		};
+		manager.setDescriptionUtils(new DescriptionUtils());
+		assertTrue(manager.isAffected(deltas, importsFoo, null));
+		assertTrue(manager.isAffected(deltas, importsBar, null));
+		assertTrue(manager.isAffected(deltas.get(0), importsFoo));
+	}
+	
+	private List<IResourceDescription.Delta> createUserDataChangeOfBar() {
+		TestResDesc resourceDesc = new TestResDesc();
+		resourceDesc.exported.add(EObjectDescription.create(BAR, EcorePackage.Literals.EANNOTATION, Collections.singletonMap("foo", "bar")));
+		resourceDesc.exported.add(EObjectDescription.create(FOO, EcorePackage.Literals.EANNOTATION, Collections.singletonMap("foo", "bar")));
+		
+		TestResDesc resourceDesc2 = new TestResDesc();
+		resourceDesc2.exported.add(EObjectDescription.create(BAR, EcorePackage.Literals.EANNOTATION, Collections.singletonMap("foo", "baz")));
+		resourceDesc2.exported.add(EObjectDescription.create(FOO, EcorePackage.Literals.EANNOTATION, Collections.singletonMap("foo", "bar")));
+		return Collections.singletonList(new DefaultResourceDescriptionDelta(resourceDesc, resourceDesc2));
+	}
+	
 }
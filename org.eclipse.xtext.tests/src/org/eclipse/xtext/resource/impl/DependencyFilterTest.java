@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.resource.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.DescriptionUtils;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.persistence.SerializableEObjectDescription;
+import org.eclipse.xtext.resource.persistence.SerializableReferenceDescription;
+import org.eclipse.xtext.resource.persistence.SerializableResourceDescription;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DependencyFilterTest extends Assert {
+
+	@Test
+	public void testNoFalseNegatives() {
+		List<QualifiedName> importedNames = new ArrayList<>();
+		List<String> targets = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			importedNames.add(QualifiedName.create("pkg", "Name" + i));
+			targets.add("file:/target" + i);
+		}
+		DependencyFilter filter = createDescription("file:/candidate", importedNames, targets).getDependencyFilter();
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(filter.mightContain(QualifiedName.create("pkg", "name" + i)));
+			assertTrue(filter.mightContain(URI.createURI("file:/target" + i)));
+		}
+		int falsePositives = 0;
+		for (int i = 1000; i < 11000; i++) {
+			if (filter.mightContain(QualifiedName.create("pkg", "name" + i))) {
+				falsePositives++;
+			}
+			if (filter.mightContain(URI.createURI("file:/target" + i))) {
+				falsePositives++;
+			}
+		}
+		assertTrue("false positives: " + falsePositives, falsePositives < 20000 / 20);
+	}
+
+	@Test
+	public void testIsAffected() {
+		DefaultResourceDescriptionManager manager = new DefaultResourceDescriptionManager();
+		manager.setDescriptionUtils(new DescriptionUtils());
+		SerializableResourceDescription candidate = createDescription("file:/candidate",
+				Collections.singletonList(QualifiedName.create("foo", "bar")), Collections.singletonList("file:/target"));
+		assertTrue(isAffected(manager, candidate, createDelta("file:/other", "Foo.Bar")));
+		assertTrue(isAffected(manager, candidate, createDelta("file:/target", "Unrelated")));
+		assertFalse(isAffected(manager, candidate, createDelta("file:/other", "Unrelated")));
+		assertFalse(isAffected(manager, candidate, createDelta("file:/other", "foo")));
+	}
+
+	@Test
+	public void testIsAffected_overriddenImportedNames() {
+		DefaultResourceDescriptionManager manager = new DefaultResourceDescriptionManager() {
+			@Override
+			protected Collection<QualifiedName> getImportedNames(IResourceDescription candidate) {
+				List<QualifiedName> result = new ArrayList<>(super.getImportedNames(candidate));
+				result.add(QualifiedName.create("unrelated"));
+				return result;
+			}
+		};
+		manager.setDescriptionUtils(new DescriptionUtils());
+		SerializableResourceDescription candidate = createDescription("file:/candidate",
+				Collections.singletonList(QualifiedName.create("foo", "bar")), Collections.singletonList("file:/target"));
+		assertTrue(isAffected(manager, candidate, createDelta("file:/other", "Unrelated")));
+		assertFalse(isAffected(manager, candidate, createDelta("file:/other", "foo")));
+	}
+
+	private boolean isAffected(DefaultResourceDescriptionManager manager, IResourceDescription candidate,
+			IResourceDescription.Delta delta) {
+		return manager.isAffected(Collections.singletonList(delta), candidate, null);
+	}
+
+	private IResourceDescription.Delta createDelta(String uri, String exportedName) {
+		SerializableResourceDescription description = createDescription(uri, Collections.emptyList(),
+				Collections.emptyList());
+		SerializableEObjectDescription exported = new SerializableEObjectDescription();
+		exported.setQualifiedName(QualifiedName.create(exportedName.split("\\.")));
+		exported.setEClass(EcorePackage.Literals.ECLASS);
+		exported.setEObjectURI(URI.createURI(uri + "#/0"));
+		exported.setUserData(new HashMap<>());
+		description.setDescriptions(Collections.singletonList(exported));
+		return new DefaultResourceDescriptionDelta(null, description);
+	}
+
+	private SerializableResourceDescription createDescription(String uri, List<QualifiedName> importedNames,
+			List<String> targets) {
+		SerializableResourceDescription result = new SerializableResourceDescription();
+		result.setURI(URI.createURI(uri));
+		result.setImportedNames(importedNames);
+		List<SerializableReferenceDescription> references = new ArrayList<>();
+		for (String target : targets) {
+			SerializableReferenceDescription reference = new SerializableReferenceDescription();
+			reference.setSourceEObjectUri(URI.createURI(uri + "#/0"));
+			reference.setTargetEObjectUri(URI.createURI(target + "#/0"));
+			reference.setEReference(EcorePackage.Literals.ECLASS__ESUPER_TYPES);
+			references.add(reference);
+		}
+		result.setReferences(references);
+		return result;
+	}
+
+}
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.resource.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.EObjectDescription;
+import org.eclipse.xtext.resource.IContainer;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IReferenceDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.IResourceDescriptions;
+import org.eclipse.xtext.resource.containers.ProjectDescriptionBasedContainerManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+
+public class ExportedNamesIndexTest extends Assert {
+
+	@Test
+	public void testLookup() {
+		ResourceDescriptionsData first = new ResourceDescriptionsData(Arrays.asList(createDescription("first", "a", "B")));
+		ResourceDescriptionsData second = new ResourceDescriptionsData(Arrays.asList(createDescription("second", "b", "c")));
+		ExportedNamesIndex index = new ExportedNamesIndex(Arrays.asList(first, null, second));
+		assertEquals(3, index.getNameCount());
+		assertTrue(index.isExportedBy(0, QualifiedName.create("a")));
+		assertFalse(index.isExportedBy(2, QualifiedName.create("a")));
+		assertTrue(index.isExportedBy(0, QualifiedName.create("b")));
+		assertFalse(index.isExportedBy(1, QualifiedName.create("b")));
+		assertTrue(index.isExportedBy(2, QualifiedName.create("b")));
+		assertFalse(index.isExportedBy(0, QualifiedName.create("d")));
+
+		IContainer firstContainer = index.createContainer(0);
+		IContainer missingContainer = index.createContainer(1);
+		IContainer secondContainer = index.createContainer(2);
+		assertEquals(1, Iterables.size(firstContainer.getExportedObjects(EcorePackage.Literals.EOBJECT, QualifiedName.create("b"), true)));
+		assertEquals(0, Iterables.size(firstContainer.getExportedObjects(EcorePackage.Literals.EOBJECT, QualifiedName.create("b"), false)));
+		assertEquals(0, Iterables.size(firstContainer.getExportedObjects(EcorePackage.Literals.EOBJECT, QualifiedName.create("c"), false)));
+		assertEquals(0, Iterables.size(missingContainer.getExportedObjects(EcorePackage.Literals.EOBJECT, QualifiedName.create("b"), false)));
+		assertEquals(0, missingContainer.getResourceDescriptionCount());
+		assertEquals(1, Iterables.size(secondContainer.getExportedObjects(EcorePackage.Literals.EOBJECT, QualifiedName.create("c"), false)));
+	}
+
+	@Test
+	public void testIndexIsRebuiltWhenChunksChange() {
+		ResourceDescriptionsData first = new ResourceDescriptionsData(Arrays.asList(createDescription("first", "a")));
+		ResourceDescriptionsData second = new ResourceDescriptionsData(Arrays.asList(createDescription("second", "b")));
+		Map<String, ResourceDescriptionsData> chunks = new HashMap<>();
+		chunks.put("first", first);
+		chunks.put("second", second);
+		ChunkedResourceDescriptions descriptions = new ChunkedResourceDescriptions(chunks);
+		List<String> dependencies = Arrays.asList("first", "second", "third");
+
+		ExportedNamesIndex index = descriptions.getExportedNamesIndex("project", dependencies);
+		assertSame(index, descriptions.getExportedNamesIndex("project", dependencies));
+		assertFalse(index.isExportedBy(0, QualifiedName.create("c")));
+
+		first.addDescription(URI.createURI("file:/other"), createDescription("other", "c"));
+		assertFalse(index.isUpToDate());
+		ExportedNamesIndex changed = descriptions.getExportedNamesIndex("project", dependencies);
+		assertNotSame(index, changed);
+		assertTrue(changed.isUpToDate());
+		assertTrue(changed.isExportedBy(0, QualifiedName.create("c")));
+		assertSame(changed, descriptions.getExportedNamesIndex("project", dependencies));
+
+		descriptions.setContainer("third", new ResourceDescriptionsData(Arrays.asList(createDescription("third", "d"))));
+		ExportedNamesIndex added = descriptions.getExportedNamesIndex("project", dependencies);
+		assertNotSame(changed, added);
+		assertFalse(changed.isUpToDate());
+		assertTrue(added.isExportedBy(2, QualifiedName.create("d")));
+	}
+
+	@Test
+	public void testIndexIsUpdatedWithChangedNames() {
+		ResourceDescriptionsData first = new ResourceDescriptionsData(Arrays.asList(createDescription("first", "a")));
+		ResourceDescriptionsData second = new ResourceDescriptionsData(Arrays.asList(createDescription("second", "b")));
+		Map<String, ResourceDescriptionsData> chunks = new HashMap<>();
+		chunks.put("first", first);
+		chunks.put("second", second);
+		ChunkedResourceDescriptions descriptions = new ChunkedResourceDescriptions(chunks);
+		List<String> dependencies = Arrays.asList("first", "second");
+		ExportedNamesIndex index = descriptions.getExportedNamesIndex("project", dependencies);
+		Object marker = first.getNameChangeMarker();
+
+		URI other = URI.createURI("file:/other");
+		first.addDescription(other, createDescription("other", "B", "c"));
+		ExportedNamesIndex changed = descriptions.getExportedNamesIndex("project", dependencies);
+		assertEquals(Sets.newHashSet(QualifiedName.create("b"), QualifiedName.create("c")), first.getNamesChangedSince(marker));
+		assertEquals(3, changed.getNameCount());
+		assertTrue(changed.isExportedBy(0, QualifiedName.create("b")));
+		assertTrue(changed.isExportedBy(1, QualifiedName.create("b")));
+		assertTrue(changed.isExportedBy(0, QualifiedName.create("c")));
+		assertEquals(2, index.getNameCount());
+		assertFalse(index.isExportedBy(0, QualifiedName.create("c")));
+
+		ResourceDescriptionsData copy = first.copy();
+		copy.removeDescription(other);
+		descriptions.setContainer("first", copy);
+		ExportedNamesIndex removed = descriptions.getExportedNamesIndex("project", dependencies);
+		assertEquals(Sets.newHashSet(QualifiedName.create("b"), QualifiedName.create("c")), copy.getNamesChangedSince(marker));
+		assertEquals(2, removed.getNameCount());
+		assertFalse(removed.isExportedBy(0, QualifiedName.create("b")));
+		assertTrue(removed.isExportedBy(1, QualifiedName.create("b")));
+		assertFalse(removed.isExportedBy(0, QualifiedName.create("c")));
+		assertTrue(changed.isExportedBy(0, QualifiedName.create("c")));
+
+		assertNull(new ResourceDescriptionsData(Collections.emptyList()).getNamesChangedSince(marker));
+	}
+
+	@Test
+	public void testContainerManagerCreatesIndexedDependencyContainers() {
+		Map<String, ResourceDescriptionsData> chunks = new HashMap<>();
+		chunks.put("project", new ResourceDescriptionsData(Arrays.asList(createDescription("project", "a"))));
+		chunks.put("first", new ResourceDescriptionsData(Arrays.asList(createDescription("first", "b"))));
+		ResourceSet resourceSet = new ResourceSetImpl();
+		ProjectDescription projectDescription = new ProjectDescription();
+		projectDescription.setName("project");
+		projectDescription.setDependencies(Arrays.asList("first", "second"));
+		projectDescription.attachToEmfObject(resourceSet);
+		ChunkedResourceDescriptions descriptions = new ChunkedResourceDescriptions(chunks, resourceSet);
+		List<String> created = new ArrayList<>();
+		ProjectDescriptionBasedContainerManager manager = new ProjectDescriptionBasedContainerManager() {
+			@Override
+			protected IContainer createContainer(IResourceDescriptions resourceDescriptions,
+					ChunkedResourceDescriptions chunkedResourceDescriptions, String projectName) {
+				created.add(projectName);
+				return super.createContainer(resourceDescriptions, chunkedResourceDescriptions, projectName);
+			}
+		};
+		List<IContainer> containers = manager.getVisibleContainers(null, descriptions);
+		assertEquals(Arrays.asList("project", "first", "second"), created);
+		assertFalse(containers.get(0) instanceof ExportedNamesIndex.IndexedContainer);
+		assertTrue(containers.get(1) instanceof ExportedNamesIndex.IndexedContainer);
+		assertTrue(containers.get(2) instanceof ExportedNamesIndex.IndexedContainer);
+		assertEquals(1, Iterables.size(containers.get(1).getExportedObjects(EcorePackage.Literals.EOBJECT, QualifiedName.create("b"), false)));
+		assertEquals(0, containers.get(2).getResourceDescriptionCount());
+	}
+
+	private IResourceDescription createDescription(String name, String... exportedNames) {
+		URI uri = URI.createURI("file:/" + name);
+		List<IEObjectDescription> exported = new ArrayList<>();
+		for (String exportedName : exportedNames) {
+			exported.add(EObjectDescription.create(QualifiedName.create(exportedName), EcoreUtil.create(EcorePackage.Literals.ECLASS)));
+		}
+		return new AbstractResourceDescription() {
+			@Override
+			protected List<IEObjectDescription> computeExportedObjects() {
+				return exported;
+			}
+
+			@Override
+			public URI getURI() {
+				return uri;
+			}
+
+			@Override
+			public Iterable<QualifiedName> getImportedNames() {
+				return Collections.emptyList();
+			}
+
+			@Override
+			public Iterable<IReferenceDescription> getReferenceDescriptions() {
+				return Collections.emptyList();
+			}
+		};
+	}
+
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.resource.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.EObjectDescription;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IReferenceDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+
+public class ResourceDescriptionsDataTest extends Assert {
+
+	@Test
+	public void testExportedObjectsByType() {
+		IResourceDescription first = createDescription("first", EcorePackage.Literals.ECLASS, EcorePackage.Literals.EPACKAGE);
+		IResourceDescription second = createDescription("second", EcorePackage.Literals.EDATA_TYPE);
+		ResourceDescriptionsData data = new ResourceDescriptionsData(Arrays.asList(first, second));
+		assertEquals(names("first0"), names(data.getExportedObjectsByType(EcorePackage.Literals.ECLASS)));
+		assertEquals(names("first0", "second0"), names(data.getExportedObjectsByType(EcorePackage.Literals.ECLASSIFIER)));
+		assertEquals(names("first0", "first1", "second0"), names(data.getExportedObjectsByType(EcorePackage.Literals.ENAMED_ELEMENT)));
+		assertEquals(names("first0", "first1", "second0"), names(data.getExportedObjectsByType(EcorePackage.Literals.EOBJECT)));
+		assertTrue(Iterables.isEmpty(data.getExportedObjectsByType(EcorePackage.Literals.EENUM)));
+
+		ResourceDescriptionsData copy = data.copy();
+		data.addDescription(second.getURI(), createDescription("second", EcorePackage.Literals.EENUM));
+		data.removeDescription(first.getURI());
+		assertEquals(names("second0"), names(data.getExportedObjectsByType(EcorePackage.Literals.EENUM)));
+		assertEquals(names("second0"), names(data.getExportedObjectsByType(EcorePackage.Literals.ECLASSIFIER)));
+		assertTrue(Iterables.isEmpty(data.getExportedObjectsByType(EcorePackage.Literals.EPACKAGE)));
+		assertEquals(names("first0", "second0"), names(copy.getExportedObjectsByType(EcorePackage.Literals.ECLASSIFIER)));
+		assertTrue(Iterables.isEmpty(copy.getExportedObjectsByType(EcorePackage.Literals.EENUM)));
+	}
+
+	@Test
+	public void testDescriptionsWithSameName() {
+		QualifiedName name = QualifiedName.create("Shared");
+		IResourceDescription first = createDescription("first", name, name);
+		IResourceDescription second = createDescription("second", name);
+		IResourceDescription third = createDescription("third", name.toLowerCase());
+		ResourceDescriptionsData data = new ResourceDescriptionsData(Arrays.asList(first, second));
+		data.addDescription(third.getURI(), third);
+		Iterable<IEObjectDescription> before = data.getExportedObjects(EcorePackage.Literals.EOBJECT, name, true);
+		assertEquals(Arrays.asList("first", "first", "second", "third"), sources(before));
+
+		ResourceDescriptionsData copy = data.copy();
+		IResourceDescription fourth = createDescription("fourth", name);
+		data.addDescription(fourth.getURI(), fourth);
+		data.removeDescription(second.getURI());
+		assertEquals(Arrays.asList("first", "first", "third", "fourth"), sources(data.getExportedObjects(EcorePackage.Literals.EOBJECT, name, true)));
+		assertEquals(Arrays.asList("first", "first", "second", "third"), sources(copy.getExportedObjects(EcorePackage.Literals.EOBJECT, name, true)));
+		assertEquals(Arrays.asList("first", "first", "second", "third"), sources(before));
+
+		copy.removeDescription(first.getURI());
+		copy.removeDescription(third.getURI());
+		assertEquals(Arrays.asList("second"), sources(copy.getExportedObjects(EcorePackage.Literals.EOBJECT, name, true)));
+		assertEquals(Arrays.asList("first", "first", "third", "fourth"), sources(data.getExportedObjects(EcorePackage.Literals.EOBJECT, name, true)));
+		data.removeDescription(first.getURI());
+		data.removeDescription(third.getURI());
+		data.removeDescription(fourth.getURI());
+		assertTrue(Iterables.isEmpty(data.getExportedObjects(EcorePackage.Literals.EOBJECT, name, true)));
+	}
+
+	private List<String> sources(Iterable<IEObjectDescription> descriptions) {
+		List<String> result = new ArrayList<>();
+		for (IEObjectDescription description : descriptions) {
+			result.add(description.getUserData("source"));
+		}
+		return result;
+	}
+
+	private Set<String> names(String... names) {
+		return Sets.newHashSet(names);
+	}
+
+	private Set<String> names(Iterable<IEObjectDescription> descriptions) {
+		Set<String> result = new HashSet<>();
+		for (IEObjectDescription description : descriptions) {
+			result.add(description.getName().toString());
+		}
+		return result;
+	}
+
+	private IResourceDescription createDescription(String name, EClass... types) {
+		List<IEObjectDescription> exported = new ArrayList<>();
+		for (int i = 0; i < types.length; i++) {
+			exported.add(EObjectDescription.create(QualifiedName.create(name + i), EcoreUtil.create(types[i])));
+		}
+		return createDescription(name, exported);
+	}
+
+	private IResourceDescription createDescription(String name, QualifiedName... exportedNames) {
+		List<IEObjectDescription> exported = new ArrayList<>();
+		for (QualifiedName exportedName : exportedNames) {
+			exported.add(EObjectDescription.create(exportedName, EcoreUtil.create(EcorePackage.Literals.ECLASS),
+					Collections.singletonMap("source", name)));
+		}
+		return createDescription(name, exported);
+	}
+
+	private IResourceDescription createDescription(String name, List<IEObjectDescription> exported) {
+		URI uri = URI.createURI("file:/" + name);
+		return new AbstractResourceDescription() {
+			@Override
+			protected List<IEObjectDescription> computeExportedObjects() {
+				return exported;
+			}
+
+			@Override
+			public URI getURI() {
+				return uri;
+			}
+
+			@Override
+			public Iterable<QualifiedName> getImportedNames() {
+				return Collections.emptyList();
+			}
+
+			@Override
+			public Iterable<IReferenceDescription> getReferenceDescriptions() {
+				return Collections.emptyList();
+			}
+		};
+	}
+
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.scoping.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.EObjectDescription;
+import org.eclipse.xtext.resource.IContainer;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.IReferenceDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+import org.eclipse.xtext.resource.impl.AbstractResourceDescription;
+import org.eclipse.xtext.resource.impl.ExportedNamesIndex;
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsBasedContainer;
+import org.eclipse.xtext.resource.impl.ResourceDescriptionsData;
+import org.eclipse.xtext.scoping.IScope;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.base.Predicate;
+
+public class GlobalScopeCacheTest extends Assert {
+
+	private final ResourceDescriptionsData first = new ResourceDescriptionsData(Arrays.asList(createDescription("first", "a", "b")));
+
+	private final ResourceDescriptionsData second = new ResourceDescriptionsData(Arrays.asList(createDescription("second", "b")));
+
+	@Test
+	public void testScopeIsShared() {
+		ResourceSet resourceSet = new ResourceSetImpl();
+		GlobalScopeCache cache = GlobalScopeCache.getOrCreate(resourceSet);
+		assertSame(cache, GlobalScopeCache.getOrCreate(resourceSet));
+		ExportedNamesIndex index = new ExportedNamesIndex(Arrays.asList(first, second));
+		AtomicInteger created = new AtomicInteger();
+		IScope scope = getScope(cache, created, index.createContainer(0), index.createContainer(1));
+		assertSame(scope, getScope(cache, created, index.createContainer(0), index.createContainer(1)));
+		assertEquals(1, created.get());
+		assertNotSame(scope, getScope(cache, created, index.createContainer(1)));
+		assertEquals(2, created.get());
+		assertEquals(2, cache.size());
+		assertFalse(cache.isShareable(new ResourceDescriptionsBasedContainer(first)));
+	}
+
+	@Test
+	public void testElementsAreRemembered() {
+		GlobalScopeCache cache = new GlobalScopeCache();
+		ExportedNamesIndex index = new ExportedNamesIndex(Arrays.asList(first, second));
+		IScope scope = getScope(cache, new AtomicInteger(), index.createContainer(0), index.createContainer(1));
+		Iterable<IEObjectDescription> elements = scope.getElements(QualifiedName.create("b"));
+		assertSame(elements, scope.getElements(QualifiedName.create("B")));
+		assertEquals(2, cache.getWeight());
+		assertSame(scope.getAllElements(), scope.getAllElements());
+		assertEquals(4, cache.getWeight());
+	}
+
+	@Test
+	public void testOutdatedScopesAreDiscarded() {
+		GlobalScopeCache cache = new GlobalScopeCache();
+		ExportedNamesIndex index = new ExportedNamesIndex(Arrays.asList(first, second));
+		AtomicInteger created = new AtomicInteger();
+		IScope scope = getScope(cache, created, index.createContainer(0));
+		assertNull(scope.getSingleElement(QualifiedName.create("c")));
+		first.addDescription(URI.createURI("file:/other"), createDescription("other", "c"));
+		IScope outdated = getScope(cache, created, index.createContainer(0));
+		assertNotSame(scope, outdated);
+		assertEquals(0, cache.size());
+		ExportedNamesIndex newIndex = new ExportedNamesIndex(Arrays.asList(first, second));
+		IScope current = getScope(cache, created, newIndex.createContainer(0));
+		assertNotNull(current.getSingleElement(QualifiedName.create("c")));
+		assertSame(current, getScope(cache, created, newIndex.createContainer(0)));
+		assertEquals(3, created.get());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedScopesAreEvicted() {
+		GlobalScopeCache cache = new GlobalScopeCache();
+		cache.setMaximumWeight(3);
+		ExportedNamesIndex index = new ExportedNamesIndex(Arrays.asList(first, second));
+		AtomicInteger created = new AtomicInteger();
+		IScope scope = getScope(cache, created, index.createContainer(0));
+		scope.getAllElements();
+		IScope other = getScope(cache, created, index.createContainer(1));
+		other.getAllElements();
+		assertEquals(3, cache.getWeight());
+		getScope(cache, created, index.createContainer(1)).getElements(QualifiedName.create("b"));
+		assertSame(other, getScope(cache, created, index.createContainer(1)));
+		assertEquals(1, cache.size());
+		assertEquals(3, cache.getWeight());
+		assertNotSame(scope, getScope(cache, created, index.createContainer(0)));
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getWeight());
+	}
+
+	@Test
+	public void testMaximumSize() {
+		GlobalScopeCache cache = new GlobalScopeCache();
+		cache.setMaximumSize(1);
+		ExportedNamesIndex index = new ExportedNamesIndex(Arrays.asList(first, second));
+		AtomicInteger created = new AtomicInteger();
+		IScope scope = getScope(cache, created, index.createContainer(0));
+		IScope other = getScope(cache, created, index.createContainer(1));
+		assertEquals(1, cache.size());
+		assertSame(other, getScope(cache, created, index.createContainer(1)));
+		assertNotSame(scope, getScope(cache, created, index.createContainer(0)));
+		assertEquals(3, created.get());
+	}
+
+	@Test
+	public void testNoSharingIfScopeDependsOnContext() {
+		ResourceSet resourceSet = new ResourceSetImpl();
+		Resource context = new ResourceImpl(URI.createURI("file:/context"));
+		resourceSet.getResources().add(context);
+		assertNotNull(new DefaultGlobalScopeProvider().getGlobalScopeCache(context));
+		DefaultGlobalScopeProvider provider = new DefaultGlobalScopeProvider() {
+			@Override
+			protected IScope createContainerScopeWithContext(Resource eResource, IScope parent, IContainer container,
+					Predicate<IEObjectDescription> filter, EClass type, boolean ignoreCase) {
+				return super.createContainerScopeWithContext(eResource, parent, container, filter, type, ignoreCase);
+			}
+		};
+		assertNull(provider.getGlobalScopeCache(context));
+	}
+
+	private IScope getScope(GlobalScopeCache cache, AtomicInteger created, IContainer... containers) {
+		List<IContainer> list = Arrays.asList(containers);
+		for (IContainer container : list) {
+			assertTrue(cache.isShareable(container));
+		}
+		return cache.getScope(list, EcorePackage.Literals.EOBJECT, true, () -> {
+			created.incrementAndGet();
+			IScope result = IScope.NULLSCOPE;
+			for (IContainer container : list) {
+				result = SelectableBasedScope.createScope(result, container, EcorePackage.Literals.EOBJECT, true);
+			}
+			return result;
+		});
+	}
+
+	private IResourceDescription createDescription(String name, String... exportedNames) {
+		URI uri = URI.createURI("file:/" + name);
+		List<IEObjectDescription> exported = new ArrayList<>();
+		for (String exportedName : exportedNames) {
+			exported.add(EObjectDescription.create(QualifiedName.create(exportedName), EcoreUtil.create(EcorePackage.Literals.ECLASS)));
+		}
+		return new AbstractResourceDescription() {
+			@Override
+			protected List<IEObjectDescription> computeExportedObjects() {
+				return exported;
+			}
+
+			@Override
+			public URI getURI() {
+				return uri;
+			}
+
+			@Override
+			public Iterable<QualifiedName> getImportedNames() {
+				return Collections.emptyList();
+			}
+
+			@Override
+			public Iterable<IReferenceDescription> getReferenceDescriptions() {
+				return Collections.emptyList();
+			}
+		};
+	}
+
+}
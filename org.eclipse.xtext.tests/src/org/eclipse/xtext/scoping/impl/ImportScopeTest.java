@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2010, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -266,6 +266,25 @@ public class ImportScopeTest extends Assert {
 		assertEquals(2,size(elements));
 	}
 	
+	@Test public void testGetAllLocalElements_nestedTypeNormalizer() throws Exception {
+		final IEObjectDescription map = new EObjectDescription(QualifiedName.create("a","Map"), EcorePackage.Literals.EANNOTATION, null);
+		final IEObjectDescription entry = new EObjectDescription(QualifiedName.create("a","Map","Entry"), EcorePackage.Literals.EATTRIBUTE, null);
+		SimpleScope outer = new SimpleScope(newArrayList(map, entry), false);
+		ImportNormalizer nestedTypes = new ImportNormalizer(QualifiedName.create("a","Map"), false, false) {
+			@Override
+			public QualifiedName deresolve(QualifiedName fullyQualifiedName) {
+				if (fullyQualifiedName.startsWith(getImportedNamespacePrefix()))
+					return fullyQualifiedName.skipFirst(getImportedNamespacePrefix().getSegmentCount() - 1);
+				return null;
+			}
+		};
+		TestableImportScope scope = new TestableImportScope(newArrayList(nestedTypes), outer, new ScopeBasedSelectable(outer), EcorePackage.Literals.EOBJECT, false);
+		List<QualifiedName> names = newArrayList();
+		for (IEObjectDescription element : scope.getAllLocalElements())
+			names.add(element.getName());
+		assertEquals(newArrayList(QualifiedName.create("Map"), QualifiedName.create("Map","Entry")), names);
+	}
+	
 	@Test public void testAllAliasedElements_00() throws Exception {
 		final IEObjectDescription desc1 = new EObjectDescription(QualifiedName.create("com","foo"), EcorePackage.Literals.EANNOTATION, null);
 		final IEObjectDescription desc2 = new EObjectDescription(QualifiedName.create("com","foo"), EcorePackage.Literals.EATTRIBUTE, null);
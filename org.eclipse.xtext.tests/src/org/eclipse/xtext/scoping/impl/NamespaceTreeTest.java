@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.scoping.impl;
+
+import static com.google.common.collect.Lists.*;
+
+import java.util.List;
+
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.EObjectDescription;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NamespaceTreeTest extends Assert {
+
+	private final IEObjectDescription abc = create("a", "b", "c");
+	private final IEObjectDescription ab = create("a", "b");
+	private final IEObjectDescription abcd = create("a", "b", "c", "d");
+	private final IEObjectDescription aB = create("a", "B");
+	private final IEObjectDescription xy = create("x", "y");
+
+	private final List<IEObjectDescription> elements = newArrayList(abc, ab, xy, abcd, aB);
+
+	@Test
+	public void testGetElements() {
+		NamespaceTree tree = new NamespaceTree(elements, false);
+		assertEquals(5, tree.size());
+		assertEquals(newArrayList(ab), tree.getElements(QualifiedName.create("a", "b")));
+		assertEquals(newArrayList(), tree.getElements(QualifiedName.create("a")));
+		assertEquals(newArrayList(), tree.getElements(QualifiedName.create("a", "b", "x")));
+		NamespaceTree ignoreCase = new NamespaceTree(elements, true);
+		assertEquals(newArrayList(ab, aB), ignoreCase.getElements(QualifiedName.create("A", "b")));
+	}
+
+	@Test
+	public void testGetNestedElements() {
+		NamespaceTree tree = new NamespaceTree(elements, false);
+		assertEquals(newArrayList(abc, abcd), tree.getNestedElements(QualifiedName.create("a", "b")));
+		assertEquals(newArrayList(abc, ab, abcd, aB), tree.getNestedElements(QualifiedName.create("a")));
+		assertEquals(newArrayList(), tree.getNestedElements(QualifiedName.create("x", "y")));
+		NamespaceTree ignoreCase = new NamespaceTree(elements, true);
+		assertEquals(newArrayList(abc, abcd), ignoreCase.getNestedElements(QualifiedName.create("A", "B")));
+	}
+
+	@Test
+	public void testGetImportedElements() {
+		NamespaceTree tree = new NamespaceTree(elements, false);
+		ImportNormalizer wildcard = new ImportNormalizer(QualifiedName.create("a"), true, false);
+		ImportNormalizer nestedWildcard = new ImportNormalizer(QualifiedName.create("a", "b"), true, false);
+		ImportNormalizer single = new ImportNormalizer(QualifiedName.create("x", "y"), false, false);
+		assertEquals(newArrayList(abc, abcd), nestedWildcard.getImportedElements(tree));
+		assertEquals(newArrayList(xy), single.getImportedElements(tree));
+		assertEquals(newArrayList(abc, ab, xy, abcd, aB),
+				tree.getImportedElements(newArrayList(nestedWildcard, single, wildcard)));
+		for (IEObjectDescription element : tree.getImportedElements(newArrayList(nestedWildcard, single))) {
+			assertTrue(nestedWildcard.deresolve(element.getName()) != null || single.deresolve(element.getName()) != null);
+		}
+	}
+
+	@Test
+	public void testGetImportedElementsOfCustomNormalizer() {
+		NamespaceTree tree = new NamespaceTree(elements, false);
+		ImportNormalizer custom = new ImportNormalizer(QualifiedName.create("a", "b"), false, false) {
+			@Override
+			public List<IEObjectDescription> getImportedElements(NamespaceTree tree) {
+				List<IEObjectDescription> result = super.getImportedElements(tree);
+				result.addAll(tree.getNestedElements(getImportedNamespacePrefix()));
+				return result;
+			}
+		};
+		ImportNormalizer single = new ImportNormalizer(QualifiedName.create("x", "y"), false, false);
+		assertEquals(newArrayList(ab, abc, abcd), tree.getImportedElements(newArrayList(custom)));
+		assertEquals(newArrayList(abc, ab, xy, abcd), tree.getImportedElements(newArrayList(single, custom)));
+	}
+
+	private IEObjectDescription create(String... segments) {
+		return EObjectDescription.create(QualifiedName.create(segments), EcorePackage.Literals.ECLASS);
+	}
+
+}
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OnChangeEvictingCacheTest extends Assert {
+
+	private static class NameIndependentKey implements OnChangeEvictingCache.SelectiveKey {
+		@Override
+		public boolean isEvictedBy(Notification notification) {
+			return notification.getFeature() != EcorePackage.Literals.ENAMED_ELEMENT__NAME;
+		}
+	}
+
+	@Test
+	public void testComputeOnce() throws Exception {
+		OnChangeEvictingCache cache = new OnChangeEvictingCache.ComputeOnce();
+		Resource resource = new ResourceImpl();
+		AtomicInteger computations = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<String> first = executor.submit(() -> cache.get("key", resource, () -> {
+				computations.incrementAndGet();
+				started.countDown();
+				await(release);
+				return "value";
+			}));
+			await(started);
+			Future<String> second = executor.submit(() -> cache.get("key", resource, () -> {
+				computations.incrementAndGet();
+				return "other";
+			}));
+			release.countDown();
+			assertEquals("value", first.get(10, TimeUnit.SECONDS));
+			assertEquals("value", second.get(10, TimeUnit.SECONDS));
+			assertEquals(1, computations.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testComputeOnce_reentrant() {
+		OnChangeEvictingCache cache = new OnChangeEvictingCache.ComputeOnce();
+		Resource resource = new ResourceImpl();
+		String result = cache.get("key", resource, () -> "outer " + cache.get("key", resource, () -> "inner"));
+		assertEquals("outer inner", result);
+		assertEquals("outer inner", cache.get("key", resource, () -> "again"));
+	}
+
+	@Test
+	public void testComputeOnce_crossThreadCycle() throws Exception {
+		OnChangeEvictingCache cache = new OnChangeEvictingCache.ComputeOnce();
+		Resource resource = new ResourceImpl();
+		CyclicBarrier started = new CyclicBarrier(2);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<String> first = executor.submit(() -> cache.get("first", resource, () -> {
+				await(started);
+				return "first " + cache.get("second", resource, () -> "second");
+			}));
+			Future<String> second = executor.submit(() -> cache.get("second", resource, () -> {
+				await(started);
+				return "second " + cache.get("first", resource, () -> "first");
+			}));
+			assertTrue(first.get(10, TimeUnit.SECONDS).startsWith("first second"));
+			assertTrue(second.get(10, TimeUnit.SECONDS).startsWith("second first"));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testComputeOnce_clear() throws Exception {
+		OnChangeEvictingCache cache = new OnChangeEvictingCache.ComputeOnce();
+		Resource resource = new ResourceImpl();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicReference<Thread> waiter = new AtomicReference<>();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<String> first = executor.submit(() -> cache.get("key", resource, () -> {
+				started.countDown();
+				await(release);
+				return "outdated";
+			}));
+			await(started);
+			Future<String> second = executor.submit(() -> {
+				waiter.set(Thread.currentThread());
+				return cache.get("key", resource, () -> "current");
+			});
+			long deadline = System.currentTimeMillis() + 10000;
+			while ((waiter.get() == null || waiter.get().getState() != Thread.State.WAITING)
+					&& System.currentTimeMillis() < deadline) {
+				Thread.sleep(1);
+			}
+			cache.clear(resource);
+			release.countDown();
+			assertEquals("outdated", first.get(10, TimeUnit.SECONDS));
+			assertEquals("current", second.get(10, TimeUnit.SECONDS));
+			assertEquals("current", cache.get("key", resource, () -> "again"));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testComputeOnce_failure() {
+		OnChangeEvictingCache cache = new OnChangeEvictingCache.ComputeOnce();
+		Resource resource = new ResourceImpl();
+		try {
+			cache.get("key", resource, () -> {
+				throw new IllegalStateException();
+			});
+			fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertEquals("value", cache.get("key", resource, () -> "value"));
+		assertNull(cache.get("null", resource, () -> null));
+		assertNull(cache.get("null", resource, () -> "not cached"));
+	}
+
+	@Test
+	public void testSelectiveKey() {
+		OnChangeEvictingCache cache = new OnChangeEvictingCache();
+		EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+		Resource resource = new ResourceImpl();
+		resource.getContents().add(eClass);
+		NameIndependentKey selectiveKey = new NameIndependentKey();
+		cache.get(selectiveKey, resource, () -> "selective");
+		cache.get("plain", resource, () -> "plain");
+		eClass.setName("Foo");
+		assertEquals("selective", cache.get(selectiveKey, resource, () -> "recomputed"));
+		assertEquals("recomputed", cache.get("plain", resource, () -> "recomputed"));
+		eClass.setAbstract(true);
+		assertEquals("recomputed", cache.get(selectiveKey, resource, () -> "recomputed"));
+	}
+
+	@Test
+	public void testStatistics() {
+		OnChangeEvictingCache cache = new OnChangeEvictingCache();
+		Resource resource = new ResourceImpl();
+		cache.get("ignored", resource, () -> "value");
+		assertTrue(cache.getStatistics().isEmpty());
+		cache.setCollectStatistics(true);
+		cache.get(Tuples.pair(resource, "fqn"), resource, () -> "a");
+		cache.get(Tuples.pair(resource, "fqn"), resource, () -> "b");
+		cache.get(Tuples.create(resource, Boolean.TRUE, "imports"), resource, () -> "c");
+		cache.get(String.class, resource, () -> "d");
+		assertEquals(1, cache.getStatistics().get("fqn").getHits());
+		assertEquals(1, cache.getStatistics().get("fqn").getMisses());
+		assertEquals(1, cache.getStatistics().get("imports").getMisses());
+		assertEquals(1, cache.getStatistics().get(String.class.getName()).getMisses());
+		cache.resetStatistics();
+		assertTrue(cache.getStatistics().isEmpty());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static void await(CyclicBarrier barrier) {
+		try {
+			barrier.await(10, TimeUnit.SECONDS);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PersistentHashMapTest extends Assert {
+
+	/**
+	 * A key with few distinct hash codes, so the map has to handle collisions.
+	 */
+	private static class Key {
+		private final int value;
+
+		private Key(int value) {
+			this.value = value;
+		}
+
+		@Override
+		public int hashCode() {
+			return value % 7 == 0 ? 42 : value * 31;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Key && ((Key) obj).value == value;
+		}
+
+		@Override
+		public String toString() {
+			return "Key " + value;
+		}
+	}
+
+	@Test
+	public void testPutGetRemove() {
+		PersistentHashMap<String, Integer> map = new PersistentHashMap<>();
+		assertNull(map.put("a", 1));
+		assertNull(map.put("b", 2));
+		assertEquals(Integer.valueOf(1), map.put("a", 3));
+		assertEquals(2, map.size());
+		assertEquals(Integer.valueOf(3), map.get("a"));
+		assertTrue(map.containsKey("b"));
+		assertFalse(map.containsKey("c"));
+		assertEquals(Integer.valueOf(2), map.remove("b"));
+		assertNull(map.remove("b"));
+		assertEquals(1, map.size());
+		assertEquals(Collections.singletonMap("a", 3), map);
+	}
+
+	@Test
+	public void testCopiesAreIndependent() {
+		Random random = new Random(4711);
+		PersistentHashMap<Key, Integer> map = new PersistentHashMap<>();
+		Map<Key, Integer> expected = new HashMap<>();
+		List<PersistentHashMap<Key, Integer>> copies = new ArrayList<>();
+		List<Map<Key, Integer>> expectedCopies = new ArrayList<>();
+		for (int i = 0; i < 20000; i++) {
+			Key key = new Key(random.nextInt(2000));
+			int operation = random.nextInt(10);
+			if (operation < 6) {
+				assertEquals(expected.put(key, i), map.put(key, i));
+			} else if (operation < 9) {
+				assertEquals(expected.remove(key), map.remove(key));
+			} else if (i % 100 == 0) {
+				copies.add(map.copy());
+				expectedCopies.add(new HashMap<>(expected));
+			}
+			assertEquals(expected.size(), map.size());
+			assertEquals(expected.get(key), map.get(key));
+		}
+		assertEquals(expected, map);
+		assertEquals(expected, new HashMap<>(map));
+		for (int i = 0; i < copies.size(); i++) {
+			assertEquals(expectedCopies.get(i), copies.get(i));
+			assertEquals(expectedCopies.get(i), new HashMap<>(copies.get(i)));
+		}
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		PersistentHashMap<Key, Integer> map = new PersistentHashMap<>();
+		for (int i = 0; i < 1000; i++) {
+			map.put(new Key(i), i);
+		}
+		PersistentHashMap<Key, Integer> copy = map.copy();
+		Iterator<Key> iterator = map.keySet().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().value % 2 == 0) {
+				iterator.remove();
+			}
+		}
+		assertEquals(500, map.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), map.get(new Key(i)));
+		}
+		assertEquals(1000, copy.size());
+		assertEquals(1000, new HashMap<>(copy).size());
+	}
+
+}
@@ -9,10 +9,16 @@ package org.eclipse.xtext.build;
 
 import com.google.common.base.Objects;
 import com.google.inject.Inject;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.xtend2.lib.StringConcatenation;
 import org.eclipse.xtext.build.BuildRequest;
 import org.eclipse.xtext.build.IndexState;
@@ -20,6 +26,7 @@ import org.eclipse.xtext.generator.OutputConfiguration;
 import org.eclipse.xtext.index.IndexTestLanguageInjectorProvider;
 import org.eclipse.xtext.resource.IResourceServiceProvider;
 import org.eclipse.xtext.resource.XtextResourceSet;
+import org.eclipse.xtext.resource.clustering.IResourceClusteringPolicy;
 import org.eclipse.xtext.resource.impl.ChunkedResourceDescriptions;
 import org.eclipse.xtext.testing.InjectWith;
 import org.eclipse.xtext.testing.XtextRunner;
@@ -27,6 +34,7 @@ import org.eclipse.xtext.testing.builder.AbstractIncrementalBuilderTest;
 import org.eclipse.xtext.util.CancelIndicator;
 import org.eclipse.xtext.validation.Issue;
 import org.eclipse.xtext.xbase.lib.CollectionLiterals;
+import org.eclipse.xtext.xbase.lib.Functions.Function1;
 import org.eclipse.xtext.xbase.lib.IterableExtensions;
 import org.eclipse.xtext.xbase.lib.Procedures.Procedure1;
 import org.eclipse.xtext.xbase.lib.Procedures.Procedure2;
@@ -194,6 +202,131 @@ public class IncrementalBuilderTest extends AbstractIncrementalBuilderTest {
     Assert.assertTrue(this.containsSuffix(this.generated.values(), "src-gen/A.txt"));
   }
   
+  @Test
+  public void testParallelGeneration() {
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final AtomicInteger executed = new AtomicInteger();
+      final Procedure1<BuildRequest> _function = (BuildRequest it) -> {
+        StringConcatenation _builder = new StringConcatenation();
+        _builder.append("foo {");
+        _builder.newLine();
+        _builder.append("\t");
+        _builder.append("entity A { foo.B myReference }");
+        _builder.newLine();
+        _builder.append("}");
+        _builder.newLine();
+        URI _minus = this.operator_minus(
+          "src/A.indextestlanguage", _builder.toString());
+        StringConcatenation _builder_1 = new StringConcatenation();
+        _builder_1.append("foo {");
+        _builder_1.newLine();
+        _builder_1.append("\t");
+        _builder_1.append("entity B {}");
+        _builder_1.newLine();
+        _builder_1.append("\t");
+        _builder_1.append("entity C {}");
+        _builder_1.newLine();
+        _builder_1.append("}");
+        _builder_1.newLine();
+        URI _minus_1 = this.operator_minus(
+          "src/B.indextestlanguage", _builder_1.toString());
+        StringConcatenation _builder_2 = new StringConcatenation();
+        _builder_2.append("foo {");
+        _builder_2.newLine();
+        _builder_2.append("\t");
+        _builder_2.append("entity D { foo.C myReference }");
+        _builder_2.newLine();
+        _builder_2.append("}");
+        _builder_2.newLine();
+        URI _minus_2 = this.operator_minus(
+          "src/D.indextestlanguage", _builder_2.toString());
+        it.setDirtyFiles(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(_minus, _minus_1, _minus_2)));
+        final Executor _function_1 = (Runnable it_1) -> {
+          executed.incrementAndGet();
+          executor.execute(it_1);
+        };
+        it.setGeneratorExecutor(_function_1);
+      };
+      final BuildRequest buildRequest = this.newBuildRequest(_function);
+      final IResourceClusteringPolicy _function_1 = (ResourceSet resourceSet, URI uri, int loadedResources) -> {
+        return (loadedResources < 1);
+      };
+      final IResourceClusteringPolicy clusterPerResource = _function_1;
+      this.clean();
+      final Function1<URI, IResourceServiceProvider> _function_2 = (URI it) -> {
+        return this.getLanguages().getResourceServiceProvider(it);
+      };
+      this.indexState = this.incrementalBuilder.build(buildRequest, _function_2, clusterPerResource).getIndexState();
+      Assert.assertTrue(this.issues.toString(), this.issues.isEmpty());
+      Assert.assertEquals(3, executed.get());
+      Assert.assertEquals(this.generated.toString(), 4, this.generated.size());
+      Assert.assertTrue(this.containsSuffix(this.generated.values(), "src-gen/A.txt", "src-gen/B.txt", "src-gen/C.txt", "src-gen/D.txt"));
+      Assert.assertEquals(2, this.indexState.getFileMappings().getGenerated(this.uri("src/B.indextestlanguage")).size());
+      byte[] _contents = this.inMemoryURIHandler.getFiles().get(this.uri("src-gen/D.txt")).getContents();
+      Assert.assertEquals("Hello D!", new String(_contents).trim());
+    } finally {
+      executor.shutdown();
+    }
+  }
+  
+  @Test
+  public void testParallelGenerationStartsAfterValidation() {
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final AtomicInteger validated = new AtomicInteger();
+      final ArrayList<Integer> validatedOnExecution = CollectionLiterals.<Integer>newArrayList();
+      final Procedure1<BuildRequest> _function = (BuildRequest it) -> {
+        StringConcatenation _builder = new StringConcatenation();
+        _builder.append("foo {");
+        _builder.newLine();
+        _builder.append("\t");
+        _builder.append("entity A { foo.B myReference }");
+        _builder.newLine();
+        _builder.append("}");
+        _builder.newLine();
+        URI _minus = this.operator_minus(
+          "src/A.indextestlanguage", _builder.toString());
+        StringConcatenation _builder_1 = new StringConcatenation();
+        _builder_1.append("foo {");
+        _builder_1.newLine();
+        _builder_1.append("\t");
+        _builder_1.append("entity B {}");
+        _builder_1.newLine();
+        _builder_1.append("}");
+        _builder_1.newLine();
+        URI _minus_1 = this.operator_minus(
+          "src/B.indextestlanguage", _builder_1.toString());
+        it.setDirtyFiles(Collections.<URI>unmodifiableList(CollectionLiterals.<URI>newArrayList(_minus, _minus_1)));
+        final BuildRequest.IPostValidationCallback collectIssues = it.getAfterValidate();
+        final BuildRequest.IPostValidationCallback _function_1 = (URI uri, Iterable<Issue> issues) -> {
+          boolean _xblockexpression = false;
+          {
+            validated.incrementAndGet();
+            _xblockexpression = collectIssues.afterValidate(uri, issues);
+          }
+          return _xblockexpression;
+        };
+        it.setAfterValidate(_function_1);
+        final Executor _function_2 = (Runnable it_1) -> {
+          synchronized (validatedOnExecution) {
+            int _get = validated.get();
+            validatedOnExecution.add(Integer.valueOf(_get));
+          }
+          executor.execute(it_1);
+        };
+        it.setGeneratorExecutor(_function_2);
+      };
+      final BuildRequest buildRequest = this.newBuildRequest(_function);
+      this.build(buildRequest);
+      Assert.assertTrue(this.issues.toString(), this.issues.isEmpty());
+      Assert.assertEquals(Collections.<Integer>unmodifiableList(CollectionLiterals.<Integer>newArrayList(Integer.valueOf(2), Integer.valueOf(2))), validatedOnExecution);
+      Assert.assertTrue(this.containsSuffix(this.generated.values(), "src-gen/A.txt", "src-gen/B.txt"));
+    } finally {
+      executor.shutdown();
+    }
+  }
+  
   @Test(expected = OperationCanceledException.class)
   public void testCancellation() {
     final IncrementalBuilderTest.CancelOnFirstModel cancelOnFirstModel = new IncrementalBuilderTest.CancelOnFirstModel();
@@ -9,22 +9,30 @@ package org.eclipse.xtext.filesystem;
 
 import com.google.common.base.StandardSystemProperty;
 import com.google.inject.Inject;
+import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import org.eclipse.emf.ecore.resource.impl.ExtensibleURIConverterImpl;
 import org.eclipse.xtend2.lib.StringConcatenation;
+import org.eclipse.xtext.build.Source2GeneratedMapping;
 import org.eclipse.xtext.generator.IFileSystemAccess;
 import org.eclipse.xtext.generator.IOutputConfigurationProvider;
 import org.eclipse.xtext.generator.OutputConfiguration;
 import org.eclipse.xtext.generator.URIBasedFileSystemAccess;
+import org.eclipse.xtext.generator.WriteBehindQueue;
 import org.eclipse.xtext.testing.InjectWith;
 import org.eclipse.xtext.testing.XtextRunner;
 import org.eclipse.xtext.tests.XtextInjectorProvider;
 import org.eclipse.xtext.xbase.lib.CollectionLiterals;
 import org.eclipse.xtext.xbase.lib.Exceptions;
+import org.eclipse.xtext.xbase.lib.ExclusiveRange;
 import org.eclipse.xtext.xbase.lib.IterableExtensions;
 import org.eclipse.xtext.xbase.lib.Pair;
 import org.junit.Assert;
@@ -84,4 +92,92 @@ public class URIBasedFileSystemAccessTest {
   public void testTrueOnPresent() {
     Assert.assertTrue(this.fsa.isFile(URIBasedFileSystemAccessTest.EXISTING_RESOURCE_NAME));
   }
+  
+  @Test
+  public void testSkipUnchangedFiles() {
+    this.fsa.setSkipUnchangedFiles(true);
+    this.fsa.generateFile("foo.txt", "foo");
+    String _fileString = this.fsa.getURI("foo.txt").toFileString();
+    final File file = new File(_fileString);
+    file.setLastModified(1000);
+    this.fsa.generateFile("foo.txt", "foo");
+    Assert.assertEquals(1000, file.lastModified());
+    this.fsa.generateFile("foo.txt", "bar");
+    Assert.assertNotEquals(1000, file.lastModified());
+    Assert.assertEquals("bar", this.fsa.readTextFile("foo.txt").toString());
+  }
+  
+  @Test
+  public void testContentHashIsStoredAfterWrite() {
+    final Source2GeneratedMapping hashes = new Source2GeneratedMapping();
+    this.fsa.setSkipUnchangedFiles(true);
+    this.fsa.setContentHashStore(hashes);
+    this.fsa.generateFile("foo.txt", "foo");
+    String _fileString = this.fsa.getURI("foo.txt").toFileString();
+    final File file = new File(_fileString);
+    Assert.assertNotNull(hashes.getContentHash(this.fsa.getURI("foo.txt")));
+    file.delete();
+    file.mkdir();
+    try {
+      this.fsa.generateFile("foo.txt", "bar");
+      Assert.fail();
+    } catch (final Throwable _t) {
+      if (_t instanceof IOException) {
+      } else {
+        throw Exceptions.sneakyThrow(_t);
+      }
+    }
+    Assert.assertNull(hashes.getContentHash(this.fsa.getURI("foo.txt")));
+    file.delete();
+    this.fsa.generateFile("foo.txt", "bar");
+    Assert.assertEquals("bar", this.fsa.readTextFile("foo.txt").toString());
+  }
+  
+  @Test
+  public void testRejectedWriteReleasesPermit() {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.shutdown();
+    final WriteBehindQueue queue = new WriteBehindQueue(executor, 1);
+    this.fsa.setWriteBehindQueue(queue);
+    ExclusiveRange _doubleDotLessThan = new ExclusiveRange(0, 2, true);
+    for (final Integer i : _doubleDotLessThan) {
+      try {
+        this.fsa.generateFile("foo.txt", "foo");
+        Assert.fail();
+      } catch (final Throwable _t) {
+        if (_t instanceof RejectedExecutionException) {
+        } else {
+          throw Exceptions.sneakyThrow(_t);
+        }
+      }
+    }
+    Assert.assertTrue(queue.isEmpty());
+  }
+  
+  @Test
+  public void testWriteBehindQueue() {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final WriteBehindQueue queue = new WriteBehindQueue(executor, 2);
+      this.fsa.setWriteBehindQueue(queue);
+      ExclusiveRange _doubleDotLessThan = new ExclusiveRange(0, 10, true);
+      for (final Integer i : _doubleDotLessThan) {
+        StringConcatenation _builder = new StringConcatenation();
+        _builder.append("foo");
+        _builder.append(i);
+        _builder.append(".txt");
+        StringConcatenation _builder_1 = new StringConcatenation();
+        _builder_1.append("foo");
+        _builder_1.append(i);
+        this.fsa.generateFile(_builder.toString(), _builder_1);
+      }
+      this.fsa.generateFile("foo0.txt", "bar");
+      queue.flush();
+      Assert.assertTrue(queue.isEmpty());
+      Assert.assertEquals("bar", this.fsa.readTextFile("foo0.txt").toString());
+      Assert.assertEquals("foo9", this.fsa.readTextFile("foo9.txt").toString());
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
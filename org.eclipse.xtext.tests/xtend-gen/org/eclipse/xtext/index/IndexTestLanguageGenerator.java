@@ -7,10 +7,11 @@ import org.eclipse.xtend2.lib.StringConcatenation;
 import org.eclipse.xtext.generator.AbstractGenerator;
 import org.eclipse.xtext.generator.IFileSystemAccess2;
 import org.eclipse.xtext.generator.IGeneratorContext;
+import org.eclipse.xtext.generator.IThreadSafeGenerator;
 import org.eclipse.xtext.index.indexTestLanguage.Entity;
 
 @SuppressWarnings("all")
-public class IndexTestLanguageGenerator extends AbstractGenerator {
+public class IndexTestLanguageGenerator extends AbstractGenerator implements IThreadSafeGenerator {
   @Override
   public void doGenerate(final Resource input, final IFileSystemAccess2 fsa, final IGeneratorContext context) {
     final TreeIterator<EObject> iter = input.getAllContents();
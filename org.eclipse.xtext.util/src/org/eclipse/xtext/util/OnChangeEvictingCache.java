@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2009, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,11 +8,15 @@
 package org.eclipse.xtext.util;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.notify.Notification;
@@ -32,6 +36,10 @@ import com.google.inject.Singleton;
  * The values will be discarded as soon as the contents of the resource changes semantically.
  * Clients may override this behavior for certain transactions by means of {@link #execWithoutCacheClear(Resource, IUnitOfWork)}
  * or {@link #execWithTemporaryCaching(Resource, IUnitOfWork)}.
+ * <p>
+ * Keys that implement {@link SelectiveKey} may keep their values on certain changes. The {@link ComputeOnce} variant
+ * computes the value of a key at most once at a time, even if several threads ask for it concurrently. Hit and miss
+ * counts per type of key are collected if {@link #setCollectStatistics(boolean) enabled}.
  * 
  * @author Sven Efftinge - Initial contribution and API
  * @author Sebastian Zarnekow
@@ -41,6 +49,11 @@ public class OnChangeEvictingCache implements IResourceScopeCache {
 	
 	private static final Logger log = Logger.getLogger(OnChangeEvictingCache.class);
 	
+	/**
+	 * The pending values that threads are currently waiting for.
+	 */
+	private static final ConcurrentMap<Thread, PendingValue> awaitedValues = new ConcurrentHashMap<Thread, PendingValue>();
+	
 	/**
 	 * A simple cache listener. It will be notified if the cache is cleared. 
 	 * The notification will only occur once. Listeners that are interested in subsequent notifications 
@@ -50,6 +63,93 @@ public class OnChangeEvictingCache implements IResourceScopeCache {
 		void onEvict(CacheAdapter cache);
 	}
 	
+	/**
+	 * A cache key that decides which changes of the resource evict its value. The values of all other keys are evicted
+	 * by any semantic change.
+	 * 
+	 * @since 2.20
+	 */
+	public static interface SelectiveKey {
+		/**
+		 * Returns <code>false</code> if the value of this key remains valid despite the given semantic change.
+		 */
+		boolean isEvictedBy(Notification notification);
+	}
+	
+	/**
+	 * A cache that computes the value of a key at most once at a time. Threads that ask for a value that is being
+	 * computed by another thread wait for that computation instead of repeating it. A thread that asks for a value
+	 * whose computation directly or transitively waits for the thread itself, e.g. the value that it's currently
+	 * computing, gets a new value that isn't cached. Waiters never get a value whose computation was overtaken by a
+	 * change of the resource.
+	 * 
+	 * @since 2.20
+	 */
+	@Singleton
+	public static class ComputeOnce extends OnChangeEvictingCache {
+		public ComputeOnce() {
+			super(true);
+		}
+	}
+	
+	/**
+	 * The hits, misses and compute time of the keys of one {@link OnChangeEvictingCache#getKeyType(Object) type}. The
+	 * compute time of a value includes the time that is spent to compute the nested cached values that it uses.
+	 * 
+	 * @since 2.20
+	 */
+	public static class KeyStatistics {
+		private final AtomicLong hits = new AtomicLong();
+		private final AtomicLong misses = new AtomicLong();
+		private final AtomicLong computeNanos = new AtomicLong();
+		
+		protected void hit() {
+			hits.incrementAndGet();
+		}
+		
+		protected void miss(long nanos) {
+			misses.incrementAndGet();
+			computeNanos.addAndGet(nanos);
+		}
+		
+		public long getHits() {
+			return hits.get();
+		}
+		
+		public long getMisses() {
+			return misses.get();
+		}
+		
+		/**
+		 * The total time in nanoseconds that was spent to compute the values.
+		 */
+		public long getComputeNanos() {
+			return computeNanos.get();
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("%d hits, %d misses, %d ms", getHits(), getMisses(), getComputeNanos() / 1000000);
+		}
+	}
+	
+	private final boolean computeOnce;
+	
+	private final Map<String, KeyStatistics> statistics = new ConcurrentHashMap<String, KeyStatistics>();
+	
+	private volatile boolean collectStatistics = false;
+	
+	public OnChangeEvictingCache() {
+		this(false);
+	}
+	
+	/**
+	 * @since 2.20
+	 */
+	protected OnChangeEvictingCache(boolean computeOnce) {
+		this.computeOnce = computeOnce;
+	}
+	
 	/**
 	 * Clears the cache of the given resource. 
 	 */
@@ -71,13 +171,17 @@ public class OnChangeEvictingCache implements IResourceScopeCache {
 			return provider.get();
 		}
 		CacheAdapter adapter = getOrCreate(resource);
+		KeyStatistics keyStatistics = getKeyStatistics(key);
 		T element = adapter.<T>internalGet(key);
 		if (element==null) {
-			element = provider.get();
-			cacheMiss(adapter);
-			adapter.set(key, element);
+			if (computeOnce) {
+				element = computeOnce(key, adapter, provider, keyStatistics);
+			} else {
+				element = compute(adapter, provider, keyStatistics);
+				adapter.set(key, element);
+			}
 		} else {
-			cacheHit(adapter);
+			hit(adapter, keyStatistics);
 		}
 		if (element == CacheAdapter.NULL) {
 			return null;
@@ -85,6 +189,201 @@ public class OnChangeEvictingCache implements IResourceScopeCache {
 		return element;
 	}
 	
+	private <T> T compute(CacheAdapter adapter, Provider<T> provider, KeyStatistics keyStatistics) {
+		long start = keyStatistics != null ? System.nanoTime() : 0;
+		T element = provider.get();
+		cacheMiss(adapter);
+		if (keyStatistics != null) {
+			keyStatistics.miss(System.nanoTime() - start);
+		}
+		return element;
+	}
+	
+	private void hit(CacheAdapter adapter, KeyStatistics keyStatistics) {
+		cacheHit(adapter);
+		if (keyStatistics != null) {
+			keyStatistics.hit();
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private <T> T computeOnce(Object key, CacheAdapter adapter, Provider<T> provider, KeyStatistics keyStatistics) {
+		while (true) {
+			PendingValue pending = new PendingValue();
+			Object existing = adapter.putIfAbsent(key, pending);
+			if (existing == null) {
+				T element;
+				try {
+					element = compute(adapter, provider, keyStatistics);
+				} catch (RuntimeException | Error e) {
+					adapter.values.remove(key, pending);
+					pending.done(null, false);
+					throw e;
+				}
+				pending.done(element, true);
+				adapter.replace(key, pending, element);
+				return element;
+			}
+			if (!(existing instanceof PendingValue)) {
+				hit(adapter, keyStatistics);
+				return (T) existing;
+			}
+			PendingValue other = (PendingValue) existing;
+			Thread current = Thread.currentThread();
+			// registered before the check, so that of two threads that start to wait for each other at least one notices
+			awaitedValues.put(current, other);
+			boolean deadlock;
+			boolean successful;
+			try {
+				deadlock = waitsFor(other.owner, current);
+				successful = !deadlock && other.await();
+			} finally {
+				awaitedValues.remove(current);
+			}
+			if (deadlock || current.isInterrupted()) {
+				return compute(adapter, provider, keyStatistics);
+			}
+			if (successful && !other.evicted) {
+				hit(adapter, keyStatistics);
+				return (T) other.value;
+			}
+			// the other thread failed or its value was evicted in the meantime, so try it ourselves
+		}
+	}
+	
+	/**
+	 * Returns <code>true</code> if the given thread is the other thread or waits for a value whose computation
+	 * directly or transitively waits for the other thread.
+	 */
+	private static boolean waitsFor(Thread thread, Thread other) {
+		Thread owner = thread;
+		// bounded in case the chain changes while it is followed
+		for (int i = 0; owner != null && i <= awaitedValues.size(); i++) {
+			if (owner == other) {
+				return true;
+			}
+			PendingValue awaited = awaitedValues.get(owner);
+			owner = awaited != null && !awaited.isDone() ? awaited.owner : null;
+		}
+		return false;
+	}
+	
+	/**
+	 * A value that is being computed by the owner thread.
+	 */
+	private static class PendingValue {
+		private final Thread owner = Thread.currentThread();
+		private final CountDownLatch latch = new CountDownLatch(1);
+		private volatile Object value;
+		private volatile boolean successful;
+		private volatile boolean evicted;
+		
+		private void done(Object value, boolean successful) {
+			this.value = value;
+			this.successful = successful;
+			latch.countDown();
+		}
+		
+		private boolean isDone() {
+			return latch.getCount() == 0;
+		}
+		
+		private boolean await() {
+			try {
+				latch.await();
+				return successful;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+	}
+	
+	/**
+	 * Enables or disables the collection of {@link #getStatistics() statistics} for the values of this cache.
+	 * Collecting statistics measures the time to compute each value.
+	 * 
+	 * @since 2.20
+	 */
+	public void setCollectStatistics(boolean collectStatistics) {
+		this.collectStatistics = collectStatistics;
+	}
+	
+	/**
+	 * @since 2.20
+	 */
+	public boolean isCollectStatistics() {
+		return collectStatistics;
+	}
+	
+	/**
+	 * Returns the statistics that have been collected so far, keyed by the {@link #getKeyType(Object) type} of the
+	 * cache keys. The returned map is a live view.
+	 * 
+	 * @since 2.20
+	 */
+	public Map<String, KeyStatistics> getStatistics() {
+		return Collections.unmodifiableMap(statistics);
+	}
+	
+	/**
+	 * @since 2.20
+	 */
+	public void resetStatistics() {
+		statistics.clear();
+	}
+	
+	private KeyStatistics getKeyStatistics(Object key) {
+		if (!collectStatistics) {
+			return null;
+		}
+		String keyType = getKeyType(key);
+		KeyStatistics result = statistics.get(keyType);
+		if (result == null) {
+			result = new KeyStatistics();
+			KeyStatistics existing = statistics.putIfAbsent(keyType, result);
+			if (existing != null) {
+				result = existing;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the type of the given cache key that the statistics are grouped by. String keys and class keys are
+	 * their own type. The type of a {@link Pair} or {@link Triple} is the type of its first component that is a
+	 * string or a class, e.g. the type of <code>Tuples.pair(object, "fqn")</code> is <code>"fqn"</code>. Other keys
+	 * are grouped by their class. Clients that compute string keys dynamically should override this method to keep
+	 * the number of types small.
+	 * 
+	 * @since 2.20
+	 */
+	protected String getKeyType(Object key) {
+		if (key instanceof String) {
+			return (String) key;
+		}
+		if (key instanceof Class<?>) {
+			return ((Class<?>) key).getName();
+		}
+		if (key instanceof Pair<?, ?>) {
+			Pair<?, ?> pair = (Pair<?, ?>) key;
+			if (isKeyType(pair.getFirst())) {
+				return getKeyType(pair.getFirst());
+			}
+			if (isKeyType(pair.getSecond())) {
+				return getKeyType(pair.getSecond());
+			}
+			if (pair instanceof Triple<?, ?, ?> && isKeyType(((Triple<?, ?, ?>) pair).getThird())) {
+				return getKeyType(((Triple<?, ?, ?>) pair).getThird());
+			}
+		}
+		return key.getClass().getName();
+	}
+	
+	private boolean isKeyType(Object component) {
+		return component instanceof String || component instanceof Class<?>;
+	}
+	
 	/**
 	 * Announce a cache miss for the internal statistics of the adapter.
 	 * @since 2.1
@@ -180,7 +479,7 @@ public class OnChangeEvictingCache implements IResourceScopeCache {
 		
 		private static final Object NULL = new Object();
 		
-		private final Map<Object, Object> values = new ConcurrentHashMap<Object, Object>(500);
+		private final ConcurrentMap<Object, Object> values = new ConcurrentHashMap<Object, Object>(500);
 
 		private final Collection<Listener> listeners = Sets.newLinkedHashSet();
 		
@@ -191,19 +490,46 @@ public class OnChangeEvictingCache implements IResourceScopeCache {
 		
 		private volatile boolean empty = true;
 		
+		private volatile boolean hasSelectiveKeys = false;
+		
 		private volatile IgnoreValuesMemento ignoreValuesMemento = null;
 		
 		private Resource resource;
 		
-		private int misses = 0;
-		private int hits = 0;
+		private final AtomicInteger misses = new AtomicInteger();
+		private final AtomicInteger hits = new AtomicInteger();
 
 		public void set(Object name, Object value) {
-			empty = false;
+			beforeStore(name);
 			if (value != null)
 				this.values.put(name, value);
 			else
 				this.values.put(name, NULL);
+			afterStore(name);
+		}
+		
+		private Object putIfAbsent(Object name, PendingValue pending) {
+			beforeStore(name);
+			Object result = values.putIfAbsent(name, pending);
+			if (result == null) {
+				afterStore(name);
+			}
+			return result;
+		}
+		
+		private void replace(Object name, PendingValue pending, Object value) {
+			// not replaced if the values have been cleared in the meantime
+			values.replace(name, pending, value != null ? value : NULL);
+		}
+		
+		private void beforeStore(Object name) {
+			empty = false;
+			if (name instanceof SelectiveKey) {
+				hasSelectiveKeys = true;
+			}
+		}
+		
+		private void afterStore(Object name) {
 			IgnoreValuesMemento ignoreValuesMemento = this.ignoreValuesMemento;
 			if (ignoreValuesMemento != null) {
 				ignoreValuesMemento.storeKey(name);
@@ -230,22 +556,24 @@ public class OnChangeEvictingCache implements IResourceScopeCache {
 		 * @since 2.1
 		 */
 		protected void cacheMiss() {
-			misses++;
+			misses.incrementAndGet();
 		}
 		
 		/**
 		 * @since 2.1
 		 */
 		protected void cacheHit() {
-			hits++;
+			hits.incrementAndGet();
 		}
 		
 		@SuppressWarnings("unchecked")
 		private <T> T internalGet(Object name) {
 			if (empty)
 				return null;
-			return (T) this.values.get(name);
-			
+			Object result = this.values.get(name);
+			if (result instanceof PendingValue)
+				return null;
+			return (T) result;
 		}
 		
 		public <T> T get(Object name) {
@@ -267,7 +595,11 @@ public class OnChangeEvictingCache implements IResourceScopeCache {
 		public void notifyChanged(Notification notification) {
 			super.notifyChanged(notification);
 			if (ignoreNotificationCounter.get() == 0 && !ignoreNotifications && isSemanticStateChange(notification)) {
-				clearValues();
+				if (hasSelectiveKeys) {
+					evictValues(notification);
+				} else {
+					clearValues();
+				}
 				Iterator<Listener> iter = listeners.iterator();
 				while(iter.hasNext()) {
 					Listener next = iter.next();
@@ -281,13 +613,47 @@ public class OnChangeEvictingCache implements IResourceScopeCache {
 			if (!empty) {
 				if (log.isDebugEnabled()) {
 					String lastSegment = resource != null && resource.getURI() != null ? resource.getURI().lastSegment() : "null";
+					int hits = this.hits.get();
+					int misses = this.misses.get();
 					log.debug(String.format("Clear %d cache entries for resource %s after %d hits and %d misses (quota: %d%%)", 
 							values.size(), lastSegment, hits, misses, hits + misses != 0 ? hits * 100 / (hits + misses) : 0));
 				}
+				for (Object value : values.values()) {
+					if (value instanceof PendingValue) {
+						((PendingValue) value).evicted = true;
+					}
+				}
 				values.clear();
 				empty = true;
-				misses = 0;
-				hits = 0;
+				hasSelectiveKeys = false;
+				misses.set(0);
+				hits.set(0);
+			}
+		}
+		
+		/**
+		 * Removes the values that are evicted by the given change and keeps the values of {@link SelectiveKey selective
+		 * keys} that remain valid.
+		 * 
+		 * @since 2.20
+		 */
+		protected void evictValues(Notification notification) {
+			boolean retained = false;
+			Iterator<Map.Entry<Object, Object>> iterator = values.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<Object, Object> entry = iterator.next();
+				Object key = entry.getKey();
+				if (key instanceof SelectiveKey && !((SelectiveKey) key).isEvictedBy(notification)) {
+					retained = true;
+				} else {
+					if (entry.getValue() instanceof PendingValue) {
+						((PendingValue) entry.getValue()).evicted = true;
+					}
+					iterator.remove();
+				}
+			}
+			if (!retained) {
+				clearValues();
 			}
 		}
 
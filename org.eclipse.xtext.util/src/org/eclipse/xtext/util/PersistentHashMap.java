@@ -0,0 +1,432 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A hash map whose {@link #copy() copies} are created in constant time. The entries are stored in a hash array mapped
+ * trie whose nodes are shared between a map and its copies. A map changes the nodes that it shares with a copy by
+ * copying the path from the root to the changed entry, so neither the map nor its copies observe the changes of the
+ * other. Nodes that are not shared are changed in place.
+ * <p>
+ * A copy that is no longer changed can be read by concurrent threads while the original map is changed. As usual,
+ * the map itself must not be changed concurrently. The map doesn't support <code>null</code> keys and values, and the
+ * iteration order is unspecified.
+ *
+ * @since 2.20
+ */
+public class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+	private static final int BITS = 5;
+
+	private static final int MASK = (1 << BITS) - 1;
+
+	/**
+	 * A node of the trie. A bitmap node has an entry for each set bit of its bitmap, which is either a key and a value
+	 * or <code>null</code> and a child node. A collision node holds the keys and values with the same hash.
+	 */
+	private static final class Node {
+
+		private final Object owner;
+
+		private final boolean collision;
+
+		private int bitmap;
+
+		private Object[] array;
+
+		private Node(Object owner, boolean collision, int bitmap, Object[] array) {
+			this.owner = owner;
+			this.collision = collision;
+			this.bitmap = bitmap;
+			this.array = array;
+		}
+
+	}
+
+	private static final class Result {
+		private boolean changedSize;
+		private Object oldValue;
+	}
+
+	private Node root;
+
+	private int size;
+
+	private Object owner = new Object();
+
+	public PersistentHashMap() {
+	}
+
+	public PersistentHashMap(Map<? extends K, ? extends V> map) {
+		putAll(map);
+	}
+
+	private PersistentHashMap(Node root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * Returns a copy of this map in constant time. The copy and this map can be changed independently.
+	 */
+	public PersistentHashMap<K, V> copy() {
+		// neither map may change the current nodes in place any longer
+		owner = new Object();
+		return new PersistentHashMap<K, V>(root, size);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		if (key == null || root == null) {
+			return null;
+		}
+		int hash = hash(key);
+		Node node = root;
+		int shift = 0;
+		while (true) {
+			Object[] array = node.array;
+			if (node.collision) {
+				for (int i = 0; i < array.length; i += 2) {
+					if (key.equals(array[i])) {
+						return (V) array[i + 1];
+					}
+				}
+				return null;
+			}
+			int bit = bit(hash, shift);
+			if ((node.bitmap & bit) == 0) {
+				return null;
+			}
+			int index = index(node.bitmap, bit);
+			Object candidate = array[index];
+			if (candidate == null) {
+				node = (Node) array[index + 1];
+				shift += BITS;
+			} else if (key.equals(candidate)) {
+				return (V) array[index + 1];
+			} else {
+				return null;
+			}
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V put(K key, V value) {
+		if (key == null || value == null) {
+			throw new NullPointerException();
+		}
+		Result result = new Result();
+		int hash = hash(key);
+		if (root == null) {
+			root = new Node(owner, false, bit(hash, 0), new Object[] { key, value });
+			result.changedSize = true;
+		} else {
+			root = put(root, hash, key, value, 0, result);
+		}
+		if (result.changedSize) {
+			size++;
+		}
+		return (V) result.oldValue;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) {
+		if (key == null || root == null) {
+			return null;
+		}
+		Result result = new Result();
+		root = remove(root, hash(key), key, 0, result);
+		if (result.changedSize) {
+			size--;
+		}
+		return (V) result.oldValue;
+	}
+
+	@Override
+	public void clear() {
+		root = null;
+		size = 0;
+	}
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		return new AbstractSet<Entry<K, V>>() {
+			@Override
+			public Iterator<Entry<K, V>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	private Node put(Node node, int hash, Object key, Object value, int shift, Result result) {
+		Object[] array = node.array;
+		if (node.collision) {
+			if (hash(array[0]) != hash) {
+				// the collision node becomes a child of a new bitmap node
+				Node parent = new Node(owner, false, bit(hash(array[0]), shift), new Object[] { null, node });
+				return put(parent, hash, key, value, shift, result);
+			}
+			for (int i = 0; i < array.length; i += 2) {
+				if (key.equals(array[i])) {
+					if (array[i + 1] == value) {
+						return node;
+					}
+					result.oldValue = array[i + 1];
+					Node editable = editable(node);
+					editable.array[i + 1] = value;
+					return editable;
+				}
+			}
+			Object[] newArray = new Object[array.length + 2];
+			System.arraycopy(array, 0, newArray, 0, array.length);
+			newArray[array.length] = key;
+			newArray[array.length + 1] = value;
+			result.changedSize = true;
+			return withArray(node, node.bitmap, newArray);
+		}
+		int bit = bit(hash, shift);
+		int index = index(node.bitmap, bit);
+		if ((node.bitmap & bit) == 0) {
+			Object[] newArray = new Object[array.length + 2];
+			System.arraycopy(array, 0, newArray, 0, index);
+			newArray[index] = key;
+			newArray[index + 1] = value;
+			System.arraycopy(array, index, newArray, index + 2, array.length - index);
+			result.changedSize = true;
+			return withArray(node, node.bitmap | bit, newArray);
+		}
+		Object candidate = array[index];
+		if (candidate == null) {
+			Node child = (Node) array[index + 1];
+			Node newChild = put(child, hash, key, value, shift + BITS, result);
+			if (newChild == child) {
+				return node;
+			}
+			Node editable = editable(node);
+			editable.array[index + 1] = newChild;
+			return editable;
+		}
+		if (key.equals(candidate)) {
+			if (array[index + 1] == value) {
+				return node;
+			}
+			result.oldValue = array[index + 1];
+			Node editable = editable(node);
+			editable.array[index + 1] = value;
+			return editable;
+		}
+		Node child = createNode(shift + BITS, candidate, array[index + 1], key, value, hash);
+		result.changedSize = true;
+		Node editable = editable(node);
+		editable.array[index] = null;
+		editable.array[index + 1] = child;
+		return editable;
+	}
+
+	private Node createNode(int shift, Object key1, Object value1, Object key2, Object value2, int hash2) {
+		int hash1 = hash(key1);
+		if (hash1 == hash2) {
+			return new Node(owner, true, 0, new Object[] { key1, value1, key2, value2 });
+		}
+		int bit1 = bit(hash1, shift);
+		int bit2 = bit(hash2, shift);
+		if (bit1 == bit2) {
+			Node child = createNode(shift + BITS, key1, value1, key2, value2, hash2);
+			return new Node(owner, false, bit1, new Object[] { null, child });
+		}
+		if (Integer.compareUnsigned(bit1, bit2) < 0) {
+			return new Node(owner, false, bit1 | bit2, new Object[] { key1, value1, key2, value2 });
+		}
+		return new Node(owner, false, bit1 | bit2, new Object[] { key2, value2, key1, value1 });
+	}
+
+	private Node remove(Node node, int hash, Object key, int shift, Result result) {
+		Object[] array = node.array;
+		if (node.collision) {
+			for (int i = 0; i < array.length; i += 2) {
+				if (key.equals(array[i])) {
+					result.oldValue = array[i + 1];
+					result.changedSize = true;
+					if (array.length == 2) {
+						return null;
+					}
+					return withArray(node, node.bitmap, without(array, i));
+				}
+			}
+			return node;
+		}
+		int bit = bit(hash, shift);
+		if ((node.bitmap & bit) == 0) {
+			return node;
+		}
+		int index = index(node.bitmap, bit);
+		Object candidate = array[index];
+		if (candidate == null) {
+			Node child = (Node) array[index + 1];
+			Node newChild = remove(child, hash, key, shift + BITS, result);
+			if (newChild == child) {
+				return node;
+			}
+			if (newChild == null) {
+				if (array.length == 2) {
+					return null;
+				}
+				return withArray(node, node.bitmap & ~bit, without(array, index));
+			}
+			Node editable = editable(node);
+			if (newChild.array.length == 2 && newChild.array[0] != null) {
+				// a child with a single entry is inlined
+				editable.array[index] = newChild.array[0];
+				editable.array[index + 1] = newChild.array[1];
+			} else {
+				editable.array[index + 1] = newChild;
+			}
+			return editable;
+		}
+		if (!key.equals(candidate)) {
+			return node;
+		}
+		result.oldValue = array[index + 1];
+		result.changedSize = true;
+		if (array.length == 2) {
+			return null;
+		}
+		return withArray(node, node.bitmap & ~bit, without(array, index));
+	}
+
+	private Node editable(Node node) {
+		if (node.owner == owner) {
+			return node;
+		}
+		return new Node(owner, node.collision, node.bitmap, node.array.clone());
+	}
+
+	private Node withArray(Node node, int bitmap, Object[] array) {
+		if (node.owner == owner) {
+			node.bitmap = bitmap;
+			node.array = array;
+			return node;
+		}
+		return new Node(owner, node.collision, bitmap, array);
+	}
+
+	private static Object[] without(Object[] array, int index) {
+		Object[] result = new Object[array.length - 2];
+		System.arraycopy(array, 0, result, 0, index);
+		System.arraycopy(array, index + 2, result, index, array.length - index - 2);
+		return result;
+	}
+
+	private static int hash(Object key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private static int bit(int hash, int shift) {
+		return 1 << ((hash >>> shift) & MASK);
+	}
+
+	private static int index(int bitmap, int bit) {
+		return 2 * Integer.bitCount(bitmap & (bit - 1));
+	}
+
+	/**
+	 * Iterates the entries of the nodes as they were when the iteration started.
+	 */
+	private class EntryIterator implements Iterator<Entry<K, V>> {
+
+		private final Deque<Object[]> arrays = new ArrayDeque<Object[]>();
+
+		private final Deque<Integer> indexes = new ArrayDeque<Integer>();
+
+		private Entry<K, V> next;
+
+		private Entry<K, V> last;
+
+		private EntryIterator() {
+			if (root != null) {
+				arrays.push(root.array);
+				indexes.push(0);
+			}
+			next = computeNext();
+		}
+
+		@SuppressWarnings("unchecked")
+		private Entry<K, V> computeNext() {
+			while (!arrays.isEmpty()) {
+				Object[] array = arrays.peek();
+				int index = indexes.pop();
+				if (index >= array.length) {
+					arrays.pop();
+					continue;
+				}
+				indexes.push(index + 2);
+				if (array[index] == null) {
+					arrays.push(((Node) array[index + 1]).array);
+					indexes.push(0);
+				} else {
+					return new SimpleImmutableEntry<K, V>((K) array[index], (V) array[index + 1]);
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public Entry<K, V> next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			last = next;
+			next = computeNext();
+			return last;
+		}
+
+		@Override
+		public void remove() {
+			if (last == null) {
+				throw new IllegalStateException();
+			}
+			PersistentHashMap.this.remove(last.getKey());
+			last = null;
+		}
+
+	}
+
+}
@@ -31,9 +31,17 @@ class BuildContext {
 	ClusteringStorageAwareResourceLoader loader
 	
 	def <T> Iterable<T> executeClustered(Iterable<URI> uri, (Resource)=>T operation) {
+		return executeClustered(uri, operation, [])
+	}
+	
+	/**
+	 * @param beforeUnload invoked whenever a cluster of resources has been processed and is about to be unloaded.
+	 * @since 2.20
+	 */
+	def <T> Iterable<T> executeClustered(Iterable<URI> uri, (Resource)=>T operation, ()=>void beforeUnload) {
 		if(loader === null) 
 			loader = new ClusteringStorageAwareResourceLoader(this)
-		return loader.executeClustered(uri.filter[canHandle], operation)
+		return loader.executeClustered(uri.filter[canHandle], operation, beforeUnload)
 	}
 	
 	protected def boolean canHandle(URI uri) {
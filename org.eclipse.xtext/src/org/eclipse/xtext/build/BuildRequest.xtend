@@ -9,8 +9,10 @@ package org.eclipse.xtext.build
 
 import java.io.File
 import java.util.List
+import java.util.concurrent.Executor
 import org.eclipse.emf.common.util.URI
 import org.eclipse.xtend.lib.annotations.Accessors
+import org.eclipse.xtext.generator.WriteBehindQueue
 import org.eclipse.xtext.resource.IResourceDescription
 import org.eclipse.xtext.resource.XtextResourceSet
 import org.eclipse.xtext.util.internal.Log
@@ -50,6 +52,26 @@ class BuildRequest {
 	boolean writeStorageResources = false
 	boolean indexOnly = false
 	
+	/**
+	 * Don't touch generated files whose content did not change.
+	 * @since 2.20
+	 */
+	boolean skipUnchangedGeneratedFiles = false
+	
+	/**
+	 * If set, generated files are written asynchronously. The build waits for all pending writes before it returns.
+	 * @since 2.20
+	 */
+	WriteBehindQueue writeBehindQueue
+	
+	/**
+	 * If set, {@link org.eclipse.xtext.generator.IThreadSafeGenerator thread-safe generators} are executed by this
+	 * executor. They are started in parallel once a cluster of resources has been loaded and validated, and the build
+	 * waits for them before it continues with the next cluster.
+	 * @since 2.20
+	 */
+	Executor generatorExecutor
+	
 	XtextResourceSet resourceSet
 	CancelIndicator cancelIndicator = CancelIndicator.NullImpl
 	
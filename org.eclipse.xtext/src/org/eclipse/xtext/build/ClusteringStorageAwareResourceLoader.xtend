@@ -23,6 +23,13 @@ class ClusteringStorageAwareResourceLoader {
 	val extension BuildContext context
 
 	def <T> Iterable<T> executeClustered(Iterable<URI> uris, (Resource)=>T operation) {
+		return executeClustered(uris, operation, [])
+	}
+
+	/**
+	 * @since 2.20
+	 */
+	def <T> Iterable<T> executeClustered(Iterable<URI> uris, (Resource)=>T operation, ()=>void beforeUnload) {
 		var loadedURIsCount = 0
 		val sourceLevelURIs = <URI>newHashSet
 		val resources = newArrayList
@@ -32,7 +39,9 @@ class ClusteringStorageAwareResourceLoader {
 			val uri = iter.next
 			if (!clusteringPolicy.continueProcessing(resourceSet, uri, loadedURIsCount)) {
 				result += resources.map[operation.apply(it)]
+				beforeUnload.apply
 				clearResourceSet
+				resources.clear
 				loadedURIsCount = 0
 			}
 			loadedURIsCount++;
@@ -9,7 +9,10 @@ package org.eclipse.xtext.build
 
 import com.google.inject.Inject
 import com.google.inject.Provider
+import java.util.ArrayList
 import java.util.List
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
 import org.eclipse.emf.common.util.URI
 import org.eclipse.emf.ecore.resource.Resource
 import org.eclipse.xtend.lib.annotations.Accessors
@@ -37,6 +40,7 @@ import org.eclipse.xtext.workspace.IProjectConfigProvider
 import org.eclipse.xtext.generator.GeneratorContext
 import org.eclipse.xtext.resource.XtextResource
 import com.google.inject.Singleton
+import org.eclipse.xtext.xbase.lib.Exceptions
 
 /**
  * @author Jan Koehnlein - Initial contribution and API
@@ -57,6 +61,12 @@ class IncrementalBuilder {
 		@Inject Indexer indexer
 		@Inject extension OperationCanceledManager
 		
+		/**
+		 * Generators that will run on the {@link BuildRequest#getGeneratorExecutor() generator executor} as soon as
+		 * the current cluster of resources has been processed, and the steps that complete them on the build thread.
+		 */
+		val deferredGenerations = <Pair<()=>void, (CompletableFuture<Void>)=>void>>newArrayList
+		
 		protected def void unloadResource(URI uri) {
 			val resource = request.resourceSet.getResource(uri, false)
 			if (resource !== null) {
@@ -103,29 +113,37 @@ class IncrementalBuilder {
 			// add deleted deltas
 			resolvedDeltas += result.resourceDeltas.filter[getNew === null]
 			// add changed and added as fully resolved
-			resolvedDeltas += result.resourceDeltas.filter[getNew !== null].map[uri]
-				.executeClustered [
-					Resource resource |
-					request.cancelIndicator.checkCanceled
-					resource.contents // fully initialize
-					EcoreUtil2.resolveLazyCrossReferences(resource, CancelIndicator.NullImpl)
-					request.cancelIndicator.checkCanceled
-					val serviceProvider = resource.resourceServiceProvider
-					val manager = serviceProvider.resourceDescriptionManager
-					val description = manager.getResourceDescription(resource);
-					val copiedDescription = SerializableResourceDescription.createCopy(description);
-					result.newIndex.addDescription(resource.getURI, copiedDescription)
-					request.cancelIndicator.checkCanceled
-					if (!request.indexOnly 
-						&& resource.validate 
-						&& serviceProvider.get(IShouldGenerate).shouldGenerate(resource, CancelIndicator.NullImpl)
-					) {
+			try {
+				resolvedDeltas += result.resourceDeltas.filter[getNew !== null].map[uri]
+					.executeClustered([
+						Resource resource |
 						request.cancelIndicator.checkCanceled
-						resource.generate(request, newSource2GeneratedMapping)
-					}
-					val old = oldState.resourceDescriptions.getResourceDescription(resource.getURI)
-					return manager.createDelta(old, copiedDescription)
-				]
+						resource.contents // fully initialize
+						EcoreUtil2.resolveLazyCrossReferences(resource, CancelIndicator.NullImpl)
+						request.cancelIndicator.checkCanceled
+						val serviceProvider = resource.resourceServiceProvider
+						val manager = serviceProvider.resourceDescriptionManager
+						val description = manager.getResourceDescription(resource);
+						val copiedDescription = SerializableResourceDescription.createCopy(description);
+						result.newIndex.addDescription(resource.getURI, copiedDescription)
+						request.cancelIndicator.checkCanceled
+						if (!request.indexOnly 
+							&& resource.validate 
+							&& serviceProvider.get(IShouldGenerate).shouldGenerate(resource, CancelIndicator.NullImpl)
+						) {
+							request.cancelIndicator.checkCanceled
+							resource.generate(request, newSource2GeneratedMapping)
+						}
+						val old = oldState.resourceDescriptions.getResourceDescription(resource.getURI)
+						return manager.createDelta(old, copiedDescription)
+					], [
+						generateDeferred
+					])
+				generateDeferred
+			} finally {
+				discardGeneration
+			}
+			request.writeBehindQueue?.flush
 			return new Result(request.state, resolvedDeltas)
 		}
 		
@@ -151,17 +169,24 @@ class IncrementalBuilder {
 			if (generator === null) {
 				return;
 			}
-			val previous = newMappings.deleteSource(resource.getURI)
+			// the mappings and callbacks are guarded by the mappings' monitor, since generators may run concurrently
+			val previous = synchronized (newMappings) {
+				newMappings.deleteSource(resource.getURI)
+			}
 			val fileSystemAccess = createFileSystemAccess(serviceProvider, resource) => [
 				beforeWrite = [ uri, outputCfgName, contents |
-					newMappings.addSource2Generated(resource.getURI, uri, outputCfgName)
-					previous.remove(uri)
-					request.afterGenerateFile.apply(resource.getURI, uri)
+					synchronized (newMappings) {
+						newMappings.addSource2Generated(resource.getURI, uri, outputCfgName)
+						previous.remove(uri)
+						request.afterGenerateFile.apply(resource.getURI, uri)
+					}
 					return contents
 				]
 				beforeDelete = [ uri |
-					newMappings.deleteGenerated(uri)
-					request.afterDeleteFile.apply(uri)
+					synchronized (newMappings) {
+						newMappings.deleteGenerated(uri)
+						request.afterDeleteFile.apply(uri)
+					}
 					return true
 				]
 			]
@@ -175,12 +200,90 @@ class IncrementalBuilder {
 			}
 			val generatorContext = new GeneratorContext
 			generatorContext.cancelIndicator = request.cancelIndicator
-			generator.generate(resource, fileSystemAccess, generatorContext)
 			// delete everything that was previously generated, but not this time
-			previous.forEach[
-				context.resourceSet.getURIConverter.delete(it, emptyMap)
-				request.getAfterDeleteFile.apply(it)
+			val deletePrevious = [|
+				previous.forEach[
+					context.resourceSet.getURIConverter.delete(it, emptyMap)
+					request.getAfterDeleteFile.apply(it)
+				]
+			]
+			val executor = request.generatorExecutor
+			if (executor === null || !generator.isThreadSafe) {
+				generator.generate(resource, fileSystemAccess, generatorContext)
+				deletePrevious.apply
+				return
+			}
+			try {
+				generator.beforeGenerate(resource, fileSystemAccess, generatorContext)
+			} catch (Throwable t) {
+				generator.afterGenerate(resource, fileSystemAccess, generatorContext)
+				throw t
+			}
+			val ()=>void doGenerate = [|
+				generator.doGenerate(resource, fileSystemAccess, generatorContext)
 			]
+			val (CompletableFuture<Void>)=>void complete = [ future |
+				try {
+					future.join
+				} catch (CompletionException e) {
+					throw Exceptions.sneakyThrow(e.cause)
+				} finally {
+					generator.afterGenerate(resource, fileSystemAccess, generatorContext)
+				}
+				deletePrevious.apply
+			]
+			deferredGenerations.add(doGenerate -> complete)
+		}
+		
+		/**
+		 * Runs the deferred {@link org.eclipse.xtext.generator.IThreadSafeGenerator thread-safe generators} of the
+		 * current cluster on the {@link BuildRequest#getGeneratorExecutor() generator executor} and completes them on
+		 * the build thread.
+		 * <p>
+		 * The resources of the cluster have been loaded, resolved and validated at this point. The build thread waits
+		 * until all generators are done, so the resource set is not accessed by the builder while they are running.
+		 * 
+		 * @since 2.20
+		 */
+		protected def void generateDeferred() {
+			val deferred = new ArrayList(deferredGenerations)
+			deferredGenerations.clear
+			if (deferred.empty) {
+				return
+			}
+			val futures = <CompletableFuture<Void>>newArrayList
+			for (generation : deferred) {
+				futures += try {
+					CompletableFuture.runAsync(generation.key, request.generatorExecutor)
+				} catch (RuntimeException e) {
+					val CompletableFuture<Void> rejected = new CompletableFuture
+					rejected.completeExceptionally(e)
+					rejected
+				}
+			}
+			// let all generators finish before the first failure is propagated
+			CompletableFuture.allOf(futures).exceptionally[null].join
+			var Throwable failure = null
+			for (i : 0 ..< deferred.size) {
+				try {
+					deferred.get(i).value.apply(futures.get(i))
+				} catch (Throwable t) {
+					if (failure === null)
+						failure = t
+				}
+			}
+			if (failure !== null) {
+				throw Exceptions.sneakyThrow(failure)
+			}
+		}
+		
+		/**
+		 * Forgets the deferred generators that have not been started when the build fails.
+		 * 
+		 * @since 2.20
+		 */
+		protected def void discardGeneration() {
+			deferredGenerations.clear
 		}
 		
 		@Singleton
@@ -209,6 +312,9 @@ class IncrementalBuilder {
 						currentSource = sourceFolder?.name
 					}
 					converter = resource.resourceSet.getURIConverter
+					skipUnchangedFiles = request.skipUnchangedGeneratedFiles
+					contentHashStore = request.state.fileMappings
+					writeBehindQueue = request.writeBehindQueue
 				]
 			}
 		}
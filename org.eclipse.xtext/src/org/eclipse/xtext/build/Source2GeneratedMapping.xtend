@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,37 +7,60 @@
  *******************************************************************************/
 package org.eclipse.xtext.build
 
-import com.google.common.collect.HashMultimap
+import com.google.common.collect.ImmutableSet
 import com.google.common.collect.Lists
 import com.google.common.collect.Multimap
 import java.io.Externalizable
 import java.io.IOException
 import java.io.ObjectInput
 import java.io.ObjectOutput
-import java.util.HashMap
 import java.util.HashSet
 import java.util.List
 import java.util.Map
 import java.util.Set
 import org.eclipse.emf.common.util.URI
-import org.eclipse.xtend.lib.annotations.FinalFieldsConstructor
 import org.eclipse.xtext.generator.IFileSystemAccess
+import org.eclipse.xtext.generator.URIBasedFileSystemAccess
+import org.eclipse.xtext.util.PersistentHashMap
 
 /**
+ * The mapping is backed by {@link PersistentHashMap persistent maps}, so a {@link #copy() copy} is created in
+ * constant time.
+ * 
  * @author Jan Koehnlein - Initial contribution and API
  */
-@FinalFieldsConstructor class Source2GeneratedMapping implements Externalizable {
+class Source2GeneratedMapping implements Externalizable, URIBasedFileSystemAccess.ContentHashStore {
 	
-	val Multimap<URI, URI> source2generated
-	val Multimap<URI, URI> generated2source
-	val Map<URI,String> generated2OutputConfigName
+	val PersistentHashMap<URI, Set<URI>> source2generated
+	val PersistentHashMap<URI, Set<URI>> generated2source
+	val PersistentHashMap<URI,String> generated2OutputConfigName
+	/**
+	 * The content hashes are not externalized. They may be updated by concurrently running generators.
+	 */
+	val PersistentHashMap<URI,String> generated2ContentHash
 	
 	new() {
-		this(HashMultimap.create, HashMultimap.create, newHashMap)
+		this(new PersistentHashMap, new PersistentHashMap, new PersistentHashMap, new PersistentHashMap)
+	}
+	
+	new(Multimap<URI, URI> source2generated, Multimap<URI, URI> generated2source, Map<URI,String> generated2OutputConfigName) {
+		this(new PersistentHashMap, new PersistentHashMap, new PersistentHashMap(generated2OutputConfigName), new PersistentHashMap)
+		source2generated.asMap.forEach[key, value| this.source2generated.put(key, ImmutableSet.copyOf(value))]
+		generated2source.asMap.forEach[key, value| this.generated2source.put(key, ImmutableSet.copyOf(value))]
+	}
+	
+	private new(PersistentHashMap<URI, Set<URI>> source2generated, PersistentHashMap<URI, Set<URI>> generated2source,
+		PersistentHashMap<URI,String> generated2OutputConfigName, PersistentHashMap<URI,String> generated2ContentHash) {
+		this.source2generated = source2generated
+		this.generated2source = generated2source
+		this.generated2OutputConfigName = generated2OutputConfigName
+		this.generated2ContentHash = generated2ContentHash
 	}
 	
 	def copy() {
-		new Source2GeneratedMapping(HashMultimap.create(source2generated), HashMultimap.create(generated2source), new HashMap(generated2OutputConfigName))
+		synchronized (generated2ContentHash) {
+			return new Source2GeneratedMapping(source2generated.copy, generated2source.copy, generated2OutputConfigName.copy, generated2ContentHash.copy)
+		}
 	}
 	
 	def void addSource2Generated(URI source, URI generated) {
@@ -45,41 +68,65 @@ import org.eclipse.xtext.generator.IFileSystemAccess
 	}
 	
 	def void addSource2Generated(URI source, URI generated, String outputCfgName) {
-		source2generated.put(source, generated)
-		generated2source.put(generated, source)
+		source2generated.addValue(source, generated)
+		generated2source.addValue(generated, source)
 		generated2OutputConfigName.put(generated, outputCfgName)
 	}
 	
 	def void removeSource2Generated(URI source, URI generated) {
-		source2generated.remove(source, generated)
-		generated2source.remove(generated, source)
+		source2generated.removeValue(source, generated)
+		generated2source.removeValue(generated, source)
 	}
 	
 	def Set<URI> deleteSource(URI source) {
-		val generated = new HashSet<URI>(source2generated.removeAll(source))
+		val generated = new HashSet<URI>(source2generated.remove(source) ?: emptySet)
 		generated.forEach[
-			generated2source.remove(it, source)
+			generated2source.removeValue(it, source)
 		]
 		return generated
 	}
 
 	def void deleteGenerated(URI generated) {
-		generated2source.removeAll(generated).forEach[
-			source2generated.remove(it, generated)
+		(generated2source.remove(generated) ?: emptySet).forEach[
+			source2generated.removeValue(it, generated)
 		]
 		generated2OutputConfigName.remove(generated)
+		synchronized (generated2ContentHash) {
+			generated2ContentHash.remove(generated)
+		}
 	}
 	
 	def String getOutputConfigName(URI generated) {
 		return generated2OutputConfigName.get(generated)
 	}
 	
+	/**
+	 * @since 2.20
+	 */
+	override String getContentHash(URI generated) {
+		synchronized (generated2ContentHash) {
+			return generated2ContentHash.get(generated)
+		}
+	}
+	
+	/**
+	 * @since 2.20
+	 */
+	override void setContentHash(URI generated, String contentHash) {
+		synchronized (generated2ContentHash) {
+			if (contentHash === null)
+				generated2ContentHash.remove(generated)
+			else
+				generated2ContentHash.put(generated, contentHash)
+		}
+	}
+	
 	def List<URI> getGenerated(URI source) {
-		return Lists.newArrayList(source2generated.get(source))
+		return Lists.newArrayList(source2generated.get(source) ?: emptySet)
 	}
 
 	def List<URI> getSource(URI generated) {
-		return Lists.newArrayList(generated2source.get(generated))
+		return Lists.newArrayList(generated2source.get(generated) ?: emptySet)
 	}
 	
 	def List<URI> getAllGenerated() {
@@ -100,7 +147,7 @@ import org.eclipse.xtext.generator.IFileSystemAccess
 	}
 	
 	override writeExternal(ObjectOutput out) throws IOException {
-		val entries = source2generated.asMap.entrySet
+		val entries = source2generated.entrySet
 		out.writeInt(entries.size)
 		entries.forEach [
 			out.writeUTF(key.toString)
@@ -111,4 +158,24 @@ import org.eclipse.xtext.generator.IFileSystemAccess
 			]
 		]
 	}
+	
+	private static def void addValue(Map<URI, Set<URI>> map, URI key, URI value) {
+		val values = map.get(key)
+		if (values === null) {
+			map.put(key, ImmutableSet.of(value))
+		} else if (!values.contains(value)) {
+			map.put(key, ImmutableSet.builder.addAll(values).add(value).build)
+		}
+	}
+	
+	private static def void removeValue(Map<URI, Set<URI>> map, URI key, URI value) {
+		val values = map.get(key)
+		if (values !== null && values.contains(value)) {
+			if (values.size == 1) {
+				map.remove(key)
+			} else {
+				map.put(key, ImmutableSet.copyOf(values.filter[it != value]))
+			}
+		}
+	}
 }
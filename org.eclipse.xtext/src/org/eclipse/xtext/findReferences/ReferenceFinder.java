@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2016 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2011, 2016, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,9 +9,17 @@ package org.eclipse.xtext.findReferences;
 
 import static com.google.common.collect.Iterables.*;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.emf.common.util.URI;
@@ -27,14 +35,21 @@ import org.eclipse.xtext.resource.IReferenceDescription;
 import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.IResourceDescriptions;
 import org.eclipse.xtext.resource.IResourceServiceProvider;
+import org.eclipse.xtext.resource.persistence.SerializableResourceDescription;
 import org.eclipse.xtext.util.concurrent.IUnitOfWork;
 
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
 /**
+ * If an {@link #setExecutorService(ExecutorService) executor service} is available,
+ * {@link #findAllReferences(TargetURIs, IResourceAccess, IResourceDescriptions, Acceptor, IProgressMonitor)} scans
+ * the reference descriptions of the index in parallel. The acceptor is still called from the calling thread only, in
+ * the order of the index, and resources are still loaded through the resource access on the calling thread.
+ * 
  * @author Sebastian Zarnekow - Initial contribution and API
  */
 @Singleton
@@ -45,6 +60,8 @@ public class ReferenceFinder implements IReferenceFinder {
 	
 	protected static final int MONITOR_CHUNK_SIZE = 100;
 	
+	private ExecutorService executorService;
+	
 	@Inject
 	public ReferenceFinder() {
 		super();
@@ -58,6 +75,33 @@ public class ReferenceFinder implements IReferenceFinder {
 		return serviceProviderRegistry;
 	}
 	
+	/**
+	 * Sets the executor service that scans the index in parallel. Without an executor service, the index is scanned
+	 * sequentially.
+	 * 
+	 * @since 2.20
+	 */
+	@Inject(optional = true)
+	public void setExecutorService(ExecutorService executorService) {
+		this.executorService = executorService;
+	}
+	
+	/**
+	 * @since 2.20
+	 */
+	protected ExecutorService getExecutorService() {
+		return executorService;
+	}
+	
+	/**
+	 * The maximum number of tasks that scan the index in parallel, in addition to the calling thread.
+	 * 
+	 * @since 2.20
+	 */
+	protected int getParallelism() {
+		return Runtime.getRuntime().availableProcessors() - 1;
+	}
+	
 	@Override
 	public void findReferences(
 			TargetURIs targetURIs,
@@ -170,6 +214,14 @@ public class ReferenceFinder implements IReferenceFinder {
 	public void findAllReferences(TargetURIs targetURIs, IResourceAccess resourceAccess,
 			IResourceDescriptions indexData, Acceptor acceptor, IProgressMonitor monitor) {
 		if (!targetURIs.isEmpty()) {
+			ExecutorService executorService = getExecutorService();
+			if (executorService != null && getParallelism() > 0) {
+				List<IResourceDescription> allResourceDescriptions = Lists.newArrayList(indexData.getAllResourceDescriptions());
+				if (allResourceDescriptions.size() > MONITOR_CHUNK_SIZE) {
+					findAllReferencesInParallel(targetURIs, resourceAccess, allResourceDescriptions, acceptor, monitor, executorService);
+					return;
+				}
+			}
 			Iterable<IResourceDescription> allResourceDescriptions = indexData.getAllResourceDescriptions();
 			SubMonitor subMonitor = SubMonitor.convert(monitor, size(allResourceDescriptions) / MONITOR_CHUNK_SIZE + 1);
 			IProgressMonitor useMe = subMonitor.newChild(1);
@@ -187,6 +239,133 @@ public class ReferenceFinder implements IReferenceFinder {
 		}
 	}
 
+	/**
+	 * Scans the given descriptions in partitions of {@link #MONITOR_CHUNK_SIZE} on the executor service. The calling
+	 * thread scans partitions, too, so it never waits for a partition that no task has started. The results of each
+	 * partition are passed to the acceptor on the calling thread in the order of the descriptions. The descriptions
+	 * whose resources have to be loaded, and those of language specific finders that are not a
+	 * {@link ReferenceFinder}, are processed on the calling thread at their position in that order.
+	 * 
+	 * @since 2.20
+	 */
+	protected void findAllReferencesInParallel(TargetURIs targetURIs, IResourceAccess resourceAccess,
+			List<IResourceDescription> allResourceDescriptions, Acceptor acceptor, IProgressMonitor monitor,
+			ExecutorService executorService) {
+		int partitionCount = (allResourceDescriptions.size() + MONITOR_CHUNK_SIZE - 1) / MONITOR_CHUNK_SIZE;
+		SubMonitor subMonitor = SubMonitor.convert(monitor, partitionCount);
+		List<CompletableFuture<List<Match>>> partitions = new ArrayList<>(partitionCount);
+		for (int i = 0; i < partitionCount; i++) {
+			partitions.add(new CompletableFuture<>());
+		}
+		AtomicInteger nextPartition = new AtomicInteger();
+		IProgressMonitor workerMonitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return subMonitor.isCanceled() || super.isCanceled();
+			}
+		};
+		Runnable scanner = () -> {
+			int partition;
+			while (!workerMonitor.isCanceled() && (partition = nextPartition.getAndIncrement()) < partitionCount) {
+				scanPartition(targetURIs, resourceAccess, allResourceDescriptions, partition, partitions.get(partition), workerMonitor);
+			}
+		};
+		try {
+			int tasks = Math.min(getParallelism(), partitionCount - 1);
+			for (int i = 0; i < tasks; i++) {
+				executorService.execute(scanner);
+			}
+		} catch (RejectedExecutionException e) {
+			// the calling thread scans the remaining partitions
+		}
+		try {
+			for (int i = 0; i < partitionCount; i++) {
+				CompletableFuture<List<Match>> result = partitions.get(i);
+				while (!result.isDone()) {
+					if (subMonitor.isCanceled())
+						throw new OperationCanceledException();
+					int partition = nextPartition.getAndIncrement();
+					if (partition < partitionCount) {
+						scanPartition(targetURIs, resourceAccess, allResourceDescriptions, partition, partitions.get(partition), workerMonitor);
+					} else {
+						break;
+					}
+				}
+				List<Match> found;
+				try {
+					found = result.join();
+				} catch (CompletionException e) {
+					if (e.getCause() instanceof RuntimeException)
+						throw (RuntimeException) e.getCause();
+					if (e.getCause() instanceof Error)
+						throw (Error) e.getCause();
+					throw e;
+				}
+				IProgressMonitor useMe = subMonitor.newChild(1);
+				for (Match match : found) {
+					if (subMonitor.isCanceled())
+						throw new OperationCanceledException();
+					match.replay(acceptor, useMe);
+				}
+			}
+		} finally {
+			// let the tasks stop early if the search failed or was cancelled
+			nextPartition.set(partitionCount);
+		}
+	}
+	
+	/**
+	 * Returns <code>true</code> if the references of the given description can be read concurrently. Descriptions
+	 * that compute their references from a loaded resource on demand are scanned on the calling thread.
+	 * 
+	 * @since 2.20
+	 */
+	protected boolean canScanInParallel(IResourceDescription resourceDescription) {
+		return resourceDescription instanceof SerializableResourceDescription;
+	}
+	
+	/**
+	 * A reference that was found by a task, or a search that has to run on the calling thread.
+	 */
+	private interface Match {
+		void replay(Acceptor acceptor, IProgressMonitor monitor);
+	}
+	
+	private void scanPartition(TargetURIs targetURIs, IResourceAccess resourceAccess,
+			List<IResourceDescription> allResourceDescriptions, int partition, CompletableFuture<List<Match>> result,
+			IProgressMonitor monitor) {
+		try {
+			List<Match> matches = new ArrayList<>();
+			int end = Math.min((partition + 1) * MONITOR_CHUNK_SIZE, allResourceDescriptions.size());
+			for (int i = partition * MONITOR_CHUNK_SIZE; i < end; i++) {
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+				IResourceDescription resourceDescription = allResourceDescriptions.get(i);
+				IReferenceFinder languageSpecific = getLanguageSpecificReferenceFinder(resourceDescription.getURI());
+				if (languageSpecific instanceof ReferenceFinder && canScanInParallel(resourceDescription)
+						&& (resourceAccess == null || !targetURIs.containsResource(resourceDescription.getURI()))) {
+					languageSpecific.findReferences(targetURIs, resourceDescription, resourceAccess, new Acceptor() {
+						@Override
+						public void accept(IReferenceDescription description) {
+							matches.add((acceptor, m) -> acceptor.accept(description));
+						}
+
+						@Override
+						public void accept(EObject source, URI sourceURI, EReference eReference, int index,
+								EObject targetOrProxy, URI targetURI) {
+							matches.add((acceptor, m) -> acceptor.accept(source, sourceURI, eReference, index, targetOrProxy, targetURI));
+						}
+					}, monitor);
+				} else {
+					matches.add((acceptor, m) -> languageSpecific.findReferences(targetURIs, resourceDescription, resourceAccess, acceptor, m));
+				}
+			}
+			result.complete(matches);
+		} catch (Throwable e) {
+			result.completeExceptionally(e);
+		}
+	}
+
 	protected void findLocalReferencesFromElement(
 			Predicate<URI> targetURIs, 
 			EObject sourceCandidate,
@@ -381,10 +381,21 @@ public abstract class AbstractFormatter2 implements IFormatter2 {
 		return false;
 	}
 
+	private int getRequestedEndOffset() {
+		Collection<ITextRegion> regions = request.getRegions();
+		if (regions.isEmpty())
+			return Integer.MAX_VALUE;
+		int result = 0;
+		for (ITextRegion region : regions)
+			result = Math.max(result, region.getOffset() + region.getLength());
+		return result;
+	}
+
 	protected List<ITextReplacement> postProcess(IFormattableDocument document, List<ITextReplacement> replacements) {
 		List<ITextSegment> expected = Lists.newArrayList();
+		int requestedEndOffset = getRequestedEndOffset();
 		IHiddenRegion current = getTextRegionAccess().regionForRootEObject().getPreviousHiddenRegion();
-		while (current != null) {
+		while (current != null && current.getOffset() <= requestedEndOffset) {
 			if (current.isUndefined() && isInRequestedRange(current.getOffset(), current.getEndOffset()))
 				expected.addAll(current.getMergedSpaces());
 			current = current.getNextHiddenRegion();
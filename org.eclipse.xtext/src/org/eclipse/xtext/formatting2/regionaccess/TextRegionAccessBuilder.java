@@ -7,12 +7,15 @@
  *******************************************************************************/
 package org.eclipse.xtext.formatting2.regionaccess;
 
+import java.util.Collection;
+
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.xtext.formatting2.regionaccess.internal.NodeModelBasedRegionAccessBuilder;
 import org.eclipse.xtext.formatting2.regionaccess.internal.TextRegionAccessBuildingSequencer;
 import org.eclipse.xtext.resource.XtextResource;
 import org.eclipse.xtext.serializer.ISerializationContext;
 import org.eclipse.xtext.serializer.acceptor.ISequenceAcceptor;
+import org.eclipse.xtext.util.ITextRegion;
 
 /**
  * @author Moritz Eysholdt - Initial contribution and API
@@ -28,6 +31,18 @@ public class TextRegionAccessBuilder {
 		return this;
 	}
 
+	/**
+	 * Creates a region access that only materializes the EObjects that intersect with the given regions. All other
+	 * EObjects are represented by a single semantic region and don't have regions for their children. Such a region
+	 * access can be used for formatting requests that are restricted to the same regions.
+	 * 
+	 * @since 2.20
+	 */
+	public TextRegionAccessBuilder forNodeModel(XtextResource resource, Collection<? extends ITextRegion> regions) {
+		this.fromNodeModel = new NodeModelBasedRegionAccessBuilder().withResource(resource).withRegions(regions);
+		return this;
+	}
+
 	public ISequenceAcceptor forSequence(ISerializationContext ctx, EObject root) {
 		return this.fromSequencer = new TextRegionAccessBuildingSequencer().withRoot(ctx, root);
 	}
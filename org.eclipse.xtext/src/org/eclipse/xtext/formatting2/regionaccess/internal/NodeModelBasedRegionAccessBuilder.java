@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2017, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,7 @@
  *******************************************************************************/
 package org.eclipse.xtext.formatting2.regionaccess.internal;
 
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -23,9 +24,13 @@ import org.eclipse.xtext.nodemodel.BidiTreeIterator;
 import org.eclipse.xtext.nodemodel.ICompositeNode;
 import org.eclipse.xtext.nodemodel.ILeafNode;
 import org.eclipse.xtext.nodemodel.INode;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
 import org.eclipse.xtext.resource.XtextResource;
+import org.eclipse.xtext.util.ITextRegion;
+import org.eclipse.xtext.util.TextRegion;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 public class NodeModelBasedRegionAccessBuilder {
@@ -35,6 +40,8 @@ public class NodeModelBasedRegionAccessBuilder {
 	private NodeHiddenRegion lastHidden;
 	private XtextResource resource;
 	private LinkedList<NodeEObjectRegion> stack = new LinkedList<NodeEObjectRegion>();
+	private Collection<? extends ITextRegion> regions;
+	private List<ITextRegion> expandedRegions;
 
 	protected void add(NodeModelBasedRegionAccess access, INode node) {
 		if (node instanceof ILeafNode && ((ILeafNode) node).isHidden()) {
@@ -84,10 +91,61 @@ public class NodeModelBasedRegionAccessBuilder {
 		this.lastHidden = this.firstHidden;
 		NodeModelBasedRegionAccess access = (NodeModelBasedRegionAccess) regionAccess;
 		ICompositeNode rootNode = resource.getParseResult().getRootNode();
+		this.expandedRegions = expandRegions(rootNode, regions);
 		process(rootNode, access);
 		return ImmutableMap.<EObject, AbstractEObjectRegion>copyOf(this.eObjToTokens);
 	}
 
+	/**
+	 * Widens the requested regions so that they start at the semantic token that precedes them and end at the
+	 * semantic token that follows them. This guarantees that all hidden regions inside the requested regions are
+	 * bounded by fully materialized semantic regions.
+	 * 
+	 * @return the widened regions or <code>null</code> if the complete node model has to be processed.
+	 * @since 2.20
+	 */
+	protected List<ITextRegion> expandRegions(ICompositeNode rootNode, Collection<? extends ITextRegion> regions) {
+		if (regions == null || regions.isEmpty())
+			return null;
+		int documentEnd = rootNode.getTotalEndOffset();
+		List<ITextRegion> result = Lists.newArrayListWithCapacity(regions.size());
+		for (ITextRegion region : regions) {
+			int offset = findSemanticTokenOffsetBefore(rootNode, region.getOffset());
+			int endOffset = findSemanticTokenEndOffsetAfter(rootNode, region.getOffset() + region.getLength());
+			if (offset <= rootNode.getTotalOffset() && endOffset >= documentEnd)
+				return null;
+			result.add(new TextRegion(offset, endOffset - offset));
+		}
+		return result;
+	}
+
+	protected int findSemanticTokenOffsetBefore(ICompositeNode rootNode, int offset) {
+		int current = offset;
+		while (current > 0) {
+			ILeafNode leaf = NodeModelUtils.findLeafNodeAtOffset(rootNode, current - 1);
+			if (leaf == null)
+				return 0;
+			if (!leaf.isHidden() && leaf.getLength() > 0)
+				return leaf.getTotalOffset();
+			current = leaf.getTotalOffset();
+		}
+		return 0;
+	}
+
+	protected int findSemanticTokenEndOffsetAfter(ICompositeNode rootNode, int endOffset) {
+		int documentEnd = rootNode.getTotalEndOffset();
+		int current = endOffset;
+		while (current < documentEnd) {
+			ILeafNode leaf = NodeModelUtils.findLeafNodeAtOffset(rootNode, current);
+			if (leaf == null)
+				return documentEnd;
+			if (!leaf.isHidden() && leaf.getLength() > 0)
+				return leaf.getTotalEndOffset();
+			current = leaf.getTotalEndOffset();
+		}
+		return documentEnd;
+	}
+
 	protected XtextResource getXtextResource() {
 		return resource;
 	}
@@ -103,6 +161,22 @@ public class NodeModelBasedRegionAccessBuilder {
 		return false;
 	}
 
+	/**
+	 * @return <code>true</code> if the node touches one of the (widened) requested regions or if no regions have been
+	 *         requested at all.
+	 * @since 2.20
+	 */
+	protected boolean isInRequestedRegions(INode node) {
+		if (expandedRegions == null)
+			return true;
+		int offset = node.getTotalOffset();
+		int endOffset = node.getTotalEndOffset();
+		for (ITextRegion region : expandedRegions)
+			if (region.getOffset() <= endOffset && region.getOffset() + region.getLength() >= offset)
+				return true;
+		return false;
+	}
+
 	protected boolean isComment(ILeafNode leaf) {
 		String text = leaf.getText();
 		for (int i = 0; i < text.length(); i++)
@@ -162,7 +236,7 @@ public class NodeModelBasedRegionAccessBuilder {
 				Action action = (Action) grammarElement;
 				if (feature.equals(action.getFeature()))
 					return grammarElement;
-				else if (current == node && current instanceof ICompositeNode) {
+				else if (current.equals(node) && current instanceof ICompositeNode) {
 					INode child = ((ICompositeNode) current).getFirstChild();
 					while (child instanceof ICompositeNode) {
 						EObject grammarElement2 = child.getGrammarElement();
@@ -184,6 +258,10 @@ public class NodeModelBasedRegionAccessBuilder {
 
 	protected void process(INode node, NodeModelBasedRegionAccess access) {
 		NodeEObjectRegion tokens = stack.peek();
+		if (tokens != null && node instanceof ICompositeNode && node.getLength() > 0 && !isInRequestedRegions(node)
+				&& isEObjectRoot(node) && processOutsideRequestedRegions((ICompositeNode) node, access)) {
+			return;
+		}
 		boolean creator = isEObjectRoot(node);
 		if (creator || tokens == null) {
 			tokens = createTokens(access, node);
@@ -237,11 +315,81 @@ public class NodeModelBasedRegionAccessBuilder {
 		}
 	}
 
+	/**
+	 * Creates an {@link NodeEObjectRegion} for an EObject that is located completely outside of the requested regions.
+	 * The EObject's text is represented by a single semantic region and the EObjects contained in it don't get a
+	 * region at all.
+	 * 
+	 * @return <code>false</code> if the EObject can not be represented in a compact way and has to be processed
+	 *         normally.
+	 * @since 2.20
+	 */
+	protected boolean processOutsideRequestedRegions(ICompositeNode node, NodeModelBasedRegionAccess access) {
+		INode semanticNode = null;
+		for (INode candidate : node.getAsTreeIterable()) {
+			if (candidate.hasDirectSemanticElement()) {
+				semanticNode = candidate;
+				break;
+			}
+		}
+		if (semanticNode == null)
+			return false;
+		EObject semanticElement = semanticNode.getSemanticElement();
+		NodeEObjectRegion parent = stack.peek();
+		if (semanticElement.eContainer() != parent.getSemanticElement() || eObjToTokens.containsKey(semanticElement))
+			return false;
+		EObject grammarElement = findGrammarElement(semanticNode, semanticElement);
+		if (grammarElement == null)
+			return false;
+		NodeEObjectRegion tokens = createTokens(access, node);
+		tokens.setLeadingHiddenRegion(lastHidden);
+		tokens.setSemanticElement(semanticElement);
+		tokens.setGrammarElement(grammarElement);
+		parent.addChild(tokens);
+		stack.push(tokens);
+		for (ILeafNode leaf : node.getLeafNodes()) {
+			if (leaf.isHidden())
+				this.add(access, leaf);
+			else if (leaf.getLength() > 0)
+				break;
+		}
+		this.add(access, node);
+		LinkedList<ILeafNode> trailing = Lists.newLinkedList();
+		for (INode candidate : node.getAsTreeIterable().reverse()) {
+			if (candidate instanceof ILeafNode) {
+				ILeafNode leaf = (ILeafNode) candidate;
+				if (leaf.isHidden())
+					trailing.addFirst(leaf);
+				else if (leaf.getLength() > 0)
+					break;
+			}
+		}
+		for (ILeafNode leaf : trailing)
+			this.add(access, leaf);
+		stack.pop();
+		tokens.setTrailingHiddenRegion(lastHidden);
+		eObjToTokens.put(semanticElement, tokens);
+		return true;
+	}
+
 	public NodeModelBasedRegionAccessBuilder withResource(XtextResource resource) {
 		this.resource = resource;
 		return this;
 	}
 
+	/**
+	 * Restricts the region access to the given regions: EObjects that are located completely outside of them are
+	 * represented by a single semantic region each, so that the cost of building the region access depends on the
+	 * size of the requested regions rather than on the size of the document. Such a region access is only suitable
+	 * for formatting requests with the same regions.
+	 * 
+	 * @since 2.20
+	 */
+	public NodeModelBasedRegionAccessBuilder withRegions(Collection<? extends ITextRegion> regions) {
+		this.regions = regions;
+		return this;
+	}
+
 	protected NodeHiddenRegion getFirstHidden() {
 		return firstHidden;
 	}
@@ -27,6 +27,17 @@ public class GeneratorDelegate implements IGenerator, IGenerator2 {
 	public IGenerator getLegacyGenerator() {
 		return legacyGenerator;
 	}
+
+	/**
+	 * Whether {@link #doGenerate(Resource, IFileSystemAccess2, IGeneratorContext)} may be invoked concurrently and
+	 * from other threads than the build thread.
+	 * 
+	 * @see IThreadSafeGenerator
+	 * @since 2.20
+	 */
+	public boolean isThreadSafe() {
+		return generator instanceof IThreadSafeGenerator;
+	}
 	
 	public void generate(Resource input, IFileSystemAccess2 fsa, IGeneratorContext context) {
 		try {
@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.generator;
+
+import org.eclipse.emf.ecore.resource.Resource;
+
+/**
+ * Marker interface for {@link IGenerator2 generators} whose
+ * {@link IGenerator2#doGenerate(Resource, IFileSystemAccess2, IGeneratorContext) doGenerate} may be invoked
+ * concurrently for different resources and on a thread other than the one that performs the build.
+ * 
+ * The builder invokes {@code doGenerate} for all resources of a cluster in parallel once their cross-references have
+ * been resolved and they have been validated. Implementors must neither modify the resource set, e.g. by resolving
+ * proxies that point to resources that are not loaded yet, nor keep mutable state across invocations of
+ * {@code doGenerate}. The {@link IGenerator2#beforeGenerate(Resource, IFileSystemAccess2, IGeneratorContext) before}
+ * and {@link IGenerator2#afterGenerate(Resource, IFileSystemAccess2, IGeneratorContext) after} hooks are still
+ * invoked on the build thread.
+ * 
+ * @see GeneratorDelegate#isThreadSafe()
+ * @since 2.20
+ */
+public interface IThreadSafeGenerator {
+
+}
@@ -15,6 +15,8 @@ import java.io.File
 import java.io.FileNotFoundException
 import java.io.InputStream
 import java.io.InputStreamReader
+import java.security.MessageDigest
+import java.util.Arrays
 import org.eclipse.emf.common.util.URI
 import org.eclipse.emf.ecore.resource.URIConverter
 import org.eclipse.xtend.lib.annotations.Accessors
@@ -47,6 +49,25 @@ class URIBasedFileSystemAccess extends AbstractFileSystemAccess2 {
 		def InputStream beforeRead(URI changed, InputStream in)
 	}
 	
+	/**
+	 * Remembers the content hashes of generated files, so that the previous content doesn't need
+	 * to be read in order to detect unchanged files.
+	 * 
+	 * @since 2.20
+	 */
+	static interface ContentHashStore {
+		/**
+		 * @return the hash of the last content that was written to the given URI or <code>null</code> if unknown.
+		 */
+		def String getContentHash(URI generated)
+		
+		/**
+		 * Remembers the hash of the content that was written to the given URI. A <code>null</code> hash
+		 * forgets the previous one, e.g. while the file is being written.
+		 */
+		def void setContentHash(URI generated, String contentHash)
+	}
+	
 	@Accessors URIConverter converter
 	@Accessors URI baseDir
 	@Accessors boolean generateTraces = false
@@ -57,6 +78,30 @@ class URIBasedFileSystemAccess extends AbstractFileSystemAccess2 {
 	@Accessors BeforeWrite beforeWrite = [$2]
 	@Accessors BeforeRead beforeRead = [$1]
 	
+	/**
+	 * If enabled, files whose content is byte-identical to the existing file are not written again,
+	 * which leaves their time stamps untouched.
+	 * 
+	 * @since 2.20
+	 */
+	@Accessors boolean skipUnchangedFiles = false
+	
+	/**
+	 * Content hashes used to detect unchanged files, may be <code>null</code>. If no hash is known,
+	 * the existing file is read and compared.
+	 * 
+	 * @since 2.20
+	 */
+	@Accessors ContentHashStore contentHashStore
+	
+	/**
+	 * If set, files are written asynchronously by this queue. Clients are responsible for
+	 * {@link WriteBehindQueue#flush() flushing} the queue.
+	 * 
+	 * @since 2.20
+	 */
+	@Accessors WriteBehindQueue writeBehindQueue
+	
 	override void setPostProcessor(IFilePostProcessor filePostProcessor) {
 		super.postProcessor = filePostProcessor
 	}
@@ -80,6 +125,7 @@ class URIBasedFileSystemAccess extends AbstractFileSystemAccess2 {
 	
 	override generateFile(String fileName, String outputCfgName, CharSequence contents) {
 		val uri = getURI(fileName, outputCfgName)
+		writeBehindQueue?.waitFor(uri)
 		if (!getOutputConfig(outputCfgName).isOverrideExistingResources && converter.exists(uri, emptyMap)) {
 			return;
 		}
@@ -106,18 +152,93 @@ class URIBasedFileSystemAccess extends AbstractFileSystemAccess2 {
 	
 	override generateFile(String fileName, String outputCfgName, InputStream content) throws RuntimeIOException {
 		val uri = getURI(fileName, outputCfgName)
+		if (!skipUnchangedFiles && writeBehindQueue === null) {
+			val out = converter.createOutputStream(uri)
+			try {
+				val processedContent = beforeWrite.beforeWrite(uri, outputCfgName, content)
+				ByteStreams.copy(processedContent, out);
+			} finally {
+				out.close
+			}
+			return
+		}
+		val bytes = ByteStreams.toByteArray(beforeWrite.beforeWrite(uri, outputCfgName, content))
+		val contentHash = if (skipUnchangedFiles) computeContentHash(bytes)
+		if (skipUnchangedFiles) {
+			if (!hasChanged(uri, bytes, contentHash)) {
+				contentHashStore?.setContentHash(uri, contentHash)
+				return
+			}
+			// the hash is only known again once the file has been written successfully
+			contentHashStore?.setContentHash(uri, null)
+		}
+		if (writeBehindQueue !== null) {
+			writeBehindQueue.submit(uri) [
+				writeFile(uri, bytes, contentHash)
+			]
+		} else {
+			writeFile(uri, bytes, contentHash)
+		}
+	}
+	
+	private def void writeFile(URI uri, byte[] bytes, String contentHash) {
+		writeFile(uri, bytes)
+		if (contentHash !== null) {
+			contentHashStore?.setContentHash(uri, contentHash)
+		}
+	}
+	
+	/**
+	 * @since 2.20
+	 */
+	protected def void writeFile(URI uri, byte[] bytes) {
 		val out = converter.createOutputStream(uri)
 		try {
-			val processedContent = beforeWrite.beforeWrite(uri, outputCfgName, content)
-			ByteStreams.copy(processedContent, out);
+			out.write(bytes)
 		} finally {
 			out.close
 		}
 	}
 	
+	/**
+	 * Checks whether the given content with the given {@link #computeContentHash(byte[]) hash} differs from the
+	 * content that is stored at the given URI. The {@link #contentHashStore} is not updated.
+	 * 
+	 * @since 2.20
+	 */
+	protected def boolean hasChanged(URI uri, byte[] bytes, String contentHash) {
+		writeBehindQueue?.waitFor(uri)
+		val previousHash = contentHashStore?.getContentHash(uri)
+		if (!converter.exists(uri, emptyMap)) {
+			return true
+		}
+		if (previousHash !== null) {
+			return previousHash != contentHash
+		}
+		val previousContent = converter.createInputStream(uri)
+		try {
+			return !Arrays.equals(bytes, ByteStreams.toByteArray(previousContent))
+		} finally {
+			previousContent.close
+		}
+	}
+	
+	/**
+	 * @since 2.20
+	 */
+	protected def String computeContentHash(byte[] bytes) {
+		val digest = MessageDigest.getInstance("SHA-256").digest(bytes)
+		val result = new StringBuilder(digest.length * 2)
+		for (b : digest) {
+			result.append(Integer.toHexString((b.bitwiseAnd(0xff)).bitwiseOr(0x100)).substring(1))
+		}
+		return result.toString
+	}
+	
 	override readBinaryFile(String fileName, String outputCfgName) throws RuntimeIOException {
 		try {
 			val uri = getURI(fileName, outputCfgName)
+			writeBehindQueue?.waitFor(uri)
 			val input = converter.createInputStream(uri)
 			return beforeRead.beforeRead(uri, input)
 		} catch (FileNotFoundException e) {
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.generator
+
+import java.util.Map
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executor
+import java.util.concurrent.Semaphore
+import org.eclipse.core.runtime.OperationCanceledException
+import org.eclipse.emf.common.util.URI
+import org.eclipse.xtext.util.RuntimeIOException
+
+/**
+ * Performs writes of generated files asynchronously, so that generators don't have to wait for the disk.
+ *
+ * The number of pending writes is bounded, i.e. {@link #submit(URI, Runnable)} blocks the generating thread
+ * as soon as the capacity is exhausted. Writes to the same URI are performed in submission order.
+ *
+ * Clients have to {@link #flush() flush} the queue before the generated files are consumed.
+ *
+ * @since 2.20
+ */
+class WriteBehindQueue {
+
+	public static val DEFAULT_CAPACITY = 64
+
+	val Executor executor
+	val Semaphore permits
+	val Map<URI, CompletableFuture<Void>> pending = new ConcurrentHashMap
+	val errors = <Throwable>newArrayList
+
+	new(Executor executor) {
+		this(executor, DEFAULT_CAPACITY)
+	}
+
+	new(Executor executor, int capacity) {
+		this.executor = executor
+		this.permits = new Semaphore(capacity)
+	}
+
+	/**
+	 * Schedules the given write. Blocks if the maximum number of pending writes is reached.
+	 */
+	def void submit(URI uri, Runnable write) {
+		try {
+			permits.acquire
+		} catch (InterruptedException e) {
+			throw new OperationCanceledException
+		}
+		val CompletableFuture<Void> future = try {
+			pending.compute(uri) [ key, previous |
+				val scheduled = if (previous === null)
+						CompletableFuture.runAsync(write, executor)
+					else
+						previous.exceptionally[null].thenRunAsync(write, executor)
+				return scheduled.whenComplete [ result, error |
+					permits.release
+					if (error !== null) {
+						synchronized (errors) {
+							errors += if (error instanceof CompletionException) error.cause else error
+						}
+					}
+				]
+			]
+		} catch (RuntimeException e) {
+			// e.g. the executor rejected the write
+			permits.release
+			throw e
+		}
+		future.whenComplete [
+			pending.remove(uri, future)
+		]
+	}
+
+	/**
+	 * Waits until all pending writes to the given URI have been performed.
+	 */
+	def void waitFor(URI uri) {
+		val future = pending.get(uri)
+		if (future !== null) {
+			await(future)
+		}
+	}
+
+	/**
+	 * Waits until all pending writes have been performed.
+	 *
+	 * @throws RuntimeIOException if one of the writes failed.
+	 */
+	def void flush() {
+		for (future : pending.values.toList) {
+			await(future)
+		}
+		synchronized (errors) {
+			if (!errors.empty) {
+				val first = errors.head
+				errors.clear
+				switch first {
+					RuntimeException: throw first
+					Error: throw first
+					default: throw new RuntimeIOException(first)
+				}
+			}
+		}
+	}
+
+	def boolean isEmpty() {
+		return pending.empty
+	}
+
+	private def void await(CompletableFuture<Void> future) {
+		try {
+			future.join
+		} catch (RuntimeException e) {
+			// reported by flush
+		}
+	}
+
+}
@@ -9,6 +9,7 @@
 package org.eclipse.xtext.linking.lazy;
 
 import java.util.List;
+import java.util.Objects;
 
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EClass;
@@ -192,14 +193,14 @@ public class LazyURIEncoder {
 	 * @noreference This method is not intended to be referenced by clients.
 	 */
 	public void getRelativePath(StringBuilder result, INode parserNode, INode node) {
-		if (parserNode == node)
+		if (Objects.equals(parserNode, node))
 			return;
 		if (isAncestor(parserNode, node)) {
 			ICompositeNode parent = node.getParent();
 			getRelativePath(result, parserNode, parent);
 			int idx = 0;
 			INode child = parent.getFirstChild();
-			while(child != node && child.hasNextSibling()) {
+			while(!child.equals(node) && child.hasNextSibling()) {
 				idx++;
 				child = child.getNextSibling();
 			}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2018 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2010, 2018, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -241,6 +241,16 @@ public class QualifiedName implements Comparable<QualifiedName> {
 		return new QualifiedName(intern(singleSegment));
 	}
 
+	/**
+	 * Creates a qualified name with the given segments whose lower case representation is already known. A
+	 * <code>null</code> lower case representation means that the new name is lower case itself.
+	 */
+	static QualifiedName createWithLowerCase(String[] segments, QualifiedName lowerCase) {
+		QualifiedName result = new QualifiedName(segments);
+		result.lowerCase = lowerCase != null ? lowerCase : result;
+		return result;
+	}
+
 	/**
 	 * Wraps a name function to return a qualified name. Returns null if the name function returns null.
 	 */
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.naming;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A table of canonical {@link QualifiedName qualified names}, e.g. for the names of an index. Equal names that are
+ * {@link #canonicalize(QualifiedName) canonicalized} by the same table become the same instance, and so do their
+ * segments and their {@link QualifiedName#toLowerCase() lower case} representations. The lower case representation
+ * of a canonical name is computed once, so it's cheap to use canonical names as case insensitive keys.
+ * <p>
+ * Each canonical name has an int id, so clients can keep names in compact structures such as bit sets. Unlike
+ * {@link String#intern() interning}, the table is scoped: it's garbage collected with its owner.
+ * <p>
+ * The table is thread-safe. Looking up a name that is already in the table doesn't lock.
+ *
+ * @since 2.20
+ */
+public class QualifiedNameTable {
+
+	private static class Entry {
+		private final QualifiedName name;
+		private final int id;
+
+		private Entry(QualifiedName name, int id) {
+			this.name = name;
+			this.id = id;
+		}
+	}
+
+	private final Map<QualifiedName, Entry> entries = new ConcurrentHashMap<>();
+
+	private final List<QualifiedName> names = new ArrayList<>();
+
+	private final Map<String, String> segments = new HashMap<>();
+
+	/**
+	 * Returns the canonical instance of the given name and adds it to the table if needed.
+	 */
+	public QualifiedName canonicalize(QualifiedName name) {
+		Entry entry = entries.get(name);
+		if (entry != null) {
+			return entry.name;
+		}
+		synchronized (this) {
+			return doCanonicalize(name).name;
+		}
+	}
+
+	/**
+	 * Returns the id of the given name, or <code>-1</code> if the name isn't in the table.
+	 */
+	public int getId(QualifiedName name) {
+		Entry entry = entries.get(name);
+		return entry != null ? entry.id : -1;
+	}
+
+	/**
+	 * Returns the canonical name with the given id.
+	 */
+	public synchronized QualifiedName getName(int id) {
+		return names.get(id);
+	}
+
+	/**
+	 * Returns the number of names in the table. Lower case representations count as names, too.
+	 */
+	public synchronized int size() {
+		return names.size();
+	}
+
+	private Entry doCanonicalize(QualifiedName name) {
+		Entry entry = entries.get(name);
+		if (entry != null) {
+			return entry;
+		}
+		int segmentCount = name.getSegmentCount();
+		String[] canonicalSegments = new String[segmentCount];
+		String[] lowerCaseSegments = new String[segmentCount];
+		boolean isLowerCase = true;
+		for (int i = 0; i < segmentCount; i++) {
+			canonicalSegments[i] = canonicalize(name.getSegment(i));
+			lowerCaseSegments[i] = canonicalize(canonicalSegments[i].toLowerCase());
+			isLowerCase = isLowerCase && canonicalSegments[i] == lowerCaseSegments[i];
+		}
+		QualifiedName lowerCase = null;
+		if (!isLowerCase) {
+			lowerCase = doCanonicalize(QualifiedName.createWithLowerCase(lowerCaseSegments, null)).name;
+		}
+		QualifiedName canonical = segmentCount == 0 ? QualifiedName.EMPTY
+				: QualifiedName.createWithLowerCase(canonicalSegments, lowerCase);
+		entry = new Entry(canonical, names.size());
+		names.add(canonical);
+		entries.put(canonical, entry);
+		return entry;
+	}
+
+	private String canonicalize(String segment) {
+		String result = segments.get(segment);
+		if (result == null) {
+			result = segment;
+			segments.put(result, result);
+		}
+		return result;
+	}
+
+}
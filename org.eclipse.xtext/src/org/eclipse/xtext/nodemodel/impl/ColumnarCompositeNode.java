@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.nodemodel.impl;
+
+import org.eclipse.xtext.nodemodel.BidiIterable;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.INode;
+import org.eclipse.xtext.nodemodel.util.EmptyBidiIterable;
+import org.eclipse.xtext.nodemodel.util.NodeIterable;
+import org.eclipse.xtext.nodemodel.util.SingletonBidiIterable;
+
+/**
+ * @noextend This class is not intended to be subclassed by clients.
+ * @since 2.20
+ */
+public class ColumnarCompositeNode extends ColumnarNode implements ICompositeNode {
+
+	protected ColumnarCompositeNode(ColumnarNodeModel model, int index) {
+		super(model, index);
+	}
+
+	@Override
+	public BidiIterable<INode> getChildren() {
+		if (hasChildren()) {
+			INode firstChild = getFirstChild();
+			if (firstChild.hasSiblings()) {
+				return new NodeIterable(firstChild);
+			} else {
+				return SingletonBidiIterable.<INode>create(firstChild);
+			}
+		}
+		return EmptyBidiIterable.instance();
+	}
+
+	@Override
+	public boolean hasChildren() {
+		return model.getEnd(index) > index + 1;
+	}
+
+	@Override
+	public INode getFirstChild() {
+		if (!hasChildren()) {
+			return null;
+		}
+		return model.getNode(index + 1);
+	}
+
+	@Override
+	public INode getLastChild() {
+		if (!hasChildren()) {
+			return null;
+		}
+		return model.getNode(model.getLastChild(index));
+	}
+
+	@Override
+	public int getLookAhead() {
+		return model.getLookAhead(index);
+	}
+
+}
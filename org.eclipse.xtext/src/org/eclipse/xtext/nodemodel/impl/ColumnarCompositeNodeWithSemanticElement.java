@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.nodemodel.impl;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.nodemodel.INode;
+
+/**
+ * The canonical view on a composite node of a {@link ColumnarNodeModel} that is directly associated with a semantic
+ * element. It is installed as an adapter on that element.
+ *
+ * @noextend This class is not intended to be subclassed by clients.
+ * @since 2.20
+ */
+public class ColumnarCompositeNodeWithSemanticElement extends ColumnarCompositeNode implements Adapter {
+
+	private EObject semanticElement;
+
+	protected ColumnarCompositeNodeWithSemanticElement(ColumnarNodeModel model, int index, EObject semanticElement) {
+		super(model, index);
+		this.semanticElement = semanticElement;
+	}
+
+	@Override
+	public EObject getSemanticElement() {
+		if (semanticElement != null)
+			return semanticElement;
+		return super.getSemanticElement();
+	}
+
+	protected EObject basicGetSemanticElement() {
+		return semanticElement;
+	}
+
+	@Override
+	public boolean hasDirectSemanticElement() {
+		return semanticElement != null;
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		// ignore
+	}
+
+	@Override
+	public Notifier getTarget() {
+		return semanticElement;
+	}
+
+	@Override
+	public void setTarget(Notifier newTarget) {
+		if (newTarget == null || newTarget instanceof EObject)
+			semanticElement = (EObject) newTarget;
+		else
+			throw new IllegalArgumentException("Notifier must be an Eobject");
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type instanceof Class<?> && INode.class.isAssignableFrom((Class<?>) type);
+	}
+
+}
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.nodemodel.impl;
+
+import org.eclipse.xtext.nodemodel.ILeafNode;
+
+/**
+ * @noextend This class is not intended to be subclassed by clients.
+ * @since 2.20
+ */
+public class ColumnarLeafNode extends ColumnarNode implements ILeafNode {
+
+	protected ColumnarLeafNode(ColumnarNodeModel model, int index) {
+		super(model, index);
+	}
+
+	@Override
+	public boolean isHidden() {
+		return model.isHidden(index);
+	}
+
+	@Override
+	public int getOffset() {
+		return getTotalOffset();
+	}
+
+	@Override
+	public int getLength() {
+		return getTotalLength();
+	}
+
+	@Override
+	public int getEndOffset() {
+		return getTotalEndOffset();
+	}
+
+}
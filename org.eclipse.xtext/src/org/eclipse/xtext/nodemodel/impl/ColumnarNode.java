@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.nodemodel.impl;
+
+import java.util.Iterator;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.nodemodel.BidiTreeIterable;
+import org.eclipse.xtext.nodemodel.BidiTreeIterator;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.ILeafNode;
+import org.eclipse.xtext.nodemodel.INode;
+import org.eclipse.xtext.nodemodel.SyntaxErrorMessage;
+import org.eclipse.xtext.nodemodel.util.NodeTreeIterator;
+import org.eclipse.xtext.nodemodel.util.ReversedBidiTreeIterable;
+import org.eclipse.xtext.util.ITextRegion;
+import org.eclipse.xtext.util.ITextRegionWithLineInformation;
+import org.eclipse.xtext.util.TextRegion;
+import org.eclipse.xtext.util.TextRegionWithLineInformation;
+
+/**
+ * A view on a node of a {@link ColumnarNodeModel}. Two views are equal if they denote the same node.
+ *
+ * @noextend This class is not intended to be subclassed by clients.
+ * @since 2.20
+ */
+public abstract class ColumnarNode implements INode, BidiTreeIterable<INode> {
+
+	protected final ColumnarNodeModel model;
+	protected final int index;
+
+	protected ColumnarNode(ColumnarNodeModel model, int index) {
+		this.model = model;
+		this.index = index;
+	}
+
+	public ColumnarNodeModel getModel() {
+		return model;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	@Override
+	public ICompositeNode getParent() {
+		int parent = model.getParent(index);
+		if (parent < 0) {
+			return null;
+		}
+		return model.getCompositeNode(parent);
+	}
+
+	@Override
+	public boolean hasSiblings() {
+		return hasPreviousSibling() || hasNextSibling();
+	}
+
+	@Override
+	public boolean hasPreviousSibling() {
+		return model.hasPreviousSibling(index);
+	}
+
+	@Override
+	public boolean hasNextSibling() {
+		return model.hasNextSibling(index);
+	}
+
+	@Override
+	public INode getPreviousSibling() {
+		if (!hasPreviousSibling()) {
+			return null;
+		}
+		return model.getNode(model.getPreviousSibling(index));
+	}
+
+	@Override
+	public INode getNextSibling() {
+		if (!hasNextSibling()) {
+			return null;
+		}
+		return model.getNode(model.getEnd(index));
+	}
+
+	@Override
+	public ICompositeNode getRootNode() {
+		return model.getRootNode();
+	}
+
+	@Override
+	public Iterable<ILeafNode> getLeafNodes() {
+		return new Iterable<ILeafNode>() {
+			@Override
+			public Iterator<ILeafNode> iterator() {
+				return model.leafIterator(index);
+			}
+		};
+	}
+
+	/**
+	 * Returns the leaf node that covers the given offset or <code>null</code> if there is no such node in the subtree
+	 * of this node.
+	 *
+	 * @see org.eclipse.xtext.nodemodel.util.NodeModelUtils#findLeafNodeAtOffset(INode, int)
+	 */
+	public ILeafNode findLeafNodeAtOffset(int offset) {
+		int result = model.findLeafAtOffset(index, offset);
+		if (result < 0) {
+			return null;
+		}
+		return (ILeafNode) model.getNode(result);
+	}
+
+	@Override
+	public int getTotalOffset() {
+		return model.getTotalOffset(index);
+	}
+
+	@Override
+	public int getOffset() {
+		int leaf = model.getFirstLeaf(index);
+		if (leaf < 0) {
+			return getTotalOffset();
+		}
+		return model.getTotalOffset(leaf);
+	}
+
+	@Override
+	public int getTotalLength() {
+		return model.getTotalLength(index);
+	}
+
+	@Override
+	public int getLength() {
+		return getEndOffset() - getOffset();
+	}
+
+	@Override
+	public int getTotalEndOffset() {
+		return getTotalOffset() + getTotalLength();
+	}
+
+	@Override
+	public int getEndOffset() {
+		int leaf = model.getLastVisibleLeaf(index);
+		if (leaf < 0) {
+			return getTotalEndOffset();
+		}
+		return model.getTotalOffset(leaf) + model.getTotalLength(leaf);
+	}
+
+	@Override
+	public int getTotalStartLine() {
+		return getLine(getTotalOffset());
+	}
+
+	@Override
+	public int getStartLine() {
+		return getLine(getOffset());
+	}
+
+	@Override
+	public int getTotalEndLine() {
+		return getLine(getTotalEndOffset());
+	}
+
+	@Override
+	public int getEndLine() {
+		return getLine(getEndOffset());
+	}
+
+	protected int getLine(int offset) {
+		return InternalNodeModelUtils.getLineAndColumn(model.getContent(), model.getLineBreakOffsets(), offset).getLine();
+	}
+
+	@Override
+	public String getText() {
+		int offset = getTotalOffset();
+		return model.getContent().substring(offset, offset + getTotalLength());
+	}
+
+	@Override
+	public EObject getGrammarElement() {
+		return model.getGrammarElement(index);
+	}
+
+	@Override
+	public EObject getSemanticElement() {
+		return model.getSemanticElement(index);
+	}
+
+	@Override
+	public boolean hasDirectSemanticElement() {
+		return false;
+	}
+
+	@Override
+	public SyntaxErrorMessage getSyntaxErrorMessage() {
+		return model.getSyntaxErrorMessage(index);
+	}
+
+	@Override
+	public BidiTreeIterable<INode> getAsTreeIterable() {
+		return this;
+	}
+
+	@Override
+	public BidiTreeIterator<INode> iterator() {
+		return new NodeTreeIterator(this);
+	}
+
+	@Override
+	public BidiTreeIterable<INode> reverse() {
+		return new ReversedBidiTreeIterable<INode>(this);
+	}
+
+	@Override
+	public ITextRegion getTextRegion() {
+		int offset = getOffset();
+		return new TextRegion(offset, getEndOffset() - offset);
+	}
+
+	@Override
+	public ITextRegion getTotalTextRegion() {
+		return new TextRegion(getTotalOffset(), getTotalLength());
+	}
+
+	@Override
+	public ITextRegionWithLineInformation getTextRegionWithLineInformation() {
+		int offset = getOffset();
+		int endOffset = getEndOffset();
+		return new TextRegionWithLineInformation(offset, endOffset - offset, getLine(offset), getLine(endOffset));
+	}
+
+	@Override
+	public ITextRegionWithLineInformation getTotalTextRegionWithLineInformation() {
+		int offset = getTotalOffset();
+		int endOffset = getTotalEndOffset();
+		return new TextRegionWithLineInformation(offset, endOffset - offset, getLine(offset), getLine(endOffset));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (!(obj instanceof ColumnarNode)) {
+			return false;
+		}
+		ColumnarNode other = (ColumnarNode) obj;
+		return model == other.model && index == other.index;
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(model) * 31 + index;
+	}
+
+}
@@ -0,0 +1,471 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.nodemodel.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.ILeafNode;
+import org.eclipse.xtext.nodemodel.INode;
+import org.eclipse.xtext.nodemodel.SyntaxErrorMessage;
+
+/**
+ * A read-only node model that stores its nodes in parallel primitive arrays instead of a graph of node objects.
+ *
+ * The nodes are numbered in document order (pre-order), thus the children of a composite node are the
+ * indices between the node itself and the end of its subtree. Clients access the nodes by means of the usual
+ * {@link INode}, {@link ICompositeNode} and {@link ILeafNode} interfaces. These are implemented by lightweight
+ * views that are created on demand, so nodes have to be compared with {@link Object#equals(Object) equals}
+ * rather than by identity. Only the root node and the nodes that are associated with a semantic element are
+ * canonical instances, since the latter are attached as adapters to the semantic model.
+ *
+ * A columnar node model is created from a node model that was produced by the {@link NodeModelBuilder}, e.g.
+ * after a resource was parsed. This is a first step: the parser still allocates the complete heap node model, which
+ * becomes garbage as soon as the columnar copy has been created. Only the retained size of the node model is
+ * reduced, not the allocation during parsing. A columnar node model cannot be modified, so the partial parser falls
+ * back to a complete reparse and never compares its nodes by identity.
+ *
+ * @since 2.20
+ */
+public class ColumnarNodeModel {
+
+	static final byte COMPOSITE = 0;
+	static final byte LEAF = 1;
+	static final byte HIDDEN_LEAF = 2;
+
+	private static final int NO_GRAMMAR_ELEMENT = -1;
+
+	/**
+	 * Creates a columnar copy of the given node model. The semantic elements of the given node model are associated
+	 * with the nodes of the result, i.e. {@link org.eclipse.xtext.nodemodel.util.NodeModelUtils#getNode(EObject)}
+	 * returns the new nodes afterwards.
+	 */
+	public static ColumnarNodeModel create(ICompositeNode rootNode) {
+		return new Builder().build(rootNode);
+	}
+
+	private final String content;
+	private final int[] lineBreaks;
+
+	private final int size;
+	private final byte[] kinds;
+	private final int[] parents;
+	private final int[] ends;
+	private final int[] offsets;
+	private final int[] lengths;
+	private final int[] lookAheads;
+	private final int[] grammarElementIds;
+	private final EObject[] grammarElements;
+
+	private final int[] semanticIndices;
+	private final ColumnarCompositeNodeWithSemanticElement[] semanticNodes;
+
+	private final int[] syntaxErrorIndices;
+	private final SyntaxErrorMessage[] syntaxErrors;
+
+	private final ColumnarCompositeNode rootNode;
+
+	private ColumnarNodeModel(Builder builder) {
+		this.content = builder.content;
+		this.lineBreaks = builder.lineBreaks;
+		this.size = builder.size;
+		this.kinds = Arrays.copyOf(builder.kinds, size);
+		this.parents = Arrays.copyOf(builder.parents, size);
+		this.ends = Arrays.copyOf(builder.ends, size);
+		this.offsets = Arrays.copyOf(builder.offsets, size);
+		this.lengths = Arrays.copyOf(builder.lengths, size);
+		this.lookAheads = Arrays.copyOf(builder.lookAheads, size);
+		this.grammarElementIds = Arrays.copyOf(builder.grammarElementIds, size);
+		this.grammarElements = builder.grammarElements.toArray(new EObject[builder.grammarElements.size()]);
+		this.semanticIndices = toIntArray(builder.semanticIndices);
+		this.semanticNodes = new ColumnarCompositeNodeWithSemanticElement[semanticIndices.length];
+		for (int i = 0; i < semanticIndices.length; i++) {
+			semanticNodes[i] = new ColumnarCompositeNodeWithSemanticElement(this, semanticIndices[i],
+					builder.semanticElements.get(i));
+		}
+		this.syntaxErrorIndices = toIntArray(builder.syntaxErrorIndices);
+		this.syntaxErrors = builder.syntaxErrors.toArray(new SyntaxErrorMessage[builder.syntaxErrors.size()]);
+		ColumnarCompositeNode semanticRoot = getSemanticNode(0);
+		this.rootNode = semanticRoot != null ? semanticRoot : new ColumnarCompositeNode(this, 0);
+	}
+
+	private static int[] toIntArray(List<Integer> list) {
+		int[] result = new int[list.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = list.get(i);
+		}
+		return result;
+	}
+
+	public ICompositeNode getRootNode() {
+		return rootNode;
+	}
+
+	/**
+	 * The number of nodes in this model.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the node with the given index. The root node has the index zero.
+	 */
+	public INode getNode(int index) {
+		if (kinds[index] != COMPOSITE) {
+			return new ColumnarLeafNode(this, index);
+		}
+		return getCompositeNode(index);
+	}
+
+	ColumnarCompositeNode getCompositeNode(int index) {
+		if (index == 0) {
+			return rootNode;
+		}
+		ColumnarCompositeNode result = getSemanticNode(index);
+		if (result == null) {
+			result = new ColumnarCompositeNode(this, index);
+		}
+		return result;
+	}
+
+	private ColumnarCompositeNodeWithSemanticElement getSemanticNode(int index) {
+		int idx = Arrays.binarySearch(semanticIndices, index);
+		if (idx >= 0) {
+			return semanticNodes[idx];
+		}
+		return null;
+	}
+
+	String getContent() {
+		return content;
+	}
+
+	int[] getLineBreakOffsets() {
+		return lineBreaks;
+	}
+
+	boolean isLeaf(int index) {
+		return kinds[index] != COMPOSITE;
+	}
+
+	boolean isHidden(int index) {
+		return kinds[index] == HIDDEN_LEAF;
+	}
+
+	int getParent(int index) {
+		return parents[index];
+	}
+
+	/**
+	 * The index after the last node in the subtree of the given node.
+	 */
+	int getEnd(int index) {
+		return ends[index];
+	}
+
+	int getTotalOffset(int index) {
+		return offsets[index];
+	}
+
+	int getTotalLength(int index) {
+		return lengths[index];
+	}
+
+	int getLookAhead(int index) {
+		return lookAheads[index];
+	}
+
+	EObject getGrammarElement(int index) {
+		int id = grammarElementIds[index];
+		if (id == NO_GRAMMAR_ELEMENT) {
+			return null;
+		}
+		return grammarElements[id];
+	}
+
+	EObject getDirectSemanticElement(int index) {
+		ColumnarCompositeNodeWithSemanticElement node = getSemanticNode(index);
+		if (node != null) {
+			return node.basicGetSemanticElement();
+		}
+		return null;
+	}
+
+	EObject getSemanticElement(int index) {
+		int current = isLeaf(index) ? parents[index] : index;
+		while (current >= 0) {
+			EObject result = getDirectSemanticElement(current);
+			if (result != null) {
+				return result;
+			}
+			current = parents[current];
+		}
+		return null;
+	}
+
+	SyntaxErrorMessage getSyntaxErrorMessage(int index) {
+		int idx = Arrays.binarySearch(syntaxErrorIndices, index);
+		if (idx >= 0) {
+			return syntaxErrors[idx];
+		}
+		return null;
+	}
+
+	boolean hasNextSibling(int index) {
+		return index != 0 && ends[index] < ends[parents[index]];
+	}
+
+	boolean hasPreviousSibling(int index) {
+		return index != 0 && parents[index] != index - 1;
+	}
+
+	int getPreviousSibling(int index) {
+		int parent = parents[index];
+		int result = index - 1;
+		while (parents[result] != parent) {
+			result = parents[result];
+		}
+		return result;
+	}
+
+	int getLastChild(int index) {
+		int end = ends[index];
+		int result = index + 1;
+		while (ends[result] < end) {
+			result = ends[result];
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the first leaf in the subtree of the given node that is not hidden or the first hidden leaf if there
+	 * is no such leaf. Returns -1 if the subtree does not contain any leaf.
+	 */
+	int getFirstLeaf(int index) {
+		int result = -1;
+		for (int i = index, end = ends[index]; i < end; i++) {
+			if (kinds[i] == LEAF) {
+				return i;
+			}
+			if (result == -1 && kinds[i] == HIDDEN_LEAF) {
+				result = i;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the last leaf in the subtree of the given node that is not hidden or -1 if there is no such leaf.
+	 */
+	int getLastVisibleLeaf(int index) {
+		for (int i = ends[index] - 1; i >= index; i--) {
+			if (kinds[i] == LEAF) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the leaf that covers the given offset in the subtree of the given node or -1 if there is no such
+	 * leaf.
+	 */
+	int findLeafAtOffset(int index, int offset) {
+		if (!intersects(index, offset)) {
+			return -1;
+		}
+		int current = index;
+		while (kinds[current] == COMPOSITE) {
+			int end = ends[current];
+			int child = current + 1;
+			while (child < end && !intersects(child, offset)) {
+				if (offsets[child] > offset) {
+					return -1;
+				}
+				child = ends[child];
+			}
+			if (child == end) {
+				return -1;
+			}
+			current = child;
+		}
+		return current;
+	}
+
+	private boolean intersects(int index, int offset) {
+		return offsets[index] <= offset && offsets[index] + lengths[index] > offset;
+	}
+
+	Iterator<ILeafNode> leafIterator(int index) {
+		return new LeafIterator(index, ends[index]);
+	}
+
+	private class LeafIterator implements Iterator<ILeafNode> {
+
+		private final int end;
+		private int next;
+
+		LeafIterator(int start, int end) {
+			this.end = end;
+			this.next = advance(start);
+		}
+
+		private int advance(int from) {
+			int result = from;
+			while (result < end && kinds[result] == COMPOSITE) {
+				result++;
+			}
+			return result;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next < end;
+		}
+
+		@Override
+		public ILeafNode next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			ILeafNode result = new ColumnarLeafNode(ColumnarNodeModel.this, next);
+			next = advance(next + 1);
+			return result;
+		}
+
+	}
+
+	private static class Builder {
+
+		private String content;
+		private int[] lineBreaks;
+
+		private int size;
+		private byte[] kinds = new byte[64];
+		private int[] parents = new int[64];
+		private int[] ends = new int[64];
+		private int[] offsets = new int[64];
+		private int[] lengths = new int[64];
+		private int[] lookAheads = new int[64];
+		private int[] grammarElementIds = new int[64];
+
+		private final Map<EObject, Integer> grammarElementToId = new HashMap<EObject, Integer>();
+		private final List<EObject> grammarElements = new ArrayList<EObject>();
+
+		private final List<Integer> semanticIndices = new ArrayList<Integer>();
+		private final List<EObject> semanticElements = new ArrayList<EObject>();
+
+		private final List<Integer> syntaxErrorIndices = new ArrayList<Integer>();
+		private final List<SyntaxErrorMessage> syntaxErrors = new ArrayList<SyntaxErrorMessage>();
+
+		ColumnarNodeModel build(ICompositeNode rootNode) {
+			content = rootNode.getText();
+			if (rootNode instanceof RootNode) {
+				lineBreaks = ((RootNode) rootNode).basicGetLineBreakOffsets();
+			} else {
+				lineBreaks = InternalNodeModelUtils.computeLineBreaks(content);
+			}
+			// iterative traversal since node models tend to be deeply nested
+			int[] openNodes = new int[32];
+			List<Iterator<INode>> openChildren = new ArrayList<Iterator<INode>>();
+			int depth = 0;
+			openNodes[depth++] = add(rootNode, -1);
+			openChildren.add(rootNode.getChildren().iterator());
+			while (depth > 0) {
+				int parent = openNodes[depth - 1];
+				Iterator<INode> children = openChildren.get(depth - 1);
+				if (children.hasNext()) {
+					INode child = children.next();
+					int index = add(child, parent);
+					if (child instanceof ICompositeNode && ((ICompositeNode) child).hasChildren()) {
+						if (depth == openNodes.length) {
+							openNodes = Arrays.copyOf(openNodes, depth * 2);
+						}
+						openNodes[depth++] = index;
+						openChildren.add(((ICompositeNode) child).getChildren().iterator());
+					} else {
+						ends[index] = size;
+					}
+				} else {
+					ends[parent] = size;
+					openChildren.remove(--depth);
+				}
+			}
+			ColumnarNodeModel result = new ColumnarNodeModel(this);
+			for (int i = 0; i < result.semanticNodes.length; i++) {
+				ColumnarCompositeNodeWithSemanticElement node = result.semanticNodes[i];
+				List<Adapter> adapters = semanticElements.get(i).eAdapters();
+				for (int j = adapters.size() - 1; j >= 0; j--) {
+					if (adapters.get(j) instanceof ICompositeNode) {
+						adapters.remove(j);
+					}
+				}
+				adapters.add(node);
+			}
+			return result;
+		}
+
+		private int add(INode node, int parent) {
+			if (size == kinds.length) {
+				int capacity = size * 2;
+				kinds = Arrays.copyOf(kinds, capacity);
+				parents = Arrays.copyOf(parents, capacity);
+				ends = Arrays.copyOf(ends, capacity);
+				offsets = Arrays.copyOf(offsets, capacity);
+				lengths = Arrays.copyOf(lengths, capacity);
+				lookAheads = Arrays.copyOf(lookAheads, capacity);
+				grammarElementIds = Arrays.copyOf(grammarElementIds, capacity);
+			}
+			int index = size++;
+			if (node instanceof ILeafNode) {
+				kinds[index] = ((ILeafNode) node).isHidden() ? HIDDEN_LEAF : LEAF;
+			} else {
+				kinds[index] = COMPOSITE;
+				lookAheads[index] = ((ICompositeNode) node).getLookAhead();
+				if (node.hasDirectSemanticElement()) {
+					semanticIndices.add(index);
+					semanticElements.add(node.getSemanticElement());
+				}
+			}
+			parents[index] = parent;
+			offsets[index] = node.getTotalOffset();
+			lengths[index] = node.getTotalLength();
+			grammarElementIds[index] = getGrammarElementId(node.getGrammarElement());
+			SyntaxErrorMessage syntaxError = node.getSyntaxErrorMessage();
+			if (syntaxError != null) {
+				syntaxErrorIndices.add(index);
+				syntaxErrors.add(syntaxError);
+			}
+			return index;
+		}
+
+		private int getGrammarElementId(EObject grammarElement) {
+			if (grammarElement == null) {
+				return NO_GRAMMAR_ELEMENT;
+			}
+			Integer result = grammarElementToId.get(grammarElement);
+			if (result == null) {
+				result = grammarElements.size();
+				grammarElements.add(grammarElement);
+				grammarElementToId.put(grammarElement, result);
+			}
+			return result;
+		}
+
+	}
+
+}
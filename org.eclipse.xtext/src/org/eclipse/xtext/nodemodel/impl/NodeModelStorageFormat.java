@@ -0,0 +1,583 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.nodemodel.impl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.ILeafNode;
+import org.eclipse.xtext.nodemodel.INode;
+import org.eclipse.xtext.nodemodel.SyntaxErrorMessage;
+import org.eclipse.xtext.nodemodel.impl.AbstractNode.NodeType;
+import org.eclipse.xtext.nodemodel.serialization.DeserializationConversionContext;
+import org.eclipse.xtext.nodemodel.serialization.SerializationConversionContext;
+import org.eclipse.xtext.nodemodel.serialization.SerializationUtil;
+
+/**
+ * Reads and writes format version 2 of the {@link SerializableNodeModel}. The stream consists of
+ * <ul>
+ * <li>the grammar element URIs, each one encoded as the length of the prefix it shares with its predecessor and the
+ * remaining suffix,</li>
+ * <li>the complete content, so that leaf nodes only need to store their length,</li>
+ * <li>an index that maps the total offset of each child of the root node to the position of its subtree in the node
+ * section, so that a reader can skip to the subtree that contains a given offset,</li>
+ * <li>and the node section with all nodes in document order. Integers are stored as variable length integers.</li>
+ * </ul>
+ * The content and the strings of the node section are encoded char by char like
+ * {@link DataOutputStream#writeUTF(String)} does, but without its length limit. Unlike standard UTF-8, this retains
+ * unpaired surrogates, which may occur in any text that was parsed. The node section is read into memory at once and
+ * decoded without recursion.
+ *
+ * @since 2.20
+ */
+final class NodeModelStorageFormat {
+
+	private static final NodeType[] NODE_TYPE_VALUES = NodeType.values();
+
+	private NodeModelStorageFormat() {
+	}
+
+	static void write(ICompositeNode rootNode, DataOutputStream out, SerializationConversionContext scc)
+			throws IOException {
+		String[] grammarIdToURIMap = scc.getGrammarIdToURIMap();
+		SerializationUtil.writeInt(out, grammarIdToURIMap.length, true);
+		String previous = "";
+		for (String uri : grammarIdToURIMap) {
+			int prefix = commonPrefixLength(previous, uri);
+			SerializationUtil.writeInt(out, prefix, true);
+			out.writeUTF(uri.substring(prefix));
+			previous = uri;
+		}
+
+		String text = rootNode.getText();
+		byte[] content = encode(text);
+		SerializationUtil.writeInt(out, text.length(), true);
+		SerializationUtil.writeInt(out, content.length, true);
+		out.write(content);
+
+		Output nodes = new Output(Math.max(64, content.length));
+		int[] index = writeNodes(rootNode, nodes, scc);
+		SerializationUtil.writeInt(out, index.length / 2, true);
+		int previousOffset = 0;
+		int previousPosition = 0;
+		for (int i = 0; i < index.length; i += 2) {
+			SerializationUtil.writeInt(out, index[i] - previousOffset, true);
+			SerializationUtil.writeInt(out, index[i + 1] - previousPosition, true);
+			previousOffset = index[i];
+			previousPosition = index[i + 1];
+		}
+		SerializationUtil.writeInt(out, nodes.size, true);
+		out.write(nodes.bytes, 0, nodes.size);
+	}
+
+	private static int commonPrefixLength(String left, String right) {
+		int max = Math.min(left.length(), right.length());
+		int result = 0;
+		while (result < max && left.charAt(result) == right.charAt(result)) {
+			result++;
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the nodes in document order and returns pairs of total offset and position for each child of the root.
+	 */
+	private static int[] writeNodes(ICompositeNode rootNode, Output out, SerializationConversionContext scc) {
+		int[] index = new int[16];
+		int indexSize = 0;
+		writeNode(rootNode, out, scc);
+		Deque<Iterator<INode>> stack = new ArrayDeque<Iterator<INode>>();
+		stack.push(children(rootNode));
+		while (!stack.isEmpty()) {
+			Iterator<INode> children = stack.peek();
+			if (!children.hasNext()) {
+				stack.pop();
+				continue;
+			}
+			INode child = children.next();
+			if (stack.size() == 1) {
+				if (indexSize == index.length) {
+					index = Arrays.copyOf(index, indexSize * 2);
+				}
+				index[indexSize++] = child.getTotalOffset();
+				index[indexSize++] = out.size;
+			}
+			writeNode(child, out, scc);
+			if (child instanceof ICompositeNode) {
+				stack.push(children((ICompositeNode) child));
+			}
+		}
+		return Arrays.copyOf(index, indexSize);
+	}
+
+	private static void writeNode(INode node, Output out, SerializationConversionContext scc) {
+		NodeType type = getNodeType(node);
+		out.writeInt(type.ordinal());
+		writeGrammarElements(node, out, scc);
+		switch (type) {
+			case RootNode:
+			case CompositeNodeWithSemanticElement:
+			case CompositeNodeWithSemanticElementAndSyntaxError:
+				EObject semanticElement = node.hasDirectSemanticElement() ? node.getSemanticElement() : null;
+				out.writeInt(semanticElement == null ? 0 : scc.getEObjectId(semanticElement) + 1);
+				break;
+			default:
+				break;
+		}
+		switch (type) {
+			case RootNode:
+			case CompositeNodeWithSyntaxError:
+			case CompositeNodeWithSemanticElementAndSyntaxError:
+			case HiddenLeafNodeWithSyntaxError:
+			case LeafNodeWithSyntaxError:
+				writeSyntaxErrorMessage(node.getSyntaxErrorMessage(), out);
+				break;
+			default:
+				break;
+		}
+		if (node instanceof ICompositeNode) {
+			ICompositeNode composite = (ICompositeNode) node;
+			out.writeInt(composite.getLookAhead());
+			int childCount = 0;
+			for (Iterator<INode> children = children(composite); children.hasNext(); children.next()) {
+				childCount++;
+			}
+			out.writeInt(childCount);
+		} else {
+			out.writeInt(node.getTotalLength());
+		}
+	}
+
+	private static NodeType getNodeType(INode node) {
+		if (node instanceof AbstractNode) {
+			return ((AbstractNode) node).getNodeId();
+		}
+		boolean hasError = node.getSyntaxErrorMessage() != null;
+		if (node instanceof ILeafNode) {
+			if (((ILeafNode) node).isHidden()) {
+				return hasError ? NodeType.HiddenLeafNodeWithSyntaxError : NodeType.HiddenLeafNode;
+			}
+			return hasError ? NodeType.LeafNodeWithSyntaxError : NodeType.LeafNode;
+		}
+		if (node.getParent() == null) {
+			return NodeType.RootNode;
+		}
+		if (node.hasDirectSemanticElement()) {
+			return hasError ? NodeType.CompositeNodeWithSemanticElementAndSyntaxError : NodeType.CompositeNodeWithSemanticElement;
+		}
+		return hasError ? NodeType.CompositeNodeWithSyntaxError : NodeType.CompositeNode;
+	}
+
+	private static void writeGrammarElements(INode node, Output out, SerializationConversionContext scc) {
+		Object grammarElementOrArray = node instanceof AbstractNode
+				? ((AbstractNode) node).basicGetGrammarElement()
+				: node.getGrammarElement();
+		if (grammarElementOrArray instanceof EObject[]) {
+			EObject[] grammarElements = (EObject[]) grammarElementOrArray;
+			out.writeInt(grammarElements.length);
+			for (EObject grammarElement : grammarElements) {
+				out.writeInt(scc.getGrammarElementId(grammarElement));
+			}
+		} else if (grammarElementOrArray != null) {
+			out.writeInt(1);
+			out.writeInt(scc.getGrammarElementId((EObject) grammarElementOrArray));
+		} else {
+			out.writeInt(0);
+		}
+	}
+
+	private static void writeSyntaxErrorMessage(SyntaxErrorMessage syntaxErrorMessage, Output out) {
+		if (syntaxErrorMessage == null) {
+			out.writeInt(0);
+			return;
+		}
+		out.writeInt(1);
+		out.writeString(syntaxErrorMessage.getMessage());
+		out.writeString(syntaxErrorMessage.getIssueCode());
+		String[] issueData = syntaxErrorMessage.getIssueData();
+		if (issueData == null) {
+			out.writeInt(0);
+		} else {
+			out.writeInt(issueData.length + 1);
+			for (String data : issueData) {
+				out.writeString(data);
+			}
+		}
+	}
+
+	/**
+	 * Iterates the children of the given node. Nodes of the default implementation are traversed by means of their
+	 * internal structure, since their public API represents folded nodes by synthetic ones.
+	 */
+	private static Iterator<INode> children(ICompositeNode node) {
+		if (node instanceof CompositeNode) {
+			final AbstractNode firstChild = ((CompositeNode) node).basicGetFirstChild();
+			return new Iterator<INode>() {
+				private AbstractNode next = firstChild;
+
+				@Override
+				public boolean hasNext() {
+					return next != null;
+				}
+
+				@Override
+				public INode next() {
+					if (next == null) {
+						throw new NoSuchElementException();
+					}
+					AbstractNode result = next;
+					next = result.basicGetNextSibling();
+					if (next == firstChild) {
+						next = null;
+					}
+					return result;
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+		return node.getChildren().iterator();
+	}
+
+	static RootNode read(DataInputStream in, DeserializationConversionContext context) throws IOException {
+		int grammarIdCount = SerializationUtil.readInt(in, true);
+		String[] grammarIdToURIMap = new String[grammarIdCount];
+		String previous = "";
+		for (int i = 0; i < grammarIdCount; i++) {
+			int prefix = SerializationUtil.readInt(in, true);
+			previous = previous.substring(0, prefix) + in.readUTF();
+			grammarIdToURIMap[i] = previous;
+		}
+		context.setGrammarIdToURIMap(grammarIdToURIMap);
+
+		int contentLength = SerializationUtil.readInt(in, true);
+		byte[] contentBytes = new byte[SerializationUtil.readInt(in, true)];
+		in.readFully(contentBytes);
+		String completeContent = decode(contentBytes, 0, contentBytes.length, contentLength);
+
+		int indexSize = SerializationUtil.readInt(in, true);
+		for (int i = 0; i < indexSize * 2; i++) {
+			// the index is not needed to read all nodes
+			SerializationUtil.readInt(in, true);
+		}
+
+		byte[] nodeBytes = new byte[SerializationUtil.readInt(in, true)];
+		in.readFully(nodeBytes);
+		RootNode result = new RootNode();
+		int totalLength = readNodes(result, new Input(nodeBytes), context);
+		result.basicSetCompleteContent(completeContent);
+		if (totalLength != completeContent.length()) {
+			throw new IllegalStateException("The length of the stored content was " + completeContent.length()
+					+ " but the length calculated based upon the stored nodes was " + totalLength);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the nodes into the given root and returns the total length of all leaf nodes.
+	 */
+	private static int readNodes(RootNode root, Input in, DeserializationConversionContext context) throws IOException {
+		if (in.readInt() != NodeType.RootNode.ordinal()) {
+			throw new IllegalStateException("The stored node model does not start with a root node");
+		}
+		CompositeNode[] parents = new CompositeNode[32];
+		int[] remainingChildren = new int[32];
+		parents[0] = root;
+		remainingChildren[0] = readNodeData(root, NodeType.RootNode, in, context);
+		int depth = 1;
+		int offset = 0;
+		while (depth > 0) {
+			int top = depth - 1;
+			if (remainingChildren[top] == 0) {
+				depth--;
+				continue;
+			}
+			remainingChildren[top]--;
+			NodeType type = NODE_TYPE_VALUES[in.readInt()];
+			AbstractNode child = createNode(type);
+			int childCount = readNodeData(child, type, in, context);
+			appendChild(parents[top], child);
+			if (child instanceof LeafNode) {
+				LeafNode leaf = (LeafNode) child;
+				leaf.basicSetTotalOffset(offset);
+				offset += leaf.getTotalLength();
+			} else {
+				if (depth == parents.length) {
+					parents = Arrays.copyOf(parents, depth * 2);
+					remainingChildren = Arrays.copyOf(remainingChildren, depth * 2);
+				}
+				parents[depth] = (CompositeNode) child;
+				remainingChildren[depth] = childCount;
+				depth++;
+			}
+		}
+		return offset;
+	}
+
+	private static AbstractNode createNode(NodeType type) {
+		switch (type) {
+			case CompositeNode:
+				return new CompositeNode();
+			case CompositeNodeWithSemanticElement:
+				return new CompositeNodeWithSemanticElement();
+			case CompositeNodeWithSemanticElementAndSyntaxError:
+				return new CompositeNodeWithSemanticElementAndSyntaxError();
+			case CompositeNodeWithSyntaxError:
+				return new CompositeNodeWithSyntaxError();
+			case HiddenLeafNode:
+				return new HiddenLeafNode();
+			case HiddenLeafNodeWithSyntaxError:
+				return new HiddenLeafNodeWithSyntaxError();
+			case LeafNode:
+				return new LeafNode();
+			case LeafNodeWithSyntaxError:
+				return new LeafNodeWithSyntaxError();
+			default:
+				throw new IllegalStateException("Unexpected node type in the stored node model: " + type);
+		}
+	}
+
+	/**
+	 * Reads the data of the given node and returns the number of its children.
+	 */
+	private static int readNodeData(AbstractNode node, NodeType type, Input in, DeserializationConversionContext context)
+			throws IOException {
+		int grammarElementCount = in.readInt();
+		if (grammarElementCount > 0) {
+			Object grammarElementOrArray = context.getGrammarElement(in.readInt());
+			for (int i = 1; i < grammarElementCount; i++) {
+				grammarElementOrArray = context.getArrayInterner().appendAndIntern(grammarElementOrArray,
+						context.getGrammarElement(in.readInt()));
+			}
+			node.basicSetGrammarElement(grammarElementOrArray);
+		}
+		switch (type) {
+			case RootNode:
+			case CompositeNodeWithSemanticElement:
+			case CompositeNodeWithSemanticElementAndSyntaxError:
+				int semanticId = in.readInt();
+				if (semanticId != 0) {
+					context.getSemanticObject(semanticId - 1).eAdapters().add((CompositeNodeWithSemanticElement) node);
+				}
+				break;
+			default:
+				break;
+		}
+		switch (type) {
+			case RootNode:
+			case CompositeNodeWithSemanticElementAndSyntaxError:
+				((CompositeNodeWithSemanticElementAndSyntaxError) node).basicSetSyntaxErrorMessage(readSyntaxErrorMessage(in, context));
+				break;
+			case CompositeNodeWithSyntaxError:
+				((CompositeNodeWithSyntaxError) node).basicSetSyntaxErrorMessage(readSyntaxErrorMessage(in, context));
+				break;
+			case HiddenLeafNodeWithSyntaxError:
+				((HiddenLeafNodeWithSyntaxError) node).basicSetSyntaxErrorMessage(readSyntaxErrorMessage(in, context));
+				break;
+			case LeafNodeWithSyntaxError:
+				((LeafNodeWithSyntaxError) node).basicSetSyntaxErrorMessage(readSyntaxErrorMessage(in, context));
+				break;
+			default:
+				break;
+		}
+		if (node instanceof CompositeNode) {
+			((CompositeNode) node).basicSetLookAhead(in.readInt());
+			return in.readInt();
+		}
+		((LeafNode) node).basicSetTotalLength(in.readInt());
+		return 0;
+	}
+
+	private static SyntaxErrorMessage readSyntaxErrorMessage(Input in, DeserializationConversionContext context)
+			throws IOException {
+		if (in.readInt() == 0) {
+			return null;
+		}
+		context.setHasErrors(true);
+		String message = in.readString();
+		String issueCode = in.readString();
+		String[] issueData = null;
+		int issueDataLength = in.readInt();
+		if (issueDataLength > 0) {
+			issueData = new String[issueDataLength - 1];
+			for (int i = 0; i < issueData.length; i++) {
+				issueData[i] = in.readString();
+			}
+		}
+		return new SyntaxErrorMessage(message, issueCode, issueData);
+	}
+
+	private static void appendChild(CompositeNode parent, AbstractNode child) {
+		child.basicSetParent(parent);
+		AbstractNode firstChild = parent.basicGetFirstChild();
+		if (firstChild == null) {
+			parent.basicSetFirstChild(child);
+			child.basicSetNextSibling(child);
+			child.basicSetPreviousSibling(child);
+		} else {
+			AbstractNode lastChild = firstChild.basicGetPreviousSibling();
+			lastChild.basicSetNextSibling(child);
+			child.basicSetPreviousSibling(lastChild);
+			child.basicSetNextSibling(firstChild);
+			firstChild.basicSetPreviousSibling(child);
+		}
+	}
+
+	/**
+	 * A growable byte buffer with variable length integers.
+	 */
+	/**
+	 * Encodes each char of the given string on its own in one to three bytes.
+	 */
+	static byte[] encode(String value) {
+		int length = value.length();
+		int byteLength = length;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c >= 0x800) {
+				byteLength += 2;
+			} else if (c >= 0x80 || c == 0) {
+				byteLength++;
+			}
+		}
+		byte[] result = new byte[byteLength];
+		int position = 0;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c >= 0x800) {
+				result[position++] = (byte) (0xE0 | (c >> 12));
+				result[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				result[position++] = (byte) (0x80 | (c & 0x3F));
+			} else if (c >= 0x80 || c == 0) {
+				result[position++] = (byte) (0xC0 | (c >> 6));
+				result[position++] = (byte) (0x80 | (c & 0x3F));
+			} else {
+				result[position++] = (byte) c;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Decodes the chars that were {@link #encode(String) encoded} into the given range of bytes. The given capacity
+	 * must not be less than the number of chars.
+	 */
+	static String decode(byte[] bytes, int offset, int length, int capacity) throws IOException {
+		char[] chars = new char[capacity];
+		int count = 0;
+		int position = offset;
+		int end = offset + length;
+		while (position < end) {
+			if (count == capacity) {
+				throw new IOException("Malformed content in the stored node model");
+			}
+			int b = bytes[position++] & 0xFF;
+			if (b < 0x80) {
+				chars[count++] = (char) b;
+			} else if ((b & 0xE0) == 0xC0 && position < end) {
+				chars[count++] = (char) (((b & 0x1F) << 6) | (bytes[position++] & 0x3F));
+			} else if ((b & 0xF0) == 0xE0 && position + 1 < end) {
+				chars[count++] = (char) (((b & 0x0F) << 12) | ((bytes[position++] & 0x3F) << 6)
+						| (bytes[position++] & 0x3F));
+			} else {
+				throw new IOException("Malformed content in the stored node model");
+			}
+		}
+		return new String(chars, 0, count);
+	}
+
+	private static class Output {
+
+		private byte[] bytes;
+		private int size;
+
+		Output(int capacity) {
+			bytes = new byte[capacity];
+		}
+
+		void writeInt(int value) {
+			ensureCapacity(5);
+			while ((value & ~0x7F) != 0) {
+				bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+		}
+
+		void writeString(String value) {
+			if (value == null) {
+				writeInt(0);
+				return;
+			}
+			byte[] encoded = encode(value);
+			writeInt(encoded.length + 1);
+			ensureCapacity(encoded.length);
+			System.arraycopy(encoded, 0, bytes, size, encoded.length);
+			size += encoded.length;
+		}
+
+		private void ensureCapacity(int additional) {
+			if (size + additional > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+			}
+		}
+	}
+
+	/**
+	 * Decodes the bytes that were written by an {@link Output}.
+	 */
+	private static class Input {
+
+		private final byte[] bytes;
+		private int position;
+
+		Input(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		int readInt() throws IOException {
+			int result = 0;
+			for (int shift = 0; shift < 32; shift += 7) {
+				if (position >= bytes.length) {
+					throw new IOException("Unexpected end of the stored node model");
+				}
+				byte b = bytes[position++];
+				result |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return result;
+				}
+			}
+			throw new IOException("Malformed integer");
+		}
+
+		String readString() throws IOException {
+			int length = readInt() - 1;
+			if (length < 0) {
+				return null;
+			}
+			if (position + length > bytes.length) {
+				throw new IOException("Unexpected end of the stored node model");
+			}
+			String result = decode(bytes, position, length, length);
+			position += length;
+			return result;
+		}
+	}
+
+}
@@ -25,17 +25,32 @@ import org.eclipse.xtext.resource.XtextResource;
  * @noextend This class is not intended to be subclassed by clients.
  */
 public class SerializableNodeModel {
+	/**
+	 * The format version that is written by default. Version 1 streams can still be read.
+	 * 
+	 * @since 2.20
+	 */
+	public static final int CURRENT_FORMAT_VERSION = 2;
+
 	public int formatVersion;
 	public Date date;
+	/**
+	 * The root node if it is an instance of {@link RootNode}.
+	 */
 	public RootNode root;
+	private ICompositeNode rootNode;
+	private boolean formatVersionRead;
+	private int grammarIdCount;
 
 	public SerializableNodeModel(XtextResource resource) {
 		IParseResult parseResult = resource.getParseResult();
 		if (parseResult != null) {
-			ICompositeNode rootNode = parseResult.getRootNode();
-			root = (RootNode) rootNode;
+			rootNode = parseResult.getRootNode();
+			if (rootNode instanceof RootNode) {
+				root = (RootNode) rootNode;
+			}
 		}
-		formatVersion = 1;
+		formatVersion = CURRENT_FORMAT_VERSION;
 		date = new Date();
 	}
 
@@ -43,27 +58,78 @@ public class SerializableNodeModel {
 	}
 
 	/**
+	 * Writes the node model in the {@link #formatVersion}. Format version 1 does not contain the text of the resource
+	 * and supports only {@link RootNode root nodes} of the default node model.
+	 * 
 	 * @noreference This method is not intended to be referenced by clients.
 	 */
 	public void writeObjectData(DataOutputStream out, SerializationConversionContext scc) throws IOException {
-		String[] grammarIdToURIMap = scc.getGrammarIdToURIMap();
+		if (formatVersion == 1) {
+			if (root == null) {
+				throw new IllegalStateException("Format version 1 cannot store a node model of type "
+						+ (rootNode == null ? null : rootNode.getClass().getName()));
+			}
+			String[] grammarIdToURIMap = scc.getGrammarIdToURIMap();
+
+			out.writeInt(grammarIdToURIMap.length);
+			for (String string : grammarIdToURIMap) {
+				out.writeUTF(string);
+			}
 
-		out.writeInt(grammarIdToURIMap.length);
-		for (String string : grammarIdToURIMap) {
-			out.writeUTF(string);
+			root.write(out, scc);
+		} else if (formatVersion == 2) {
+			// version 1 starts with the non-negative size of the grammar id map
+			out.writeInt(-formatVersion);
+			NodeModelStorageFormat.write(rootNode, out, scc);
+		} else {
+			throw new IllegalStateException("Unsupported format version: " + formatVersion);
 		}
+	}
 
-		root.write(out, scc);
+	/**
+	 * Reads the header of a stored node model and returns its format version. The remaining data has to be read with
+	 * {@link #readObjectData(DataInputStream, DeserializationConversionContext)}. Only format version 1 requires the
+	 * {@link DeserializationConversionContext#getCompleteContent() complete content} to be passed in with the context.
+	 * 
+	 * @noreference This method is not intended to be referenced by clients.
+	 * @since 2.20
+	 */
+	public int readFormatVersion(DataInputStream in) throws IOException {
+		int header = in.readInt();
+		if (header >= 0) {
+			formatVersion = 1;
+			grammarIdCount = header;
+		} else {
+			formatVersion = -header;
+		}
+		formatVersionRead = true;
+		return formatVersion;
 	}
 
 	/**
 	 * @noreference This method is not intended to be referenced by clients.
 	 */
 	public void readObjectData(DataInputStream in, DeserializationConversionContext context) throws IOException {
-		int grammarIdToURIMapLength = in.readInt();
+		if (!formatVersionRead) {
+			readFormatVersion(in);
+		}
+		formatVersionRead = false;
+		if (formatVersion == 1) {
+			readObjectDataVersion1(in, context);
+		} else if (formatVersion == 2) {
+			root = NodeModelStorageFormat.read(in, context);
+		} else {
+			throw new IOException("Unsupported format version of the stored node model: " + formatVersion);
+		}
+		rootNode = root;
+	}
 
-		String[] grammarIdToURIMap = new String[grammarIdToURIMapLength];
-		for (int i = 0; i < grammarIdToURIMapLength; ++i) {
+	private void readObjectDataVersion1(DataInputStream in, DeserializationConversionContext context) throws IOException {
+		if (context.getCompleteContent() == null) {
+			throw new IllegalStateException("Format version 1 requires the complete content of the resource.");
+		}
+		String[] grammarIdToURIMap = new String[grammarIdCount];
+		for (int i = 0; i < grammarIdCount; ++i) {
 			grammarIdToURIMap[i] = in.readUTF();
 			if (grammarIdToURIMap[i] == null) {
 				throw new IllegalStateException("During deserialzing the grammar id to URI map got a null reference. ");
@@ -12,6 +12,9 @@ import java.util.Map;
 
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.INode;
 import org.eclipse.xtext.nodemodel.impl.RootNode;
 import org.eclipse.xtext.parser.IParseResult;
 import org.eclipse.xtext.resource.XtextResource;
@@ -59,8 +62,18 @@ public class SerializationConversionContext {
 	protected void fillGrammarElementToIdMap(XtextResource r) {
 		IParseResult parseResult = r.getParseResult();
 		if (parseResult != null) {
-			RootNode it = (RootNode) parseResult.getRootNode();
-			it.fillGrammarElementToIdMap(grammarElementToIdMap, grammarIdToURIMap);
+			ICompositeNode rootNode = parseResult.getRootNode();
+			if (rootNode instanceof RootNode) {
+				((RootNode) rootNode).fillGrammarElementToIdMap(grammarElementToIdMap, grammarIdToURIMap);
+			} else if (rootNode != null) {
+				for (INode node : rootNode.getAsTreeIterable()) {
+					EObject grammarElement = node.getGrammarElement();
+					if (grammarElement != null && !grammarElementToIdMap.containsKey(grammarElement)) {
+						grammarElementToIdMap.put(grammarElement, grammarIdToURIMap.size());
+						grammarIdToURIMap.add(EcoreUtil.getURI(grammarElement).toString());
+					}
+				}
+			}
 		}
 	}
 
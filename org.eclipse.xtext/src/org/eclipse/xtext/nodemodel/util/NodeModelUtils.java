@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2016 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2010, 2016, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -29,6 +29,7 @@ import org.eclipse.xtext.nodemodel.ILeafNode;
 import org.eclipse.xtext.nodemodel.INode;
 import org.eclipse.xtext.nodemodel.SyntaxErrorMessage;
 import org.eclipse.xtext.nodemodel.impl.AbstractNode;
+import org.eclipse.xtext.nodemodel.impl.ColumnarNode;
 import org.eclipse.xtext.nodemodel.impl.InternalNodeModelUtils;
 import org.eclipse.xtext.nodemodel.impl.RootNode;
 import org.eclipse.xtext.resource.EObjectAtOffsetHelper;
@@ -66,6 +67,9 @@ public class NodeModelUtils extends InternalNodeModelUtils {
 	 */
 	/* @Nullable */
 	public static ILeafNode findLeafNodeAtOffset(/* @NonNull */ INode node, int leafNodeOffset) {
+		if (node instanceof ColumnarNode) {
+			return ((ColumnarNode) node).findLeafNodeAtOffset(leafNodeOffset);
+		}
 		INode localNode = node;
 		while(!(localNode instanceof AbstractNode)) {
 			localNode = localNode.getParent();
@@ -124,7 +128,7 @@ public class NodeModelUtils extends InternalNodeModelUtils {
 	 */
 	public static LineAndColumn getLineAndColumn(INode anyNode, int documentOffset) {
 		// special treatment for inconsistent nodes such as SyntheticLinkingLeafNode
-		if (anyNode.getParent() == null && !(anyNode instanceof RootNode)) {
+		if (anyNode.getParent() == null && !(anyNode instanceof RootNode) && !(anyNode instanceof ColumnarNode)) {
 			return LineAndColumn.from(1,1);
 		}
 		return InternalNodeModelUtils.getLineAndColumn(anyNode, documentOffset);
@@ -201,7 +205,7 @@ public class NodeModelUtils extends InternalNodeModelUtils {
 						}
 					}
 					iterator.prune();
-				} else if (child != node) {
+				} else if (!child.equals(node)) {
 					Assignment assignment = GrammarUtil.containingAssignment(grammarElement);
 					if (assignment != null) {
 						if (featureName.equals(assignment.getFeature())) {
@@ -9,9 +9,7 @@ package org.eclipse.xtext.parser.antlr;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
 
-import org.antlr.runtime.ANTLRReaderStream;
 import org.antlr.runtime.CharStream;
 import org.antlr.runtime.TokenSource;
 import org.eclipse.emf.common.util.WrappedException;
@@ -59,7 +57,7 @@ public abstract class AbstractAntlrParser extends AbstractParser {
 	@Override
 	public IParseResult doParse(Reader reader) {
 		try {
-			return parse(getDefaultRuleName(), new ANTLRReaderStream(reader));
+			return parse(getDefaultRuleName(), createCharStream(reader));
 		} catch (IOException e) {
 			throw new WrappedException(e);
 		}
@@ -67,7 +65,17 @@ public abstract class AbstractAntlrParser extends AbstractParser {
 
 	@Override
 	public IParseResult doParse(CharSequence sequence) {
-		return doParse(new StringReader(sequence.toString()));
+		return parse(getDefaultRuleName(), new StringCharStream(sequence.toString()));
+	}
+
+	/**
+	 * Reads the complete content of the given reader. The returned stream shares its content with the
+	 * node model.
+	 * 
+	 * @since 2.20
+	 */
+	protected CharStream createCharStream(Reader reader) throws IOException {
+		return StringCharStream.read(reader);
 	}
 
 	public IAstFactory getElementFactory() {
@@ -114,7 +122,7 @@ public abstract class AbstractAntlrParser extends AbstractParser {
 	@Override
 	public IParseResult parse(ParserRule rule, Reader reader) {
 		try {
-			IParseResult parseResult = parse(rule.getName(), new ANTLRReaderStream(reader));
+			IParseResult parseResult = parse(rule.getName(), createCharStream(reader));
 			return parseResult;
 		} catch (IOException e) {
 			throw new WrappedException(e);
@@ -126,7 +134,7 @@ public abstract class AbstractAntlrParser extends AbstractParser {
 		try {
 			NodeModelBuilder builder = nodeModelBuilder.get();
 			builder.setForcedFirstGrammarElement(ruleCall);
-			IParseResult parseResult = doParse(ruleCall.getRule().getName(), new ANTLRReaderStream(reader), builder, initialLookAhead);
+			IParseResult parseResult = doParse(ruleCall.getRule().getName(), createCharStream(reader), builder, initialLookAhead);
 			return parseResult;
 		} catch (IOException e) {
 			throw new WrappedException(e);
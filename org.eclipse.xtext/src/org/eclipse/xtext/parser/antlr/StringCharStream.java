@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.parser.antlr;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CharStream;
+
+/**
+ * A char stream that reads directly from a string instead of copying it into a char array first.
+ *
+ * The complete content is returned as is from {@link #substring(int, int)}, which allows to share the
+ * string with the node model rather than copying it again.
+ * <p>
+ * The content is deliberately held in memory as a whole instead of being streamed from a (memory mapped) buffer:
+ * the {@link org.eclipse.xtext.nodemodel.impl.RootNode root node} keeps the complete text of a resource anyway, and
+ * the parser may {@link #rewind(int) rewind} to any earlier position while it backtracks. A streaming char stream
+ * would therefore still have to materialize the whole input, only later and in a second copy.
+ *
+ * @since 2.20
+ */
+public class StringCharStream extends ANTLRStringStream {
+
+	private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+	/**
+	 * Reads the given reader completely. The reader is not closed.
+	 */
+	public static StringCharStream read(Reader reader) throws IOException {
+		StringBuilder result = new StringBuilder(READ_BUFFER_SIZE);
+		char[] buffer = new char[READ_BUFFER_SIZE];
+		int read;
+		while ((read = reader.read(buffer)) != -1) {
+			result.append(buffer, 0, read);
+		}
+		return new StringCharStream(result.toString());
+	}
+
+	private final String content;
+
+	public StringCharStream(String content) {
+		this.content = content;
+		this.n = content.length();
+	}
+
+	@Override
+	public void consume() {
+		if (p < n) {
+			charPositionInLine++;
+			if (content.charAt(p) == '\n') {
+				line++;
+				charPositionInLine = 0;
+			}
+			p++;
+		}
+	}
+
+	@Override
+	public int LA(int i) {
+		if (i == 0) {
+			return 0; // undefined
+		}
+		if (i < 0) {
+			i++; // e.g., translate LA(-1) to use offset i=0; then data[p+0-1]
+			if ((p + i - 1) < 0) {
+				return CharStream.EOF; // invalid; no char before first char
+			}
+		}
+		if ((p + i - 1) >= n) {
+			return CharStream.EOF;
+		}
+		return content.charAt(p + i - 1);
+	}
+
+	@Override
+	public String substring(int start, int stop) {
+		if (start == 0 && stop == n - 1) {
+			return content;
+		}
+		return content.substring(start, stop + 1);
+	}
+
+	@Override
+	public String toString() {
+		return content;
+	}
+
+}
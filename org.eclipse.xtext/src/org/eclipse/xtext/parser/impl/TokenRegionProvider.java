@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2012, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,8 +8,12 @@
 package org.eclipse.xtext.parser.impl;
 
 import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CharStream;
 import org.antlr.runtime.CommonToken;
 import org.antlr.runtime.Token;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
+import org.eclipse.xtext.nodemodel.ILeafNode;
+import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
 import org.eclipse.xtext.parser.antlr.Lexer;
 import org.eclipse.xtext.parser.antlr.LexerBindings;
 import org.eclipse.xtext.util.ITextRegion;
@@ -22,6 +26,10 @@ import com.google.inject.name.Named;
 
 /**
  * Expands a region such that it contains only complete lexer tokens.
+ * <p>
+ * If the node model of the text before a change is known, lexing starts close to the change instead of at the
+ * beginning of the text, since the leaf nodes of the previous node model are the tokens of the unchanged text. Lexing
+ * stops as soon as the tokens cover the changed region.
  * 
  * @author Jan Koehnlein - Initial contribution and API
  * @since 2.3
@@ -33,10 +41,22 @@ public class TokenRegionProvider {
 	private Provider<Lexer> lexerProvider;
 
 	public ITextRegion getTokenRegion(String text, ITextRegion region) {
+		return getTokenRegion(text, region, 0);
+	}
+
+	/**
+	 * Expands the given region such that it contains only complete lexer tokens. Lexing starts at the given offset,
+	 * which has to be the start of a token that is not affected by the text in the region.
+	 * 
+	 * @since 2.20
+	 */
+	public ITextRegion getTokenRegion(String text, ITextRegion region, int restartOffset) {
 		Lexer lexer = lexerProvider.get();
-		lexer.setCharStream(new ANTLRStringStream(text));
-		int currentStart = 0;
-		int currentEnd = 0;
+		CharStream stream = new ANTLRStringStream(text);
+		lexer.setCharStream(stream);
+		stream.seek(restartOffset);
+		int currentStart = restartOffset;
+		int currentEnd = restartOffset;
 		CommonToken nextToken = (CommonToken) lexer.nextToken();
 		int regionStart = region.getOffset();
 		int regionEnd = regionStart + region.getLength();
@@ -57,9 +77,48 @@ public class TokenRegionProvider {
 	}
 
 	public ReplaceRegion getTokenReplaceRegion(String changedText, ReplaceRegion replaceRegion) {
+		return getTokenReplaceRegion(changedText, replaceRegion, 0);
+	}
+
+	/**
+	 * Expands the given replace region such that it contains only complete lexer tokens. The tokens of the unchanged
+	 * text are taken from the node model of the text before the change.
+	 * 
+	 * @param changedText
+	 *            the text after the change.
+	 * @param previousRootNode
+	 *            the root node of the text before the change.
+	 * @since 2.20
+	 */
+	public ReplaceRegion getTokenReplaceRegion(String changedText, ReplaceRegion replaceRegion,
+			ICompositeNode previousRootNode) {
+		return getTokenReplaceRegion(changedText, replaceRegion,
+				getRestartOffset(previousRootNode, replaceRegion.getOffset()));
+	}
+
+	/**
+	 * Returns the start of a token in the given node model that is not affected by a change at the given offset. The
+	 * token that ends at the change may be extended by it, and the lexer may have looked ahead into that token when it
+	 * created the token before it. So lexing restarts at the start of the token before the one that touches the change.
+	 * 
+	 * @since 2.20
+	 */
+	protected int getRestartOffset(ICompositeNode previousRootNode, int offset) {
+		int result = offset;
+		for (int i = 0; i < 2 && result > 0; i++) {
+			ILeafNode leaf = NodeModelUtils.findLeafNodeAtOffset(previousRootNode, result - 1);
+			if (leaf == null) {
+				return 0;
+			}
+			result = leaf.getTotalOffset();
+		}
+		return result;
+	}
+
+	private ReplaceRegion getTokenReplaceRegion(String changedText, ReplaceRegion replaceRegion, int restartOffset) {
 		int lengthDelta = replaceRegion.getText().length() - replaceRegion.getLength();
 		ITextRegion tokenRegion = getTokenRegion(changedText, new TextRegion(replaceRegion.getOffset(), replaceRegion
-				.getText().length()));
+				.getText().length()), restartOffset);
 		if (tokenRegion.getOffset() == replaceRegion.getOffset()
 				&& tokenRegion.getLength() == replaceRegion.getText().length())
 			return replaceRegion;
@@ -30,12 +30,16 @@ import org.eclipse.xtext.Constants;
 import org.eclipse.xtext.ParserRule;
 import org.eclipse.xtext.diagnostics.Severity;
 import org.eclipse.xtext.linking.ILinker;
+import org.eclipse.xtext.nodemodel.ICompositeNode;
 import org.eclipse.xtext.nodemodel.INode;
 import org.eclipse.xtext.nodemodel.SyntaxErrorMessage;
+import org.eclipse.xtext.nodemodel.impl.ColumnarNode;
+import org.eclipse.xtext.nodemodel.impl.ColumnarNodeModel;
 import org.eclipse.xtext.nodemodel.util.NodeModelUtils;
 import org.eclipse.xtext.parser.IEncodingProvider;
 import org.eclipse.xtext.parser.IParseResult;
 import org.eclipse.xtext.parser.IParser;
+import org.eclipse.xtext.parser.ParseResult;
 import org.eclipse.xtext.parser.antlr.IReferableElementsUnloader;
 import org.eclipse.xtext.resource.impl.ListBasedDiagnosticConsumer;
 import org.eclipse.xtext.serializer.ISerializer;
@@ -78,6 +82,14 @@ public class XtextResource extends ResourceImpl {
 
 	public static final String OPTION_ENCODING = XtextResource.class.getName() + ".DEFAULT_ENCODING";
 
+	/**
+	 * The name of a boolean constant that enables the {@link ColumnarNodeModel columnar node model} for a language,
+	 * e.g. <code>binder.bindConstant().annotatedWith(Names.named(XtextResource.COLUMNAR_NODE_MODEL)).to(true)</code>.
+	 * 
+	 * @since 2.20
+	 */
+	public static final String COLUMNAR_NODE_MODEL = "org.eclipse.xtext.resource.XtextResource.COLUMNAR_NODE_MODEL";
+
 	private boolean validationDisabled;
 	
 	/**
@@ -99,6 +111,10 @@ public class XtextResource extends ResourceImpl {
 	@Named(Constants.LANGUAGE_NAME) 
 	private String languageName;
 	
+	@Inject(optional = true)
+	@Named(COLUMNAR_NODE_MODEL)
+	private boolean columnarNodeModel = false;
+	
 	/**
 	 * @since 2.8
 	 */
@@ -291,6 +307,9 @@ public class XtextResource extends ResourceImpl {
 	}
 	
 	protected void updateInternalState(IParseResult newParseResult) {
+		if (columnarNodeModel) {
+			newParseResult = toColumnarNodeModel(newParseResult);
+		}
 		this.parseResult = newParseResult;
 		EObject newRootASTElement = parseResult.getRootASTElement();
 		if (newRootASTElement != null && !containsRootElement(newRootASTElement))
@@ -301,6 +320,20 @@ public class XtextResource extends ResourceImpl {
 		doLinking();
 	}
 
+	/**
+	 * Replaces the node model of the given parse result by a {@link ColumnarNodeModel columnar} copy.
+	 * 
+	 * @since 2.20
+	 */
+	protected IParseResult toColumnarNodeModel(IParseResult parseResult) {
+		ICompositeNode rootNode = parseResult.getRootNode();
+		if (rootNode == null || rootNode instanceof ColumnarNode) {
+			return parseResult;
+		}
+		ColumnarNodeModel nodeModel = ColumnarNodeModel.create(rootNode);
+		return new ParseResult(parseResult.getRootASTElement(), nodeModel.getRootNode(), parseResult.hasSyntaxErrors());
+	}
+
 	/*
 	 * Extracted to allow this to be overriden from the DerivedStateAwareResource
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2017, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ import org.eclipse.xtext.resource.IContainer
 import org.eclipse.xtext.resource.IResourceDescription
 import org.eclipse.xtext.resource.IResourceDescriptions
 import org.eclipse.xtext.resource.impl.ChunkedResourceDescriptions
+import org.eclipse.xtext.resource.impl.ExportedNamesIndex
 import org.eclipse.xtext.resource.impl.LiveShadowedChunkedResourceDescriptions
 import org.eclipse.xtext.resource.impl.ProjectDescription
 import org.eclipse.xtext.resource.impl.ResourceDescriptionsBasedContainer
@@ -58,6 +59,28 @@ class ProjectDescriptionBasedContainerManager implements IContainer.Manager {
 	
 	}
 	
+	/**
+	 * Creates the container of the given project if it is a dependency of the project of the resource set, and
+	 * returns <code>null</code> otherwise. The containers of the dependencies share the
+	 * {@link ExportedNamesIndex index of their exported names}, so a name is looked up once instead of once per
+	 * dependency.
+	 * 
+	 * @since 2.20
+	 */
+	protected def IContainer createDependencyContainer(ChunkedResourceDescriptions chunkedResourceDescriptions, String projectName) {
+		val resourceSet = chunkedResourceDescriptions.resourceSet
+		if (resourceSet === null)
+			return null
+		val projectDescription = ProjectDescription.findInEmfObject(resourceSet)
+		if (projectDescription === null)
+			return null
+		val position = projectDescription.dependencies.indexOf(projectName)
+		if (position < 0)
+			return null
+		val index = chunkedResourceDescriptions.getExportedNamesIndex(projectDescription.name, projectDescription.dependencies)
+		return index.createContainer(position)
+	}
+	
 	protected def ChunkedResourceDescriptions getChunkedResourceDescriptions(IResourceDescriptions resourceDescriptions) {
 		switch resourceDescriptions {
 			ChunkedResourceDescriptions: resourceDescriptions
@@ -70,6 +93,7 @@ class ProjectDescriptionBasedContainerManager implements IContainer.Manager {
 		if(resourceDescriptions instanceof LiveShadowedChunkedResourceDescriptions) 
 			new LiveShadowedChunkedContainer(resourceDescriptions, projectName)
 		else
-			new ResourceDescriptionsBasedContainer(chunkedResourceDescriptions.getContainer(projectName) ?: new ResourceDescriptionsData(emptySet))
+			createDependencyContainer(chunkedResourceDescriptions, projectName)
+				?: new ResourceDescriptionsBasedContainer(chunkedResourceDescriptions.getContainer(projectName) ?: new ResourceDescriptionsData(emptySet))
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2010, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,9 @@
  *******************************************************************************/
 package org.eclipse.xtext.resource.impl;
 
+import java.util.Set;
+
+import org.eclipse.xtext.naming.QualifiedName;
 import org.eclipse.xtext.resource.IResourceDescription;
 
 public class ChangedResourceDescriptionDelta extends DefaultResourceDescriptionDelta {
@@ -18,4 +21,12 @@ public class ChangedResourceDescriptionDelta extends DefaultResourceDescriptionD
 	public boolean haveEObjectDescriptionsChanged() {
 		return true;
 	}
+
+	/**
+	 * @since 2.20
+	 */
+	@Override
+	protected Set<QualifiedName> computeChangedNames() {
+		return getExportedNames();
+	}
 }
\ No newline at end of file
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2016 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2016, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,10 +15,12 @@ import java.io.ObjectOutput
 import java.io.Serializable
 import java.util.ArrayList
 import java.util.HashMap
+import java.util.List
 import java.util.Map
 import java.util.concurrent.ConcurrentHashMap
 import org.eclipse.emf.common.util.URI
 import org.eclipse.emf.ecore.resource.ResourceSet
+import org.eclipse.xtext.naming.QualifiedNameTable
 import org.eclipse.xtext.resource.IResourceDescription
 import org.eclipse.xtext.resource.IResourceDescriptions
 import org.eclipse.xtext.resource.containers.ProjectDescriptionBasedContainerManager
@@ -43,6 +45,8 @@ import org.eclipse.xtext.util.internal.EmfAdaptable
 	
 	protected ResourceSet resourceSet
 	
+	val Map<String, ExportedNamesIndex> exportedNamesIndexes = new ConcurrentHashMap
+	
 	new() {}
 	
 	new(Map<String,ResourceDescriptionsData> initialData) {
@@ -115,14 +119,40 @@ import org.eclipse.xtext.util.internal.EmfAdaptable
 		return chunk2resourceDescriptions.get(containerHandle)
 	}
 	
+	/**
+	 * Returns the index of the names that are exported by the chunks with the given names. The index is cached with
+	 * the given key, e.g. the name of the project whose dependencies are indexed, and is
+	 * {@link ExportedNamesIndex#update(List) updated} when one of the chunks changes.
+	 * 
+	 * @since 2.20
+	 */
+	def ExportedNamesIndex getExportedNamesIndex(String key, List<String> chunkNames) {
+		val chunks = chunkNames.map[getContainer(it)].toList
+		var index = exportedNamesIndexes.get(key)
+		if (index === null) {
+			index = new ExportedNamesIndex(chunks)
+			exportedNamesIndexes.put(key, index)
+		} else if (!index.isIndexOf(chunks)) {
+			index.supersede
+			index = index.update(chunks)
+			exportedNamesIndexes.put(key, index)
+		}
+		return index
+	}
+	
 	override readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
 		val numChunks = in.readInt
+		val names = new QualifiedNameTable
 		for(i: 0..<numChunks) {
 			val chunkName = in.readUTF
 			val numDescriptions = in.readInt
 			val descriptions = new ArrayList(numDescriptions)
-			for(j: 0..<numDescriptions) 
-				descriptions.add(in.readObject as IResourceDescription)
+			for(j: 0..<numDescriptions) {
+				val description = in.readObject as IResourceDescription
+				if (description instanceof SerializableResourceDescription)
+					description.canonicalizeNames(names)
+				descriptions.add(description)
+			}
 			chunk2resourceDescriptions.put(chunkName, new ResourceDescriptionsData(descriptions))
 		}
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2009, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,9 +7,18 @@
  *******************************************************************************/
 package org.eclipse.xtext.resource.impl;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.naming.QualifiedName;
 import org.eclipse.xtext.resource.IEObjectDescription;
 import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.util.Arrays;
@@ -106,6 +115,103 @@ public class DefaultResourceDescriptionDelta implements IResourceDescription.Del
 		return true;
 	}
 
+	private Set<QualifiedName> changedNames;
+
+	/**
+	 * Returns the lower case names of the exported objects that have been added, removed or changed. The exported
+	 * objects with the same name are compared in their order, the order of objects with different names doesn't
+	 * matter. A resource whose references only use other names isn't affected by this delta, unless it references
+	 * the changed resource by URI.
+	 * 
+	 * @since 2.20
+	 */
+	public Set<QualifiedName> getChangedNames() {
+		if (changedNames == null) {
+			changedNames = computeChangedNames();
+		}
+		return changedNames;
+	}
+
+	/**
+	 * @since 2.20
+	 */
+	protected Set<QualifiedName> computeChangedNames() {
+		if (_new == null || old == null)
+			return getExportedNames();
+		Map<QualifiedName, List<IEObjectDescription>> oldByName = groupByName(old);
+		Map<QualifiedName, List<IEObjectDescription>> newByName = groupByName(_new);
+		Set<QualifiedName> result = new HashSet<QualifiedName>();
+		for (Map.Entry<QualifiedName, List<IEObjectDescription>> entry : oldByName.entrySet()) {
+			List<IEObjectDescription> newObjects = newByName.get(entry.getKey());
+			if (newObjects == null || !equals(entry.getValue(), newObjects))
+				result.add(entry.getKey());
+		}
+		for (QualifiedName name : newByName.keySet()) {
+			if (!oldByName.containsKey(name))
+				result.add(name);
+		}
+		return Collections.unmodifiableSet(result);
+	}
+
+	/**
+	 * Returns the lower case names of all exported objects of the old and the new resource description.
+	 * 
+	 * @since 2.20
+	 */
+	protected Set<QualifiedName> getExportedNames() {
+		Set<QualifiedName> result = new HashSet<QualifiedName>();
+		if (old != null)
+			result.addAll(groupByName(old).keySet());
+		if (_new != null)
+			result.addAll(groupByName(_new).keySet());
+		return Collections.unmodifiableSet(result);
+	}
+
+	private Map<QualifiedName, List<IEObjectDescription>> groupByName(IResourceDescription description) {
+		Map<QualifiedName, List<IEObjectDescription>> result = new LinkedHashMap<QualifiedName, List<IEObjectDescription>>();
+		for (IEObjectDescription object : description.getExportedObjects()) {
+			if (object.getName() != null) {
+				QualifiedName name = object.getName().toLowerCase();
+				List<IEObjectDescription> objects = result.get(name);
+				if (objects == null) {
+					objects = new ArrayList<IEObjectDescription>(1);
+					result.put(name, objects);
+				}
+				objects.add(object);
+			}
+		}
+		return result;
+	}
+
+	private boolean equals(List<IEObjectDescription> oldObjects, List<IEObjectDescription> newObjects) {
+		if (oldObjects.size() != newObjects.size())
+			return false;
+		for (int i = 0; i < oldObjects.size(); i++) {
+			IEObjectDescription oldObj = oldObjects.get(i);
+			IEObjectDescription newObj = newObjects.get(i);
+			if (fingerprint(oldObj) != fingerprint(newObj) || !equals(oldObj, newObj))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a hash of the content of the given exported object, i.e. its type, name, URI and user data. Objects
+	 * with different fingerprints are considered to be different.
+	 * 
+	 * @since 2.20
+	 */
+	protected int fingerprint(IEObjectDescription description) {
+		int result = System.identityHashCode(description.getEClass());
+		result = 31 * result + Objects.hashCode(description.getName());
+		result = 31 * result + Objects.hashCode(description.getEObjectURI());
+		for (String key : description.getUserDataKeys()) {
+			// independent of the order of the keys
+			result += key.hashCode() ^ Objects.hashCode(description.getUserData(key));
+		}
+		return result;
+	}
+
 	@Override
 	public URI getUri() {
 		return old == null ? _new.getURI() : old.getURI();
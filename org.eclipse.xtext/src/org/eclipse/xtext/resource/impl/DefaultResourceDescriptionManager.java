@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2009, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,7 @@
  *******************************************************************************/
 package org.eclipse.xtext.resource.impl;
 
+import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -54,6 +55,25 @@ public class DefaultResourceDescriptionManager implements IResourceDescription.M
 	
 	private static final String CACHE_KEY = DefaultResourceDescriptionManager.class.getName() + "#getResourceDescription";
 	
+	/**
+	 * Whether a subclass inherits the methods that the dependency filter stands in for.
+	 */
+	private static final ClassValue<Boolean> INHERITS_FILTERED_METHODS = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			for (Class<?> c = type; c != DefaultResourceDescriptionManager.class; c = c.getSuperclass()) {
+				for (Method method : c.getDeclaredMethods()) {
+					Class<?>[] parameterTypes = method.getParameterTypes();
+					if (method.getName().equals("getImportedNames") && parameterTypes.length == 1
+							|| method.getName().equals("isAffected") && parameterTypes.length == 2
+									&& parameterTypes[0] == Collection.class)
+						return false;
+				}
+			}
+			return true;
+		}
+	};
+	
 	@Override
 	public IResourceDescription getResourceDescription(final Resource resource) {
 		return cache.get(CACHE_KEY, resource, new Provider<IResourceDescription>() {
@@ -93,14 +113,26 @@ public class DefaultResourceDescriptionManager implements IResourceDescription.M
 	public boolean isAffected(Delta delta, IResourceDescription candidate) throws IllegalArgumentException {
 		if (!hasChanges(delta, candidate))
 			return false;
-		Set<QualifiedName> names = Sets.newHashSet();
-		addExportedNames(names,delta.getOld());
-		addExportedNames(names,delta.getNew());
+		Set<QualifiedName> names = getChangedNames(delta);
+		if (names == null) {
+			names = Sets.newHashSet();
+			addExportedNames(names,delta.getOld());
+			addExportedNames(names,delta.getNew());
+		}
 		return !Collections.disjoint(names, getImportedNames(candidate));
 	}
 
+	/**
+	 * Returns the imported names of the given candidate. The result must not be modified; subclasses that add names
+	 * have to copy it.
+	 */
 	protected Collection<QualifiedName> getImportedNames(IResourceDescription candidate) {
-		return Sets.newHashSet(candidate.getImportedNames());
+		Iterable<QualifiedName> importedNames = candidate.getImportedNames();
+		if (importedNames instanceof Set<?>) {
+			// a read-only view instead of a copy for each candidate
+			return Collections.unmodifiableSet((Set<QualifiedName>) importedNames);
+		}
+		return Sets.newHashSet(importedNames);
 	}
 
 	protected void addExportedNames(Set<QualifiedName> names, IResourceDescription resourceDescriptor) {
@@ -114,6 +146,8 @@ public class DefaultResourceDescriptionManager implements IResourceDescription.M
 	
     @Override
 	public boolean isAffected(Collection<Delta> deltas, IResourceDescription candidate, IResourceDescriptions context) {
+        if (!mightBeAffected(deltas, candidate))
+            return false;
         Set<URI> outgoingReferences = descriptionUtils.collectOutgoingReferences(candidate);
         if (!outgoingReferences.isEmpty()) {
 	        for (IResourceDescription.Delta delta : deltas)
@@ -143,7 +177,7 @@ public class DefaultResourceDescriptionManager implements IResourceDescription.M
 					if (!descriptionIsContained)
 						return false;
 				}
-				if (isAffected(importedNames, delta.getNew()) || isAffected(importedNames, delta.getOld())) {
+				if (isAffected(importedNames, delta)) {
 					return true;
 				}
 			}
@@ -151,6 +185,62 @@ public class DefaultResourceDescriptionManager implements IResourceDescription.M
         return false;
     }
 
+	/**
+	 * Returns <code>false</code> if the {@link DependencyFilter dependency filter} of the candidate proves that none
+	 * of the changed deltas affects the candidate, i.e. the candidate neither references the changed resources nor
+	 * imports a name that they export. Returns <code>true</code> if the candidate has no filter or if the filter
+	 * {@link #isDependencyFilterApplicable() isn't applicable}.
+	 * 
+	 * @since 2.20
+	 */
+	protected boolean mightBeAffected(Collection<Delta> deltas, IResourceDescription candidate) {
+		if (!(candidate instanceof DependencyFilter.Provider) || !isDependencyFilterApplicable())
+			return true;
+		DependencyFilter filter = ((DependencyFilter.Provider) candidate).getDependencyFilter();
+		for (IResourceDescription.Delta delta : deltas) {
+			if (hasChanges(delta, candidate)) {
+				if (filter.mightContain(delta.getUri()) || mightContainChangedName(filter, delta)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Whether the {@link DependencyFilter dependency filters} of the candidates may reject candidates before they are
+	 * checked delta by delta. A filter is built from the imported names and the outgoing references of a candidate,
+	 * so it is only used if neither {@link #getImportedNames(IResourceDescription)} nor the
+	 * {@link #isAffected(Collection, IResourceDescription) isAffected} methods that compare imported names are
+	 * overridden, and if the {@link DescriptionUtils} are not customized. Subclasses whose overrides don't consider
+	 * further dependencies may return <code>true</code>.
+	 * 
+	 * @since 2.20
+	 */
+	protected boolean isDependencyFilterApplicable() {
+		return INHERITS_FILTERED_METHODS.get(getClass()) && descriptionUtils.getClass() == DescriptionUtils.class;
+	}
+
+	private boolean mightContainChangedName(DependencyFilter filter, IResourceDescription.Delta delta) {
+		Set<QualifiedName> changedNames = getChangedNames(delta);
+		if (changedNames != null) {
+			for (QualifiedName name : changedNames)
+				if (filter.mightContain(name))
+					return true;
+			return false;
+		}
+		return mightContainExportedName(filter, delta.getNew()) || mightContainExportedName(filter, delta.getOld());
+	}
+
+	private boolean mightContainExportedName(DependencyFilter filter, IResourceDescription description) {
+		if (description != null) {
+			for (IEObjectDescription desc : description.getExportedObjects())
+				if (filter.mightContain(desc.getName().toLowerCase()))
+					return true;
+		}
+		return false;
+	}
+
 	/**
 	 * Whether the given delta is considered to have changed from the candidate's perspective. By default this will just call
 	 * {@link org.eclipse.xtext.resource.IResourceDescription.Delta#haveEObjectDescriptionsChanged() Delta#haveEObjectDescriptionsChanged()}. 
@@ -161,6 +251,53 @@ public class DefaultResourceDescriptionManager implements IResourceDescription.M
 		return delta.haveEObjectDescriptionsChanged();
 	}
 
+	/**
+	 * Whether only the {@link DefaultResourceDescriptionDelta#getChangedNames() changed names} of the given delta
+	 * have to be checked against the imported names of a candidate, instead of all names that are exported by the old
+	 * or the new resource description. Returns <code>true</code>, so a candidate that only imports unchanged names of
+	 * a changed resource is not affected. Subclasses that override
+	 * {@link #hasChanges(org.eclipse.xtext.resource.IResourceDescription.Delta, IResourceDescription) hasChanges},
+	 * {@link #addExportedNames(Set, IResourceDescription) addExportedNames} or
+	 * {@link #isAffected(Collection, IResourceDescription) isAffected} to consider changes that aren't visible in the
+	 * exported objects should return <code>false</code>. Deltas that aren't {@link DefaultResourceDescriptionDelta}s
+	 * are never reduced.
+	 * 
+	 * @since 2.20
+	 */
+	protected boolean isReducedToChangedNames(IResourceDescription.Delta delta) {
+		return true;
+	}
+
+	/**
+	 * Returns the changed names of the given delta if it is {@link #isReducedToChangedNames(IResourceDescription.Delta)
+	 * reduced to them}, <code>null</code> otherwise.
+	 */
+	private Set<QualifiedName> getChangedNames(IResourceDescription.Delta delta) {
+		if (delta instanceof DefaultResourceDescriptionDelta && isReducedToChangedNames(delta)) {
+			return ((DefaultResourceDescriptionDelta) delta).getChangedNames();
+		}
+		return null;
+	}
+
+	/**
+	 * Whether the given delta changes any of the imported names. If the delta is
+	 * {@link #isReducedToChangedNames(org.eclipse.xtext.resource.IResourceDescription.Delta) reduced to its changed
+	 * names}, only those are considered, otherwise all names that are exported by the old or the new resource
+	 * description.
+	 * 
+	 * @since 2.20
+	 */
+	protected boolean isAffected(Collection<QualifiedName> importedNames, IResourceDescription.Delta delta) {
+		Set<QualifiedName> changedNames = getChangedNames(delta);
+		if (changedNames != null) {
+			for (QualifiedName name : changedNames)
+				if (importedNames.contains(name))
+					return true;
+			return false;
+		}
+		return isAffected(importedNames, delta.getNew()) || isAffected(importedNames, delta.getOld());
+	}
+
 	protected boolean isAffected(Collection<QualifiedName> importedNames, IResourceDescription description) {
 		if (description != null) {
 		    for (IEObjectDescription desc : description.getExportedObjects())
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.resource.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IReferenceDescription;
+import org.eclipse.xtext.resource.IResourceDescription;
+
+/**
+ * A Bloom filter of the dependencies of a resource: the lower case names that it imports and the resources that its
+ * references point to. The filter never rejects an actual dependency, but it may accept a few names and URIs that
+ * aren't dependencies. So it tells quickly and without allocation that a change doesn't affect the resource, and
+ * only the changes that the filter accepts have to be checked exactly.
+ *
+ * @see DefaultResourceDescriptionManager#mightBeAffected(java.util.Collection, IResourceDescription)
+ * @since 2.20
+ */
+public class DependencyFilter {
+
+	/**
+	 * A resource description that holds the filter of its dependencies.
+	 */
+	public interface Provider {
+		DependencyFilter getDependencyFilter();
+	}
+
+	/**
+	 * Ten bits per element and three hash functions yield less than 2% false positives.
+	 */
+	private static final int BITS_PER_ELEMENT = 10;
+
+	private static final int HASHES = 3;
+
+	private final long[] bits;
+
+	private final int bitCount;
+
+	public static DependencyFilter create(IResourceDescription description) {
+		List<URI> targets = new ArrayList<>();
+		for (IReferenceDescription reference : description.getReferenceDescriptions()) {
+			URI target = reference.getTargetEObjectUri();
+			if (target != null) {
+				targets.add(target.trimFragment());
+			}
+		}
+		List<QualifiedName> names = new ArrayList<>();
+		for (QualifiedName name : description.getImportedNames()) {
+			names.add(name.toLowerCase());
+		}
+		DependencyFilter result = new DependencyFilter(names.size() + targets.size());
+		for (QualifiedName name : names) {
+			result.add(name.hashCode());
+		}
+		for (URI target : targets) {
+			result.add(hash(target));
+		}
+		return result;
+	}
+
+	protected DependencyFilter(int expectedElements) {
+		int words = Math.max(1, (expectedElements * BITS_PER_ELEMENT + 63) / 64);
+		this.bits = new long[words];
+		this.bitCount = words * 64;
+	}
+
+	/**
+	 * Returns <code>false</code> if the resource doesn't import the given lower case name.
+	 */
+	public boolean mightContain(QualifiedName lowerCaseName) {
+		return mightContain(lowerCaseName.hashCode());
+	}
+
+	/**
+	 * Returns <code>false</code> if the resource doesn't reference an object in the resource with the given URI.
+	 */
+	public boolean mightContain(URI resourceURI) {
+		return mightContain(hash(resourceURI));
+	}
+
+	private void add(int hash) {
+		int h2 = secondHash(hash);
+		for (int i = 0; i < HASHES; i++) {
+			int bit = Math.floorMod(hash + i * h2, bitCount);
+			bits[bit >>> 6] |= 1L << bit;
+		}
+	}
+
+	private boolean mightContain(int hash) {
+		int h2 = secondHash(hash);
+		for (int i = 0; i < HASHES; i++) {
+			int bit = Math.floorMod(hash + i * h2, bitCount);
+			if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int secondHash(int hash) {
+		return Integer.rotateLeft(hash * 0x9E3779B9, 16) | 1;
+	}
+
+	private static int hash(URI uri) {
+		// keep the URIs apart from names with the same hash code
+		return uri.hashCode() * 31 + 17;
+	}
+
+}
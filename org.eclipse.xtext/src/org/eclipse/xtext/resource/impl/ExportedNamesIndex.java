@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.resource.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.util.PersistentHashMap;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Merges the names that are exported by a list of chunks, e.g. the dependencies of a project, into a single lookup
+ * structure. For each name, the index knows which of the chunks export it, so the {@link #createContainer(int)
+ * containers} of the chunks answer a lookup of a name with a single hash probe instead of asking each chunk.
+ * <p>
+ * The index is immutable. It remembers the chunks and their modification counts, so clients can tell with
+ * {@link #isIndexOf(List)} whether it has to be {@link #update(List) updated}, and with {@link #isUpToDate()} whether
+ * it still reflects its chunks. An update only applies the names that have changed in the chunks, and shares the
+ * unchanged part of the index with its predecessor.
+ *
+ * @see ChunkedResourceDescriptions#getExportedNamesIndex(String, List)
+ * @since 2.20
+ */
+@Beta
+public class ExportedNamesIndex {
+
+	private static class Lookup {
+		private final QualifiedName name;
+		private final Object chunks;
+
+		private Lookup(QualifiedName name, Object chunks) {
+			this.name = name;
+			this.chunks = chunks;
+		}
+	}
+
+	private static final ResourceDescriptionsData EMPTY = new ResourceDescriptionsData(Collections.emptySet());
+
+	private final List<ResourceDescriptionsData> chunks;
+
+	private final int[] modificationCounts;
+
+	private final Object[] nameChangeMarkers;
+
+	/**
+	 * The positions of the chunks that export a lower case name, either an {@link Integer} or a {@link BitSet}. The
+	 * bit sets may be shared with other indexes and are never changed.
+	 */
+	private final PersistentHashMap<QualifiedName, Object> chunksByName;
+
+	/**
+	 * The containers of the chunks are usually asked for the same name one after the other.
+	 */
+	private volatile Lookup lastLookup;
+
+	private volatile boolean superseded;
+
+	/**
+	 * @param chunks
+	 *            the chunks to index, where <code>null</code> stands for a chunk that doesn't exist.
+	 */
+	public ExportedNamesIndex(List<ResourceDescriptionsData> chunks) {
+		this.chunks = new ArrayList<>(chunks);
+		this.modificationCounts = new int[chunks.size()];
+		this.nameChangeMarkers = new Object[chunks.size()];
+		this.chunksByName = new PersistentHashMap<>();
+		for (int i = 0; i < chunks.size(); i++) {
+			ResourceDescriptionsData chunk = chunks.get(i);
+			if (chunk != null) {
+				modificationCounts[i] = chunk.getModificationCount();
+				nameChangeMarkers[i] = chunk.getNameChangeMarker();
+				for (QualifiedName name : chunk.getExportedNames()) {
+					register(name, i);
+				}
+			}
+		}
+	}
+
+	private ExportedNamesIndex(ExportedNamesIndex previous, List<ResourceDescriptionsData> chunks,
+			List<Set<QualifiedName>> changedNames) {
+		this.chunks = new ArrayList<>(chunks);
+		this.modificationCounts = new int[chunks.size()];
+		this.nameChangeMarkers = new Object[chunks.size()];
+		this.chunksByName = previous.chunksByName.copy();
+		for (int i = 0; i < chunks.size(); i++) {
+			ResourceDescriptionsData chunk = chunks.get(i);
+			if (chunk != null) {
+				modificationCounts[i] = chunk.getModificationCount();
+				nameChangeMarkers[i] = chunk.getNameChangeMarker();
+				Set<QualifiedName> exportedNames = chunk.getExportedNames();
+				for (QualifiedName name : changedNames.get(i)) {
+					if (exportedNames.contains(name)) {
+						register(name, i);
+					} else {
+						unregister(name, i);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns an index of the given chunks. If the chunks at the same positions are the chunks of this index or copies
+	 * of them, the names that have changed since this index has been built are applied to a copy of this index.
+	 * Otherwise the index is built from scratch. This index is not changed.
+	 */
+	public ExportedNamesIndex update(List<ResourceDescriptionsData> chunks) {
+		if (chunks.size() != this.chunks.size()) {
+			return new ExportedNamesIndex(chunks);
+		}
+		List<Set<QualifiedName>> changedNames = new ArrayList<>(chunks.size());
+		for (int i = 0; i < chunks.size(); i++) {
+			ResourceDescriptionsData chunk = chunks.get(i);
+			ResourceDescriptionsData previous = this.chunks.get(i);
+			if (chunk == null) {
+				if (previous != null) {
+					return new ExportedNamesIndex(chunks);
+				}
+				changedNames.add(Collections.emptySet());
+			} else if (previous == null) {
+				changedNames.add(chunk.getExportedNames());
+			} else {
+				Set<QualifiedName> changed = chunk.getNamesChangedSince(nameChangeMarkers[i]);
+				if (changed == null) {
+					return new ExportedNamesIndex(chunks);
+				}
+				changedNames.add(changed);
+			}
+		}
+		return new ExportedNamesIndex(this, chunks, changedNames);
+	}
+
+	private void register(QualifiedName name, int position) {
+		Object existing = chunksByName.get(name);
+		if (existing == null) {
+			chunksByName.put(name, Integer.valueOf(position));
+		} else if (existing instanceof Integer) {
+			if (((Integer) existing).intValue() != position) {
+				BitSet positions = new BitSet();
+				positions.set((Integer) existing);
+				positions.set(position);
+				chunksByName.put(name, positions);
+			}
+		} else if (!((BitSet) existing).get(position)) {
+			BitSet positions = (BitSet) ((BitSet) existing).clone();
+			positions.set(position);
+			chunksByName.put(name, positions);
+		}
+	}
+
+	private void unregister(QualifiedName name, int position) {
+		Object existing = chunksByName.get(name);
+		if (existing instanceof Integer) {
+			if (((Integer) existing).intValue() == position) {
+				chunksByName.remove(name);
+			}
+		} else if (existing != null && ((BitSet) existing).get(position)) {
+			BitSet positions = (BitSet) ((BitSet) existing).clone();
+			positions.clear(position);
+			if (positions.cardinality() == 1) {
+				chunksByName.put(name, Integer.valueOf(positions.nextSetBit(0)));
+			} else {
+				chunksByName.put(name, positions);
+			}
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if this is the index of the given chunks in their current state.
+	 */
+	public boolean isIndexOf(List<ResourceDescriptionsData> chunks) {
+		if (chunks.size() != this.chunks.size()) {
+			return false;
+		}
+		for (int i = 0; i < chunks.size(); i++) {
+			ResourceDescriptionsData chunk = chunks.get(i);
+			if (chunk != this.chunks.get(i) || chunk != null && chunk.getModificationCount() != modificationCounts[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns <code>true</code> if none of the chunks has been modified since the index was built and the index
+	 * hasn't been replaced by a newer one.
+	 */
+	public boolean isUpToDate() {
+		if (superseded) {
+			return false;
+		}
+		for (int i = 0; i < chunks.size(); i++) {
+			ResourceDescriptionsData chunk = chunks.get(i);
+			if (chunk != null && chunk.getModificationCount() != modificationCounts[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Marks this index as replaced by a newer index of the same chunks.
+	 */
+	void supersede() {
+		superseded = true;
+	}
+
+	/**
+	 * Returns <code>true</code> if the chunk at the given position exports an object with the given name.
+	 */
+	public boolean isExportedBy(int position, QualifiedName name) {
+		QualifiedName lowerCase = name.toLowerCase();
+		Lookup lookup = lastLookup;
+		if (lookup == null || !lookup.name.equals(lowerCase)) {
+			lookup = new Lookup(lowerCase, chunksByName.get(lowerCase));
+			lastLookup = lookup;
+		}
+		Object positions = lookup.chunks;
+		if (positions instanceof Integer) {
+			return ((Integer) positions).intValue() == position;
+		}
+		return positions != null && ((BitSet) positions).get(position);
+	}
+
+	/**
+	 * Returns the number of distinct names in the index.
+	 */
+	public int getNameCount() {
+		return chunksByName.size();
+	}
+
+	/**
+	 * Creates the container of the chunk at the given position.
+	 */
+	public IndexedContainer createContainer(int position) {
+		ResourceDescriptionsData chunk = chunks.get(position);
+		return new IndexedContainer(chunk != null ? chunk : EMPTY, position);
+	}
+
+	/**
+	 * The container of one of the indexed chunks. Containers of the same chunk of the same index are equal, so they can
+	 * be used as keys for data that is shared by the resources that see the chunk.
+	 */
+	public class IndexedContainer extends ResourceDescriptionsBasedContainer {
+
+		private final int position;
+
+		private IndexedContainer(ResourceDescriptionsData chunk, int position) {
+			super(chunk);
+			this.position = position;
+		}
+
+		public ExportedNamesIndex getIndex() {
+			return ExportedNamesIndex.this;
+		}
+
+		public int getPosition() {
+			return position;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			}
+			if (!(obj instanceof IndexedContainer)) {
+				return false;
+			}
+			IndexedContainer other = (IndexedContainer) obj;
+			return other.getIndex() == getIndex() && other.position == position;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(getIndex()) * 31 + position;
+		}
+
+		@Override
+		public Iterable<IEObjectDescription> getExportedObjects(EClass type, QualifiedName qualifiedName, boolean ignoreCase) {
+			if (!isExportedBy(position, qualifiedName)) {
+				return Collections.emptyList();
+			}
+			return super.getExportedObjects(type, qualifiedName, ignoreCase);
+		}
+
+	}
+
+}
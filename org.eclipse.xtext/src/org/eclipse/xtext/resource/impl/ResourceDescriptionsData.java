@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2016 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2010, 2016, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,10 +7,15 @@
  *******************************************************************************/
 package org.eclipse.xtext.resource.impl;
 
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -19,6 +24,7 @@ import org.eclipse.emf.common.notify.impl.AdapterImpl;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EcorePackage;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.xtext.EcoreUtil2;
 import org.eclipse.xtext.naming.QualifiedName;
@@ -26,16 +32,26 @@ import org.eclipse.xtext.resource.IEObjectDescription;
 import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.IResourceDescription.Delta;
 import org.eclipse.xtext.resource.IResourceDescriptions;
+import org.eclipse.xtext.util.PersistentHashMap;
 
 import com.google.common.annotations.Beta;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 
 /**
  * Instances of {@link ResourceDescriptionsData} provide indexed access to
  * resource descriptions that export elements with a certain name.
+ * <p>
+ * The maps are {@link PersistentHashMap persistent}, so a {@link #copy() copy} is
+ * created in constant time and shares the unchanged parts of the index with this
+ * instance. The sets of descriptions in the lookup map are changed in place by
+ * the instance that created them, and are copied by an instance that changes a
+ * set that it shares with a copy.
+ * <p>
+ * The descriptions are also indexed by the types of their exported objects and
+ * all supertypes of these types, so {@link #getExportedObjectsByType(EClass)} only
+ * visits the descriptions that export objects of the requested type.
  * 
  * @author Sebastian Zarnekow - Initial contribution and API
  * @since 2.5
@@ -82,52 +98,193 @@ import com.google.common.collect.Sets;
 
 	private final Map<URI, IResourceDescription> resourceDescriptionMap;
 	/**
-	 * The lookup map contains either a single {@link IResourceDescription} or a 
+	 * The lookup map contains either a single {@link IResourceDescription} or an unmodifiable
 	 * {@link Set Set&lt;IResourceDescription&gt;} as values. It is maintained by 
 	 * {@link #removeDescription(URI)} and {@link #addDescription(URI, IResourceDescription)} 
 	 * which take care of creating the {@link Set Sets} and discarding them if the number
 	 * of elements becomes small enough.  
 	 */
 	private final Map<QualifiedName, Object> lookupMap;
+	/**
+	 * The descriptions that export objects of a type, by type. An object is registered for its type
+	 * and all supertypes of its type.
+	 */
+	private final Map<EClass, PersistentHashMap<URI, IResourceDescription>> typeMap;
+	/**
+	 * Counts the changes of this instance, so an {@link ExportedNamesIndex} can tell whether it is up to date.
+	 */
+	private int modificationCount;
+	/**
+	 * Identifies the {@link DescriptionSet sets} of the lookup map that this instance may change in place. It is
+	 * replaced when the lookup map is copied, since the sets are shared with the copy from then on.
+	 */
+	private Object owner = new Object();
+	/**
+	 * The last change of the exported names. The changes are shared with the copies of this instance, so an
+	 * {@link ExportedNamesIndex} can apply the names that have changed since it has been built.
+	 */
+	private NameChange lastNameChange = new NameChange(null, Collections.<QualifiedName>emptyList(), 0);
 
-	public ResourceDescriptionsData(Iterable<IResourceDescription> descriptions) {
-		int expectedSize = 500; // magic number in case it's not a Collection
-		if (descriptions instanceof Collection) {
-			expectedSize = ((Collection<?>) descriptions).size();
+	/**
+	 * The lower case names that have been changed by adding or removing a description, linked to the previous change.
+	 */
+	private static final class NameChange {
+
+		private final NameChange previous;
+
+		private final Collection<QualifiedName> names;
+
+		/**
+		 * The number of names of this change and all previous changes.
+		 */
+		private final int length;
+
+		private NameChange(NameChange previous, Collection<QualifiedName> names, int length) {
+			this.previous = previous;
+			this.names = names;
+			this.length = length;
+		}
+
+	}
+
+	/**
+	 * The descriptions that export objects with the same name, in the order of their registration. Descriptions are
+	 * appended in place, so a {@link #snapshot()} is not affected by later changes.
+	 */
+	private static final class DescriptionSet extends AbstractSet<IResourceDescription> {
+
+		private final Object owner;
+
+		private final Set<IResourceDescription> members;
+
+		private IResourceDescription[] array;
+
+		private int size;
+
+		private DescriptionSet(Object owner, Collection<IResourceDescription> descriptions) {
+			this.owner = owner;
+			this.members = new HashSet<>(descriptions);
+			this.array = descriptions.toArray(new IResourceDescription[2 * descriptions.size() + 2]);
+			this.size = descriptions.size();
+		}
+
+		private void register(IResourceDescription description) {
+			if (members.add(description)) {
+				if (size == array.length) {
+					array = Arrays.copyOf(array, 2 * size);
+				}
+				array[size++] = description;
+			}
+		}
+
+		private void unregister(IResourceDescription description) {
+			if (members.remove(description)) {
+				// snapshots may still refer to the array
+				IResourceDescription[] remaining = new IResourceDescription[array.length];
+				int j = 0;
+				for (int i = 0; i < size; i++) {
+					if (!description.equals(array[i])) {
+						remaining[j++] = array[i];
+					}
+				}
+				array = remaining;
+				size = j;
+			}
+		}
+
+		private List<IResourceDescription> snapshot() {
+			return Collections.unmodifiableList(Arrays.asList(array).subList(0, size));
+		}
+
+		@Override
+		public Iterator<IResourceDescription> iterator() {
+			return snapshot().iterator();
 		}
-		resourceDescriptionMap = new LinkedHashMap<>(expectedSize);
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return members.contains(o);
+		}
+
+	}
+
+	public ResourceDescriptionsData(Iterable<IResourceDescription> descriptions) {
+		resourceDescriptionMap = new PersistentHashMap<>();
 		for (IResourceDescription desc : descriptions) {
 			resourceDescriptionMap.put(desc.getURI(), desc);
 		}
-		// magic number - it is assumend that we export at least 2 entries per resource description
-		lookupMap = new LinkedHashMap<>(resourceDescriptionMap.size() * 2);
+		lookupMap = new PersistentHashMap<>();
+		typeMap = new HashMap<>();
 	    for (IResourceDescription description: descriptions) {
 	    	registerDescription(description, lookupMap);
+	    	registerTypes(description.getURI(), description);
 	    }
 	}
 
 	protected ResourceDescriptionsData(Map<URI, IResourceDescription> resourceDescriptionMap, Map<QualifiedName, Object> lookupMap) {
 		this.resourceDescriptionMap = resourceDescriptionMap;
 		this.lookupMap = lookupMap;
+		this.typeMap = new HashMap<>();
+		for (Map.Entry<URI, IResourceDescription> entry : resourceDescriptionMap.entrySet()) {
+			registerTypes(entry.getKey(), entry.getValue());
+		}
+	}
+	
+	/**
+	 * @since 2.20
+	 */
+	protected ResourceDescriptionsData(Map<URI, IResourceDescription> resourceDescriptionMap, Map<QualifiedName, Object> lookupMap,
+			Map<EClass, PersistentHashMap<URI, IResourceDescription>> typeMap) {
+		this.resourceDescriptionMap = resourceDescriptionMap;
+		this.lookupMap = lookupMap;
+		this.typeMap = typeMap;
 	}
 	
 	public ResourceDescriptionsData copy() {
-		return new ResourceDescriptionsData(
-				Maps.newLinkedHashMap(resourceDescriptionMap),
-				copyLookupMap());
+		ResourceDescriptionsData result = new ResourceDescriptionsData(
+				copyResourceDescriptionMap(),
+				copyLookupMap(),
+				copyTypeMap());
+		result.lastNameChange = lastNameChange;
+		return result;
+	}
+	
+	/**
+	 * @since 2.20
+	 */
+	@SuppressWarnings("unchecked")
+	protected Map<URI, IResourceDescription> copyResourceDescriptionMap() {
+		if (resourceDescriptionMap instanceof PersistentHashMap<?, ?>) {
+			return ((PersistentHashMap<URI, IResourceDescription>) resourceDescriptionMap).copy();
+		}
+		return Maps.newLinkedHashMap(resourceDescriptionMap);
 	}
 	
+	@SuppressWarnings("unchecked")
 	protected Map<QualifiedName, Object> copyLookupMap() {
-		Map<QualifiedName, Object> result = Maps.newLinkedHashMap(lookupMap);
-		for(Map.Entry<QualifiedName, Object> entry: result.entrySet()) {
-			Object value = entry.getValue();
-			if (value instanceof Set<?>) {
-				@SuppressWarnings("unchecked")
-				Set<IResourceDescription> copiedValue = new LinkedHashSet<IResourceDescription>((Set<? extends IResourceDescription>) value);
-				if (copiedValue.size() <= 1)
-					throw new IllegalStateException("Unexpected number of elements in the value set: " + copiedValue.size() + " for " + entry.getKey());
-				entry.setValue(copiedValue);
-			}
+		// the sets of descriptions are shared with the copy and must no longer be changed in place
+		owner = new Object();
+		if (lookupMap instanceof PersistentHashMap<?, ?>) {
+			return ((PersistentHashMap<QualifiedName, Object>) lookupMap).copy();
+		}
+		return Maps.newLinkedHashMap(lookupMap);
+	}
+
+	/**
+	 * Copies the type index. The number of entries is the number of exported types, which doesn't
+	 * depend on the size of the index.
+	 * 
+	 * @since 2.20
+	 */
+	protected Map<EClass, PersistentHashMap<URI, IResourceDescription>> copyTypeMap() {
+		Map<EClass, PersistentHashMap<URI, IResourceDescription>> result = new HashMap<>();
+		for (Map.Entry<EClass, PersistentHashMap<URI, IResourceDescription>> entry : typeMap.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().copy());
 		}
 		return result;
 	}
@@ -145,22 +302,32 @@ import com.google.common.collect.Sets;
 	public void removeDescription(URI uri) {
 		IResourceDescription oldDescription = resourceDescriptionMap.remove(uri);
 		if (oldDescription != null) {
+			modificationCount++;
+			unregisterTypes(uri, oldDescription);
+			List<QualifiedName> changedNames = new ArrayList<>();
 			for(IEObjectDescription object: oldDescription.getExportedObjects()) {
 				QualifiedName objectName = object.getName().toLowerCase();
+				changedNames.add(objectName);
 				Object existing = lookupMap.get(objectName);
 				if (existing == oldDescription) {
 					lookupMap.remove(objectName);
 				} else if (existing instanceof Set<?>) {
-					Set<?> casted = (Set<?>) existing;
-					if (casted.remove(oldDescription)) {
-						if (casted.size() == 1) {
-							lookupMap.put(objectName, casted.iterator().next());
-						} else if (casted.isEmpty()) {
+					@SuppressWarnings("unchecked")
+					Set<IResourceDescription> casted = (Set<IResourceDescription>) existing;
+					if (casted.contains(oldDescription)) {
+						DescriptionSet remaining = getOwnedSet(casted, lookupMap);
+						remaining.unregister(oldDescription);
+						if (remaining.size() == 1) {
+							lookupMap.put(objectName, remaining.iterator().next());
+						} else if (remaining.isEmpty()) {
 							lookupMap.remove(objectName);
+						} else if (remaining != existing) {
+							lookupMap.put(objectName, remaining);
 						}
 					}
 				}
 			}
+			recordNameChange(changedNames);
 		}
 	}
 	
@@ -171,7 +338,11 @@ import com.google.common.collect.Sets;
 			return ((IResourceDescription) existing).getExportedObjects(type, qualifiedName, ignoreCase);
 		} else if (existing instanceof Set<?>) {
 			@SuppressWarnings("unchecked")
-			Set<IResourceDescription> casted = (Set<IResourceDescription>) existing;
+			Iterable<IResourceDescription> casted = (Set<IResourceDescription>) existing;
+			if (existing instanceof DescriptionSet) {
+				// the result must not observe later changes of the set
+				casted = ((DescriptionSet) existing).snapshot();
+			}
 			return Iterables.concat(Iterables.transform(casted, new Function<IResourceDescription, Iterable<IEObjectDescription>>() {
 				@Override
 				public Iterable<IEObjectDescription> apply(IResourceDescription from) {
@@ -185,6 +356,23 @@ import com.google.common.collect.Sets;
 		return Collections.emptyList();
 	}
 	
+	@Override
+	public Iterable<IEObjectDescription> getExportedObjectsByType(final EClass type) {
+		if (type == EcorePackage.Literals.EOBJECT) {
+			return super.getExportedObjectsByType(type);
+		}
+		Map<URI, IResourceDescription> descriptions = typeMap.get(type);
+		if (descriptions == null) {
+			return Collections.emptyList();
+		}
+		return Iterables.concat(Iterables.transform(descriptions.values(), new Function<IResourceDescription, Iterable<IEObjectDescription>>() {
+			@Override
+			public Iterable<IEObjectDescription> apply(IResourceDescription from) {
+				return from.getExportedObjectsByType(type);
+			}
+		}));
+	}
+	
 	@Override
 	public Iterable<IEObjectDescription> getExportedObjectsByObject(EObject object) {
 		URI resourceURI = EcoreUtil2.getPlatformResourceOrNormalizedURI(object).trimFragment();
@@ -206,30 +394,139 @@ import com.google.common.collect.Sets;
 	public void addDescription(URI uri, IResourceDescription newDescription) {
 		removeDescription(uri);
 		if (newDescription != null) {
+			modificationCount++;
 			resourceDescriptionMap.put(uri, newDescription);
 			registerDescription(newDescription, lookupMap);
+			registerTypes(uri, newDescription);
+			List<QualifiedName> changedNames = new ArrayList<>();
+			for (IEObjectDescription object : newDescription.getExportedObjects()) {
+				changedNames.add(object.getName().toLowerCase());
+			}
+			recordNameChange(changedNames);
+		}
+	}
+
+	/**
+	 * Appends a change of the given names. Once more names have changed than there are exported names, the previous
+	 * changes are dropped, since it is cheaper to rebuild an index than to apply them.
+	 */
+	private void recordNameChange(Collection<QualifiedName> names) {
+		int length = lastNameChange.length + names.size();
+		if (length > Math.max(1000, lookupMap.size())) {
+			lastNameChange = new NameChange(null, names, names.size());
+		} else {
+			lastNameChange = new NameChange(lastNameChange, names, length);
 		}
 	}
 
+	/**
+	 * Returns an opaque marker of the current state of the exported names.
+	 * 
+	 * @see #getNamesChangedSince(Object)
+	 */
+	Object getNameChangeMarker() {
+		return lastNameChange;
+	}
+
+	/**
+	 * Returns the lower case names that have been changed since the given {@link #getNameChangeMarker() marker} of this
+	 * instance or of an instance that this instance has been copied from, or <code>null</code> if these changes are not
+	 * known.
+	 */
+	Set<QualifiedName> getNamesChangedSince(Object marker) {
+		Set<QualifiedName> result = new HashSet<>();
+		for (NameChange change = lastNameChange; change != null; change = change.previous) {
+			if (change == marker) {
+				return result;
+			}
+			result.addAll(change.names);
+		}
+		return null;
+	}
+
+	/**
+	 * The lower case names of the exported objects.
+	 */
+	Set<QualifiedName> getExportedNames() {
+		return lookupMap.keySet();
+	}
+
+	int getModificationCount() {
+		return modificationCount;
+	}
+
+	private void registerTypes(URI uri, IResourceDescription description) {
+		for (EClass type : getTypes(description)) {
+			PersistentHashMap<URI, IResourceDescription> descriptions = typeMap.get(type);
+			if (descriptions == null) {
+				descriptions = new PersistentHashMap<>();
+				typeMap.put(type, descriptions);
+			}
+			descriptions.put(uri, description);
+		}
+	}
+
+	private void unregisterTypes(URI uri, IResourceDescription description) {
+		for (EClass type : getTypes(description)) {
+			PersistentHashMap<URI, IResourceDescription> descriptions = typeMap.get(type);
+			if (descriptions != null && descriptions.get(uri) == description) {
+				descriptions.remove(uri);
+				if (descriptions.isEmpty()) {
+					typeMap.remove(type);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the types of the exported objects of the given description, including all supertypes.
+	 */
+	private Set<EClass> getTypes(IResourceDescription description) {
+		Set<EClass> exportedTypes = new HashSet<>();
+		for (IEObjectDescription object : description.getExportedObjects()) {
+			if (object.getEClass() != null) {
+				exportedTypes.add(object.getEClass());
+			}
+		}
+		Set<EClass> result = new HashSet<>(exportedTypes);
+		for (EClass type : exportedTypes) {
+			result.addAll(type.getEAllSuperTypes());
+		}
+		return result;
+	}
+
 	@SuppressWarnings("unchecked")
 	protected void registerDescription(IResourceDescription description, Map<QualifiedName, Object> target) {
 		for(IEObjectDescription object: description.getExportedObjects()) {
 			QualifiedName lowerCase = object.getName().toLowerCase();
-			Object existing = target.put(lowerCase, description);
-			if (existing != null && existing != description) {
-				Set<IResourceDescription> set = null;
+			Object existing = target.get(lowerCase);
+			if (existing == null) {
+				target.put(lowerCase, description);
+			} else if (existing != description) {
+				DescriptionSet set;
 				if (existing instanceof IResourceDescription) {
-					set = Sets.newLinkedHashSetWithExpectedSize(2);
-					set.add((IResourceDescription)existing);
+					set = new DescriptionSet(owner, Collections.singleton((IResourceDescription) existing));
 				} else {
-					set = (Set<IResourceDescription>) existing;
+					set = getOwnedSet((Set<IResourceDescription>) existing, target);
+				}
+				set.register(description);
+				if (set != existing) {
+					target.put(lowerCase, set);
 				}
-				set.add(description);
-				target.put(lowerCase, set);
 			}
 		}
 	}
 
+	/**
+	 * Returns the given set if this instance may change it in place, or a copy that it may change otherwise.
+	 */
+	private DescriptionSet getOwnedSet(Set<IResourceDescription> set, Map<QualifiedName, Object> target) {
+		if (set instanceof DescriptionSet && ((DescriptionSet) set).owner == owner && target == lookupMap) {
+			return (DescriptionSet) set;
+		}
+		return new DescriptionSet(owner, set);
+	}
+
 	/**
 	 * Put a new resource description into the index, or remove one if the delta has no new description. A delta for a
 	 * particular URI may be registered more than once; overwriting any earlier registration.
@@ -95,16 +95,20 @@ import org.eclipse.xtext.parser.ParseResult
 	
 	protected def void readNodeModel(StorageAwareResource resource, InputStream inputStream) throws IOException {
 		val serializableNodeModel = new SerializableNodeModel(resource)
-		// if this is a synthetic resource (i.e. tests or so, don't load the node model)
-		if (!resource.resourceSet.URIConverter.exists(resource.URI, resource.resourceSet.loadOptions)) {
-			LOG.info("Skipping loading node model for synthetic resource "+resource.URI)
-			return;
+		val dataIn = new DataInputStream(inputStream)
+		var String completeContent = null
+		// format version 1 does not contain the text, so it has to be read from the resource's URI
+		if (serializableNodeModel.readFormatVersion(dataIn) == 1) {
+			// if this is a synthetic resource (i.e. tests or so, don't load the node model)
+			if (!resource.resourceSet.URIConverter.exists(resource.URI, resource.resourceSet.loadOptions)) {
+				LOG.info("Skipping loading node model for synthetic resource "+resource.URI)
+				return;
+			}
+			val stream = resource.resourceSet.URIConverter.createInputStream(resource.URI)
+			val in = new InputStreamReader(stream, resource.encoding)
+			completeContent = CharStreams.toString(in)
 		}
-		val stream = resource.resourceSet.URIConverter.createInputStream(resource.URI)
-		val in = new InputStreamReader(stream, resource.encoding)
-		val completeContent = CharStreams.toString(in)
 		val deserializationContext = new DeserializationConversionContext(resource, completeContent)
-		val dataIn = new DataInputStream(inputStream)
 		serializableNodeModel.readObjectData(dataIn, deserializationContext)
 		resource.parseResult = new ParseResult(resource.contents.head,serializableNodeModel.root, deserializationContext.hasErrors)
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2014, 2017, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,10 +24,12 @@ import org.eclipse.emf.ecore.InternalEObject
 import org.eclipse.emf.ecore.util.EcoreUtil
 import org.eclipse.xtend.lib.annotations.Accessors
 import org.eclipse.xtext.naming.QualifiedName
+import org.eclipse.xtext.naming.QualifiedNameTable
 import org.eclipse.xtext.resource.IEObjectDescription
 import org.eclipse.xtext.resource.IReferenceDescription
 import org.eclipse.xtext.resource.IResourceDescription
 import org.eclipse.xtext.resource.impl.AbstractResourceDescription
+import org.eclipse.xtext.resource.impl.DependencyFilter
 
 import static extension org.eclipse.xtext.resource.persistence.SerializationExtensions.*
 
@@ -36,7 +38,7 @@ import static extension org.eclipse.xtext.resource.persistence.SerializationExte
  * 
  * @since 2.8
  */
-@Accessors class SerializableResourceDescription extends AbstractResourceDescription implements Externalizable {
+@Accessors class SerializableResourceDescription extends AbstractResourceDescription implements Externalizable, DependencyFilter.Provider {
 
 	def static SerializableResourceDescription createCopy(IResourceDescription desc) {
 		new SerializableResourceDescription => [
@@ -76,6 +78,7 @@ import static extension org.eclipse.xtext.resource.persistence.SerializationExte
 	List<SerializableReferenceDescription> references = emptyList
 	List<QualifiedName> importedNames = emptyList
 	URI uRI
+	@Accessors(NONE) transient DependencyFilter dependencyFilter
 	
 	def void updateResourceURI(URI uri) {
 		for (ref : references) {
@@ -85,6 +88,51 @@ import static extension org.eclipse.xtext.resource.persistence.SerializationExte
 			desc.updateResourceURI(uri)
 		}
 		this.uRI = uri
+		this.dependencyFilter = null
+	}
+	
+	def void setReferences(List<SerializableReferenceDescription> references) {
+		this.references = references
+		this.dependencyFilter = null
+	}
+	
+	def void setImportedNames(List<QualifiedName> importedNames) {
+		this.importedNames = importedNames
+		this.dependencyFilter = null
+	}
+	
+	/**
+	 * The filter is computed on first access, e.g. when the description is checked for the first time whether it's
+	 * affected by a change.
+	 * 
+	 * @since 2.20
+	 */
+	override getDependencyFilter() {
+		var result = dependencyFilter
+		if (result === null) {
+			result = DependencyFilter.create(this)
+			dependencyFilter = result
+		}
+		return result
+	}
+	
+	/**
+	 * Replaces the names of the exported objects and the imported names with their canonical instances, so equal
+	 * names of different descriptions share their memory.
+	 * 
+	 * @since 2.20
+	 */
+	def void canonicalizeNames(QualifiedNameTable table) {
+		for (desc : descriptions) {
+			if (desc.qualifiedName !== null) {
+				desc.qualifiedName = table.canonicalize(desc.qualifiedName)
+			}
+		}
+		val names = new ArrayList<QualifiedName>(importedNames.size)
+		for (name : importedNames) {
+			names.add(table.canonicalize(name))
+		}
+		importedNames = names
 	}
 	
 	override protected computeExportedObjects() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2009, 2017, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,7 @@
  *******************************************************************************/
 package org.eclipse.xtext.scoping.impl;
 
+import java.lang.reflect.Method;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -42,6 +43,19 @@ public class DefaultGlobalScopeProvider extends AbstractGlobalScopeProvider {
 	@Inject
 	private IResourceDescription.Manager descriptionManager;
 	
+	private static final ClassValue<Boolean> INHERITS_CREATE_CONTAINER_SCOPE_WITH_CONTEXT = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			for (Class<?> c = type; c != DefaultGlobalScopeProvider.class; c = c.getSuperclass()) {
+				for (Method method : c.getDeclaredMethods()) {
+					if (method.getName().equals("createContainerScopeWithContext"))
+						return false;
+				}
+			}
+			return true;
+		}
+	};
+	
 	protected IScope getScope(IScope parent, final Resource context, boolean ignoreCase, EClass type, Predicate<IEObjectDescription> filter) {
 		IScope result = parent;
 		if (context == null || context.getResourceSet() == null)
@@ -49,6 +63,19 @@ public class DefaultGlobalScopeProvider extends AbstractGlobalScopeProvider {
 		List<IContainer> containers = Lists.newArrayList(getVisibleContainers(context));
 		Collections.reverse(containers);
 		Iterator<IContainer> iter = containers.iterator();
+		if (parent == IScope.NULLSCOPE && filter == null) {
+			GlobalScopeCache globalScopeCache = getGlobalScopeCache(context);
+			int shared = 0;
+			while (shared < containers.size() && isShareable(globalScopeCache, containers.get(shared), context)) {
+				shared++;
+			}
+			if (shared > 0) {
+				final List<IContainer> sharedContainers = containers.subList(0, shared);
+				result = globalScopeCache.getScope(sharedContainers, type, ignoreCase,
+						() -> createSharedScope(sharedContainers, type, ignoreCase));
+				iter = containers.subList(shared, containers.size()).iterator();
+			}
+		}
 		while (iter.hasNext()) {
 			IContainer container = iter.next();
 			result = createContainerScopeWithContext(context, result, container, filter, type, ignoreCase);
@@ -61,6 +88,45 @@ public class DefaultGlobalScopeProvider extends AbstractGlobalScopeProvider {
 		return getScope(IScope.NULLSCOPE, context, ignoreCase, type, filter);
 	}
 
+	/**
+	 * Returns the cache of the scopes that are shared by all resources in the resource set of the given context, or
+	 * <code>null</code> if scopes should not be shared. Scopes are not shared if
+	 * {@link #createContainerScopeWithContext(Resource, IScope, IContainer, Predicate, EClass, boolean)
+	 * createContainerScopeWithContext} is overridden, since a shared scope doesn't know its context.
+	 * 
+	 * @since 2.20
+	 */
+	protected GlobalScopeCache getGlobalScopeCache(Resource context) {
+		if (!INHERITS_CREATE_CONTAINER_SCOPE_WITH_CONTEXT.get(getClass()))
+			return null;
+		return GlobalScopeCache.getOrCreate(context.getResourceSet());
+	}
+	
+	/**
+	 * Returns <code>true</code> if the scope of the given container doesn't depend on the context resource, so it can
+	 * be shared with the other resources that see the container.
+	 * 
+	 * @since 2.20
+	 */
+	protected boolean isShareable(GlobalScopeCache globalScopeCache, IContainer container, Resource context) {
+		return globalScopeCache != null && globalScopeCache.isShareable(container)
+				&& !container.hasResourceDescription(context.getURI());
+	}
+	
+	/**
+	 * Creates the scope of the given containers that is {@link GlobalScopeCache shared} by the resources that see them.
+	 * Only unfiltered scopes are shared.
+	 * 
+	 * @since 2.20
+	 */
+	protected IScope createSharedScope(List<IContainer> containers, EClass type, boolean ignoreCase) {
+		IScope result = IScope.NULLSCOPE;
+		for (IContainer container : containers) {
+			result = createContainerScope(result, container, null, type, ignoreCase);
+		}
+		return result;
+	}
+
 	protected List<IContainer> getVisibleContainers(Resource resource) {
 		IResourceDescription description = descriptionManager.getResourceDescription(resource);
 		IResourceDescriptions resourceDescriptions = getResourceDescriptions(resource);
@@ -0,0 +1,306 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.scoping.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IContainer;
+import org.eclipse.xtext.resource.IEObjectDescription;
+import org.eclipse.xtext.resource.impl.ExportedNamesIndex;
+import org.eclipse.xtext.scoping.IScope;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Provider;
+
+/**
+ * Shares the scopes of the containers of a project's dependencies between the resources of a resource set, e.g. all
+ * resources of a build. The shared scopes remember the elements they have been asked for, so a name that many
+ * resources refer to is looked up once.
+ * <p>
+ * A scope is shared for the same list of {@link ExportedNamesIndex.IndexedContainer indexed containers}, the same
+ * type and case sensitivity. Filtered scopes are not shared. A shared scope is discarded as soon as the index of its containers is no longer
+ * {@link ExportedNamesIndex#isUpToDate() up to date}, i.e. when a delta has been applied to one of the dependencies.
+ * The cache evicts the least recently used scopes when the scopes remember more than a
+ * {@link #setMaximumWeight(long) maximum number} of descriptions or when there are more than a
+ * {@link #setMaximumSize(int) maximum number} of scopes.
+ *
+ * @see DefaultGlobalScopeProvider
+ * @since 2.20
+ */
+@Beta
+public class GlobalScopeCache extends AdapterImpl {
+
+	private static class Key {
+		private final List<IContainer> containers;
+		private final EClass type;
+		private final boolean ignoreCase;
+		private final int hashCode;
+
+		private Key(List<IContainer> containers, EClass type, boolean ignoreCase) {
+			this.containers = containers;
+			this.type = type;
+			this.ignoreCase = ignoreCase;
+			this.hashCode = Objects.hashCode(containers, type, ignoreCase);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return other.type == type && other.ignoreCase == ignoreCase && other.containers.equals(containers);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		private boolean isUpToDate() {
+			for (IContainer container : containers) {
+				if (container instanceof ExportedNamesIndex.IndexedContainer
+						&& !((ExportedNamesIndex.IndexedContainer) container).getIndex().isUpToDate()) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * A scope that remembers the elements of the scope that it delegates to.
+	 */
+	protected class SharedScope implements IScope {
+
+		private final IScope delegate;
+
+		private final boolean ignoreCase;
+
+		private final ConcurrentMap<QualifiedName, List<IEObjectDescription>> elementsByName = new ConcurrentHashMap<>();
+
+		private volatile List<IEObjectDescription> allElements;
+
+		private final AtomicLong weight = new AtomicLong();
+
+		private volatile boolean evicted;
+
+		protected SharedScope(IScope delegate, boolean ignoreCase) {
+			this.delegate = delegate;
+			this.ignoreCase = ignoreCase;
+		}
+
+		@Override
+		public IEObjectDescription getSingleElement(QualifiedName name) {
+			List<IEObjectDescription> elements = getElements(name);
+			return elements.isEmpty() ? null : elements.get(0);
+		}
+
+		@Override
+		public List<IEObjectDescription> getElements(QualifiedName name) {
+			QualifiedName key = ignoreCase ? name.toLowerCase() : name;
+			List<IEObjectDescription> result = elementsByName.get(key);
+			if (result == null) {
+				result = ImmutableList.copyOf(delegate.getElements(name));
+				if (!evicted && elementsByName.putIfAbsent(key, result) == null) {
+					addWeight(result.size() + 1);
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public List<IEObjectDescription> getAllElements() {
+			List<IEObjectDescription> result = allElements;
+			if (result == null) {
+				result = ImmutableList.copyOf(delegate.getAllElements());
+				if (!evicted) {
+					allElements = result;
+					addWeight(result.size());
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public IEObjectDescription getSingleElement(EObject object) {
+			return delegate.getSingleElement(object);
+		}
+
+		@Override
+		public Iterable<IEObjectDescription> getElements(EObject object) {
+			return delegate.getElements(object);
+		}
+
+		private void addWeight(long delta) {
+			weight.addAndGet(delta);
+			totalWeight.addAndGet(delta);
+		}
+
+		private void evict() {
+			evicted = true;
+			elementsByName.clear();
+			allElements = null;
+			totalWeight.addAndGet(-weight.getAndSet(0));
+		}
+
+		@Override
+		public String toString() {
+			return getClass().getSimpleName() + " -> " + delegate;
+		}
+	}
+
+	/**
+	 * Returns the cache that is attached to the given resource set and attaches a new one if there is none.
+	 */
+	public static GlobalScopeCache getOrCreate(ResourceSet resourceSet) {
+		for (Adapter adapter : resourceSet.eAdapters()) {
+			if (adapter instanceof GlobalScopeCache) {
+				return (GlobalScopeCache) adapter;
+			}
+		}
+		GlobalScopeCache result = new GlobalScopeCache();
+		resourceSet.eAdapters().add(result);
+		return result;
+	}
+
+	private final Map<Key, SharedScope> scopes = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final AtomicLong totalWeight = new AtomicLong();
+
+	private volatile long maximumWeight = 1000000;
+
+	private volatile int maximumSize = 1000;
+
+	/**
+	 * Returns <code>true</code> if the scope of the given container may be shared.
+	 */
+	public boolean isShareable(IContainer container) {
+		return container instanceof ExportedNamesIndex.IndexedContainer;
+	}
+
+	/**
+	 * Returns the shared scope of the given {@link #isShareable(IContainer) shareable} containers and uses the
+	 * given provider to create the scope that is shared if there is none.
+	 */
+	public IScope getScope(List<IContainer> containers, EClass type, boolean ignoreCase, Provider<IScope> provider) {
+		Key key = new Key(new ArrayList<>(containers), type, ignoreCase);
+		synchronized (scopes) {
+			SharedScope result = scopes.get(key);
+			if (result != null && key.isUpToDate()) {
+				trim();
+				return result;
+			}
+			removeOutdated();
+			if (!key.isUpToDate()) {
+				return provider.get();
+			}
+			result = new SharedScope(provider.get(), ignoreCase);
+			scopes.put(key, result);
+			trim();
+			return result;
+		}
+	}
+
+	/**
+	 * Sets the maximum number of descriptions that the shared scopes remember altogether. The limit is enforced
+	 * whenever a scope is requested.
+	 */
+	public void setMaximumWeight(long maximumWeight) {
+		this.maximumWeight = maximumWeight;
+	}
+
+	public long getMaximumWeight() {
+		return maximumWeight;
+	}
+
+	/**
+	 * Sets the maximum number of shared scopes. The limit is enforced whenever a scope is requested.
+	 */
+	public void setMaximumSize(int maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * Returns the number of descriptions that the shared scopes currently remember.
+	 */
+	public long getWeight() {
+		return totalWeight.get();
+	}
+
+	/**
+	 * Returns the number of shared scopes.
+	 */
+	public int size() {
+		synchronized (scopes) {
+			return scopes.size();
+		}
+	}
+
+	/**
+	 * Discards all shared scopes.
+	 */
+	public void clear() {
+		synchronized (scopes) {
+			for (SharedScope scope : scopes.values()) {
+				scope.evict();
+			}
+			scopes.clear();
+		}
+	}
+
+	private void removeOutdated() {
+		Iterator<Map.Entry<Key, SharedScope>> iterator = scopes.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Key, SharedScope> entry = iterator.next();
+			if (!entry.getKey().isUpToDate()) {
+				entry.getValue().evict();
+				iterator.remove();
+			}
+		}
+	}
+
+	private void trim() {
+		Iterator<SharedScope> iterator = scopes.values().iterator();
+		while ((totalWeight.get() > maximumWeight || scopes.size() > maximumSize) && iterator.hasNext()) {
+			SharedScope eldest = iterator.next();
+			eldest.evict();
+			iterator.remove();
+		}
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == GlobalScopeCache.class;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " with " + size() + " scopes remembering " + getWeight() + " descriptions";
+	}
+
+}
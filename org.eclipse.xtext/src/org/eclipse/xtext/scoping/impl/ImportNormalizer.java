@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2010, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,7 +7,10 @@
  *******************************************************************************/
 package org.eclipse.xtext.scoping.impl;
 
+import java.util.List;
+
 import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
 
 /**
  * @author Jan Koehnlein - Initial contribution and API
@@ -74,6 +77,20 @@ public class ImportNormalizer {
 		return null;
 	}
 
+	/**
+	 * Returns the elements of the given tree that this normalizer imports. If the tree ignores case but this normalizer
+	 * doesn't, the result may contain elements that this normalizer doesn't {@link #deresolve(QualifiedName)
+	 * deresolve}.
+	 * 
+	 * @since 2.20
+	 */
+	public List<IEObjectDescription> getImportedElements(NamespaceTree tree) {
+		if (hasWildCard) {
+			return tree.getNestedElements(importedNamespacePrefix);
+		}
+		return tree.getElements(importedNamespacePrefix);
+	}
+
 	@Override
 	public String toString() {
 		return importedNamespacePrefix.toString() + (hasWildCard ? ".*" : "");
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2010, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -43,6 +43,8 @@ public class ImportScope extends AbstractScope {
 
 	private final EClass type;
 
+	private NamespaceTree namespaceTree;
+
 	public ImportScope(List<ImportNormalizer> namespaceResolvers, IScope parent, ISelectable importFrom, EClass type,
 			boolean ignoreCase) {
 		super(parent, ignoreCase);
@@ -88,8 +90,48 @@ public class ImportScope extends AbstractScope {
 
 	@Override
 	protected Iterable<IEObjectDescription> getAllLocalElements() {
-		final Iterable<IEObjectDescription> exportedObjects = getImportFrom().getExportedObjectsByType(type);
-		return getAliasedElements(exportedObjects);
+		if (!isNamespaceTreeApplicable()) {
+			final Iterable<IEObjectDescription> exportedObjects = getImportFrom().getExportedObjectsByType(type);
+			return getAliasedElements(exportedObjects);
+		}
+		final Iterable<IEObjectDescription> importedObjects = getNamespaceTree().getImportedElements(normalizers);
+		return getAliasedElements(importedObjects);
+	}
+
+	/**
+	 * Returns <code>true</code> if the imported elements may be looked up in the {@link #getNamespaceTree() namespace
+	 * tree}. Subclasses of {@link ImportNormalizer} may {@link ImportNormalizer#deresolve(QualifiedName) deresolve}
+	 * names that aren't nested in their imported namespace, so all exported objects are deresolved if any normalizer
+	 * is such a subclass.
+	 * 
+	 * @since 2.20
+	 */
+	protected boolean isNamespaceTreeApplicable() {
+		for (ImportNormalizer normalizer : normalizers) {
+			if (normalizer.getClass() != ImportNormalizer.class) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the tree of the exported objects of the {@link #getImportFrom() imported selectable}. It is created on
+	 * first access and reused for the lifetime of this scope.
+	 * 
+	 * @since 2.20
+	 */
+	protected NamespaceTree getNamespaceTree() {
+		NamespaceTree result = namespaceTree;
+		if (result == null) {
+			boolean ignoreCase = isIgnoreCase();
+			for (ImportNormalizer normalizer : normalizers) {
+				ignoreCase |= normalizer.isIgnoreCase();
+			}
+			result = new NamespaceTree(getImportFrom().getExportedObjectsByType(type), ignoreCase);
+			namespaceTree = result;
+		}
+		return result;
 	}
 
 	@Override
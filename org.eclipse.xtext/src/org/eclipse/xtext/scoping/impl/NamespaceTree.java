@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.xtext.scoping.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.resource.IEObjectDescription;
+
+/**
+ * A tree of the segments of the names of some elements. Each node of the tree stands for a namespace and holds the
+ * elements with that name, so the elements with a given name and the elements nested in a given namespace are found
+ * without looking at any other element.
+ * <p>
+ * The elements are returned in the order in which they have been passed to the tree. A tree that ignores case
+ * matches the segments of the names case insensitively.
+ *
+ * @see ImportNormalizer#getImportedElements(NamespaceTree)
+ * @since 2.20
+ */
+public class NamespaceTree {
+
+	private static class Entry {
+		private final int index;
+		private final IEObjectDescription description;
+
+		private Entry(int index, IEObjectDescription description) {
+			this.index = index;
+			this.description = description;
+		}
+	}
+
+	private static class Node {
+		private Map<String, Node> children;
+		private List<Entry> elements;
+
+		private Node getOrCreateChild(String segment) {
+			if (children == null) {
+				children = new HashMap<>(4);
+			}
+			Node child = children.get(segment);
+			if (child == null) {
+				child = new Node();
+				children.put(segment, child);
+			}
+			return child;
+		}
+
+		private Node getChild(String segment) {
+			return children != null ? children.get(segment) : null;
+		}
+	}
+
+	private final Node root = new Node();
+
+	private final boolean ignoreCase;
+
+	private int size;
+
+	/**
+	 * The entries of the elements, created when the elements of more than one normalizer are merged.
+	 */
+	private Map<IEObjectDescription, Entry> entries;
+
+	public NamespaceTree(Iterable<IEObjectDescription> elements, boolean ignoreCase) {
+		this.ignoreCase = ignoreCase;
+		for (IEObjectDescription element : elements) {
+			QualifiedName name = element.getName();
+			Node node = root;
+			for (int i = 0; i < name.getSegmentCount(); i++) {
+				node = node.getOrCreateChild(key(name.getSegment(i)));
+			}
+			if (node.elements == null) {
+				node.elements = new ArrayList<>(1);
+			}
+			node.elements.add(new Entry(size++, element));
+		}
+	}
+
+	public boolean isIgnoreCase() {
+		return ignoreCase;
+	}
+
+	/**
+	 * Returns the number of elements in the tree.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the elements with the given name.
+	 */
+	public List<IEObjectDescription> getElements(QualifiedName name) {
+		List<Entry> result = new ArrayList<>();
+		collectElements(name, result);
+		return toDescriptions(result);
+	}
+
+	/**
+	 * Returns the elements that are nested in the given namespace at any depth. The namespace itself isn't included.
+	 */
+	public List<IEObjectDescription> getNestedElements(QualifiedName namespace) {
+		List<Entry> result = new ArrayList<>();
+		collectNestedElements(namespace, result);
+		return toDescriptions(sort(result));
+	}
+
+	/**
+	 * Returns the elements that are {@link ImportNormalizer#getImportedElements(NamespaceTree) imported} by any of the
+	 * given normalizers. Each element is contained once even if more than one normalizer imports it.
+	 */
+	public List<IEObjectDescription> getImportedElements(List<ImportNormalizer> normalizers) {
+		if (normalizers.size() == 1) {
+			return normalizers.get(0).getImportedElements(this);
+		}
+		List<Entry> result = new ArrayList<>();
+		for (ImportNormalizer normalizer : normalizers) {
+			for (IEObjectDescription element : normalizer.getImportedElements(this)) {
+				result.add(getEntry(element));
+			}
+		}
+		return toDescriptions(sort(removeDuplicates(result)));
+	}
+
+	private Entry getEntry(IEObjectDescription element) {
+		if (entries == null) {
+			entries = new IdentityHashMap<>(size);
+			collectEntries(root, entries);
+		}
+		Entry result = entries.get(element);
+		if (result == null) {
+			// not an element of this tree, so it comes last
+			result = new Entry(size + entries.size(), element);
+			entries.put(element, result);
+		}
+		return result;
+	}
+
+	private void collectEntries(Node node, Map<IEObjectDescription, Entry> result) {
+		Deque<Node> queue = new ArrayDeque<>();
+		queue.add(node);
+		while (!queue.isEmpty()) {
+			Node next = queue.pop();
+			if (next.elements != null) {
+				for (Entry entry : next.elements) {
+					result.put(entry.description, entry);
+				}
+			}
+			if (next.children != null) {
+				queue.addAll(next.children.values());
+			}
+		}
+	}
+
+	private void collectElements(QualifiedName name, List<Entry> result) {
+		Node node = find(name);
+		if (node != null && node.elements != null) {
+			result.addAll(node.elements);
+		}
+	}
+
+	private void collectNestedElements(QualifiedName namespace, List<Entry> result) {
+		Node node = find(namespace);
+		if (node == null || node.children == null) {
+			return;
+		}
+		Deque<Node> queue = new ArrayDeque<>(node.children.values());
+		while (!queue.isEmpty()) {
+			Node next = queue.pop();
+			if (next.elements != null) {
+				result.addAll(next.elements);
+			}
+			if (next.children != null) {
+				queue.addAll(next.children.values());
+			}
+		}
+	}
+
+	private Node find(QualifiedName name) {
+		Node node = root;
+		for (int i = 0; i < name.getSegmentCount() && node != null; i++) {
+			node = node.getChild(key(name.getSegment(i)));
+		}
+		return node;
+	}
+
+	private String key(String segment) {
+		return ignoreCase ? segment.toLowerCase() : segment;
+	}
+
+	private List<Entry> removeDuplicates(List<Entry> entries) {
+		BitSet seen = new BitSet(size);
+		List<Entry> result = new ArrayList<>(entries.size());
+		for (Entry entry : entries) {
+			if (!seen.get(entry.index)) {
+				seen.set(entry.index);
+				result.add(entry);
+			}
+		}
+		return result;
+	}
+
+	private List<Entry> sort(List<Entry> entries) {
+		Collections.sort(entries, (a, b) -> Integer.compare(a.index, b.index));
+		return entries;
+	}
+
+	private List<IEObjectDescription> toDescriptions(List<Entry> entries) {
+		List<IEObjectDescription> result = new ArrayList<>(entries.size());
+		for (Entry entry : entries) {
+			result.add(entry.description);
+		}
+		return result;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2016 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2011, 2016, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -42,7 +42,7 @@ public class EmitterNodeIterator implements Iterator<INode> {
 			this.iterator = new NodeIterator(fromNode);
 			this.passAbsorber = passAbsorber;
 			if (toNode != null) {
-				if (toNode == fromNode)
+				if (toNode.equals(fromNode))
 					this.end = toNode.getOffset() + toNode.getLength();
 				else if (toNode.getOffset() < fromNode.getOffset())
 					this.end = toNode.getOffset() + toNode.getLength();
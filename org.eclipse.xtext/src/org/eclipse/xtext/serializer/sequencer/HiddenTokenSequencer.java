@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2016 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2011, 2016, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -217,7 +217,7 @@ public class HiddenTokenSequencer implements IHiddenTokenSequencer, ISyntacticSe
 				if (next.getTotalOffset() > rootEndOffset) {
 					break;
 				}
-				if (next == lastEmittedNode) {
+				if (next.equals(lastEmittedNode)) {
 					break;
 				} else if (tokenUtil.isWhitespaceOrCommentNode(next)) {
 					out.add(next);
@@ -235,7 +235,7 @@ public class HiddenTokenSequencer implements IHiddenTokenSequencer, ISyntacticSe
 				if (prev.getTotalEndOffset()  < rootOffset) {
 					break;
 				}
-				if (prev == lastEmittedNode) {
+				if (prev.equals(lastEmittedNode)) {
 					break;
 				} else if (tokenUtil.isWhitespaceOrCommentNode(prev)) {
 					out.add(0, prev);
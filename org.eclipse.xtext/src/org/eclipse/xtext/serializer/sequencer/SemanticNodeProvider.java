@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2016 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2011, 2016, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -154,7 +154,7 @@ public class SemanticNodeProvider implements ISemanticNodeProvider {
 								last = add(assignment.getFeature(), child, last);
 						}
 						iterator.prune();
-					} else if (child != node) {
+					} else if (!child.equals(node)) {
 						Assignment assignment = GrammarUtil.containingAssignment(grammarElement);
 						if (assignment != null) {
 							last = add(assignment.getFeature(), child, last);
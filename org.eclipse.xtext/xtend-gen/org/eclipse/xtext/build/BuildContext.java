@@ -19,6 +19,7 @@ import org.eclipse.xtext.resource.clustering.IResourceClusteringPolicy;
 import org.eclipse.xtext.util.CancelIndicator;
 import org.eclipse.xtext.xbase.lib.Functions.Function1;
 import org.eclipse.xtext.xbase.lib.IterableExtensions;
+import org.eclipse.xtext.xbase.lib.Procedures.Procedure0;
 import org.eclipse.xtext.xbase.lib.Pure;
 
 /**
@@ -45,6 +46,16 @@ public class BuildContext {
   private ClusteringStorageAwareResourceLoader loader;
   
   public <T extends Object> Iterable<T> executeClustered(final Iterable<URI> uri, final Function1<? super Resource, ? extends T> operation) {
+    final Procedure0 _function = () -> {
+    };
+    return this.<T>executeClustered(uri, operation, _function);
+  }
+  
+  /**
+   * @param beforeUnload invoked whenever a cluster of resources has been processed and is about to be unloaded.
+   * @since 2.20
+   */
+  public <T extends Object> Iterable<T> executeClustered(final Iterable<URI> uri, final Function1<? super Resource, ? extends T> operation, final Procedure0 beforeUnload) {
     if ((this.loader == null)) {
       ClusteringStorageAwareResourceLoader _clusteringStorageAwareResourceLoader = new ClusteringStorageAwareResourceLoader(this);
       this.loader = _clusteringStorageAwareResourceLoader;
@@ -52,7 +63,7 @@ public class BuildContext {
     final Function1<URI, Boolean> _function = (URI it) -> {
       return Boolean.valueOf(this.canHandle(it));
     };
-    return this.loader.<T>executeClustered(IterableExtensions.<URI>filter(uri, _function), operation);
+    return this.loader.<T>executeClustered(IterableExtensions.<URI>filter(uri, _function), operation, beforeUnload);
   }
   
   protected boolean canHandle(final URI uri) {
@@ -9,11 +9,13 @@ package org.eclipse.xtext.build;
 
 import java.io.File;
 import java.util.List;
+import java.util.concurrent.Executor;
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.xtend.lib.annotations.Accessors;
 import org.eclipse.xtext.build.IndexState;
 import org.eclipse.xtext.diagnostics.Severity;
+import org.eclipse.xtext.generator.WriteBehindQueue;
 import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.XtextResourceSet;
 import org.eclipse.xtext.util.CancelIndicator;
@@ -106,6 +108,26 @@ public class BuildRequest {
   
   private boolean indexOnly = false;
   
+  /**
+   * Don't touch generated files whose content did not change.
+   * @since 2.20
+   */
+  private boolean skipUnchangedGeneratedFiles = false;
+  
+  /**
+   * If set, generated files are written asynchronously. The build waits for all pending writes before it returns.
+   * @since 2.20
+   */
+  private WriteBehindQueue writeBehindQueue;
+  
+  /**
+   * If set, {@link org.eclipse.xtext.generator.IThreadSafeGenerator thread-safe generators} are executed by this
+   * executor. They are started in parallel once a cluster of resources has been loaded and validated, and the build
+   * waits for them before it continues with the next cluster.
+   * @since 2.20
+   */
+  private Executor generatorExecutor;
+  
   private XtextResourceSet resourceSet;
   
   private CancelIndicator cancelIndicator = CancelIndicator.NullImpl;
@@ -195,6 +217,33 @@ public class BuildRequest {
     this.indexOnly = indexOnly;
   }
   
+  @Pure
+  public boolean isSkipUnchangedGeneratedFiles() {
+    return this.skipUnchangedGeneratedFiles;
+  }
+  
+  public void setSkipUnchangedGeneratedFiles(final boolean skipUnchangedGeneratedFiles) {
+    this.skipUnchangedGeneratedFiles = skipUnchangedGeneratedFiles;
+  }
+  
+  @Pure
+  public WriteBehindQueue getWriteBehindQueue() {
+    return this.writeBehindQueue;
+  }
+  
+  public void setWriteBehindQueue(final WriteBehindQueue writeBehindQueue) {
+    this.writeBehindQueue = writeBehindQueue;
+  }
+  
+  @Pure
+  public Executor getGeneratorExecutor() {
+    return this.generatorExecutor;
+  }
+  
+  public void setGeneratorExecutor(final Executor generatorExecutor) {
+    this.generatorExecutor = generatorExecutor;
+  }
+  
   @Pure
   public XtextResourceSet getResourceSet() {
     return this.resourceSet;
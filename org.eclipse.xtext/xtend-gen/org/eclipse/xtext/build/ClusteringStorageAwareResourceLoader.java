@@ -24,6 +24,7 @@ import org.eclipse.xtext.xbase.lib.CollectionLiterals;
 import org.eclipse.xtext.xbase.lib.Extension;
 import org.eclipse.xtext.xbase.lib.Functions.Function1;
 import org.eclipse.xtext.xbase.lib.ListExtensions;
+import org.eclipse.xtext.xbase.lib.Procedures.Procedure0;
 
 /**
  * @author Jan Koehnlein - Initial contribution and API
@@ -35,6 +36,15 @@ public class ClusteringStorageAwareResourceLoader {
   private final BuildContext context;
   
   public <T extends Object> Iterable<T> executeClustered(final Iterable<URI> uris, final Function1<? super Resource, ? extends T> operation) {
+    final Procedure0 _function = () -> {
+    };
+    return this.<T>executeClustered(uris, operation, _function);
+  }
+  
+  /**
+   * @since 2.20
+   */
+  public <T extends Object> Iterable<T> executeClustered(final Iterable<URI> uris, final Function1<? super Resource, ? extends T> operation, final Procedure0 beforeUnload) {
     int loadedURIsCount = 0;
     final HashSet<URI> sourceLevelURIs = CollectionLiterals.<URI>newHashSet();
     final ArrayList<Resource> resources = CollectionLiterals.<Resource>newArrayList();
@@ -51,7 +61,9 @@ public class ClusteringStorageAwareResourceLoader {
           };
           List<T> _map = ListExtensions.<Resource, T>map(resources, _function);
           Iterables.<T>addAll(result, _map);
+          beforeUnload.apply();
           this.clearResourceSet();
+          resources.clear();
           loadedURIsCount = 0;
         }
         loadedURIsCount++;
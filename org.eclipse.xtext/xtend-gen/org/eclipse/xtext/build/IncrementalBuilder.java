@@ -17,7 +17,11 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.xtend.lib.annotations.AccessorType;
@@ -37,6 +41,7 @@ import org.eclipse.xtext.generator.IFilePostProcessor;
 import org.eclipse.xtext.generator.IShouldGenerate;
 import org.eclipse.xtext.generator.OutputConfiguration;
 import org.eclipse.xtext.generator.URIBasedFileSystemAccess;
+import org.eclipse.xtext.generator.WriteBehindQueue;
 import org.eclipse.xtext.generator.trace.TraceFileNameProvider;
 import org.eclipse.xtext.generator.trace.TraceRegionSerializer;
 import org.eclipse.xtext.parser.IEncodingProvider;
@@ -59,11 +64,15 @@ import org.eclipse.xtext.workspace.IProjectConfig;
 import org.eclipse.xtext.workspace.IProjectConfigProvider;
 import org.eclipse.xtext.workspace.ISourceFolder;
 import org.eclipse.xtext.xbase.lib.CollectionLiterals;
+import org.eclipse.xtext.xbase.lib.Conversions;
 import org.eclipse.xtext.xbase.lib.Exceptions;
+import org.eclipse.xtext.xbase.lib.ExclusiveRange;
 import org.eclipse.xtext.xbase.lib.Extension;
 import org.eclipse.xtext.xbase.lib.Functions.Function1;
 import org.eclipse.xtext.xbase.lib.IterableExtensions;
 import org.eclipse.xtext.xbase.lib.ObjectExtensions;
+import org.eclipse.xtext.xbase.lib.Pair;
+import org.eclipse.xtext.xbase.lib.Procedures.Procedure0;
 import org.eclipse.xtext.xbase.lib.Procedures.Procedure1;
 import org.eclipse.xtext.xbase.lib.Pure;
 import org.eclipse.xtext.xbase.lib.util.ToStringBuilder;
@@ -188,6 +197,9 @@ public class IncrementalBuilder {
             it.setCurrentSource(_name);
           }
           it.setConverter(resource.getResourceSet().getURIConverter());
+          it.setSkipUnchangedFiles(request.isSkipUnchangedGeneratedFiles());
+          it.setContentHashStore(request.getState().getFileMappings());
+          it.setWriteBehindQueue(request.getWriteBehindQueue());
         };
         return ObjectExtensions.<URIBasedFileSystemAccess>operator_doubleArrow(_uRIBasedFileSystemAccess, _function);
       }
@@ -207,6 +219,12 @@ public class IncrementalBuilder {
     @Extension
     private OperationCanceledManager _operationCanceledManager;
     
+    /**
+     * Generators that will run on the {@link BuildRequest#getGeneratorExecutor() generator executor} as soon as
+     * the current cluster of resources has been processed, and the steps that complete them on the build thread.
+     */
+    private final ArrayList<Pair<Procedure0, Procedure1<? super CompletableFuture<Void>>>> deferredGenerations = CollectionLiterals.<Pair<Procedure0, Procedure1<? super CompletableFuture<Void>>>>newArrayList();
+    
     protected void unloadResource(final URI uri) {
       final Resource resource = this.request.getResourceSet().getResource(uri, false);
       if ((resource != null)) {
@@ -270,33 +288,45 @@ public class IncrementalBuilder {
       };
       Iterable<IResourceDescription.Delta> _filter = IterableExtensions.<IResourceDescription.Delta>filter(result.getResourceDeltas(), _function_1);
       Iterables.<IResourceDescription.Delta>addAll(resolvedDeltas, _filter);
-      final Function1<IResourceDescription.Delta, Boolean> _function_2 = (IResourceDescription.Delta it) -> {
-        IResourceDescription _new = it.getNew();
-        return Boolean.valueOf((_new != null));
-      };
-      final Function1<IResourceDescription.Delta, URI> _function_3 = (IResourceDescription.Delta it) -> {
-        return it.getUri();
-      };
-      final Function1<Resource, IResourceDescription.Delta> _function_4 = (Resource resource) -> {
-        this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
-        resource.getContents();
-        EcoreUtil2.resolveLazyCrossReferences(resource, CancelIndicator.NullImpl);
-        this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
-        final IResourceServiceProvider serviceProvider = this.getResourceServiceProvider(resource);
-        final IResourceDescription.Manager manager = serviceProvider.getResourceDescriptionManager();
-        final IResourceDescription description = manager.getResourceDescription(resource);
-        final SerializableResourceDescription copiedDescription = SerializableResourceDescription.createCopy(description);
-        result.getNewIndex().addDescription(resource.getURI(), copiedDescription);
-        this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
-        if ((((!this.request.isIndexOnly()) && this.validate(resource)) && serviceProvider.<IShouldGenerate>get(IShouldGenerate.class).shouldGenerate(resource, CancelIndicator.NullImpl))) {
+      try {
+        final Function1<IResourceDescription.Delta, Boolean> _function_2 = (IResourceDescription.Delta it) -> {
+          IResourceDescription _new = it.getNew();
+          return Boolean.valueOf((_new != null));
+        };
+        final Function1<IResourceDescription.Delta, URI> _function_3 = (IResourceDescription.Delta it) -> {
+          return it.getUri();
+        };
+        final Function1<Resource, IResourceDescription.Delta> _function_4 = (Resource resource) -> {
           this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
-          this.generate(resource, this.request, newSource2GeneratedMapping);
-        }
-        final IResourceDescription old = this.context.getOldState().getResourceDescriptions().getResourceDescription(resource.getURI());
-        return manager.createDelta(old, copiedDescription);
-      };
-      Iterable<IResourceDescription.Delta> _executeClustered = this.context.<IResourceDescription.Delta>executeClustered(IterableExtensions.<IResourceDescription.Delta, URI>map(IterableExtensions.<IResourceDescription.Delta>filter(result.getResourceDeltas(), _function_2), _function_3), _function_4);
-      Iterables.<IResourceDescription.Delta>addAll(resolvedDeltas, _executeClustered);
+          resource.getContents();
+          EcoreUtil2.resolveLazyCrossReferences(resource, CancelIndicator.NullImpl);
+          this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
+          final IResourceServiceProvider serviceProvider = this.getResourceServiceProvider(resource);
+          final IResourceDescription.Manager manager = serviceProvider.getResourceDescriptionManager();
+          final IResourceDescription description = manager.getResourceDescription(resource);
+          final SerializableResourceDescription copiedDescription = SerializableResourceDescription.createCopy(description);
+          result.getNewIndex().addDescription(resource.getURI(), copiedDescription);
+          this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
+          if ((((!this.request.isIndexOnly()) && this.validate(resource)) && serviceProvider.<IShouldGenerate>get(IShouldGenerate.class).shouldGenerate(resource, CancelIndicator.NullImpl))) {
+            this._operationCanceledManager.checkCanceled(this.request.getCancelIndicator());
+            this.generate(resource, this.request, newSource2GeneratedMapping);
+          }
+          final IResourceDescription old = this.context.getOldState().getResourceDescriptions().getResourceDescription(resource.getURI());
+          return manager.createDelta(old, copiedDescription);
+        };
+        final Procedure0 _function_5 = () -> {
+          this.generateDeferred();
+        };
+        Iterable<IResourceDescription.Delta> _executeClustered = this.context.<IResourceDescription.Delta>executeClustered(IterableExtensions.<IResourceDescription.Delta, URI>map(IterableExtensions.<IResourceDescription.Delta>filter(result.getResourceDeltas(), _function_2), _function_3), _function_4, _function_5);
+        Iterables.<IResourceDescription.Delta>addAll(resolvedDeltas, _executeClustered);
+        this.generateDeferred();
+      } finally {
+        this.discardGeneration();
+      }
+      WriteBehindQueue _writeBehindQueue = this.request.getWriteBehindQueue();
+      if (_writeBehindQueue!=null) {
+        _writeBehindQueue.flush();
+      }
       IndexState _state = this.request.getState();
       return new IncrementalBuilder.Result(_state, resolvedDeltas);
     }
@@ -318,54 +348,184 @@ public class IncrementalBuilder {
     }
     
     protected void generate(final Resource resource, final BuildRequest request, final Source2GeneratedMapping newMappings) {
-      final IResourceServiceProvider serviceProvider = this.getResourceServiceProvider(resource);
-      final GeneratorDelegate generator = serviceProvider.<GeneratorDelegate>get(GeneratorDelegate.class);
-      if ((generator == null)) {
-        return;
-      }
-      final Set<URI> previous = newMappings.deleteSource(resource.getURI());
-      URIBasedFileSystemAccess _createFileSystemAccess = this.createFileSystemAccess(serviceProvider, resource);
-      final Procedure1<URIBasedFileSystemAccess> _function = (URIBasedFileSystemAccess it) -> {
-        final URIBasedFileSystemAccess.BeforeWrite _function_1 = (URI uri, String outputCfgName, InputStream contents) -> {
-          newMappings.addSource2Generated(resource.getURI(), uri, outputCfgName);
-          previous.remove(uri);
-          request.getAfterGenerateFile().apply(resource.getURI(), uri);
-          return contents;
+      try {
+        final IResourceServiceProvider serviceProvider = this.getResourceServiceProvider(resource);
+        final GeneratorDelegate generator = serviceProvider.<GeneratorDelegate>get(GeneratorDelegate.class);
+        if ((generator == null)) {
+          return;
+        }
+        Set<URI> _xsynchronizedexpression = null;
+        synchronized (newMappings) {
+          _xsynchronizedexpression = newMappings.deleteSource(resource.getURI());
+        }
+        final Set<URI> previous = _xsynchronizedexpression;
+        URIBasedFileSystemAccess _createFileSystemAccess = this.createFileSystemAccess(serviceProvider, resource);
+        final Procedure1<URIBasedFileSystemAccess> _function = (URIBasedFileSystemAccess it) -> {
+          final URIBasedFileSystemAccess.BeforeWrite _function_1 = (URI uri, String outputCfgName, InputStream contents) -> {
+            synchronized (newMappings) {
+              newMappings.addSource2Generated(resource.getURI(), uri, outputCfgName);
+              previous.remove(uri);
+              request.getAfterGenerateFile().apply(resource.getURI(), uri);
+            }
+            return contents;
+          };
+          it.setBeforeWrite(_function_1);
+          final URIBasedFileSystemAccess.BeforeDelete _function_2 = (URI uri) -> {
+            synchronized (newMappings) {
+              newMappings.deleteGenerated(uri);
+              request.getAfterDeleteFile().apply(uri);
+            }
+            return true;
+          };
+          it.setBeforeDelete(_function_2);
         };
-        it.setBeforeWrite(_function_1);
-        final URIBasedFileSystemAccess.BeforeDelete _function_2 = (URI uri) -> {
-          newMappings.deleteGenerated(uri);
-          request.getAfterDeleteFile().apply(uri);
-          return true;
+        final URIBasedFileSystemAccess fileSystemAccess = ObjectExtensions.<URIBasedFileSystemAccess>operator_doubleArrow(_createFileSystemAccess, _function);
+        fileSystemAccess.setContext(resource);
+        boolean _isWriteStorageResources = request.isWriteStorageResources();
+        if (_isWriteStorageResources) {
+          boolean _matched = false;
+          if (resource instanceof StorageAwareResource) {
+            IResourceStorageFacade _resourceStorageFacade = ((StorageAwareResource)resource).getResourceStorageFacade();
+            boolean _tripleNotEquals = (_resourceStorageFacade != null);
+            if (_tripleNotEquals) {
+              _matched=true;
+              ((StorageAwareResource)resource).getResourceStorageFacade().saveResource(((StorageAwareResource)resource), fileSystemAccess);
+            }
+          }
+        }
+        final GeneratorContext generatorContext = new GeneratorContext();
+        generatorContext.setCancelIndicator(request.getCancelIndicator());
+        final Procedure0 _function_1 = () -> {
+          final Consumer<URI> _function_2 = (URI it) -> {
+            try {
+              this.context.getResourceSet().getURIConverter().delete(it, CollectionLiterals.<Object, Object>emptyMap());
+              request.getAfterDeleteFile().apply(it);
+            } catch (Throwable _e) {
+              throw Exceptions.sneakyThrow(_e);
+            }
+          };
+          previous.forEach(_function_2);
         };
-        it.setBeforeDelete(_function_2);
-      };
-      final URIBasedFileSystemAccess fileSystemAccess = ObjectExtensions.<URIBasedFileSystemAccess>operator_doubleArrow(_createFileSystemAccess, _function);
-      fileSystemAccess.setContext(resource);
-      boolean _isWriteStorageResources = request.isWriteStorageResources();
-      if (_isWriteStorageResources) {
-        boolean _matched = false;
-        if (resource instanceof StorageAwareResource) {
-          IResourceStorageFacade _resourceStorageFacade = ((StorageAwareResource)resource).getResourceStorageFacade();
-          boolean _tripleNotEquals = (_resourceStorageFacade != null);
-          if (_tripleNotEquals) {
-            _matched=true;
-            ((StorageAwareResource)resource).getResourceStorageFacade().saveResource(((StorageAwareResource)resource), fileSystemAccess);
+        final Procedure0 deletePrevious = _function_1;
+        final Executor executor = request.getGeneratorExecutor();
+        if (((executor == null) || (!generator.isThreadSafe()))) {
+          generator.generate(resource, fileSystemAccess, generatorContext);
+          deletePrevious.apply();
+          return;
+        }
+        try {
+          generator.beforeGenerate(resource, fileSystemAccess, generatorContext);
+        } catch (final Throwable _t) {
+          if (_t instanceof Throwable) {
+            final Throwable t = (Throwable)_t;
+            generator.afterGenerate(resource, fileSystemAccess, generatorContext);
+            throw t;
+          } else {
+            throw Exceptions.sneakyThrow(_t);
           }
         }
+        final Procedure0 _function_2 = () -> {
+          generator.doGenerate(resource, fileSystemAccess, generatorContext);
+        };
+        final Procedure0 doGenerate = _function_2;
+        final Procedure1<CompletableFuture<Void>> _function_3 = (CompletableFuture<Void> future) -> {
+          try {
+            future.join();
+          } catch (final Throwable _t) {
+            if (_t instanceof CompletionException) {
+              final CompletionException e = (CompletionException)_t;
+              throw Exceptions.sneakyThrow(e.getCause());
+            } else {
+              throw Exceptions.sneakyThrow(_t);
+            }
+          } finally {
+            generator.afterGenerate(resource, fileSystemAccess, generatorContext);
+          }
+          deletePrevious.apply();
+        };
+        final Procedure1<? super CompletableFuture<Void>> complete = _function_3;
+        Pair<Procedure0, Procedure1<? super CompletableFuture<Void>>> _mappedTo = Pair.<Procedure0, Procedure1<? super CompletableFuture<Void>>>of(doGenerate, complete);
+        this.deferredGenerations.add(_mappedTo);
+      } catch (Throwable _e) {
+        throw Exceptions.sneakyThrow(_e);
+      }
+    }
+    
+    /**
+     * Runs the deferred {@link org.eclipse.xtext.generator.IThreadSafeGenerator thread-safe generators} of the
+     * current cluster on the {@link BuildRequest#getGeneratorExecutor() generator executor} and completes them on
+     * the build thread.
+     * <p>
+     * The resources of the cluster have been loaded, resolved and validated at this point. The build thread waits
+     * until all generators are done, so the resource set is not accessed by the builder while they are running.
+     * 
+     * @since 2.20
+     */
+    protected void generateDeferred() {
+      final ArrayList<Pair<Procedure0, Procedure1<? super CompletableFuture<Void>>>> deferred = new ArrayList<Pair<Procedure0, Procedure1<? super CompletableFuture<Void>>>>(this.deferredGenerations);
+      this.deferredGenerations.clear();
+      boolean _isEmpty = deferred.isEmpty();
+      if (_isEmpty) {
+        return;
       }
-      final GeneratorContext generatorContext = new GeneratorContext();
-      generatorContext.setCancelIndicator(request.getCancelIndicator());
-      generator.generate(resource, fileSystemAccess, generatorContext);
-      final Consumer<URI> _function_1 = (URI it) -> {
+      final ArrayList<CompletableFuture<Void>> futures = CollectionLiterals.<CompletableFuture<Void>>newArrayList();
+      for (final Pair<Procedure0, Procedure1<? super CompletableFuture<Void>>> generation : deferred) {
+        CompletableFuture<Void> _xtrycatchfinallyexpression = null;
         try {
-          this.context.getResourceSet().getURIConverter().delete(it, CollectionLiterals.<Object, Object>emptyMap());
-          request.getAfterDeleteFile().apply(it);
-        } catch (Throwable _e) {
-          throw Exceptions.sneakyThrow(_e);
+          _xtrycatchfinallyexpression = CompletableFuture.runAsync(new Runnable() {
+              public void run() {
+                generation.getKey().apply();
+              }
+          }, this.request.getGeneratorExecutor());
+        } catch (final Throwable _t) {
+          if (_t instanceof RuntimeException) {
+            final RuntimeException e = (RuntimeException)_t;
+            CompletableFuture<Void> _xblockexpression = null;
+            {
+              final CompletableFuture<Void> rejected = new CompletableFuture<Void>();
+              rejected.completeExceptionally(e);
+              _xblockexpression = rejected;
+            }
+            _xtrycatchfinallyexpression = _xblockexpression;
+          } else {
+            throw Exceptions.sneakyThrow(_t);
+          }
         }
+        futures.add(_xtrycatchfinallyexpression);
+      }
+      final Function<Throwable, Void> _function = (Throwable it) -> {
+        return null;
       };
-      previous.forEach(_function_1);
+      CompletableFuture.allOf(((CompletableFuture<?>[])Conversions.unwrapArray(futures, CompletableFuture.class))).exceptionally(_function).join();
+      Throwable failure = null;
+      int _size = deferred.size();
+      ExclusiveRange _doubleDotLessThan = new ExclusiveRange(0, _size, true);
+      for (final Integer i : _doubleDotLessThan) {
+        try {
+          deferred.get((i).intValue()).getValue().apply(futures.get((i).intValue()));
+        } catch (final Throwable _t) {
+          if (_t instanceof Throwable) {
+            final Throwable t = (Throwable)_t;
+            if ((failure == null)) {
+              failure = t;
+            }
+          } else {
+            throw Exceptions.sneakyThrow(_t);
+          }
+        }
+      }
+      if ((failure != null)) {
+        throw Exceptions.sneakyThrow(failure);
+      }
+    }
+    
+    /**
+     * Forgets the deferred generators that have not been started when the build fails.
+     * 
+     * @since 2.20
+     */
+    protected void discardGeneration() {
+      this.deferredGenerations.clear();
     }
     
     protected URIBasedFileSystemAccess createFileSystemAccess(final IResourceServiceProvider serviceProvider, final Resource resource) {
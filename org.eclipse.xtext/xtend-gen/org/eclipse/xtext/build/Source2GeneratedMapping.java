@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2015 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,7 +7,8 @@
  */
 package org.eclipse.xtext.build;
 
-import com.google.common.collect.HashMultimap;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import java.io.Externalizable;
@@ -15,40 +16,72 @@ import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import org.eclipse.emf.common.util.URI;
-import org.eclipse.xtend.lib.annotations.FinalFieldsConstructor;
 import org.eclipse.xtext.generator.IFileSystemAccess;
+import org.eclipse.xtext.generator.URIBasedFileSystemAccess;
+import org.eclipse.xtext.util.PersistentHashMap;
 import org.eclipse.xtext.xbase.lib.CollectionLiterals;
 import org.eclipse.xtext.xbase.lib.Exceptions;
 import org.eclipse.xtext.xbase.lib.ExclusiveRange;
+import org.eclipse.xtext.xbase.lib.Functions.Function1;
+import org.eclipse.xtext.xbase.lib.IterableExtensions;
 
 /**
+ * The mapping is backed by {@link PersistentHashMap persistent maps}, so a {@link #copy() copy} is created in
+ * constant time.
+ * 
  * @author Jan Koehnlein - Initial contribution and API
  */
-@FinalFieldsConstructor
 @SuppressWarnings("all")
-public class Source2GeneratedMapping implements Externalizable {
-  private final Multimap<URI, URI> source2generated;
+public class Source2GeneratedMapping implements Externalizable, URIBasedFileSystemAccess.ContentHashStore {
+  private final PersistentHashMap<URI, Set<URI>> source2generated;
   
-  private final Multimap<URI, URI> generated2source;
+  private final PersistentHashMap<URI, Set<URI>> generated2source;
   
-  private final Map<URI, String> generated2OutputConfigName;
+  private final PersistentHashMap<URI, String> generated2OutputConfigName;
+  
+  /**
+   * The content hashes are not externalized. They may be updated by concurrently running generators.
+   */
+  private final PersistentHashMap<URI, String> generated2ContentHash;
   
   public Source2GeneratedMapping() {
-    this(HashMultimap.<URI, URI>create(), HashMultimap.<URI, URI>create(), CollectionLiterals.<URI, String>newHashMap());
+    this(new PersistentHashMap<URI, Set<URI>>(), new PersistentHashMap<URI, Set<URI>>(), new PersistentHashMap<URI, String>(), new PersistentHashMap<URI, String>());
+  }
+  
+  public Source2GeneratedMapping(final Multimap<URI, URI> source2generated, final Multimap<URI, URI> generated2source, final Map<URI, String> generated2OutputConfigName) {
+    this(new PersistentHashMap<URI, Set<URI>>(), new PersistentHashMap<URI, Set<URI>>(), new PersistentHashMap<URI, String>(generated2OutputConfigName), new PersistentHashMap<URI, String>());
+    final BiConsumer<URI, Collection<URI>> _function = (URI key, Collection<URI> value) -> {
+      this.source2generated.put(key, ImmutableSet.<URI>copyOf(value));
+    };
+    source2generated.asMap().forEach(_function);
+    final BiConsumer<URI, Collection<URI>> _function_1 = (URI key, Collection<URI> value) -> {
+      this.generated2source.put(key, ImmutableSet.<URI>copyOf(value));
+    };
+    generated2source.asMap().forEach(_function_1);
+  }
+  
+  private Source2GeneratedMapping(final PersistentHashMap<URI, Set<URI>> source2generated, final PersistentHashMap<URI, Set<URI>> generated2source, final PersistentHashMap<URI, String> generated2OutputConfigName, final PersistentHashMap<URI, String> generated2ContentHash) {
+    this.source2generated = source2generated;
+    this.generated2source = generated2source;
+    this.generated2OutputConfigName = generated2OutputConfigName;
+    this.generated2ContentHash = generated2ContentHash;
   }
   
   public Source2GeneratedMapping copy() {
-    HashMultimap<URI, URI> _create = HashMultimap.<URI, URI>create(this.source2generated);
-    HashMultimap<URI, URI> _create_1 = HashMultimap.<URI, URI>create(this.generated2source);
-    HashMap<URI, String> _hashMap = new HashMap<URI, String>(this.generated2OutputConfigName);
-    return new Source2GeneratedMapping(_create, _create_1, _hashMap);
+    synchronized (this.generated2ContentHash) {
+      PersistentHashMap<URI, Set<URI>> _copy = this.source2generated.copy();
+      PersistentHashMap<URI, Set<URI>> _copy_1 = this.generated2source.copy();
+      PersistentHashMap<URI, String> _copy_2 = this.generated2OutputConfigName.copy();
+      PersistentHashMap<URI, String> _copy_3 = this.generated2ContentHash.copy();
+      return new Source2GeneratedMapping(_copy, _copy_1, _copy_2, _copy_3);
+    }
   }
   
   public void addSource2Generated(final URI source, final URI generated) {
@@ -56,44 +89,102 @@ public class Source2GeneratedMapping implements Externalizable {
   }
   
   public void addSource2Generated(final URI source, final URI generated, final String outputCfgName) {
-    this.source2generated.put(source, generated);
-    this.generated2source.put(generated, source);
+    Source2GeneratedMapping.addValue(this.source2generated, source, generated);
+    Source2GeneratedMapping.addValue(this.generated2source, generated, source);
     this.generated2OutputConfigName.put(generated, outputCfgName);
   }
   
   public void removeSource2Generated(final URI source, final URI generated) {
-    this.source2generated.remove(source, generated);
-    this.generated2source.remove(generated, source);
+    Source2GeneratedMapping.removeValue(this.source2generated, source, generated);
+    Source2GeneratedMapping.removeValue(this.generated2source, generated, source);
   }
   
   public Set<URI> deleteSource(final URI source) {
-    Collection<URI> _removeAll = this.source2generated.removeAll(source);
-    final HashSet<URI> generated = new HashSet<URI>(_removeAll);
+    Set<URI> _elvis = null;
+    Set<URI> _remove = this.source2generated.remove(source);
+    if (_remove != null) {
+      _elvis = _remove;
+    } else {
+      Set<URI> _emptySet = CollectionLiterals.<URI>emptySet();
+      _elvis = _emptySet;
+    }
+    final HashSet<URI> generated = new HashSet<URI>(_elvis);
     final Consumer<URI> _function = (URI it) -> {
-      this.generated2source.remove(it, source);
+      Source2GeneratedMapping.removeValue(this.generated2source, it, source);
     };
     generated.forEach(_function);
     return generated;
   }
   
   public void deleteGenerated(final URI generated) {
+    Set<URI> _elvis = null;
+    Set<URI> _remove = this.generated2source.remove(generated);
+    if (_remove != null) {
+      _elvis = _remove;
+    } else {
+      Set<URI> _emptySet = CollectionLiterals.<URI>emptySet();
+      _elvis = _emptySet;
+    }
     final Consumer<URI> _function = (URI it) -> {
-      this.source2generated.remove(it, generated);
+      Source2GeneratedMapping.removeValue(this.source2generated, it, generated);
     };
-    this.generated2source.removeAll(generated).forEach(_function);
+    _elvis.forEach(_function);
     this.generated2OutputConfigName.remove(generated);
+    synchronized (this.generated2ContentHash) {
+      this.generated2ContentHash.remove(generated);
+    }
   }
   
   public String getOutputConfigName(final URI generated) {
     return this.generated2OutputConfigName.get(generated);
   }
   
+  /**
+   * @since 2.20
+   */
+  @Override
+  public String getContentHash(final URI generated) {
+    synchronized (this.generated2ContentHash) {
+      return this.generated2ContentHash.get(generated);
+    }
+  }
+  
+  /**
+   * @since 2.20
+   */
+  @Override
+  public void setContentHash(final URI generated, final String contentHash) {
+    synchronized (this.generated2ContentHash) {
+      if ((contentHash == null)) {
+        this.generated2ContentHash.remove(generated);
+      } else {
+        this.generated2ContentHash.put(generated, contentHash);
+      }
+    }
+  }
+  
   public List<URI> getGenerated(final URI source) {
-    return Lists.<URI>newArrayList(this.source2generated.get(source));
+    Set<URI> _elvis = null;
+    Set<URI> _get = this.source2generated.get(source);
+    if (_get != null) {
+      _elvis = _get;
+    } else {
+      Set<URI> _emptySet = CollectionLiterals.<URI>emptySet();
+      _elvis = _emptySet;
+    }
+    return Lists.<URI>newArrayList(_elvis);
   }
   
   public List<URI> getSource(final URI generated) {
-    return Lists.<URI>newArrayList(this.generated2source.get(generated));
+    Set<URI> _elvis = null;
+    Set<URI> _get = this.generated2source.get(generated);
+    if (_get != null) {
+      _elvis = _get;
+    } else {
+      Set<URI> _emptySet = CollectionLiterals.<URI>emptySet();
+      _elvis = _emptySet;
+    }
+    return Lists.<URI>newArrayList(_elvis);
   }
   
   public List<URI> getAllGenerated() {
@@ -122,9 +213,9 @@ public class Source2GeneratedMapping implements Externalizable {
   
   @Override
   public void writeExternal(final ObjectOutput out) throws IOException {
-    final Set<Map.Entry<URI, Collection<URI>>> entries = this.source2generated.asMap().entrySet();
+    final Set<Map.Entry<URI, Set<URI>>> entries = this.source2generated.entrySet();
     out.writeInt(entries.size());
-    final Consumer<Map.Entry<URI, Collection<URI>>> _function = (Map.Entry<URI, Collection<URI>> it) -> {
+    final Consumer<Map.Entry<URI, Set<URI>>> _function = (Map.Entry<URI, Set<URI>> it) -> {
       try {
         out.writeUTF(it.getKey().toString());
         out.writeInt(it.getValue().size());
@@ -151,10 +242,32 @@ public class Source2GeneratedMapping implements Externalizable {
     entries.forEach(_function);
   }
   
-  public Source2GeneratedMapping(final Multimap<URI, URI> source2generated, final Multimap<URI, URI> generated2source, final Map<URI, String> generated2OutputConfigName) {
-    super();
-    this.source2generated = source2generated;
-    this.generated2source = generated2source;
-    this.generated2OutputConfigName = generated2OutputConfigName;
+  private static void addValue(final Map<URI, Set<URI>> map, final URI key, final URI value) {
+    final Set<URI> values = map.get(key);
+    if ((values == null)) {
+      map.put(key, ImmutableSet.<URI>of(value));
+    } else {
+      boolean _contains = values.contains(value);
+      boolean _not = (!_contains);
+      if (_not) {
+        map.put(key, ImmutableSet.<URI>builder().addAll(values).add(value).build());
+      }
+    }
+  }
+  
+  private static void removeValue(final Map<URI, Set<URI>> map, final URI key, final URI value) {
+    final Set<URI> values = map.get(key);
+    if (((values != null) && values.contains(value))) {
+      int _size = values.size();
+      boolean _equals = (_size == 1);
+      if (_equals) {
+        map.remove(key);
+      } else {
+        final Function1<URI, Boolean> _function = (URI it) -> {
+          return Boolean.valueOf((!Objects.equal(it, value)));
+        };
+        map.put(key, ImmutableSet.<URI>copyOf(IterableExtensions.<URI>filter(values, _function)));
+      }
+    }
   }
 }
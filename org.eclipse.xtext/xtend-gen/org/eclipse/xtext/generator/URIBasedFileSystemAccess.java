@@ -7,6 +7,7 @@
  */
 package org.eclipse.xtext.generator;
 
+import com.google.common.base.Objects;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.CharStreams;
 import java.io.ByteArrayInputStream;
@@ -16,11 +17,14 @@ import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.URIConverter;
 import org.eclipse.xtend.lib.annotations.Accessors;
 import org.eclipse.xtext.generator.AbstractFileSystemAccess2;
 import org.eclipse.xtext.generator.IFilePostProcessor;
+import org.eclipse.xtext.generator.WriteBehindQueue;
 import org.eclipse.xtext.generator.trace.AbstractTraceRegion;
 import org.eclipse.xtext.generator.trace.ITraceRegionProvider;
 import org.eclipse.xtext.generator.trace.TraceFileNameProvider;
@@ -53,6 +57,25 @@ public class URIBasedFileSystemAccess extends AbstractFileSystemAccess2 {
     public abstract InputStream beforeRead(final URI changed, final InputStream in);
   }
   
+  /**
+   * Remembers the content hashes of generated files, so that the previous content doesn't need
+   * to be read in order to detect unchanged files.
+   * 
+   * @since 2.20
+   */
+  public interface ContentHashStore {
+    /**
+     * @return the hash of the last content that was written to the given URI or <code>null</code> if unknown.
+     */
+    public abstract String getContentHash(final URI generated);
+    
+    /**
+     * Remembers the hash of the content that was written to the given URI. A <code>null</code> hash
+     * forgets the previous one, e.g. while the file is being written.
+     */
+    public abstract void setContentHash(final URI generated, final String contentHash);
+  }
+  
   @Accessors
   private URIConverter converter;
   
@@ -86,6 +109,33 @@ public class URIBasedFileSystemAccess extends AbstractFileSystemAccess2 {
     return $1;
   });
   
+  /**
+   * If enabled, files whose content is byte-identical to the existing file are not written again,
+   * which leaves their time stamps untouched.
+   * 
+   * @since 2.20
+   */
+  @Accessors
+  private boolean skipUnchangedFiles = false;
+  
+  /**
+   * Content hashes used to detect unchanged files, may be <code>null</code>. If no hash is known,
+   * the existing file is read and compared.
+   * 
+   * @since 2.20
+   */
+  @Accessors
+  private URIBasedFileSystemAccess.ContentHashStore contentHashStore;
+  
+  /**
+   * If set, files are written asynchronously by this queue. Clients are responsible for
+   * {@link WriteBehindQueue#flush() flushing} the queue.
+   * 
+   * @since 2.20
+   */
+  @Accessors
+  private WriteBehindQueue writeBehindQueue;
+  
   @Override
   public void setPostProcessor(final IFilePostProcessor filePostProcessor) {
     super.setPostProcessor(filePostProcessor);
@@ -114,6 +164,9 @@ public class URIBasedFileSystemAccess extends AbstractFileSystemAccess2 {
   public void generateFile(final String fileName, final String outputCfgName, final CharSequence contents) {
     try {
       final URI uri = this.getURI(fileName, outputCfgName);
+      if (this.writeBehindQueue!=null) {
+        this.writeBehindQueue.waitFor(uri);
+      }
       if (((!this.getOutputConfig(outputCfgName).isOverrideExistingResources()) && this.converter.exists(uri, CollectionLiterals.<Object, Object>emptyMap()))) {
         return;
       }
@@ -155,10 +208,65 @@ public class URIBasedFileSystemAccess extends AbstractFileSystemAccess2 {
   public void generateFile(final String fileName, final String outputCfgName, final InputStream content) throws RuntimeIOException {
     try {
       final URI uri = this.getURI(fileName, outputCfgName);
+      if (((!this.skipUnchangedFiles) && (this.writeBehindQueue == null))) {
+        final OutputStream out = this.converter.createOutputStream(uri);
+        try {
+          final InputStream processedContent = this.beforeWrite.beforeWrite(uri, outputCfgName, content);
+          ByteStreams.copy(processedContent, out);
+        } finally {
+          out.close();
+        }
+        return;
+      }
+      final byte[] bytes = ByteStreams.toByteArray(this.beforeWrite.beforeWrite(uri, outputCfgName, content));
+      String _xifexpression = null;
+      if (this.skipUnchangedFiles) {
+        _xifexpression = this.computeContentHash(bytes);
+      }
+      final String contentHash = _xifexpression;
+      if (this.skipUnchangedFiles) {
+        boolean _hasChanged = this.hasChanged(uri, bytes, contentHash);
+        boolean _not = (!_hasChanged);
+        if (_not) {
+          if (this.contentHashStore!=null) {
+            this.contentHashStore.setContentHash(uri, contentHash);
+          }
+          return;
+        }
+        if (this.contentHashStore!=null) {
+          this.contentHashStore.setContentHash(uri, null);
+        }
+      }
+      if ((this.writeBehindQueue != null)) {
+        final Runnable _function = () -> {
+          this.writeFile(uri, bytes, contentHash);
+        };
+        this.writeBehindQueue.submit(uri, _function);
+      } else {
+        this.writeFile(uri, bytes, contentHash);
+      }
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  private void writeFile(final URI uri, final byte[] bytes, final String contentHash) {
+    this.writeFile(uri, bytes);
+    if ((contentHash != null)) {
+      if (this.contentHashStore!=null) {
+        this.contentHashStore.setContentHash(uri, contentHash);
+      }
+    }
+  }
+  
+  /**
+   * @since 2.20
+   */
+  protected void writeFile(final URI uri, final byte[] bytes) {
+    try {
       final OutputStream out = this.converter.createOutputStream(uri);
       try {
-        final InputStream processedContent = this.beforeWrite.beforeWrite(uri, outputCfgName, content);
-        ByteStreams.copy(processedContent, out);
+        out.write(bytes);
       } finally {
         out.close();
       }
@@ -167,11 +275,68 @@ public class URIBasedFileSystemAccess extends AbstractFileSystemAccess2 {
     }
   }
   
+  /**
+   * Checks whether the given content with the given {@link #computeContentHash(byte[]) hash} differs from the
+   * content that is stored at the given URI. The {@link #contentHashStore} is not updated.
+   * 
+   * @since 2.20
+   */
+  protected boolean hasChanged(final URI uri, final byte[] bytes, final String contentHash) {
+    try {
+      if (this.writeBehindQueue!=null) {
+        this.writeBehindQueue.waitFor(uri);
+      }
+      String _contentHash = null;
+      if (this.contentHashStore!=null) {
+        _contentHash=this.contentHashStore.getContentHash(uri);
+      }
+      final String previousHash = _contentHash;
+      boolean _exists = this.converter.exists(uri, CollectionLiterals.<Object, Object>emptyMap());
+      boolean _not = (!_exists);
+      if (_not) {
+        return true;
+      }
+      if ((previousHash != null)) {
+        return (!Objects.equal(previousHash, contentHash));
+      }
+      final InputStream previousContent = this.converter.createInputStream(uri);
+      try {
+        boolean _equals = Arrays.equals(bytes, ByteStreams.toByteArray(previousContent));
+        return (!_equals);
+      } finally {
+        previousContent.close();
+      }
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
+  /**
+   * @since 2.20
+   */
+  protected String computeContentHash(final byte[] bytes) {
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+      int _length = digest.length;
+      int _multiply = (_length * 2);
+      final StringBuilder result = new StringBuilder(_multiply);
+      for (final byte b : digest) {
+        result.append(Integer.toHexString(((b & 0xff) | 0x100)).substring(1));
+      }
+      return result.toString();
+    } catch (Throwable _e) {
+      throw Exceptions.sneakyThrow(_e);
+    }
+  }
+  
   @Override
   public InputStream readBinaryFile(final String fileName, final String outputCfgName) throws RuntimeIOException {
     try {
       try {
         final URI uri = this.getURI(fileName, outputCfgName);
+        if (this.writeBehindQueue!=null) {
+          this.writeBehindQueue.waitFor(uri);
+        }
         final InputStream input = this.converter.createInputStream(uri);
         return this.beforeRead.beforeRead(uri, input);
       } catch (final Throwable _t) {
@@ -280,4 +445,31 @@ public class URIBasedFileSystemAccess extends AbstractFileSystemAccess2 {
   public void setBeforeRead(final URIBasedFileSystemAccess.BeforeRead beforeRead) {
     this.beforeRead = beforeRead;
   }
+  
+  @Pure
+  public boolean isSkipUnchangedFiles() {
+    return this.skipUnchangedFiles;
+  }
+  
+  public void setSkipUnchangedFiles(final boolean skipUnchangedFiles) {
+    this.skipUnchangedFiles = skipUnchangedFiles;
+  }
+  
+  @Pure
+  public URIBasedFileSystemAccess.ContentHashStore getContentHashStore() {
+    return this.contentHashStore;
+  }
+  
+  public void setContentHashStore(final URIBasedFileSystemAccess.ContentHashStore contentHashStore) {
+    this.contentHashStore = contentHashStore;
+  }
+  
+  @Pure
+  public WriteBehindQueue getWriteBehindQueue() {
+    return this.writeBehindQueue;
+  }
+  
+  public void setWriteBehindQueue(final WriteBehindQueue writeBehindQueue) {
+    this.writeBehindQueue = writeBehindQueue;
+  }
 }
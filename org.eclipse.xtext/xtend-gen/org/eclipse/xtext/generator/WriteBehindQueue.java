@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2019 TypeFox GmbH (http://www.typefox.io) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.xtext.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtext.util.RuntimeIOException;
+import org.eclipse.xtext.xbase.lib.CollectionLiterals;
+import org.eclipse.xtext.xbase.lib.Exceptions;
+import org.eclipse.xtext.xbase.lib.IterableExtensions;
+
+/**
+ * Performs writes of generated files asynchronously, so that generators don't have to wait for the disk.
+ * 
+ * The number of pending writes is bounded, i.e. {@link #submit(URI, Runnable)} blocks the generating thread
+ * as soon as the capacity is exhausted. Writes to the same URI are performed in submission order.
+ * 
+ * Clients have to {@link #flush() flush} the queue before the generated files are consumed.
+ * 
+ * @since 2.20
+ */
+@SuppressWarnings("all")
+public class WriteBehindQueue {
+  public static final int DEFAULT_CAPACITY = 64;
+  
+  private final Executor executor;
+  
+  private final Semaphore permits;
+  
+  private final Map<URI, CompletableFuture<Void>> pending = new ConcurrentHashMap<URI, CompletableFuture<Void>>();
+  
+  private final ArrayList<Throwable> errors = CollectionLiterals.<Throwable>newArrayList();
+  
+  public WriteBehindQueue(final Executor executor) {
+    this(executor, WriteBehindQueue.DEFAULT_CAPACITY);
+  }
+  
+  public WriteBehindQueue(final Executor executor, final int capacity) {
+    this.executor = executor;
+    Semaphore _semaphore = new Semaphore(capacity);
+    this.permits = _semaphore;
+  }
+  
+  /**
+   * Schedules the given write. Blocks if the maximum number of pending writes is reached.
+   */
+  public void submit(final URI uri, final Runnable write) {
+    try {
+      this.permits.acquire();
+    } catch (final Throwable _t) {
+      if (_t instanceof InterruptedException) {
+        throw new OperationCanceledException();
+      } else {
+        throw Exceptions.sneakyThrow(_t);
+      }
+    }
+    CompletableFuture<Void> _xtrycatchfinallyexpression = null;
+    try {
+      final BiFunction<URI, CompletableFuture<Void>, CompletableFuture<Void>> _function = (URI key, CompletableFuture<Void> previous) -> {
+        CompletableFuture<Void> _xifexpression = null;
+        if ((previous == null)) {
+          _xifexpression = CompletableFuture.runAsync(write, this.executor);
+        } else {
+          final Function<Throwable, Void> _function_1 = (Throwable it) -> {
+            return null;
+          };
+          _xifexpression = previous.exceptionally(_function_1).thenRunAsync(write, this.executor);
+        }
+        final CompletableFuture<Void> scheduled = _xifexpression;
+        final BiConsumer<Void, Throwable> _function_2 = (Void result, Throwable error) -> {
+          this.permits.release();
+          if ((error != null)) {
+            synchronized (this.errors) {
+              Throwable _xifexpression_1 = null;
+              if ((error instanceof CompletionException)) {
+                _xifexpression_1 = ((CompletionException)error).getCause();
+              } else {
+                _xifexpression_1 = error;
+              }
+              this.errors.add(_xifexpression_1);
+            }
+          }
+        };
+        return scheduled.whenComplete(_function_2);
+      };
+      _xtrycatchfinallyexpression = this.pending.compute(uri, _function);
+    } catch (final Throwable _t) {
+      if (_t instanceof RuntimeException) {
+        final RuntimeException e = (RuntimeException)_t;
+        this.permits.release();
+        throw e;
+      } else {
+        throw Exceptions.sneakyThrow(_t);
+      }
+    }
+    final CompletableFuture<Void> future = _xtrycatchfinallyexpression;
+    final BiConsumer<Void, Throwable> _function = (Void $0, Throwable $1) -> {
+      this.pending.remove(uri, future);
+    };
+    future.whenComplete(_function);
+  }
+  
+  /**
+   * Waits until all pending writes to the given URI have been performed.
+   */
+  public void waitFor(final URI uri) {
+    final CompletableFuture<Void> future = this.pending.get(uri);
+    if ((future != null)) {
+      this.await(future);
+    }
+  }
+  
+  /**
+   * Waits until all pending writes have been performed.
+   * 
+   * @throws RuntimeIOException if one of the writes failed.
+   */
+  public void flush() {
+    List<CompletableFuture<Void>> _list = IterableExtensions.<CompletableFuture<Void>>toList(this.pending.values());
+    for (final CompletableFuture<Void> future : _list) {
+      this.await(future);
+    }
+    synchronized (this.errors) {
+      boolean _isEmpty = this.errors.isEmpty();
+      boolean _not = (!_isEmpty);
+      if (_not) {
+        final Throwable first = IterableExtensions.<Throwable>head(this.errors);
+        this.errors.clear();
+        boolean _matched = false;
+        if (first instanceof RuntimeException) {
+          _matched=true;
+          throw ((RuntimeException)first);
+        }
+        if (!_matched) {
+          if (first instanceof Error) {
+            _matched=true;
+            throw ((Error)first);
+          }
+        }
+        throw new RuntimeIOException(first);
+      }
+    }
+  }
+  
+  public boolean isEmpty() {
+    return this.pending.isEmpty();
+  }
+  
+  private void await(final CompletableFuture<Void> future) {
+    try {
+      future.join();
+    } catch (final Throwable _t) {
+      if (_t instanceof RuntimeException) {
+      } else {
+        throw Exceptions.sneakyThrow(_t);
+      }
+    }
+  }
+}
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2015, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2017, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,6 +17,7 @@ import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.IResourceDescriptions;
 import org.eclipse.xtext.resource.containers.LiveShadowedChunkedContainer;
 import org.eclipse.xtext.resource.impl.ChunkedResourceDescriptions;
+import org.eclipse.xtext.resource.impl.ExportedNamesIndex;
 import org.eclipse.xtext.resource.impl.LiveShadowedChunkedResourceDescriptions;
 import org.eclipse.xtext.resource.impl.ProjectDescription;
 import org.eclipse.xtext.resource.impl.ResourceDescriptionsBasedContainer;
@@ -69,6 +70,31 @@ public class ProjectDescriptionBasedContainerManager implements IContainer.Manag
     return allContainers;
   }
   
+  /**
+   * Creates the container of the given project if it is a dependency of the project of the resource set, and
+   * returns <code>null</code> otherwise. The containers of the dependencies share the
+   * {@link ExportedNamesIndex index of their exported names}, so a name is looked up once instead of once per
+   * dependency.
+   * 
+   * @since 2.20
+   */
+  protected IContainer createDependencyContainer(final ChunkedResourceDescriptions chunkedResourceDescriptions, final String projectName) {
+    final ResourceSet resourceSet = chunkedResourceDescriptions.getResourceSet();
+    if ((resourceSet == null)) {
+      return null;
+    }
+    final ProjectDescription projectDescription = ProjectDescription.findInEmfObject(resourceSet);
+    if ((projectDescription == null)) {
+      return null;
+    }
+    final int position = projectDescription.getDependencies().indexOf(projectName);
+    if ((position < 0)) {
+      return null;
+    }
+    final ExportedNamesIndex index = chunkedResourceDescriptions.getExportedNamesIndex(projectDescription.getName(), projectDescription.getDependencies());
+    return index.createContainer(position);
+  }
+  
   protected ChunkedResourceDescriptions getChunkedResourceDescriptions(final IResourceDescriptions resourceDescriptions) {
     ChunkedResourceDescriptions _switchResult = null;
     boolean _matched = false;
@@ -93,16 +119,24 @@ public class ProjectDescriptionBasedContainerManager implements IContainer.Manag
     if ((resourceDescriptions instanceof LiveShadowedChunkedResourceDescriptions)) {
       _xifexpression = new LiveShadowedChunkedContainer(((LiveShadowedChunkedResourceDescriptions)resourceDescriptions), projectName);
     } else {
-      ResourceDescriptionsData _elvis = null;
-      ResourceDescriptionsData _container = chunkedResourceDescriptions.getContainer(projectName);
-      if (_container != null) {
-        _elvis = _container;
+      IContainer _elvis = null;
+      IContainer _createDependencyContainer = this.createDependencyContainer(chunkedResourceDescriptions, projectName);
+      if (_createDependencyContainer != null) {
+        _elvis = _createDependencyContainer;
       } else {
-        Set<IResourceDescription> _emptySet = CollectionLiterals.<IResourceDescription>emptySet();
-        ResourceDescriptionsData _resourceDescriptionsData = new ResourceDescriptionsData(_emptySet);
-        _elvis = _resourceDescriptionsData;
+        ResourceDescriptionsData _elvis_1 = null;
+        ResourceDescriptionsData _container = chunkedResourceDescriptions.getContainer(projectName);
+        if (_container != null) {
+          _elvis_1 = _container;
+        } else {
+          Set<IResourceDescription> _emptySet = CollectionLiterals.<IResourceDescription>emptySet();
+          ResourceDescriptionsData _resourceDescriptionsData = new ResourceDescriptionsData(_emptySet);
+          _elvis_1 = _resourceDescriptionsData;
+        }
+        ResourceDescriptionsBasedContainer _resourceDescriptionsBasedContainer = new ResourceDescriptionsBasedContainer(_elvis_1);
+        _elvis = _resourceDescriptionsBasedContainer;
       }
-      _xifexpression = new ResourceDescriptionsBasedContainer(_elvis);
+      _xifexpression = _elvis;
     }
     return _xifexpression;
   }
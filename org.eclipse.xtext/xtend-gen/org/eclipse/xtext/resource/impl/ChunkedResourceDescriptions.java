@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2015, 2016 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2015, 2016, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,11 +26,13 @@ import org.eclipse.emf.common.notify.Notifier;
 import org.eclipse.emf.common.notify.impl.AdapterImpl;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.xtext.naming.QualifiedNameTable;
 import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.IResourceDescriptions;
 import org.eclipse.xtext.resource.ISelectable;
 import org.eclipse.xtext.resource.containers.ProjectDescriptionBasedContainerManager;
 import org.eclipse.xtext.resource.impl.AbstractCompoundSelectable;
+import org.eclipse.xtext.resource.impl.ExportedNamesIndex;
 import org.eclipse.xtext.resource.impl.ResourceDescriptionsData;
 import org.eclipse.xtext.resource.persistence.SerializableResourceDescription;
 import org.eclipse.xtext.util.internal.EmfAdaptable;
@@ -38,6 +40,7 @@ import org.eclipse.xtext.xbase.lib.Exceptions;
 import org.eclipse.xtext.xbase.lib.ExclusiveRange;
 import org.eclipse.xtext.xbase.lib.Functions.Function1;
 import org.eclipse.xtext.xbase.lib.IterableExtensions;
+import org.eclipse.xtext.xbase.lib.ListExtensions;
 
 /**
  * A IResourceDescriptions implementation that holds its resource description in chunks, each identified by a string.
@@ -75,6 +78,8 @@ public class ChunkedResourceDescriptions extends AbstractCompoundSelectable impl
   
   protected ResourceSet resourceSet;
   
+  private final Map<String, ExportedNamesIndex> exportedNamesIndexes = new ConcurrentHashMap<String, ExportedNamesIndex>();
+  
   public ChunkedResourceDescriptions() {
   }
   
@@ -169,9 +174,39 @@ public class ChunkedResourceDescriptions extends AbstractCompoundSelectable impl
     return this.chunk2resourceDescriptions.get(containerHandle);
   }
   
+  /**
+   * Returns the index of the names that are exported by the chunks with the given names. The index is cached with
+   * the given key, e.g. the name of the project whose dependencies are indexed, and is
+   * {@link ExportedNamesIndex#update(List) updated} when one of the chunks changes.
+   * 
+   * @since 2.20
+   */
+  public ExportedNamesIndex getExportedNamesIndex(final String key, final List<String> chunkNames) {
+    final Function1<String, ResourceDescriptionsData> _function = (String it) -> {
+      return this.getContainer(it);
+    };
+    final List<ResourceDescriptionsData> chunks = IterableExtensions.<ResourceDescriptionsData>toList(ListExtensions.<String, ResourceDescriptionsData>map(chunkNames, _function));
+    ExportedNamesIndex index = this.exportedNamesIndexes.get(key);
+    if ((index == null)) {
+      ExportedNamesIndex _exportedNamesIndex = new ExportedNamesIndex(chunks);
+      index = _exportedNamesIndex;
+      this.exportedNamesIndexes.put(key, index);
+    } else {
+      boolean _isIndexOf = index.isIndexOf(chunks);
+      boolean _not = (!_isIndexOf);
+      if (_not) {
+        index.supersede();
+        index = index.update(chunks);
+        this.exportedNamesIndexes.put(key, index);
+      }
+    }
+    return index;
+  }
+  
   @Override
   public void readExternal(final ObjectInput in) throws IOException, ClassNotFoundException {
     final int numChunks = in.readInt();
+    final QualifiedNameTable names = new QualifiedNameTable();
     ExclusiveRange _doubleDotLessThan = new ExclusiveRange(0, numChunks, true);
     for (final Integer i : _doubleDotLessThan) {
       {
@@ -180,8 +215,14 @@ public class ChunkedResourceDescriptions extends AbstractCompoundSelectable impl
         final ArrayList<IResourceDescription> descriptions = new ArrayList<IResourceDescription>(numDescriptions);
         ExclusiveRange _doubleDotLessThan_1 = new ExclusiveRange(0, numDescriptions, true);
         for (final Integer j : _doubleDotLessThan_1) {
-          Object _readObject = in.readObject();
-          descriptions.add(((IResourceDescription) _readObject));
+          {
+            Object _readObject = in.readObject();
+            final IResourceDescription description = ((IResourceDescription) _readObject);
+            if ((description instanceof SerializableResourceDescription)) {
+              ((SerializableResourceDescription)description).canonicalizeNames(names);
+            }
+            descriptions.add(description);
+          }
         }
         ResourceDescriptionsData _resourceDescriptionsData = new ResourceDescriptionsData(descriptions);
         this.chunk2resourceDescriptions.put(chunkName, _resourceDescriptionsData);
@@ -1,5 +1,5 @@
 /**
- * Copyright (c) 2014, 2017 itemis AG (http://www.itemis.eu) and others.
+ * Copyright (c) 2014, 2017, 2019 itemis AG (http://www.itemis.eu) and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,12 +15,15 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.xtend.lib.annotations.AccessorType;
 import org.eclipse.xtend.lib.annotations.Accessors;
 import org.eclipse.xtext.naming.QualifiedName;
+import org.eclipse.xtext.naming.QualifiedNameTable;
 import org.eclipse.xtext.resource.IEObjectDescription;
 import org.eclipse.xtext.resource.IReferenceDescription;
 import org.eclipse.xtext.resource.IResourceDescription;
 import org.eclipse.xtext.resource.impl.AbstractResourceDescription;
+import org.eclipse.xtext.resource.impl.DependencyFilter;
 import org.eclipse.xtext.resource.persistence.SerializableEObjectDescription;
 import org.eclipse.xtext.resource.persistence.SerializableEObjectDescriptionProvider;
 import org.eclipse.xtext.resource.persistence.SerializableReferenceDescription;
@@ -41,7 +44,7 @@ import org.eclipse.xtext.xbase.lib.Pure;
  */
 @Accessors
 @SuppressWarnings("all")
-public class SerializableResourceDescription extends AbstractResourceDescription implements Externalizable {
+public class SerializableResourceDescription extends AbstractResourceDescription implements Externalizable, DependencyFilter.Provider {
   public static SerializableResourceDescription createCopy(final IResourceDescription desc) {
     SerializableResourceDescription _serializableResourceDescription = new SerializableResourceDescription();
     final Procedure1<SerializableResourceDescription> _function = (SerializableResourceDescription it) -> {
@@ -99,6 +102,9 @@ public class SerializableResourceDescription extends AbstractResourceDescription
   
   private URI uRI;
   
+  @Accessors(AccessorType.NONE)
+  private transient DependencyFilter dependencyFilter;
+  
   public void updateResourceURI(final URI uri) {
     for (final SerializableReferenceDescription ref : this.references) {
       ref.updateResourceURI(uri, this.uRI);
@@ -107,6 +113,53 @@ public class SerializableResourceDescription extends AbstractResourceDescription
       desc.updateResourceURI(uri);
     }
     this.uRI = uri;
+    this.dependencyFilter = null;
+  }
+  
+  public void setReferences(final List<SerializableReferenceDescription> references) {
+    this.references = references;
+    this.dependencyFilter = null;
+  }
+  
+  public void setImportedNames(final List<QualifiedName> importedNames) {
+    this.importedNames = importedNames;
+    this.dependencyFilter = null;
+  }
+  
+  /**
+   * The filter is computed on first access, e.g. when the description is checked for the first time whether it's
+   * affected by a change.
+   * 
+   * @since 2.20
+   */
+  @Override
+  public DependencyFilter getDependencyFilter() {
+    DependencyFilter result = this.dependencyFilter;
+    if ((result == null)) {
+      result = DependencyFilter.create(this);
+      this.dependencyFilter = result;
+    }
+    return result;
+  }
+  
+  /**
+   * Replaces the names of the exported objects and the imported names with their canonical instances, so equal
+   * names of different descriptions share their memory.
+   * 
+   * @since 2.20
+   */
+  public void canonicalizeNames(final QualifiedNameTable table) {
+    for (final SerializableEObjectDescription desc : this.descriptions) {
+      if ((desc.qualifiedName != null)) {
+        desc.qualifiedName = table.canonicalize(desc.qualifiedName);
+      }
+    }
+    int _size = this.importedNames.size();
+    final ArrayList<QualifiedName> names = new ArrayList<QualifiedName>(_size);
+    for (final QualifiedName name : this.importedNames) {
+      names.add(table.canonicalize(name));
+    }
+    this.importedNames = names;
   }
   
   @Override
@@ -181,14 +234,6 @@ public class SerializableResourceDescription extends AbstractResourceDescription
     return this.references;
   }
   
-  public void setReferences(final List<SerializableReferenceDescription> references) {
-    this.references = references;
-  }
-  
-  public void setImportedNames(final List<QualifiedName> importedNames) {
-    this.importedNames = importedNames;
-  }
-  
   @Pure
   public URI getURI() {
     return this.uRI;